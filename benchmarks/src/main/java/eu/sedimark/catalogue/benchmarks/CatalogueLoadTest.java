@@ -0,0 +1,628 @@
+/*
+ * SEDIMARK Catalogue Server
+ *
+ * Copyright (C) 2025 Tarek Elsaleh
+ *
+ * This program is licensed under the European Union Public License (EUPL) v1.2.
+ * You may obtain a copy of the License at:
+ * https://joinup.ec.europa.eu/collection/eupl/eupl-text-eupl-12
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.sedimark.catalogue.benchmarks;
+
+import eu.sedimark.catalogue.CatalogueServerLauncher;
+import eu.sedimark.catalogue.utils.ArgumentsHelper;
+import eu.sedimark.catalogue.utils.ArgumentsHelper.Arguments;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.HistogramLogWriter;
+import org.HdrHistogram.Recorder;
+import org.apache.jena.fuseki.main.FusekiServer;
+import org.apache.jena.fuseki.server.DataAccessPoint;
+import org.apache.jena.fuseki.system.FusekiLogging;
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.riot.Lang;
+import org.apache.jena.riot.RDFDataMgr;
+import org.apache.jena.riot.RDFFormat;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Stream;
+
+/**
+ * End-to-end load generator for the catalogue HTTP stack.
+ *
+ * By default it starts CatalogueServerLauncher in-process on a random port with
+ * a temporary TDB2 directory, preloads synthetic offerings and then drives a
+ * weighted mix of publish, get, list, delete, SPARQL search and query UI
+ * requests from many client threads. Latencies are recorded in HDR histograms
+ * (corrected for coordinated omission when a target rate is set) and written as
+ * a JSON summary plus one .hlog file per operation, so runs can be compared
+ * across commits.
+ */
+public class CatalogueLoadTest {
+
+    private static final String SEARCH_QUERY = """
+            PREFIX sedi: <https://w3id.org/sedimark/ontology#>
+            PREFIX dct: <http://purl.org/dc/terms/>
+            PREFIX schema: <https://schema.org/>
+            SELECT DISTINCT ?offering ?asset ?title ?publisher ?alternateName
+            WHERE {
+                GRAPH ?g {
+                    ?offering a sedi:Offering .
+                    ?offering sedi:hasAsset ?asset .
+                    ?offering dct:title ?title .
+                    ?offering sedi:isListedBy ?listing .
+                    ?listing sedi:belongsTo ?participant .
+                    ?participant schema:accountId ?publisher .
+                    ?participant schema:alternateName ?alternateName .
+                    FILTER(CONTAINS(LCASE(?title), "%s"))
+                }
+            } LIMIT 10
+            """;
+    private static final String[] SEARCH_TERMS = { "building", "parking", "water", "air", "traffic", "energy",
+            "weather", "noise" };
+
+    /**
+     * Operations of the workload mix
+     */
+    enum Operation {
+        PUBLISH, GET, LIST, DELETE, SEARCH, QUERY_UI;
+
+        String key() {
+            return name().toLowerCase().replace("_", "-");
+        }
+    }
+
+    /**
+     * Command line options
+     */
+    static class Options {
+        String url = null; // null = start an embedded server
+        int threads = 32;
+        double rate = 0; // total requests per second, 0 = as fast as possible (closed loop)
+        int durationSeconds = 60;
+        int warmupSeconds = 10;
+        int preload = 1000;
+        int churn = 200; // offerings that are repeatedly published and deleted
+        String publishFormat = "jsonld";
+        String storage = "tdb";
+        List<String> serverArgs = new ArrayList<>();
+        boolean compareThreading = false;
+        Map<Operation, Integer> mix = defaultMix();
+        String label = null;
+        Path reportDir = Paths.get("load-reports");
+
+        static Map<Operation, Integer> defaultMix() {
+            Map<Operation, Integer> mix = new EnumMap<>(Operation.class);
+            mix.put(Operation.PUBLISH, 10);
+            mix.put(Operation.GET, 45);
+            mix.put(Operation.LIST, 5);
+            mix.put(Operation.DELETE, 5);
+            mix.put(Operation.SEARCH, 25);
+            mix.put(Operation.QUERY_UI, 10);
+            return mix;
+        }
+    }
+
+    /**
+     * Results of one run
+     */
+    static class RunResult {
+        final String label;
+        final double elapsedSeconds;
+        final Map<Operation, Histogram> histograms = new EnumMap<>(Operation.class);
+        final Map<Operation, Long> errors = new EnumMap<>(Operation.class);
+        final Map<Operation, Long> notFound = new EnumMap<>(Operation.class);
+
+        RunResult(String label, double elapsedSeconds) {
+            this.label = label;
+            this.elapsedSeconds = elapsedSeconds;
+        }
+
+        long totalCount() {
+            return histograms.values().stream().mapToLong(Histogram::getTotalCount).sum();
+        }
+    }
+
+    private final Options options;
+    private final HttpClient client;
+    private final SyntheticOfferingGenerator generator = new SyntheticOfferingGenerator();
+    private final Map<Operation, Recorder> recorders = new EnumMap<>(Operation.class);
+    private final Map<Operation, AtomicLong> errorCounts = new EnumMap<>(Operation.class);
+    private final Map<Operation, AtomicLong> notFoundCounts = new EnumMap<>(Operation.class);
+    private String baseUrl;
+    private byte[][] publishPayloads;
+    private String publishContentType;
+
+    CatalogueLoadTest(Options options) {
+        this.options = options;
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+        for (Operation operation : Operation.values()) {
+            recorders.put(operation, new Recorder(TimeUnit.MINUTES.toMicros(1), 3));
+            errorCounts.put(operation, new AtomicLong());
+            notFoundCounts.put(operation, new AtomicLong());
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = parseOptions(args);
+        if (options == null) {
+            return;
+        }
+        FusekiLogging.setLogging();
+
+        List<RunResult> results = new ArrayList<>();
+        if (options.compareThreading && options.url == null) {
+            List<String> platformArgs = new ArrayList<>(options.serverArgs);
+            platformArgs.remove("--virtual-threads");
+            List<String> virtualArgs = new ArrayList<>(platformArgs);
+            virtualArgs.add("--virtual-threads");
+            results.add(runEmbedded(options, labelOf(options, "platform"), platformArgs));
+            results.add(runEmbedded(options, labelOf(options, "virtual"), virtualArgs));
+        } else if (options.url != null) {
+            CatalogueLoadTest test = new CatalogueLoadTest(options);
+            test.baseUrl = options.url.replaceAll("/+$", "");
+            results.add(test.run(labelOf(options, "remote")));
+        } else {
+            results.add(runEmbedded(options, labelOf(options, "embedded"), options.serverArgs));
+        }
+
+        for (RunResult result : results) {
+            printReport(result, System.out);
+            writeReport(options, result);
+        }
+        if (results.size() > 1) {
+            printComparison(results, System.out);
+        }
+    }
+
+    private static String labelOf(Options options, String mode) {
+        String commit = gitCommit();
+        return (options.label != null ? options.label : commit) + "-" + mode;
+    }
+
+    /**
+     * Start an in-process server, run the workload against it and shut it down
+     */
+    private static RunResult runEmbedded(Options options, String label, List<String> serverArgs) throws Exception {
+        Path tdbDirectory = null;
+        List<String> args = new ArrayList<>(serverArgs);
+        if ("tdb".equals(options.storage)) {
+            tdbDirectory = Files.createTempDirectory("catalogue-load-tdb");
+            args.add("--tdb");
+            args.add(tdbDirectory.toString());
+        } else {
+            args.add("--memory");
+        }
+        args.add("--port");
+        args.add("0");
+
+        Arguments arguments = ArgumentsHelper.parseArguments(args.toArray(new String[0]));
+        FusekiServer server = CatalogueServerLauncher.startServer(arguments);
+        try {
+            CatalogueLoadTest test = new CatalogueLoadTest(options);
+            test.baseUrl = "http://localhost:" + server.getHttpPort();
+            return test.run(label);
+        } finally {
+            DataAccessPoint dataAccessPoint = server.getDataAccessPointRegistry().get("/catalogue");
+            server.stop();
+            if (dataAccessPoint != null) {
+                dataAccessPoint.getDataService().getDataset().close();
+            }
+            if (tdbDirectory != null) {
+                deleteRecursively(tdbDirectory);
+            }
+        }
+    }
+
+    /**
+     * Preload, warm up and measure
+     */
+    RunResult run(String label) throws Exception {
+        System.out.println("Load test [" + label + "] against " + baseUrl);
+        preparePayloads();
+        preload();
+
+        int totalWeight = options.mix.values().stream().mapToInt(Integer::intValue).sum();
+        Operation[] wheel = new Operation[totalWeight];
+        int position = 0;
+        for (Map.Entry<Operation, Integer> entry : options.mix.entrySet()) {
+            for (int i = 0; i < entry.getValue(); i++) {
+                wheel[position++] = entry.getKey();
+            }
+        }
+
+        long start = System.nanoTime();
+        long measureFrom = start + TimeUnit.SECONDS.toNanos(options.warmupSeconds);
+        long end = measureFrom + TimeUnit.SECONDS.toNanos(options.durationSeconds);
+        long intervalNanos = options.rate > 0 ? (long) (options.threads * 1e9 / options.rate) : 0;
+
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < options.threads; t++) {
+            long offset = intervalNanos > 0 ? intervalNanos * t / options.threads : 0;
+            Thread worker = new Thread(() -> workerLoop(wheel, start + offset, intervalNanos, end),
+                    "load-client-" + t);
+            worker.setDaemon(true);
+            workers.add(worker);
+        }
+        workers.forEach(Thread::start);
+
+        System.out.println("Warming up for " + options.warmupSeconds + "s...");
+        sleepUntil(measureFrom);
+        recorders.values().forEach(Recorder::reset);
+        errorCounts.values().forEach(count -> count.set(0));
+        notFoundCounts.values().forEach(count -> count.set(0));
+        long measureStart = System.nanoTime();
+        System.out.println("Measuring for " + options.durationSeconds + "s with " + options.threads + " threads"
+                + (options.rate > 0 ? " at " + options.rate + " req/s" : " (closed loop)"));
+
+        Map<Operation, Histogram> accumulated = new EnumMap<>(Operation.class);
+        for (Operation operation : Operation.values()) {
+            accumulated.put(operation, new Histogram(TimeUnit.MINUTES.toMicros(1), 3));
+        }
+        while (System.nanoTime() < end) {
+            sleepUntil(Math.min(end, System.nanoTime() + TimeUnit.SECONDS.toNanos(5)));
+            long interval = 0;
+            for (Operation operation : Operation.values()) {
+                Histogram snapshot = recorders.get(operation).getIntervalHistogram();
+                accumulated.get(operation).add(snapshot);
+                interval += snapshot.getTotalCount();
+            }
+            System.out.printf("  %6.1fs  %8d requests%n", (System.nanoTime() - measureStart) / 1e9, interval);
+        }
+        for (Thread worker : workers) {
+            worker.join(TimeUnit.SECONDS.toMillis(30));
+        }
+        double elapsed = (System.nanoTime() - measureStart) / 1e9;
+
+        RunResult result = new RunResult(label, elapsed);
+        for (Operation operation : Operation.values()) {
+            Histogram histogram = accumulated.get(operation);
+            histogram.add(recorders.get(operation).getIntervalHistogram());
+            result.histograms.put(operation, histogram);
+            result.errors.put(operation, errorCounts.get(operation).get());
+            result.notFound.put(operation, notFoundCounts.get(operation).get());
+        }
+        return result;
+    }
+
+    private void workerLoop(Operation[] wheel, long firstStart, long intervalNanos, long end) {
+        long intended = firstStart;
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        while (true) {
+            long now = System.nanoTime();
+            if (intervalNanos > 0) {
+                if (intended > now) {
+                    sleepUntil(intended);
+                }
+            } else {
+                intended = now;
+            }
+            if (intended >= end) {
+                return;
+            }
+            Operation operation = wheel[random.nextInt(wheel.length)];
+            int status;
+            try {
+                status = execute(operation, random);
+            } catch (Exception e) {
+                status = -1;
+            }
+            // Latency is measured from the intended start, so a stalled server is not
+            // hidden by the client waiting (coordinated omission)
+            long latencyMicros = (System.nanoTime() - intended) / 1000;
+            recorders.get(operation).recordValue(Math.min(latencyMicros, TimeUnit.MINUTES.toMicros(1)));
+            if (status == 404) {
+                notFoundCounts.get(operation).incrementAndGet();
+            } else if (status < 200 || status >= 300) {
+                errorCounts.get(operation).incrementAndGet();
+            }
+            intended += intervalNanos;
+        }
+    }
+
+    private int execute(Operation operation, ThreadLocalRandom random) throws IOException, InterruptedException {
+        HttpRequest request = switch (operation) {
+            case PUBLISH -> {
+                int slot = random.nextInt(publishPayloads.length);
+                yield HttpRequest.newBuilder(URI.create(baseUrl + "/catalogue/manager"))
+                        .header("Content-Type", publishContentType)
+                        .POST(HttpRequest.BodyPublishers.ofByteArray(publishPayloads[slot]))
+                        .build();
+            }
+            case GET -> HttpRequest.newBuilder(graphUri(random.nextInt(options.preload)))
+                    .header("Accept", "application/ld+json")
+                    .GET().build();
+            case LIST -> HttpRequest.newBuilder(URI.create(baseUrl + "/catalogue/graphs")).GET().build();
+            case DELETE -> HttpRequest.newBuilder(graphUri(options.preload + random.nextInt(options.churn)))
+                    .DELETE().build();
+            case SEARCH -> HttpRequest.newBuilder(URI.create(baseUrl + "/catalogue/sparql"))
+                    .header("Content-Type", "application/sparql-query")
+                    .header("Accept", "application/sparql-results+json")
+                    .POST(HttpRequest.BodyPublishers.ofString(searchQuery(random)))
+                    .build();
+            case QUERY_UI -> HttpRequest.newBuilder(URI.create(baseUrl + "/catalogue/query-ui"))
+                    .header("Content-Type", "application/x-www-form-urlencoded")
+                    .POST(HttpRequest.BodyPublishers.ofString("action=run&query="
+                            + URLEncoder.encode(searchQuery(random), StandardCharsets.UTF_8)))
+                    .build();
+        };
+        HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+        return response.statusCode();
+    }
+
+    private URI graphUri(int index) {
+        return URI.create(baseUrl + "/catalogue/manager?graph="
+                + URLEncoder.encode(SyntheticOfferingGenerator.offeringUri(index), StandardCharsets.UTF_8));
+    }
+
+    private static String searchQuery(ThreadLocalRandom random) {
+        return String.format(SEARCH_QUERY, SEARCH_TERMS[random.nextInt(SEARCH_TERMS.length)]);
+    }
+
+    /**
+     * Serialize the churn offerings once, so the generator is not part of the measurement
+     */
+    private void preparePayloads() {
+        publishPayloads = new byte[options.churn][];
+        if ("turtle".equals(options.publishFormat) || "jsonld".equals(options.publishFormat)) {
+            Lang lang = "turtle".equals(options.publishFormat) ? Lang.TURTLE : Lang.JSONLD;
+            publishContentType = lang.getHeaderString();
+            for (int i = 0; i < options.churn; i++) {
+                publishPayloads[i] = serialize(generator.generateOffering(options.preload + i), lang);
+            }
+        } else {
+            // Quad formats take the server's fast path (no offering extraction)
+            RDFFormat format = SyntheticOfferingGenerator.quadFormat(options.publishFormat);
+            publishContentType = format.getLang().getHeaderString();
+            for (int i = 0; i < options.churn; i++) {
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                generator.writeQuads(out, options.preload + i, 1, format);
+                publishPayloads[i] = out.toByteArray();
+            }
+        }
+    }
+
+    /**
+     * Publish the preloaded offerings in batches (N-Quads, to keep preloading fast)
+     */
+    private void preload() throws IOException, InterruptedException {
+        long start = System.nanoTime();
+        int batch = 100;
+        for (int first = 0; first < options.preload; first += batch) {
+            ByteArrayOutputStream payload = new ByteArrayOutputStream();
+            generator.writeQuads(payload, first, Math.min(batch, options.preload - first), RDFFormat.NQUADS);
+            HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/catalogue/manager"))
+                    .header("Content-Type", Lang.NQUADS.getHeaderString())
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(payload.toByteArray()))
+                    .build();
+            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() != 200) {
+                throw new IOException("Preload failed with HTTP " + response.statusCode() + ": " + response.body());
+            }
+        }
+        System.out.printf("Preloaded %d offerings in %.1fs%n", options.preload, (System.nanoTime() - start) / 1e9);
+    }
+
+    private static byte[] serialize(Model model, Lang lang) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        RDFDataMgr.write(out, model, lang);
+        return out.toByteArray();
+    }
+
+    private static void printReport(RunResult result, PrintStream out) {
+        out.println();
+        out.println("========================================================");
+        out.printf("Load test results [%s] (%.1fs, %.1f req/s)%n", result.label, result.elapsedSeconds,
+                result.totalCount() / result.elapsedSeconds);
+        out.println("========================================================");
+        out.printf("%-10s %9s %7s %7s %9s %9s %9s %9s %9s %9s%n", "operation", "count", "errors", "404s",
+                "req/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+        for (Operation operation : Operation.values()) {
+            Histogram histogram = result.histograms.get(operation);
+            if (histogram.getTotalCount() == 0) {
+                continue;
+            }
+            out.printf("%-10s %9d %7d %7d %9.1f %9.2f %9.2f %9.2f %9.2f %9.2f%n", operation.key(),
+                    histogram.getTotalCount(), result.errors.get(operation), result.notFound.get(operation),
+                    histogram.getTotalCount() / result.elapsedSeconds,
+                    millis(histogram, 50), millis(histogram, 90), millis(histogram, 99), millis(histogram, 99.9),
+                    histogram.getMaxValue() / 1000.0);
+        }
+    }
+
+    private static void printComparison(List<RunResult> results, PrintStream out) {
+        out.println();
+        out.println("Comparison (req/s and p99 ms per operation)");
+        StringBuilder header = new StringBuilder(String.format("%-10s", "operation"));
+        for (RunResult result : results) {
+            header.append(String.format(" %28s", result.label));
+        }
+        out.println(header);
+        for (Operation operation : Operation.values()) {
+            StringBuilder line = new StringBuilder(String.format("%-10s", operation.key()));
+            for (RunResult result : results) {
+                Histogram histogram = result.histograms.get(operation);
+                line.append(String.format(" %15.1f / %10.2f", histogram.getTotalCount() / result.elapsedSeconds,
+                        millis(histogram, 99)));
+            }
+            out.println(line);
+        }
+    }
+
+    private static double millis(Histogram histogram, double percentile) {
+        return histogram.getValueAtPercentile(percentile) / 1000.0;
+    }
+
+    /**
+     * Write a JSON summary and one HdrHistogram log per operation
+     */
+    private static void writeReport(Options options, RunResult result) throws IOException {
+        Files.createDirectories(options.reportDir);
+        for (Operation operation : Operation.values()) {
+            Histogram histogram = result.histograms.get(operation);
+            if (histogram.getTotalCount() == 0) {
+                continue;
+            }
+            Path logFile = options.reportDir.resolve(result.label + "-" + operation.key() + ".hlog");
+            try (PrintStream stream = new PrintStream(Files.newOutputStream(logFile), false, StandardCharsets.UTF_8)) {
+                HistogramLogWriter writer = new HistogramLogWriter(stream);
+                writer.outputLogFormatVersion();
+                writer.outputLegend();
+                writer.outputIntervalHistogram(histogram);
+            }
+        }
+
+        StringBuilder json = new StringBuilder();
+        json.append("{\n");
+        json.append("  \"label\": \"").append(result.label).append("\",\n");
+        json.append("  \"commit\": \"").append(gitCommit()).append("\",\n");
+        json.append("  \"timestamp\": \"").append(Instant.now()).append("\",\n");
+        json.append("  \"threads\": ").append(options.threads).append(",\n");
+        json.append("  \"targetRate\": ").append(options.rate).append(",\n");
+        json.append("  \"durationSeconds\": ").append(String.format("%.1f", result.elapsedSeconds)).append(",\n");
+        json.append("  \"preload\": ").append(options.preload).append(",\n");
+        json.append("  \"storage\": \"").append(options.url != null ? "remote" : options.storage).append("\",\n");
+        json.append("  \"serverArgs\": \"").append(String.join(" ", options.serverArgs)).append("\",\n");
+        json.append("  \"throughput\": ").append(String.format("%.1f", result.totalCount() / result.elapsedSeconds))
+                .append(",\n");
+        json.append("  \"operations\": {\n");
+        List<String> entries = new ArrayList<>();
+        for (Operation operation : Operation.values()) {
+            Histogram histogram = result.histograms.get(operation);
+            entries.add(String.format(
+                    "    \"%s\": { \"count\": %d, \"errors\": %d, \"notFound\": %d, \"rate\": %.1f, "
+                            + "\"p50\": %.3f, \"p90\": %.3f, \"p99\": %.3f, \"p999\": %.3f, \"max\": %.3f }",
+                    operation.key(), histogram.getTotalCount(), result.errors.get(operation),
+                    result.notFound.get(operation), histogram.getTotalCount() / result.elapsedSeconds,
+                    millis(histogram, 50), millis(histogram, 90), millis(histogram, 99), millis(histogram, 99.9),
+                    histogram.getMaxValue() / 1000.0));
+        }
+        json.append(String.join(",\n", entries)).append("\n");
+        json.append("  }\n");
+        json.append("}\n");
+        Path summary = options.reportDir.resolve(result.label + ".json");
+        Files.writeString(summary, json.toString());
+        System.out.println("Report written to " + summary.toAbsolutePath());
+    }
+
+    private static String gitCommit() {
+        try {
+            Process process = new ProcessBuilder("git", "rev-parse", "--short", "HEAD").redirectErrorStream(true)
+                    .start();
+            String output = new String(process.getInputStream().readAllBytes(), StandardCharsets.UTF_8).trim();
+            if (process.waitFor() == 0 && !output.isEmpty()) {
+                return output;
+            }
+        } catch (Exception e) {
+            // not a git checkout
+        }
+        return "unknown";
+    }
+
+    private static void sleepUntil(long deadlineNanos) {
+        long remaining;
+        while ((remaining = deadlineNanos - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(remaining);
+        }
+    }
+
+    private static void deleteRecursively(Path directory) throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    static Options parseOptions(String[] args) {
+        Options options = new Options();
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--url" -> options.url = args[++i];
+                case "--threads" -> options.threads = Integer.parseInt(args[++i]);
+                case "--rate" -> options.rate = Double.parseDouble(args[++i]);
+                case "--duration" -> options.durationSeconds = Integer.parseInt(args[++i]);
+                case "--warmup" -> options.warmupSeconds = Integer.parseInt(args[++i]);
+                case "--preload" -> options.preload = Integer.parseInt(args[++i]);
+                case "--churn" -> options.churn = Math.max(1, Integer.parseInt(args[++i]));
+                case "--publish-format" -> options.publishFormat = args[++i];
+                case "--storage" -> options.storage = args[++i];
+                case "--server-args" -> options.serverArgs = new ArrayList<>(Arrays.asList(args[++i].trim().split("\\s+")));
+                case "--compare-threading" -> options.compareThreading = true;
+                case "--mix" -> options.mix = parseMix(args[++i]);
+                case "--label" -> options.label = args[++i];
+                case "--report-dir" -> options.reportDir = Paths.get(args[++i]);
+                default -> {
+                    printUsage(new PrintWriter(System.out, true));
+                    return null;
+                }
+            }
+        }
+        options.serverArgs.removeIf(String::isEmpty);
+        options.preload = Math.max(1, options.preload);
+        return options;
+    }
+
+    private static Map<Operation, Integer> parseMix(String spec) {
+        Map<Operation, Integer> mix = new LinkedHashMap<>();
+        for (String part : spec.split(",")) {
+            String[] keyValue = part.split("=");
+            for (Operation operation : Operation.values()) {
+                if (operation.key().equals(keyValue[0].trim())) {
+                    mix.put(operation, Integer.parseInt(keyValue[1].trim()));
+                }
+            }
+        }
+        return mix;
+    }
+
+    private static void printUsage(PrintWriter out) {
+        out.println("Usage: CatalogueLoadTest [options]");
+        out.println("  --url <base-url>       Target a running server instead of starting an embedded one");
+        out.println("  --threads <n>          Client threads (default: 32)");
+        out.println("  --rate <n>             Total target requests/s, 0 = closed loop (default: 0)");
+        out.println("  --duration <s>         Measured duration in seconds (default: 60)");
+        out.println("  --warmup <s>           Warm-up duration in seconds (default: 10)");
+        out.println("  --preload <n>          Offerings published before measuring (default: 1000)");
+        out.println("  --churn <n>            Offerings repeatedly published and deleted (default: 200)");
+        out.println("  --publish-format <f>   jsonld, turtle, nq, thrift or proto (default: jsonld)");
+        out.println("  --storage <s>          tdb or memory for the embedded server (default: tdb)");
+        out.println("  --server-args \"...\"    Extra embedded server arguments, e.g. \"--virtual-threads\"");
+        out.println("  --compare-threading    Run twice, on platform and on virtual threads, and compare");
+        out.println("  --mix <spec>           Weights, e.g. publish=10,get=45,list=5,delete=5,search=25,query-ui=10");
+        out.println("  --label <name>         Report label (default: current git commit)");
+        out.println("  --report-dir <path>    Output directory for reports (default: load-reports)");
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * SEDIMARK Catalogue Server
+ *
+ * Copyright (C) 2025 Tarek Elsaleh
+ *
+ * This program is licensed under the European Union Public License (EUPL) v1.2.
+ * You may obtain a copy of the License at:
+ * https://joinup.ec.europa.eu/collection/eupl/eupl-text-eupl-12
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.sedimark.catalogue.benchmarks;
+
+import eu.sedimark.catalogue.handlers.OfferingGSPHandler;
+import eu.sedimark.catalogue.handlers.OfferingGSPHandler.NamedSubgraph;
+import org.apache.jena.query.DatasetFactory;
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.ModelFactory;
+import org.apache.jena.riot.Lang;
+import org.apache.jena.riot.RDFDataMgr;
+import org.apache.jena.riot.RDFFormat;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Request body to offering graphs on /catalogue/manager, per upload format:
+ * JSON-LD goes through parsing and offering extraction, while N-Quads, RDF-Thrift
+ * and RDF-Protobuf take the quad fast path (readQuadOfferingGraphs)
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class IngestFormatBenchmark {
+
+    @Param({ "jsonld", "nq", "thrift", "proto" })
+    public String format;
+
+    /** Number of offerings in the payload */
+    @Param({ "1", "100" })
+    public int offerings;
+
+    private OfferingGSPHandler handler;
+    private Lang lang;
+    private byte[] payload;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        handler = new OfferingGSPHandler(DatasetFactory.createTxnMem());
+        SyntheticOfferingGenerator generator = new SyntheticOfferingGenerator();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        RDFFormat quadFormat = SyntheticOfferingGenerator.quadFormat(format);
+        if (quadFormat == null) {
+            lang = Lang.JSONLD;
+            RDFDataMgr.write(out, generator.generate(0, offerings), Lang.JSONLD);
+        } else {
+            lang = quadFormat.getLang();
+            generator.writeQuads(out, 0, offerings, quadFormat);
+        }
+        payload = out.toByteArray();
+    }
+
+    @Benchmark
+    public List<NamedSubgraph> ingest() {
+        if (OfferingGSPHandler.isQuadIngestLang(lang)) {
+            return handler.readQuadOfferingGraphs(new ByteArrayInputStream(payload), lang);
+        }
+        Model model = ModelFactory.createDefaultModel();
+        RDFDataMgr.read(model, new ByteArrayInputStream(payload), lang);
+        return handler.extractOfferingGraphs(model, model.getNsPrefixMap());
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * SEDIMARK Catalogue Server
+ *
+ * Copyright (C) 2025 Tarek Elsaleh
+ *
+ * This program is licensed under the European Union Public License (EUPL) v1.2.
+ * You may obtain a copy of the License at:
+ * https://joinup.ec.europa.eu/collection/eupl/eupl-text-eupl-12
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.sedimark.catalogue.benchmarks;
+
+import com.apicatalog.jsonld.document.JsonDocument;
+import eu.sedimark.catalogue.utils.JsonLdContextRegistry;
+import jakarta.json.Json;
+import jakarta.json.JsonObject;
+import jakarta.json.JsonReader;
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.ModelFactory;
+import org.apache.jena.riot.Lang;
+import org.apache.jena.riot.RDFDataMgr;
+import org.apache.jena.riot.RDFParser;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JSON-LD parsing of the example payloads, as done by OfferingGSPHandler for
+ * every POST/PUT to /catalogue/manager: with Jena's defaults, and with the local
+ * context registry for the same payload referencing its context by URL
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JsonLdParseBenchmark {
+
+    private static final String PAYLOAD_CONTEXT = "urn:sedimark:benchmark:context";
+
+    @Param({ "examples/offerings_1.jsonld", "examples/offerings_100.jsonld" })
+    public String file;
+
+    private byte[] payload;
+    private byte[] remoteContextPayload;
+
+    @Setup(Level.Trial)
+    public void loadPayload() throws IOException {
+        try (InputStream in = JsonLdParseBenchmark.class.getResourceAsStream("/" + file)) {
+            if (in == null) {
+                throw new IOException("Example file not on the classpath: " + file);
+            }
+            payload = in.readAllBytes();
+        }
+        // Same data, with the inline @context registered and referenced by URL
+        JsonObject document;
+        try (JsonReader reader = Json.createReader(new ByteArrayInputStream(payload))) {
+            document = reader.readObject();
+        }
+        JsonLdContextRegistry.getDefault().register(PAYLOAD_CONTEXT, JsonDocument
+                .of(Json.createObjectBuilder().add("@context", document.get("@context")).build()));
+        remoteContextPayload = Json.createObjectBuilder(document).add("@context", PAYLOAD_CONTEXT).build()
+                .toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public Model parseJsonLd() {
+        Model model = ModelFactory.createDefaultModel();
+        RDFDataMgr.read(model, new ByteArrayInputStream(payload), Lang.JSONLD);
+        return model;
+    }
+
+    @Benchmark
+    public Model parseJsonLdRegistryContext() {
+        Model model = ModelFactory.createDefaultModel();
+        RDFParser.source(new ByteArrayInputStream(remoteContextPayload)).lang(Lang.JSONLD)
+                .context(JsonLdContextRegistry.getDefault().parserContext()).parse(model);
+        return model;
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * SEDIMARK Catalogue Server
+ *
+ * Copyright (C) 2025 Tarek Elsaleh
+ *
+ * This program is licensed under the European Union Public License (EUPL) v1.2.
+ * You may obtain a copy of the License at:
+ * https://joinup.ec.europa.eu/collection/eupl/eupl-text-eupl-12
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.sedimark.catalogue.benchmarks;
+
+import eu.sedimark.catalogue.handlers.OfferingGSPHandler;
+import eu.sedimark.catalogue.handlers.OfferingGSPHandler.NamedSubgraph;
+import org.apache.jena.query.DatasetFactory;
+import org.apache.jena.rdf.model.Model;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Splitting a parsed payload into one subgraph per offering
+ * (OfferingGSPHandler.extractOfferingGraphs, which drives extractRelatedStatements)
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class OfferingExtractionBenchmark {
+
+    /** Number of offerings in the payload */
+    @Param({ "1", "100", "1000" })
+    public int offerings;
+
+    private OfferingGSPHandler handler;
+    private Model payload;
+    private Map<String, String> prefixes;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        handler = new OfferingGSPHandler(DatasetFactory.createTxnMem());
+        payload = new SyntheticOfferingGenerator().generate(0, offerings);
+        prefixes = payload.getNsPrefixMap();
+    }
+
+    @Benchmark
+    public List<NamedSubgraph> extractOfferingGraphs() {
+        return handler.extractOfferingGraphs(payload, prefixes);
+    }
+}
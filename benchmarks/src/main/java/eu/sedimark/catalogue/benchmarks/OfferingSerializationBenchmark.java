@@ -0,0 +1,75 @@
+/*
+ * SEDIMARK Catalogue Server
+ *
+ * Copyright (C) 2025 Tarek Elsaleh
+ *
+ * This program is licensed under the European Union Public License (EUPL) v1.2.
+ * You may obtain a copy of the License at:
+ * https://joinup.ec.europa.eu/collection/eupl/eupl-text-eupl-12
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.sedimark.catalogue.benchmarks;
+
+import eu.sedimark.catalogue.handlers.OfferingGSPHandler;
+import org.apache.jena.query.Dataset;
+import org.apache.jena.query.DatasetFactory;
+import org.apache.jena.query.ReadWrite;
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.riot.Lang;
+import org.apache.jena.riot.RDFLanguages;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * GET /catalogue/manager?graph= serialization of a stored offering graph in
+ * each output language offered through the Accept header
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class OfferingSerializationBenchmark {
+
+    /** RIOT short names of the languages handled by getOutputLang */
+    @Param({ "jsonld", "ttl", "rdfxml", "nt", "n3", "trig" })
+    public String lang;
+
+    private Dataset dataset;
+    private String graphName;
+    private Lang outputLang;
+    private ByteArrayOutputStream out;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        outputLang = RDFLanguages.shortnameToLang(lang);
+        dataset = DatasetFactory.createTxnMem();
+        OfferingGSPHandler handler = new OfferingGSPHandler(dataset);
+        Model model = new SyntheticOfferingGenerator().generateOffering(0);
+        handler.storeOfferingGraphs(handler.extractOfferingGraphs(model, model.getNsPrefixMap()));
+        graphName = SyntheticOfferingGenerator.offeringUri(0);
+        out = new ByteArrayOutputStream(64 * 1024);
+    }
+
+    @Benchmark
+    public int writeOfferingGraph() {
+        out.reset();
+        dataset.begin(ReadWrite.READ);
+        try {
+            OfferingGSPHandler.writeOfferingGraph(out, dataset.getNamedModel(graphName), outputLang);
+        } finally {
+            dataset.end();
+        }
+        return out.size();
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * SEDIMARK Catalogue Server
+ *
+ * Copyright (C) 2025 Tarek Elsaleh
+ *
+ * This program is licensed under the European Union Public License (EUPL) v1.2.
+ * You may obtain a copy of the License at:
+ * https://joinup.ec.europa.eu/collection/eupl/eupl-text-eupl-12
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.sedimark.catalogue.benchmarks;
+
+import eu.sedimark.catalogue.handlers.OfferingGSPHandler;
+import eu.sedimark.catalogue.handlers.OfferingGSPHandler.NamedSubgraph;
+import org.apache.jena.query.Dataset;
+import org.apache.jena.query.DatasetFactory;
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.tdb2.TDB2Factory;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Storing (replacing) extracted offering graphs with
+ * OfferingGSPHandler.storeOfferingGraphs, against an in-memory (TxnMem) and a
+ * persistent (TDB2) dataset that already holds a number of offerings
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class OfferingStoreBenchmark {
+
+    @Param({ "TXN_MEM", "TDB2" })
+    public String storage;
+
+    /** Offerings already in the dataset before measuring */
+    @Param({ "1000", "10000" })
+    public int preloaded;
+
+    /** Offerings per request */
+    @Param({ "1", "100" })
+    public int batchSize;
+
+    private Dataset dataset;
+    private Path tdbDirectory;
+    private OfferingGSPHandler handler;
+    private List<NamedSubgraph> batch;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        if ("TDB2".equals(storage)) {
+            tdbDirectory = Files.createTempDirectory("catalogue-bench-tdb");
+            dataset = TDB2Factory.connectDataset(tdbDirectory.toString());
+        } else {
+            dataset = DatasetFactory.createTxnMem();
+        }
+        handler = new OfferingGSPHandler(dataset);
+        SyntheticOfferingGenerator generator = new SyntheticOfferingGenerator();
+
+        int chunk = 1000;
+        for (int first = 0; first < preloaded; first += chunk) {
+            Model model = generator.generate(first, Math.min(chunk, preloaded - first));
+            handler.storeOfferingGraphs(handler.extractOfferingGraphs(model, model.getNsPrefixMap()));
+        }
+
+        // Measured requests replace offerings that are already stored
+        Model model = generator.generate(0, batchSize);
+        batch = handler.extractOfferingGraphs(model, model.getNsPrefixMap());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        dataset.close();
+        if (tdbDirectory != null) {
+            try (Stream<Path> paths = Files.walk(tdbDirectory)) {
+                paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+            }
+        }
+    }
+
+    @Benchmark
+    public void storeOfferingGraphs() throws IOException {
+        handler.storeOfferingGraphs(batch);
+    }
+}
@@ -0,0 +1,62 @@
+/*
+ * SEDIMARK Catalogue Server
+ *
+ * Copyright (C) 2025 Tarek Elsaleh
+ *
+ * This program is licensed under the European Union Public License (EUPL) v1.2.
+ * You may obtain a copy of the License at:
+ * https://joinup.ec.europa.eu/collection/eupl/eupl-text-eupl-12
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.sedimark.catalogue.benchmarks;
+
+import eu.sedimark.catalogue.handlers.OfferingGSPHandler;
+import eu.sedimark.catalogue.handlers.OfferingGSPHandler.NamedSubgraph;
+import eu.sedimark.catalogue.validation.OfferingValidator;
+import eu.sedimark.catalogue.validation.OfferingValidator.OfferingReport;
+import org.apache.jena.query.DatasetFactory;
+import org.apache.jena.rdf.model.Model;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SHACL validation stage of the ingest path (OfferingValidator.validate) over the
+ * extracted offering subgraphs of a synthetic payload
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class OfferingValidationBenchmark {
+
+    /** Number of offerings in the payload */
+    @Param({ "1", "100" })
+    public int offerings;
+
+    private OfferingValidator validator;
+    private List<NamedSubgraph> subgraphs;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        validator = OfferingValidator.fromClasspath();
+        OfferingGSPHandler handler = new OfferingGSPHandler(DatasetFactory.createTxnMem());
+        Model payload = new SyntheticOfferingGenerator().generate(0, offerings);
+        subgraphs = handler.extractOfferingGraphs(payload, payload.getNsPrefixMap());
+    }
+
+    @Benchmark
+    public List<OfferingReport> validate() {
+        return validator.validate(subgraphs);
+    }
+}
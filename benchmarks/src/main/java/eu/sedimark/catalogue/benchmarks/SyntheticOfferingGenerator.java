@@ -0,0 +1,334 @@
+/*
+ * SEDIMARK Catalogue Server
+ *
+ * Copyright (C) 2025 Tarek Elsaleh
+ *
+ * This program is licensed under the European Union Public License (EUPL) v1.2.
+ * You may obtain a copy of the License at:
+ * https://joinup.ec.europa.eu/collection/eupl/eupl-text-eupl-12
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.sedimark.catalogue.benchmarks;
+
+import org.apache.jena.datatypes.xsd.XSDDatatype;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.ModelFactory;
+import org.apache.jena.rdf.model.Property;
+import org.apache.jena.rdf.model.Resource;
+import org.apache.jena.riot.Lang;
+import org.apache.jena.riot.RDFDataMgr;
+import org.apache.jena.riot.RDFFormat;
+import org.apache.jena.riot.system.StreamRDF;
+import org.apache.jena.riot.system.StreamRDFWriter;
+import org.apache.jena.sparql.core.Quad;
+import org.apache.jena.vocabulary.RDF;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Deterministic generator of synthetic SEDIMARK offerings, shaped like
+ * examples/offerings_100.jsonld (offering, assets with provision and quality,
+ * contract, self-listing, participant, landing page).
+ *
+ * This is the Java counterpart of mock_catalogue/create_catalogue.py and scales
+ * to millions of offerings: each offering is generated independently from its
+ * index, so any range can be produced without generating the ones before it.
+ */
+public class SyntheticOfferingGenerator {
+
+    public static final String EX = "http://example.org/";
+    public static final String SEDIMARK_NS = "https://w3id.org/sedimark/ontology#";
+    private static final String DCTERMS = "http://purl.org/dc/terms/";
+    private static final String DCAT = "http://www.w3.org/ns/dcat#";
+    private static final String ODRL = "http://www.w3.org/ns/odrl/2/";
+    private static final String SCHEMA = "https://schema.org/";
+    private static final String PROV = "http://www.w3.org/ns/prov#";
+    private static final String DQV = "http://www.w3.org/ns/dqv#";
+    private static final String FOAF = "http://xmlns.com/foaf/0.1/";
+    private static final String VOCAB = "https://w3id.org/sedimark/vocab/";
+
+    private static final String[] THEMES = { "Building", "Parking", "WaterQuality", "AirQuality", "Traffic",
+            "Energy", "Weather", "Noise" };
+    private static final String[] ENDPOINTS = { "https://sedimark.egm.io/ngsi-ld/v2/",
+            "https://sedimark.tlmat.unican.es/ngsi-ld/v2/", "https://sedimark.eviden.com/ngsi-ld/v2/",
+            "https://sedimark.surrey.ac.uk/ngsi-ld/v2/" };
+    private static final String[] GEONAMES = { "2673730", "2643743", "3117735", "2988507", "2950159", "658225" };
+    private static final Instant EPOCH = Instant.parse("2025-01-01T00:00:00Z");
+
+    private final int participantCount;
+    private final long seed;
+
+    public SyntheticOfferingGenerator() {
+        this(100, 42L);
+    }
+
+    /**
+     * @param participantCount Size of the participant pool offerings are spread over
+     * @param seed             Seed, so the same index always yields the same offering
+     */
+    public SyntheticOfferingGenerator(int participantCount, long seed) {
+        this.participantCount = Math.max(1, participantCount);
+        this.seed = seed;
+    }
+
+    /**
+     * Prefixes matching the @context of the example files
+     */
+    public static Map<String, String> prefixes() {
+        Map<String, String> prefixes = new LinkedHashMap<>();
+        prefixes.put("schema", SCHEMA);
+        prefixes.put("ex", EX);
+        prefixes.put("rdf", RDF.getURI());
+        prefixes.put("xsd", XSDDatatype.XSD + "#");
+        prefixes.put("dcterms", DCTERMS);
+        prefixes.put("dcat", DCAT);
+        prefixes.put("odrl", ODRL);
+        prefixes.put("sdm-vocab", VOCAB);
+        prefixes.put("prov", PROV);
+        prefixes.put("sedimark", SEDIMARK_NS);
+        return prefixes;
+    }
+
+    /**
+     * URI of the offering (and of its named graph) at the given index
+     */
+    public static String offeringUri(int index) {
+        return EX + "offering_" + index;
+    }
+
+    /**
+     * Generate offerings [first, first + count) into a single model, as a
+     * publisher would POST them
+     */
+    public Model generate(int first, int count) {
+        Model model = ModelFactory.createDefaultModel();
+        model.setNsPrefixes(prefixes());
+        for (int i = first; i < first + count; i++) {
+            addOffering(model, i);
+        }
+        return model;
+    }
+
+    /**
+     * Generate a single offering as its own model
+     */
+    public Model generateOffering(int index) {
+        return generate(index, 1);
+    }
+
+    /**
+     * Add the statements of one offering to the model
+     */
+    public void addOffering(Model model, int index) {
+        Random random = new Random(seed * 31 + index);
+        String id = Integer.toString(index);
+        String theme = THEMES[random.nextInt(THEMES.length)];
+        Instant issued = EPOCH.plus(random.nextInt(365 * 24), ChronoUnit.HOURS);
+
+        Resource offering = model.createResource(offeringUri(index));
+        Resource contract = model.createResource(EX + "contract_" + id);
+        Resource selfListing = model.createResource(EX + "selfListing_" + id);
+        Resource landingPage = model.createResource(EX + "landingPage_" + id);
+        Resource participant = model.createResource(EX + "participant_" + random.nextInt(participantCount));
+
+        offering.addProperty(RDF.type, model.createResource(SEDIMARK_NS + "Offering"))
+                .addProperty(p(model, DCTERMS, "title"), "Offering for " + theme + " " + id)
+                .addProperty(p(model, DCTERMS, "description"),
+                        "This offering provides access to " + theme + " data and services.")
+                .addProperty(p(model, DCTERMS, "license"), "CC-BY-4.0")
+                .addProperty(p(model, SEDIMARK_NS, "hasOfferingContract"), contract)
+                .addProperty(p(model, SEDIMARK_NS, "isListedBy"), selfListing)
+                .addProperty(p(model, DCAT, "themeTaxonomy"), model.createResource(VOCAB + "sdm"));
+
+        int assets = 1 + random.nextInt(5);
+        for (int a = 0; a < assets; a++) {
+            String assetId = id + "_" + a;
+            Resource asset = model.createResource(EX + "asset_" + assetId);
+            Resource provision = model.createResource(EX + "assetProvision_" + assetId);
+            Resource quality = model.createResource(EX + "assetQuality_" + assetId);
+            String assetIssued = issued.plusSeconds(a).toString();
+
+            offering.addProperty(p(model, SEDIMARK_NS, "hasAsset"), asset);
+            asset.addProperty(RDF.type, model.createResource(SEDIMARK_NS + "Asset"))
+                    .addProperty(p(model, DCTERMS, "title"), theme + " Data Asset")
+                    .addProperty(p(model, DCTERMS, "description"),
+                            "A dataset containing " + theme.toLowerCase() + " information.")
+                    .addProperty(p(model, DCTERMS, "identifier"), "asset-id-" + assetId)
+                    .addProperty(p(model, DCTERMS, "creator"), "SEDIMARK Synthetic Generator")
+                    .addProperty(p(model, DCTERMS, "theme"), model.createResource(VOCAB + "sdm/entity/" + theme))
+                    .addProperty(p(model, DCTERMS, "spatial"), model.createTypedLiteral(
+                            "http://sws.geonames.org/" + GEONAMES[random.nextInt(GEONAMES.length)] + "/",
+                            XSDDatatype.XSDanyURI))
+                    .addProperty(p(model, DCTERMS, "issued"),
+                            model.createTypedLiteral(assetIssued, XSDDatatype.XSDdateTime))
+                    .addProperty(p(model, PROV, "generatedBy"),
+                            model.createTypedLiteral(assetIssued, XSDDatatype.XSDdateTime))
+                    .addProperty(p(model, DCAT, "keyword"), theme.toLowerCase())
+                    .addProperty(p(model, DCAT, "keyword"), "category")
+                    .addProperty(p(model, DCAT, "keyword"), "SEDIMARK")
+                    .addProperty(p(model, SEDIMARK_NS, "isProvidedBy"), provision)
+                    .addProperty(p(model, SEDIMARK_NS, "hasAssetQuality"), quality)
+                    .addProperty(p(model, SEDIMARK_NS, "offeredBy"), offering);
+            provision.addProperty(RDF.type, model.createResource(SEDIMARK_NS + "AssetProvision"))
+                    .addProperty(p(model, DCAT, "endpointURL"), model.createTypedLiteral(
+                            ENDPOINTS[random.nextInt(ENDPOINTS.length)], XSDDatatype.XSDanyURI));
+            quality.addProperty(RDF.type, model.createResource(SEDIMARK_NS + "AssetQuality"))
+                    .addProperty(p(model, DQV, "computedOn"), asset);
+        }
+
+        Resource permission = model.createResource(EX + "permission_" + id);
+        Resource duty = model.createResource(EX + "duty_" + id);
+        Resource obligation = model.createResource(EX + "obligation_" + id);
+        contract.addProperty(RDF.type, model.createResource(SEDIMARK_NS + "OfferingContract"))
+                .addProperty(p(model, ODRL, "permission"), permission)
+                .addProperty(p(model, ODRL, "duty"), duty)
+                .addProperty(p(model, ODRL, "obligation"), obligation);
+        permission.addProperty(RDF.type, model.createResource(ODRL + "Permission"));
+        duty.addProperty(RDF.type, model.createResource(ODRL + "Duty"));
+        obligation.addProperty(RDF.type, model.createResource(ODRL + "Obligation"));
+
+        selfListing.addProperty(RDF.type, model.createResource(SEDIMARK_NS + "Self-Listing"))
+                .addProperty(p(model, DCTERMS, "title"), "Self-Listing for Offering offering_" + id)
+                .addProperty(p(model, DCTERMS, "description"),
+                        "Self-listing containing information about the offering_" + id + " offering.")
+                .addProperty(p(model, DCTERMS, "issued"),
+                        model.createTypedLiteral(issued.toString(), XSDDatatype.XSDdateTime))
+                .addProperty(p(model, DCTERMS, "modified"), model.createTypedLiteral(
+                        issued.plus(random.nextInt(30 * 24), ChronoUnit.HOURS).toString(),
+                        XSDDatatype.XSDdateTime))
+                .addProperty(p(model, SEDIMARK_NS, "belongsTo"), participant)
+                .addProperty(p(model, SEDIMARK_NS, "hasOffering"), offering)
+                .addProperty(p(model, DCAT, "landingPage"), landingPage);
+        landingPage.addProperty(RDF.type, model.createResource(FOAF + "Document"));
+
+        String participantId = participant.getLocalName();
+        participant.addProperty(RDF.type, model.createResource(SEDIMARK_NS + "Participant"))
+                .addProperty(p(model, SCHEMA, "accountId"), participantId)
+                .addProperty(p(model, SCHEMA, "alternateName"), "Participant " + participantId)
+                .addProperty(p(model, SCHEMA, "email"),
+                        model.createResource("mailto:" + participantId + "@example.org"));
+    }
+
+    /**
+     * Stream offerings [first, first + count) as quads, each offering in its own
+     * named graph, using constant memory
+     */
+    public void streamQuads(StreamRDF stream, int first, int count) {
+        for (int i = first; i < first + count; i++) {
+            Node graph = NodeFactory.createURI(offeringUri(i));
+            Model offering = generateOffering(i);
+            for (Triple triple : offering.getGraph().find().toList()) {
+                stream.quad(Quad.create(graph, triple));
+            }
+        }
+    }
+
+    /**
+     * Write offerings [first, first + count) in a streaming quad format (N-Quads,
+     * TriG, RDF-Thrift or RDF-Protobuf), one named graph per offering
+     */
+    public void writeQuads(OutputStream out, int first, int count, RDFFormat format) {
+        StreamRDF stream = StreamRDFWriter.getWriterStream(out, format);
+        stream.start();
+        prefixes().forEach(stream::prefix);
+        streamQuads(stream, first, count);
+        stream.finish();
+    }
+
+    /**
+     * The streaming quad format for a command line format name, or null for JSON-LD
+     */
+    public static RDFFormat quadFormat(String name) {
+        return switch (name) {
+            case "nq" -> RDFFormat.NQUADS;
+            case "trig" -> RDFFormat.TRIG_BLOCKS;
+            case "thrift" -> RDFFormat.RDF_THRIFT;
+            case "proto" -> RDFFormat.RDF_PROTO;
+            case "jsonld" -> null;
+            default -> throw new IllegalArgumentException("Unknown format: " + name);
+        };
+    }
+
+    private static Property p(Model model, String ns, String localName) {
+        return model.createProperty(ns, localName);
+    }
+
+    /**
+     * Command line entry point that writes a synthetic catalogue to disk.
+     *
+     * JSON-LD output is split into files of --batch offerings each (a directory
+     * that a seed loader or load test can consume); N-Quads, TriG, RDF-Thrift and
+     * RDF-Protobuf are streamed into a single file with one named graph per offering.
+     */
+    public static void main(String[] args) throws IOException {
+        int count = 10_000;
+        int first = 0;
+        int batch = 1_000;
+        int participants = 100;
+        long seed = 42L;
+        String format = "nq";
+        Path out = Paths.get("synthetic-offerings");
+
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--count" -> count = Integer.parseInt(args[++i]);
+                case "--first" -> first = Integer.parseInt(args[++i]);
+                case "--batch" -> batch = Integer.parseInt(args[++i]);
+                case "--participants" -> participants = Integer.parseInt(args[++i]);
+                case "--seed" -> seed = Long.parseLong(args[++i]);
+                case "--format" -> format = args[++i];
+                case "--out" -> out = Paths.get(args[++i]);
+                default -> {
+                    System.out.println("Usage: SyntheticOfferingGenerator [--count n] [--first n] [--batch n]"
+                            + " [--participants n] [--seed n] [--format jsonld|nq|trig|thrift|proto] [--out path]");
+                    return;
+                }
+            }
+        }
+
+        SyntheticOfferingGenerator generator = new SyntheticOfferingGenerator(participants, seed);
+        long start = System.nanoTime();
+
+        if ("jsonld".equals(format)) {
+            Files.createDirectories(out);
+            for (int i = first; i < first + count; i += batch) {
+                int size = Math.min(batch, first + count - i);
+                Path file = out.resolve(String.format("offerings_%08d.jsonld", i));
+                try (OutputStream os = new BufferedOutputStream(Files.newOutputStream(file))) {
+                    RDFDataMgr.write(os, generator.generate(i, size), Lang.JSONLD);
+                }
+            }
+        } else {
+            RDFFormat rdfFormat = quadFormat(format);
+            Path parent = out.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            try (OutputStream os = new BufferedOutputStream(Files.newOutputStream(out), 1 << 16)) {
+                generator.writeQuads(os, first, count, rdfFormat);
+            }
+        }
+
+        long millis = (System.nanoTime() - start) / 1_000_000;
+        System.out.println("Generated " + count + " offerings as " + format + " in " + millis + " ms: " + out);
+    }
+}
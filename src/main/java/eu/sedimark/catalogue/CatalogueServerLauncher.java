@@ -25,19 +25,73 @@ import org.apache.jena.rdf.model.Model;
 import org.apache.jena.rdf.model.ModelFactory;
 import org.apache.jena.riot.Lang;
 import org.apache.jena.riot.RDFLanguages;
+import org.apache.jena.sparql.core.DatasetGraph;
+import org.apache.jena.system.Txn;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Comparator;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+import org.eclipse.jetty.server.ConnectionLimit;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.handler.gzip.GzipHandler;
+import org.eclipse.jetty.util.thread.QueuedThreadPool;
+import org.eclipse.jetty.util.thread.ThreadPool;
+import org.eclipse.jetty.util.thread.VirtualThreadPool;
 // ... no servlet/resource imports needed for CDN-based Tailwind
 
+import eu.sedimark.catalogue.changes.ChangeFeed;
+import eu.sedimark.catalogue.export.CatalogueExporter;
+import eu.sedimark.catalogue.handlers.ChangeFeedService;
+import eu.sedimark.catalogue.handlers.ExportService;
+import eu.sedimark.catalogue.handlers.OfferingIndexService;
 import eu.sedimark.catalogue.handlers.OfferingListingService;
+import eu.sedimark.catalogue.handlers.OfferingSearchService;
+import eu.sedimark.catalogue.handlers.OfferingSimilarityService;
 import eu.sedimark.catalogue.handlers.HealthCheckHandler;
 import eu.sedimark.catalogue.handlers.OfferingGSPHandler;
+import eu.sedimark.catalogue.handlers.ReplicationService;
+import eu.sedimark.catalogue.handlers.ValidationStatusService;
+import eu.sedimark.catalogue.lifecycle.HotOfferings;
+import eu.sedimark.catalogue.lifecycle.LifecycleManager;
 import eu.sedimark.catalogue.loaders.SampleDatasetLoader;
+import eu.sedimark.catalogue.loaders.SeedLoader;
+import eu.sedimark.catalogue.replication.PatchLog;
+import eu.sedimark.catalogue.replication.ReplicaApplier;
+import eu.sedimark.catalogue.replication.StalenessGuard;
 import eu.sedimark.catalogue.utils.ArgumentsHelper;
+import eu.sedimark.catalogue.utils.JsonLdContextRegistry;
 import eu.sedimark.catalogue.utils.ArgumentsHelper.Arguments;
+import eu.sedimark.catalogue.utils.ArgumentsHelper.StorageType;
+import eu.sedimark.catalogue.utils.ArgumentsHelper.ValidationMode;
 import eu.sedimark.catalogue.utils.FusekiDebugHelper;
 import eu.sedimark.catalogue.servlets.ClasspathResourceServlet;
+import eu.sedimark.catalogue.servlets.StaticAssetCache;
+import eu.sedimark.catalogue.storage.Gazetteer;
+import eu.sedimark.catalogue.storage.LoadedOfferingIndex;
+import eu.sedimark.catalogue.storage.OfferingCoverageIndex;
+import eu.sedimark.catalogue.storage.OfferingDateIndex;
+import eu.sedimark.catalogue.storage.OfferingSimilarityIndex;
+import eu.sedimark.catalogue.storage.OfferingIndex;
+import eu.sedimark.catalogue.storage.ReferenceGraph;
+import eu.sedimark.catalogue.storage.ShardedDatasetGraph;
+import eu.sedimark.catalogue.storage.SharedEntityGraph;
+import eu.sedimark.catalogue.storage.SnapshotManager;
+import eu.sedimark.catalogue.storage.ShardedQueryEngine;
+import eu.sedimark.catalogue.validation.IncrementalValidationEngine;
+import eu.sedimark.catalogue.validation.OfferingValidator;
 
 public class CatalogueServerLauncher {
     private static final String SEDIMARK_OFFERING = "https://w3id.org/sedimark/ontology#Offering";
+    private static final String EXAMPLE_OFFERINGS = "classpath:examples/offerings_1.jsonld";
 
     public static void main(String[] args) {
         // Parse command line arguments
@@ -46,29 +100,164 @@ public class CatalogueServerLauncher {
         // Initialize Fuseki logging
         FusekiLogging.setLogging();
 
+        // Export mode: write the offerings out and exit without starting the server
+        if (arguments.exportTarget != null) {
+            System.exit(exportCatalogue(arguments));
+        }
+
+        FusekiServer server = startServer(arguments);
+
+        // Keep the server running
+        try {
+            Thread.currentThread().join();
+        } catch (InterruptedException e) {
+            System.err.println("Server interrupted: " + e.getMessage());
+            server.stop();
+        }
+    }
+
+    /**
+     * Create the dataset, handlers and Fuseki server for the given arguments and
+     * start it. Used by main and by tools that embed the catalogue in-process
+     * (e.g. the load-test harness, with port 0 for a random free port).
+     *
+     * @return The started server
+     */
+    public static FusekiServer startServer(Arguments arguments) {
         // Create dataset based on storage type
         Dataset dataset = createDataset(arguments);
+        if (dataset.asDatasetGraph() instanceof ShardedDatasetGraph sharded) {
+            // Publishing then also writes the index, shared entity, reference or replication graphs on shard 0
+            sharded.setWritesSystemGraphs(arguments.offeringIndex || arguments.sharedEntities
+                    || arguments.deduplicate || arguments.patchLogging || arguments.replicaOf != null);
+        }
+        // Shutdown tasks run last registered first: the dataset is closed after everything that uses it
+        LifecycleManager lifecycle = LifecycleManager.get();
+        Dataset store = dataset;
+        lifecycle.onShutdown("close the dataset", () -> LifecycleManager.closeDataset(store));
+
+        // Snapshots of an in-memory store: restore the last one before anything else touches the data
+        SnapshotManager snapshots = null;
+        if (arguments.snapshot) {
+            snapshots = restoreSnapshot(arguments, dataset);
+            dataset = snapshots.getDataset();
+            lifecycle.onShutdown("final snapshot", snapshots::close);
+        }
+
+        // Replication: a primary records its transactions, a replica applies them
+        PatchLog patchLog = null;
+        ReplicaApplier replica = null;
+        if (arguments.replicaOf != null) {
+            replica = new ReplicaApplier(dataset, arguments.replicaOf, replicaName(arguments),
+                    arguments.replicaPollMillis, arguments.maxStalenessMillis);
+        } else if (arguments.patchLogging) {
+            patchLog = createPatchLog(arguments, dataset);
+            dataset = patchLog.getDataset();
+        }
 
         // Register JSON-LD format if not already registered
         if (!RDFLanguages.isRegistered(Lang.JSONLD)) {
             RDFLanguages.register(Lang.JSONLD);
         }
 
-        // Load example data if requested
-        if (arguments.loadExampleData) {
-            try {
-                System.out.println("Loading example offerings...");
-                SampleDatasetLoader.loadExampleOffering(dataset);
-                SampleDatasetLoader.addTestOffering(dataset);
-            } catch (Exception e) {
-                System.err.println("Warning: Could not load example offerings. Continuing with empty dataset.");
-                e.printStackTrace();
-            }
-        }
+        // Resolve JSON-LD contexts through the registry (before any example data is parsed)
+        JsonLdContextRegistry.configure(arguments.allowRemoteContexts);
+
+    // Cache static assets (and their compressed variants) up front
+    StaticAssetCache staticAssets = StaticAssetCache.getDefault();
 
     // Create handlers
     OfferingGSPHandler offeringHandler = new OfferingGSPHandler(dataset);
+    OfferingValidator validator = arguments.validationMode != ValidationMode.OFF || arguments.validationStatus
+            ? createValidator() : null;
+    if (arguments.validationMode != ValidationMode.OFF) {
+        offeringHandler.setValidator(validator, arguments.validationMode == ValidationMode.FAIL);
+    }
+    if (arguments.sharedEntities) {
+        offeringHandler.setSharedEntities(new SharedEntityGraph());
+    }
+    if (arguments.deduplicate) {
+        offeringHandler.setReferenceGraph(new ReferenceGraph());
+    }
+    ChangeFeed changeFeed = null;
+    if (replica == null) {
+        changeFeed = createChangeFeed(arguments);
+        offeringHandler.addChangeListener(changeFeed);
+        lifecycle.onShutdown("close the change log", changeFeed::close);
+    } else {
+        offeringHandler.setReadOnly("This catalogue is a read-only replica of " + arguments.replicaOf);
+    }
+    IncrementalValidationEngine validationEngine = null;
+    if (arguments.validationStatus && replica != null) {
+        // The status table is written by the primary and replicated with the data
+        System.err.println("Warning: --validation-status is ignored on a replica");
+    } else if (arguments.validationStatus) {
+        // Status table kept up to date from offering changes; stale offerings are audited in the background
+        validationEngine = new IncrementalValidationEngine(dataset, validator, arguments.auditThreads);
+        offeringHandler.addChangeListener(validationEngine);
+        validationEngine.start();
+        IncrementalValidationEngine engine = validationEngine;
+        lifecycle.onShutdown("stop validation", () -> engine.stop(shutdownTimeoutMillis(arguments)));
+    }
     OfferingListingService graphListingService = new OfferingListingService(dataset, SEDIMARK_OFFERING);
+    HotOfferings hotOfferings = null;
+    if (arguments.prewarm) {
+        // Warm the caches with the offerings most read before the restart, before accepting requests
+        hotOfferings = new HotOfferings(Paths.get(arguments.hotListLocation), 0);
+        hotOfferings.prewarm(dataset);
+        offeringHandler.setHotOfferings(hotOfferings);
+        offeringHandler.addChangeListener(hotOfferings);
+        lifecycle.onShutdown("save the hot offering list", hotOfferings::save);
+    }
+    OfferingCoverageIndex coverageIndex = null;
+    OfferingSimilarityIndex similarityIndex = null;
+    if (arguments.offeringIndex) {
+        if (replica == null) {
+            // Build the index once; from then on it is maintained as offerings are stored and deleted
+            OfferingIndex index = new OfferingIndex(loadGazetteer(arguments));
+            DatasetGraph dsg = dataset.asDatasetGraph();
+            Txn.executeWrite(dsg, () -> {
+                if (!OfferingIndex.isBuilt(dsg)) {
+                    index.rebuild(dsg);
+                }
+            });
+            offeringHandler.setOfferingIndex(index);
+        }
+        // A replica reads the index replicated from the primary, and updates these as it changes
+        OfferingDateIndex dateIndex = new OfferingDateIndex(dataset);
+        keepCurrent(dateIndex, offeringHandler, replica);
+        graphListingService.setIndexed(true);
+        graphListingService.setDateIndex(dateIndex);
+        coverageIndex = new OfferingCoverageIndex(dataset);
+        keepCurrent(coverageIndex, offeringHandler, replica);
+        similarityIndex = new OfferingSimilarityIndex(dataset);
+        keepCurrent(similarityIndex, offeringHandler, replica);
+    } else if (replica == null) {
+        // Offerings changed without --index would not be in the index: drop it, to be rebuilt with --index
+        DatasetGraph dsg = dataset.asDatasetGraph();
+        if (Txn.calculateRead(dsg, () -> dsg.containsGraph(OfferingIndex.GRAPH))) {
+            Txn.executeWrite(dsg, () -> OfferingIndex.drop(dsg));
+        }
+    }
+
+    // Load example and seed data if requested (a replica gets its data from the primary)
+    if (arguments.loadExampleData && replica == null) {
+        try {
+            System.out.println("Loading example offerings...");
+            new SeedLoader(offeringHandler, 1, 0).load(EXAMPLE_OFFERINGS);
+            SampleDatasetLoader.addTestOffering(dataset);
+        } catch (Exception e) {
+            System.err.println("Warning: Could not load example offerings. Continuing with empty dataset.");
+            e.printStackTrace();
+        }
+    }
+    if (arguments.seedSource != null && replica == null) {
+        try {
+            new SeedLoader(offeringHandler, arguments.seedThreads, arguments.seedBatchSize).load(arguments.seedSource);
+        } catch (Exception e) {
+            System.err.println("Warning: Could not seed offerings from " + arguments.seedSource + ": " + e.getMessage());
+        }
+    }
     HealthCheckHandler healthCheckHandler = new HealthCheckHandler();
 
     eu.sedimark.catalogue.handlers.QueryUIBootstrapProcessor queryUIProcessor = new eu.sedimark.catalogue.handlers.QueryUIBootstrapProcessor(dataset);
@@ -77,15 +266,47 @@ public class CatalogueServerLauncher {
     // Create and start Fuseki server with custom GSP handler
         FusekiServer.Builder builder = FusekiServer.create()
         .port(arguments.port)
-        .add("/catalogue", dataset) // Mount dataset at /catalogue endpoint
+        .add("/catalogue", dataset, replica == null) // Mount dataset at /catalogue endpoint (read-only on a replica)
         .addProcessor("/catalogue/manager", offeringHandler) // Use custom handler for GSP
+        .addProcessor("/catalogue/manager" + OfferingGSPHandler.BATCH_GET_PATH, offeringHandler) // multi-get of offerings
+        .addProcessor("/catalogue/manager" + OfferingGSPHandler.BATCH_DELETE_PATH, offeringHandler) // bulk delete
         .addProcessor("/catalogue/health", healthCheckHandler) // Test handler on a different endpoint
         .addServlet("/catalogue/graphs", graphListingService) // graph listing service
-        .addServlet("/static/*", new ClasspathResourceServlet()) // serve classpath static resources from JAR
+        .addServlet("/catalogue/export", new ExportService(dataset)) // bulk export as N-Quads or TriG
+        .addServlet("/static/*", new ClasspathResourceServlet(staticAssets)) // serve classpath static resources from JAR
         .addProcessor("/catalogue/query-ui", queryUIProcessor); // SPARQL Query UI endpoint
             // .addProcessor("/catalogue/query-ui-2", queryUITailwindProcessor); // Tailwind SPARQL Query UI endpoint (uses CDN)
 
+        if (changeFeed != null) {
+            builder.addServlet("/catalogue/changes", new ChangeFeedService(changeFeed)); // offering change feed (JSON pages and SSE)
+        }
+        if (arguments.offeringIndex) {
+            builder.addServlet("/catalogue/index", new OfferingIndexService(dataset)); // offering index lookups
+            builder.addServlet("/catalogue/search", new OfferingSearchService(dataset, coverageIndex)); // search by coverage
+            builder.addServlet("/catalogue/similar", new OfferingSimilarityService(dataset, similarityIndex)); // similar offerings
+        }
+        if (validationEngine != null) {
+            builder.addServlet("/catalogue/validation", new ValidationStatusService(validationEngine));
+        }
+        if (patchLog != null || replica != null) {
+            builder.addServlet("/catalogue/replication", new ReplicationService(patchLog, replica));
+        }
+
+        if (arguments.maxThreads > 0) {
+            builder.maxServerThreads(arguments.maxThreads);
+        }
+
         FusekiServer server = builder.build();
+        configureThreading(server, arguments);
+        configureCompression(server, arguments);
+        if (replica != null) {
+            // Outermost, so stale reads are refused before any other work
+            Server jetty = server.getJettyServer();
+            StalenessGuard guard = new StalenessGuard(replica);
+            guard.setHandler(jetty.getHandler());
+            jetty.setHandler(guard);
+        }
+        LifecycleManager.drainOnStop(server, arguments.shutdownTimeoutSeconds);
 
         // Use debug helper if requested
         if (arguments.debug) {
@@ -94,16 +315,227 @@ public class CatalogueServerLauncher {
         }
 
         server.start();
+        if (replica != null) {
+            replica.start();
+            lifecycle.onShutdown("stop replication", replica::stop);
+        }
+        if (snapshots != null) {
+            snapshots.start();
+        }
+        // Stopped first, so nothing is written once the rest shuts down
+        lifecycle.onShutdown("stop the server", () -> LifecycleManager.stopServer(server));
 
         // Print server information
         ArgumentsHelper.printServerInformation(server, arguments);
 
-        // Keep the server running
+        return server;
+    }
+
+    /**
+     * The GeoNames gazetteer for spatial coverage given as GeoNames URIs, or
+     * null if none is configured or it cannot be read
+     */
+    private static Gazetteer loadGazetteer(Arguments arguments) {
+        if (arguments.gazetteerLocation == null) {
+            return null;
+        }
         try {
-            Thread.currentThread().join();
-        } catch (InterruptedException e) {
-            System.err.println("Server interrupted: " + e.getMessage());
-            server.stop();
+            return Gazetteer.load(Paths.get(arguments.gazetteerLocation));
+        } catch (IOException e) {
+            System.err.println("Warning: Could not load the gazetteer " + arguments.gazetteerLocation + ": "
+                    + e.getMessage() + ". GeoNames locations will not be indexed.");
+            return null;
+        }
+    }
+
+    /**
+     * Export the offerings of the store to a file or standard output, without
+     * starting the server
+     *
+     * @return The exit code
+     */
+    private static int exportCatalogue(Arguments arguments) {
+        boolean toStdout = "-".equals(arguments.exportTarget);
+        // Standard output carries the data, so messages go to standard error
+        PrintStream data = System.out;
+        if (toStdout) {
+            System.setOut(System.err);
+        }
+        Dataset dataset = null;
+        try {
+            dataset = createDataset(arguments);
+            if (arguments.snapshot) {
+                dataset = restoreSnapshot(arguments, dataset).getDataset();
+            }
+            CatalogueExporter exporter = new CatalogueExporter(dataset);
+            CatalogueExporter.Result result;
+            if (toStdout) {
+                result = exporter.export(data, Lang.NQUADS, null, arguments.exportPrefix, arguments.exportRaw);
+                data.flush();
+            } else {
+                // Written next to the target and renamed, so a failed export leaves no partial file
+                Path target = Paths.get(arguments.exportTarget).toAbsolutePath();
+                Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+                Lang lang = CatalogueExporter.langForFile(target.getFileName().toString());
+                try (OutputStream file = new BufferedOutputStream(Files.newOutputStream(temp), 1 << 16);
+                        OutputStream out = arguments.exportTarget.endsWith(".gz")
+                                ? new GZIPOutputStream(file, 1 << 16) : file) {
+                    result = exporter.export(out, lang, null, arguments.exportPrefix, arguments.exportRaw);
+                }
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+            System.out.println("Exported " + result.graphs() + " graphs (" + result.quads() + " quads) to "
+                    + arguments.exportTarget + " in " + result.millis() + " ms");
+            return 0;
+        } catch (Exception e) {
+            System.err.println("Export failed: " + e.getMessage());
+            return 1;
+        } finally {
+            if (dataset != null) {
+                LifecycleManager.closeDataset(dataset);
+            }
+        }
+    }
+
+    private static long shutdownTimeoutMillis(Arguments arguments) {
+        return (arguments.shutdownTimeoutSeconds > 0 ? arguments.shutdownTimeoutSeconds
+                : LifecycleManager.DEFAULT_SHUTDOWN_TIMEOUT_SECONDS) * 1000L;
+    }
+
+    /**
+     * Load the last snapshot into the in-memory dataset, and wrap the dataset so
+     * later snapshots know whether it changed
+     */
+    private static SnapshotManager restoreSnapshot(Arguments arguments, Dataset dataset) {
+        Path file = Paths.get(arguments.snapshotLocation);
+        SnapshotManager snapshots = new SnapshotManager(dataset, file, arguments.snapshotIntervalSeconds);
+        try {
+            long restored = snapshots.restore();
+            if (restored >= 0) {
+                System.out.println("Restored " + restored + " quads from snapshot " + snapshots.getFile());
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not restore the snapshot " + file + ": " + e.getMessage(), e);
+        }
+        return snapshots;
+    }
+
+    /**
+     * Compile the SHACL shapes once for the ingest validation stage
+     */
+    private static OfferingValidator createValidator() {
+        try {
+            return OfferingValidator.fromClasspath();
+        } catch (Exception e) {
+            throw new IllegalStateException("Could not load SHACL shapes for validation: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Open the offering change feed: persisted next to the TDB2 store (or at
+     * --change-log), otherwise in memory only
+     */
+    private static ChangeFeed createChangeFeed(Arguments arguments) {
+        Path logFile = null;
+        if (arguments.changeLog != null) {
+            logFile = Paths.get(arguments.changeLog);
+        } else if (arguments.storageType == StorageType.TDB) {
+            Path tdb = Paths.get(arguments.tdbLocation).toAbsolutePath().normalize();
+            logFile = tdb.resolveSibling(tdb.getFileName() + "-changes.jsonl");
+        }
+        try {
+            return new ChangeFeed(logFile, arguments.changeRetention);
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not open the change log " + logFile + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Open the primary's patch log and wrap the dataset so every committed
+     * transaction is recorded
+     */
+    private static PatchLog createPatchLog(Arguments arguments, Dataset dataset) {
+        Path directory = Paths.get(arguments.patchLogLocation);
+        try {
+            return new PatchLog(directory, dataset);
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not open the patch log " + directory + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Load an in-memory index and keep it up to date: from offering changes on a
+     * primary, from the replicated index entries on a replica
+     */
+    private static void keepCurrent(LoadedOfferingIndex<?> index, OfferingGSPHandler offeringHandler,
+            ReplicaApplier replica) {
+        index.load();
+        if (replica == null) {
+            offeringHandler.addChangeListener(index);
+        } else {
+            replica.onPatchesApplied(OfferingIndex.GRAPH, index::indexChanged);
+        }
+    }
+
+    /**
+     * Name a replica reports its progress to the primary under
+     */
+    private static String replicaName(Arguments arguments) {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (IOException e) {
+            host = "localhost";
+        }
+        return host + ":" + arguments.port;
+    }
+
+    /**
+     * Wrap the Fuseki handler tree in a Jetty GzipHandler so every catalogue
+     * response (offering graphs, listings, SPARQL results) is gzip-compressed for
+     * clients that send Accept-Encoding: gzip. Compression is streamed, so large
+     * graphs are not buffered, and responses below the threshold are sent as-is.
+     */
+    private static void configureCompression(FusekiServer server, Arguments arguments) {
+        if (!arguments.compression) {
+            return;
+        }
+        Server jetty = server.getJettyServer();
+        GzipHandler gzipHandler = new GzipHandler();
+        gzipHandler.setMinGzipSize(arguments.compressionMinSize > 0 ? arguments.compressionMinSize
+                : ArgumentsHelper.DEFAULT_COMPRESSION_MIN_SIZE);
+        gzipHandler.setIncludedMethods("GET", "POST");
+        // Server-Sent Events must reach the client as they are written
+        gzipHandler.addExcludedMimeTypes("text/event-stream");
+        gzipHandler.setHandler(jetty.getHandler());
+        jetty.setHandler(gzipHandler);
+    }
+
+    /**
+     * Apply the virtual thread and connection limit options to the Jetty server.
+     * Must be called before the server is started.
+     */
+    private static void configureThreading(FusekiServer server, Arguments arguments) {
+        Server jetty = server.getJettyServer();
+
+        if (arguments.virtualThreads) {
+            ThreadPool threadPool = jetty.getThreadPool();
+            if (threadPool instanceof QueuedThreadPool queuedThreadPool) {
+                // Selectors and acceptors stay on the platform pool; request handling
+                // (processors and servlets) is dispatched to a bounded virtual thread executor.
+                VirtualThreadPool virtualExecutor = new VirtualThreadPool(
+                        arguments.maxVirtualThreads > 0 ? arguments.maxVirtualThreads
+                                : ArgumentsHelper.DEFAULT_MAX_VIRTUAL_THREADS);
+                virtualExecutor.setName("catalogue-vt");
+                queuedThreadPool.setVirtualThreadsExecutor(virtualExecutor);
+            } else {
+                System.err.println("Warning: virtual threads requested but the Jetty thread pool is "
+                        + threadPool.getClass().getSimpleName() + "; using platform threads.");
+            }
+        }
+
+        if (arguments.maxConnections > 0) {
+            jetty.addBean(new ConnectionLimit(arguments.maxConnections, jetty));
         }
     }
 
@@ -113,11 +545,32 @@ public class CatalogueServerLauncher {
     private static Dataset createDataset(Arguments arguments) {
         switch (arguments.storageType) {
             case TDB:
+                Path location = Paths.get(arguments.tdbLocation);
+                if (arguments.shards > 1 || ShardedDatasetGraph.isSharded(location)) {
+                    ShardedDatasetGraph sharded = connectShards(location, arguments.shards);
+                    arguments.shards = sharded.getShardCount();
+                    System.out.println("Using TDB2 persistent storage at: " + arguments.tdbLocation
+                            + " (" + arguments.shards + " shards)");
+                    return createShardedDataset(sharded);
+                }
                 System.out.println("Using TDB2 persistent storage at: " + arguments.tdbLocation);
                 ArgumentsHelper.ensureDirectoryExists(arguments.tdbLocation);
                 return TDB2Factory.connectDataset(arguments.tdbLocation);
+            case OFF_HEAP:
+                Path scratch = createOffHeapDirectory(arguments.offHeapLocation);
+                arguments.offHeapLocation = scratch.toString();
+                System.out.println("Using off-heap in-memory storage (memory-mapped TDB2) in: " + scratch
+                        + (arguments.shards > 1 ? " (" + arguments.shards + " shards)" : ""));
+                if (arguments.shards > 1) {
+                    return createShardedDataset(connectShards(scratch, arguments.shards));
+                }
+                return TDB2Factory.connectDataset(scratch.toString());
             case MEMORY:
             default:
+                if (arguments.shards > 1) {
+                    System.out.println("Using in-memory storage (" + arguments.shards + " shards)");
+                    return createShardedDataset(ShardedDatasetGraph.createInMemory(arguments.shards));
+                }
                 System.out.println("Using in-memory storage");
                 Dataset dataset = DatasetFactory.createTxnMem();
                 // Create an empty model in the default graph
@@ -126,4 +579,53 @@ public class CatalogueServerLauncher {
                 return dataset;
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Create the scratch directory of an off-heap store. TDB2 memory-maps its
+     * indexes and node table, so in a RAM-backed directory (/dev/shm) the data
+     * lives in the page cache outside the Java heap and the heap only holds
+     * caches. The directory is deleted when the JVM exits.
+     */
+    private static Path createOffHeapDirectory(String location) {
+        Path base;
+        if (location != null) {
+            base = Paths.get(location);
+        } else {
+            Path shm = Paths.get("/dev/shm");
+            base = Files.isDirectory(shm) && Files.isWritable(shm) ? shm : Paths.get(System.getProperty("java.io.tmpdir"));
+        }
+        try {
+            Files.createDirectories(base);
+            Path scratch = Files.createTempDirectory(base, "sedimark-offheap-");
+            LifecycleManager.get().onShutdown("delete the off-heap store", () -> deleteRecursively(scratch));
+            return scratch;
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not create the off-heap store in " + base + ": " + e.getMessage(), e);
+        }
+    }
+
+    private static void deleteRecursively(Path directory) {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        } catch (IOException e) {
+            System.err.println("Could not delete the off-heap store " + directory + ": " + e.getMessage());
+        }
+    }
+
+    private static ShardedDatasetGraph connectShards(Path location, int shards) {
+        try {
+            return ShardedDatasetGraph.connectTDB2(location, shards);
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not open the sharded store " + location + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Wrap a sharded store as a dataset, making SPARQL queries over it evaluate
+     * GRAPH patterns across all shards at once
+     */
+    private static Dataset createShardedDataset(ShardedDatasetGraph sharded) {
+        ShardedQueryEngine.register();
+        return DatasetFactory.wrap(sharded);
+    }
+}
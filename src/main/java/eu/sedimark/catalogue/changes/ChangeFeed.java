@@ -0,0 +1,467 @@
+/*
+ * SEDIMARK Catalogue Server
+ *
+ * Copyright (C) 2025 Tarek Elsaleh
+ *
+ * This program is licensed under the European Union Public License (EUPL) v1.2.
+ * You may obtain a copy of the License at:
+ * https://joinup.ec.europa.eu/collection/eupl/eupl-text-eupl-12
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.sedimark.catalogue.changes;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import eu.sedimark.catalogue.handlers.OfferingChangeListener;
+import eu.sedimark.catalogue.handlers.OfferingGSPHandler.NamedSubgraph;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Append-only, sequence-numbered log of the offering mutations done through
+ * {@link eu.sedimark.catalogue.handlers.OfferingGSPHandler}, so consumers can sync
+ * incrementally from the last sequence they saw instead of diffing listings.
+ *
+ * The most recent events are kept in memory. With a log file (TDB2 storage) every
+ * event is also appended to it as a JSON line, so sequence numbers continue across
+ * restarts and older events can still be read back.
+ *
+ * Events are appended after the offering change is committed, so a crash in
+ * between loses them. The feed therefore has an id (its epoch), part of every
+ * cursor handed out: a new in-memory feed, and a logged feed that was not closed
+ * cleanly, start a new epoch, and cursors of an earlier one are refused so that
+ * their consumers resync instead of silently missing changes.
+ */
+public class ChangeFeed implements OfferingChangeListener {
+    private static final Logger logger = LoggerFactory.getLogger(ChangeFeed.class);
+
+    /** Default number of events kept in memory */
+    public static final int DEFAULT_RETAINED = 10_000;
+
+    /** Log lines starting an epoch, continuing it after a clean shutdown, and marking one */
+    private static final String FEED_LINE = "{\"feed\":";
+    private static final String OPENED_LINE = "{\"opened\":";
+    private static final String CLOSED_LINE = "{\"closed\":";
+
+    public enum ChangeType {
+        STORE, REPLACE, DELETE;
+
+        public String label() {
+            return name().toLowerCase();
+        }
+    }
+
+    private final Path logFile;
+    private final int retained;
+    private final Deque<ChangeEvent> recent = new ArrayDeque<>();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition appended = lock.newCondition();
+    private final AtomicInteger subscribers = new AtomicInteger();
+    private OutputStream log;
+    private long lastSequence;
+    private long firstSequence = 1;
+    private String id;
+    private boolean closedCleanly = true;
+
+    /**
+     * @param logFile  File the events are appended to, or null to keep them in
+     *                 memory only
+     * @param retained Number of recent events kept in memory
+     */
+    public ChangeFeed(Path logFile, int retained) throws IOException {
+        this.logFile = logFile;
+        this.retained = retained > 0 ? retained : DEFAULT_RETAINED;
+        if (logFile != null) {
+            recover();
+            log = Files.newOutputStream(logFile, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            if (endsWithTornLine()) {
+                log.write('\n');
+            }
+        }
+        if (id == null || !closedCleanly) {
+            startEpoch();
+        } else if (log != null) {
+            // Until the next clean shutdown, a restart cannot tell whether events were lost
+            log.write((OPENED_LINE + "\"" + Instant.now() + "\"}\n").getBytes(StandardCharsets.UTF_8));
+            log.flush();
+        }
+        logger.info("Change feed {} at sequence {}{}", id, lastSequence,
+                logFile != null ? " (log " + logFile + ")" : "");
+    }
+
+    /**
+     * Start a new epoch: events from now on may not follow the earlier ones
+     * without a gap
+     */
+    private void startEpoch() throws IOException {
+        id = Long.toString(System.currentTimeMillis(), 36);
+        firstSequence = lastSequence + 1;
+        recent.clear();
+        if (log != null) {
+            log.write(("{\"feed\":\"" + id + "\"}\n").getBytes(StandardCharsets.UTF_8));
+            log.flush();
+        }
+    }
+
+    /**
+     * Reload the sequence and the recent events from an existing log file
+     */
+    private void recover() throws IOException {
+        if (logFile.getParent() != null) {
+            Files.createDirectories(logFile.getParent());
+        }
+        if (!Files.exists(logFile)) {
+            return;
+        }
+        boolean first = true;
+        try (BufferedReader reader = Files.newBufferedReader(logFile, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.startsWith(FEED_LINE)) {
+                    id = ChangeEvent.field(line, "feed");
+                    firstSequence = lastSequence + 1;
+                    recent.clear();
+                    first = false;
+                    closedCleanly = false;
+                    continue;
+                }
+                if (line.startsWith(OPENED_LINE) || line.startsWith(CLOSED_LINE)) {
+                    closedCleanly = line.startsWith(CLOSED_LINE);
+                    continue;
+                }
+                ChangeEvent event = ChangeEvent.parse(line);
+                if (event == null) {
+                    continue; // torn last line after a crash
+                }
+                if (first) {
+                    firstSequence = event.getSequence();
+                    first = false;
+                }
+                lastSequence = event.getSequence();
+                closedCleanly = false;
+                remember(event);
+            }
+        }
+    }
+
+    private boolean endsWithTornLine() throws IOException {
+        long size = Files.size(logFile);
+        if (size == 0) {
+            return false;
+        }
+        try (SeekableByteChannel channel = Files.newByteChannel(logFile)) {
+            ByteBuffer last = ByteBuffer.allocate(1);
+            channel.position(size - 1).read(last);
+            return last.get(0) != '\n';
+        }
+    }
+
+    @Override
+    public void offeringsStored(List<NamedSubgraph> offerings) {
+        for (NamedSubgraph offering : offerings) {
+            append(offering.isReplaced() ? ChangeType.REPLACE : ChangeType.STORE, offering.getGraphName(),
+                    offering.getModel().size());
+        }
+    }
+
+    @Override
+    public void offeringDeleted(String graphName) {
+        append(ChangeType.DELETE, graphName, 0);
+    }
+
+    /**
+     * Record a mutation and wake up waiting subscribers
+     */
+    public ChangeEvent append(ChangeType type, String graphName, long statements) {
+        lock.lock();
+        try {
+            ChangeEvent event = new ChangeEvent(lastSequence + 1, type, graphName, statements, Instant.now());
+            if (log != null) {
+                try {
+                    log.write((event.toJson() + "\n").getBytes(StandardCharsets.UTF_8));
+                    log.flush();
+                } catch (IOException e) {
+                    logger.error("Could not append to the change log {}: {}", logFile, e.getMessage());
+                }
+            }
+            lastSequence = event.getSequence();
+            remember(event);
+            appended.signalAll();
+            return event;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Close the log file at shutdown; later events are kept in memory only
+     */
+    public void close() {
+        lock.lock();
+        try {
+            if (log != null) {
+                log.write((CLOSED_LINE + "\"" + Instant.now() + "\"}\n").getBytes(StandardCharsets.UTF_8));
+                log.close();
+                log = null;
+            }
+        } catch (IOException e) {
+            logger.error("Could not close the change log {}: {}", logFile, e.getMessage());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void remember(ChangeEvent event) {
+        recent.addLast(event);
+        if (recent.size() > retained) {
+            recent.removeFirst();
+        }
+    }
+
+    /**
+     * Events after a sequence number, oldest first
+     *
+     * @param since Last sequence the consumer has seen (0 for the start of the log)
+     * @param limit Maximum number of events
+     * @return The events (empty if the consumer is up to date), or null if events
+     *         after since are no longer available (or since is ahead of the feed)
+     *         and the consumer must resync
+     */
+    public List<ChangeEvent> read(long since, int limit) throws IOException {
+        lock.lock();
+        try {
+            if (since > lastSequence) {
+                return null; // the consumer saw a feed that was since reset
+            }
+            if (since == lastSequence) {
+                return List.of();
+            }
+            if (!recent.isEmpty() && since + 1 >= recent.peekFirst().getSequence()) {
+                List<ChangeEvent> events = new ArrayList<>(Math.min(limit, (int) (lastSequence - since)));
+                for (ChangeEvent event : recent) {
+                    if (event.getSequence() > since) {
+                        events.add(event);
+                        if (events.size() >= limit) {
+                            break;
+                        }
+                    }
+                }
+                return events;
+            }
+            if (logFile == null || since + 1 < firstSequence) {
+                return null;
+            }
+        } finally {
+            lock.unlock();
+        }
+        return readLog(since, limit);
+    }
+
+    /**
+     * Older events that are no longer in memory come from the log file
+     */
+    private List<ChangeEvent> readLog(long since, int limit) throws IOException {
+        List<ChangeEvent> events = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(logFile, StandardCharsets.UTF_8)) {
+            String line;
+            while (events.size() < limit && (line = reader.readLine()) != null) {
+                ChangeEvent event = ChangeEvent.parse(line);
+                if (event != null && event.getSequence() > since) {
+                    events.add(event);
+                }
+            }
+        }
+        return events;
+    }
+
+    /**
+     * Wait until there are events after a sequence number
+     *
+     * @return Whether there are new events (false on timeout)
+     */
+    public boolean await(long since, long timeout, TimeUnit unit) throws InterruptedException {
+        long nanos = unit.toNanos(timeout);
+        lock.lock();
+        try {
+            while (lastSequence <= since) {
+                if (nanos <= 0) {
+                    return false;
+                }
+                nanos = appended.awaitNanos(nanos);
+            }
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * The feed's epoch, which cursors carry
+     */
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * The cursor of a position in the current epoch
+     */
+    public String cursor(long sequence) {
+        return id + "-" + sequence;
+    }
+
+    public long getLastSequence() {
+        lock.lock();
+        try {
+            return lastSequence;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Oldest sequence number that can still be read
+     */
+    public long getFirstSequence() {
+        lock.lock();
+        try {
+            if (logFile != null) {
+                return firstSequence;
+            }
+            return recent.isEmpty() ? lastSequence + 1 : recent.peekFirst().getSequence();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Track event stream subscribers, for reporting
+     *
+     * @param delta +1 when a subscriber connects, -1 when it goes away
+     */
+    public void subscribers(int delta) {
+        subscribers.addAndGet(delta);
+    }
+
+    public int getSubscriberCount() {
+        return subscribers.get();
+    }
+
+    /**
+     * One mutation of an offering graph
+     */
+    public static class ChangeEvent {
+        private final long sequence;
+        private final ChangeType type;
+        private final String graphName;
+        private final long statements;
+        private final Instant timestamp;
+
+        ChangeEvent(long sequence, ChangeType type, String graphName, long statements, Instant timestamp) {
+            this.sequence = sequence;
+            this.type = type;
+            this.graphName = graphName;
+            this.statements = statements;
+            this.timestamp = timestamp;
+        }
+
+        public long getSequence() {
+            return sequence;
+        }
+
+        public ChangeType getType() {
+            return type;
+        }
+
+        public String getGraphName() {
+            return graphName;
+        }
+
+        public long getStatements() {
+            return statements;
+        }
+
+        public Instant getTimestamp() {
+            return timestamp;
+        }
+
+        /**
+         * The event as a single-line JSON object (also the log file format)
+         */
+        public String toJson() {
+            return "{\"sequence\":" + sequence + ",\"type\":\"" + type.label() + "\",\"graph\":\""
+                    + escape(graphName) + "\",\"statements\":" + statements + ",\"timestamp\":\"" + timestamp
+                    + "\"}";
+        }
+
+        /**
+         * Parse a log line written by {@link #toJson()}
+         *
+         * @return The event, or null if the line is incomplete
+         */
+        static ChangeEvent parse(String line) {
+            try {
+                long sequence = Long.parseLong(field(line, "sequence"));
+                ChangeType type = ChangeType.valueOf(field(line, "type").toUpperCase());
+                String graph = unescape(field(line, "graph"));
+                long statements = Long.parseLong(field(line, "statements"));
+                Instant timestamp = Instant.parse(field(line, "timestamp"));
+                return new ChangeEvent(sequence, type, graph, statements, timestamp);
+            } catch (RuntimeException e) {
+                return null;
+            }
+        }
+
+        static String field(String line, String name) {
+            String key = "\"" + name + "\":";
+            int start = line.indexOf(key);
+            if (start < 0) {
+                throw new IllegalArgumentException("Missing " + name);
+            }
+            start += key.length();
+            if (line.charAt(start) == '"') {
+                int end = start + 1;
+                while (line.charAt(end) != '"' || line.charAt(end - 1) == '\\') {
+                    end++;
+                }
+                return line.substring(start + 1, end);
+            }
+            int end = start;
+            while (end < line.length() && line.charAt(end) != ',' && line.charAt(end) != '}') {
+                end++;
+            }
+            return line.substring(start, end);
+        }
+
+        private static String escape(String value) {
+            return value.replace("\\", "\\\\").replace("\"", "\\\"");
+        }
+
+        private static String unescape(String value) {
+            return value.replace("\\\"", "\"").replace("\\\\", "\\");
+        }
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * SEDIMARK Catalogue Server
+ *
+ * Copyright (C) 2025 Tarek Elsaleh
+ *
+ * This program is licensed under the European Union Public License (EUPL) v1.2.
+ * You may obtain a copy of the License at:
+ * https://joinup.ec.europa.eu/collection/eupl/eupl-text-eupl-12
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.sedimark.catalogue.export;
+
+import org.apache.jena.graph.Graph;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.query.Dataset;
+import org.apache.jena.riot.Lang;
+import org.apache.jena.riot.RDFFormat;
+import org.apache.jena.riot.RDFLanguages;
+import org.apache.jena.riot.system.StreamRDF;
+import org.apache.jena.riot.system.StreamRDFWriter;
+import org.apache.jena.sparql.core.DatasetGraph;
+import org.apache.jena.sparql.core.Quad;
+import org.apache.jena.system.Txn;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.OutputStream;
+import java.util.Collection;
+import java.util.Iterator;
+
+import eu.sedimark.catalogue.storage.SharedEntityGraph;
+import eu.sedimark.catalogue.utils.SystemGraphs;
+
+/**
+ * Streams the offering graphs of the catalogue as N-Quads or TriG, e.g. for
+ * backups and migrations.
+ *
+ * Everything is read in a single read transaction, so the export is a
+ * consistent view of the catalogue while writes go on, and quads are written as
+ * they are read: nothing is collected in a model, and memory use does not depend
+ * on the size of the catalogue. Each offering is exported as a GET returns it,
+ * with its shared entities and deduplicated statements put back, so the export
+ * can be loaded into any catalogue; a raw export writes the stored graphs
+ * (system graphs included) as they are, for a copy of this configuration.
+ */
+public class CatalogueExporter {
+    private static final Logger logger = LoggerFactory.getLogger(CatalogueExporter.class);
+
+    private final Dataset dataset;
+
+    public CatalogueExporter(Dataset dataset) {
+        this.dataset = dataset;
+    }
+
+    /**
+     * The export language for a file name: TriG for .trig, otherwise N-Quads
+     * (a .gz suffix is ignored)
+     */
+    public static Lang langForFile(String fileName) {
+        String name = fileName.endsWith(".gz") ? fileName.substring(0, fileName.length() - 3) : fileName;
+        return Lang.TRIG.equals(RDFLanguages.filenameToLang(name)) ? Lang.TRIG : Lang.NQUADS;
+    }
+
+    /**
+     * Write the offering graphs to a stream. The stream is not closed.
+     *
+     * @param out    Where to write
+     * @param lang   {@link Lang#NQUADS} or {@link Lang#TRIG}
+     * @param graphs The offering graphs to export, or null for all of them
+     * @param prefix Only export graphs whose name starts with this, or null
+     * @param raw    Export the stored graphs, system graphs included, without
+     *               expanding shared and deduplicated statements
+     * @return What was exported
+     */
+    public Result export(OutputStream out, Lang lang, Collection<String> graphs, String prefix, boolean raw) {
+        long start = System.nanoTime();
+        DatasetGraph dsg = dataset.asDatasetGraph();
+        Result result = Txn.calculateRead(dsg, () -> {
+            StreamRDF stream = StreamRDFWriter.getWriterStream(out,
+                    Lang.TRIG.equals(lang) ? RDFFormat.TRIG_BLOCKS : RDFFormat.NQUADS);
+            stream.start();
+            if (Lang.TRIG.equals(lang)) {
+                dsg.prefixes().forEach(stream::prefix);
+            }
+            long exported = 0;
+            long quads = 0;
+            if (raw && graphs == null && prefix == null) {
+                Iterator<Triple> triples = dsg.getDefaultGraph().find();
+                while (triples.hasNext()) {
+                    stream.triple(triples.next());
+                    quads++;
+                }
+            }
+            Iterator<Node> names = graphs != null
+                    ? graphs.stream().map(NodeFactory::createURI).iterator()
+                    : dsg.listGraphNodes();
+            while (names.hasNext()) {
+                Node graphName = names.next();
+                if (!graphName.isURI() || (prefix != null && !graphName.getURI().startsWith(prefix))
+                        || (!raw && SystemGraphs.isSystemGraph(graphName.getURI()))
+                        || !dsg.containsGraph(graphName)) {
+                    continue;
+                }
+                Graph graph = raw ? dsg.getGraph(graphName) : SharedEntityGraph.expand(dsg, graphName);
+                Iterator<Triple> triples = graph.find();
+                while (triples.hasNext()) {
+                    stream.quad(Quad.create(graphName, triples.next()));
+                    quads++;
+                }
+                exported++;
+            }
+            stream.finish();
+            return new Result(exported, quads, 0);
+        });
+        long millis = (System.nanoTime() - start) / 1_000_000;
+        logger.info("Exported {} graphs ({} quads) as {} in {} ms", result.graphs(), result.quads(), lang.getLabel(),
+                millis);
+        return new Result(result.graphs(), result.quads(), millis);
+    }
+
+    /**
+     * What an export wrote
+     */
+    public record Result(long graphs, long quads, long millis) {
+    }
+}
@@ -0,0 +1,201 @@
+/*
+ * SEDIMARK Catalogue Server
+ *
+ * Copyright (C) 2025 Tarek Elsaleh
+ *
+ * This program is licensed under the European Union Public License (EUPL) v1.2.
+ * You may obtain a copy of the License at:
+ * https://joinup.ec.europa.eu/collection/eupl/eupl-text-eupl-12
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.sedimark.catalogue.handlers;
+
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import eu.sedimark.catalogue.changes.ChangeFeed;
+import eu.sedimark.catalogue.changes.ChangeFeed.ChangeEvent;
+
+/**
+ * Servlet exposing the {@link ChangeFeed} at /catalogue/changes:
+ * GET ?since=CURSOR returns the events after that position as a JSON page
+ * (resume with the returned "next"); with Accept: text/event-stream (or
+ * ?stream=true) the events are pushed as Server-Sent Events, resuming from
+ * Last-Event-ID or since. A cursor is the feed's epoch and a sequence number,
+ * "epoch-N"; a cursor of another epoch gets 410 like an expired one.
+ */
+public class ChangeFeedService extends HttpServlet {
+    private static final long serialVersionUID = 1L;
+    private static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(ChangeFeedService.class);
+
+    private static final int DEFAULT_LIMIT = 1000;
+    private static final int MAX_LIMIT = 10_000;
+    /** Events per SSE write */
+    private static final int STREAM_BATCH = 500;
+    private static final long HEARTBEAT_SECONDS = 15;
+
+    private final transient ChangeFeed feed;
+
+    public ChangeFeedService(ChangeFeed feed) {
+        this.feed = feed;
+    }
+
+    @Override
+    protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
+        String accept = req.getHeader("Accept");
+        boolean stream = "true".equalsIgnoreCase(req.getParameter("stream"))
+                || (accept != null && accept.contains("text/event-stream"));
+
+        long since;
+        String epoch = null;
+        try {
+            String lastEventId = stream ? req.getHeader("Last-Event-ID") : null;
+            String sinceParam = lastEventId != null ? lastEventId : req.getParameter("since");
+            if (sinceParam != null) {
+                sinceParam = sinceParam.trim();
+                int dash = sinceParam.lastIndexOf('-');
+                if (dash > 0) {
+                    epoch = sinceParam.substring(0, dash);
+                    sinceParam = sinceParam.substring(dash + 1);
+                }
+            }
+            // A stream without a position starts at the current end of the feed
+            since = sinceParam != null ? Long.parseLong(sinceParam) : stream ? feed.getLastSequence() : 0;
+            if (since < 0) {
+                throw new NumberFormatException();
+            }
+        } catch (NumberFormatException e) {
+            resp.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+            resp.setContentType("application/json");
+            resp.getWriter()
+                    .write("{ \"status\": \"error\", \"message\": \"since must be a cursor or a sequence number\" }");
+            return;
+        }
+        if (epoch != null && !epoch.equals(feed.getId())) {
+            // The cursor is from before a restart that may have lost events
+            since = -1;
+        }
+
+        if (stream) {
+            streamEvents(resp, since);
+        } else {
+            writePage(req, resp, since);
+        }
+    }
+
+    private void writePage(HttpServletRequest req, HttpServletResponse resp, long since) throws IOException {
+        int limit = DEFAULT_LIMIT;
+        String limitParam = req.getParameter("limit");
+        if (limitParam != null) {
+            try {
+                limit = Math.max(1, Math.min(MAX_LIMIT, Integer.parseInt(limitParam)));
+            } catch (NumberFormatException e) {
+                // keep the default
+            }
+        }
+
+        resp.setContentType("application/json");
+        List<ChangeEvent> events = since >= 0 ? feed.read(since, limit) : null;
+        if (events == null) {
+            resp.setStatus(HttpServletResponse.SC_GONE);
+            resp.getWriter().write(resyncMessage(since));
+            return;
+        }
+
+        long last = feed.getLastSequence();
+        long next = events.isEmpty() ? since : events.get(events.size() - 1).getSequence();
+        StringBuilder json = new StringBuilder();
+        json.append("{\n");
+        json.append("  \"status\": \"success\",\n");
+        json.append("  \"feed\": \"").append(feed.getId()).append("\",\n");
+        json.append("  \"since\": ").append(since).append(",\n");
+        json.append("  \"next\": \"").append(feed.cursor(next)).append("\",\n");
+        json.append("  \"lastSequence\": ").append(last).append(",\n");
+        json.append("  \"hasMore\": ").append(next < last).append(",\n");
+        json.append("  \"events\": [");
+        for (int i = 0; i < events.size(); i++) {
+            json.append(i == 0 ? "\n    " : ",\n    ").append(events.get(i).toJson());
+        }
+        json.append(events.isEmpty() ? "],\n" : "\n  ],\n");
+        json.append("  \"timestamp\": \"").append(Instant.now()).append("\"\n");
+        json.append("}");
+        resp.getWriter().write(json.toString());
+    }
+
+    /**
+     * Push events as they are appended until the client goes away. Comments are
+     * sent as heartbeats so idle connections are kept open and dead ones noticed.
+     */
+    private void streamEvents(HttpServletResponse resp, long since) throws IOException {
+        resp.setContentType("text/event-stream");
+        resp.setCharacterEncoding("UTF-8");
+        resp.setHeader("Cache-Control", "no-cache");
+        resp.setHeader("X-Accel-Buffering", "no");
+        ServletOutputStream out = resp.getOutputStream();
+
+        feed.subscribers(1);
+        long cursor = since;
+        try {
+            write(out, "retry: 3000\n\n");
+            while (true) {
+                List<ChangeEvent> events = cursor >= 0 ? feed.read(cursor, STREAM_BATCH) : null;
+                if (events == null) {
+                    write(out, "event: resync\ndata: " + resyncMessage(cursor) + "\n\n");
+                    return;
+                }
+                if (events.isEmpty()) {
+                    if (!feed.await(cursor, HEARTBEAT_SECONDS, TimeUnit.SECONDS)) {
+                        write(out, ": heartbeat\n\n");
+                    }
+                    continue;
+                }
+                StringBuilder batch = new StringBuilder();
+                for (ChangeEvent event : events) {
+                    batch.append("id: ").append(feed.cursor(event.getSequence())).append('\n');
+                    batch.append("event: ").append(event.getType().label()).append('\n');
+                    batch.append("data: ").append(event.toJson()).append("\n\n");
+                    cursor = event.getSequence();
+                }
+                write(out, batch.toString());
+            }
+        } catch (IOException e) {
+            logger.debug("Change stream subscriber disconnected at sequence {}", cursor);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            feed.subscribers(-1);
+        }
+    }
+
+    private static void write(ServletOutputStream out, String text) throws IOException {
+        out.write(text.getBytes(StandardCharsets.UTF_8));
+        out.flush();
+    }
+
+    /**
+     * @param since The position the consumer asked for, or -1 for a cursor of
+     *              another epoch
+     */
+    private String resyncMessage(long since) {
+        String reason = since < 0 ? "The cursor is from an earlier epoch of the feed, which may have missed changes"
+                : "Events after sequence " + since + " are no longer available";
+        return "{ \"status\": \"error\", \"message\": \"" + reason + "; resync from /catalogue/graphs\", \"feed\": \""
+                + feed.getId() + "\", \"firstSequence\": " + feed.getFirstSequence() + ", \"lastSequence\": "
+                + feed.getLastSequence() + " }";
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * SEDIMARK Catalogue Server
+ *
+ * Copyright (C) 2025 Tarek Elsaleh
+ *
+ * This program is licensed under the European Union Public License (EUPL) v1.2.
+ * You may obtain a copy of the License at:
+ * https://joinup.ec.europa.eu/collection/eupl/eupl-text-eupl-12
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.sedimark.catalogue.handlers;
+
+import org.apache.jena.query.Dataset;
+import org.apache.jena.riot.Lang;
+
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import eu.sedimark.catalogue.export.CatalogueExporter;
+
+/**
+ * Servlet for bulk export at /catalogue/export: GET streams every offering graph
+ * as N-Quads (default) or TriG (?format=trig or Accept: application/trig) from a
+ * single read transaction. ?graph=URI (repeatable) or ?prefix=URI-prefix select
+ * a subset, ?compress=gzip returns a gzip file, and ?raw=true exports the stored
+ * graphs, system graphs included, as they are.
+ */
+public class ExportService extends HttpServlet {
+    private static final long serialVersionUID = 1L;
+    private static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(ExportService.class);
+
+    private static final DateTimeFormatter FILE_TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss")
+            .withZone(ZoneOffset.UTC);
+
+    private final transient CatalogueExporter exporter;
+
+    public ExportService(Dataset dataset) {
+        this.exporter = new CatalogueExporter(dataset);
+    }
+
+    @Override
+    protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
+        Lang lang = exportLang(req);
+        if (lang == null) {
+            resp.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+            resp.setContentType("application/json");
+            resp.getWriter().write("{ \"status\": \"error\", \"message\": \"format must be nquads or trig\" }");
+            return;
+        }
+        String compress = req.getParameter("compress");
+        boolean gzip = "gzip".equalsIgnoreCase(compress);
+        if (compress != null && !gzip) {
+            resp.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+            resp.setContentType("application/json");
+            resp.getWriter().write("{ \"status\": \"error\", \"message\": \"compress must be gzip\" }");
+            return;
+        }
+        String[] graphParams = req.getParameterValues("graph");
+        List<String> graphs = graphParams != null ? Arrays.asList(graphParams) : null;
+        String prefix = req.getParameter("prefix");
+        boolean raw = "true".equalsIgnoreCase(req.getParameter("raw"));
+
+        // No length: the response is streamed (chunked) as the quads are read
+        String fileName = "catalogue-" + FILE_TIMESTAMP.format(Instant.now())
+                + (Lang.TRIG.equals(lang) ? ".trig" : ".nq") + (gzip ? ".gz" : "");
+        resp.setContentType(gzip ? "application/gzip" : lang.getContentType().getContentTypeStr() + ";charset=utf-8");
+        resp.setHeader("Content-Disposition", "attachment; filename=\"" + fileName + "\"");
+        resp.setHeader("Cache-Control", "no-cache");
+        try {
+            OutputStream out = resp.getOutputStream();
+            if (gzip) {
+                GZIPOutputStream compressed = new GZIPOutputStream(out, 1 << 16);
+                exporter.export(compressed, lang, graphs, prefix, raw);
+                compressed.finish();
+            } else {
+                exporter.export(out, lang, graphs, prefix, raw);
+            }
+        } catch (Exception e) {
+            // Usually the client going away; the status is already sent once streaming began
+            logger.warn("Export aborted: {}", e.getMessage());
+            if (!resp.isCommitted()) {
+                resp.reset();
+                resp.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+                resp.setContentType("application/json");
+                resp.getWriter().write("{ \"status\": \"error\", \"message\": \"Export failed\" }");
+            }
+        }
+    }
+
+    /**
+     * The requested format: ?format, else the Accept header, else N-Quads
+     */
+    private static Lang exportLang(HttpServletRequest req) {
+        String format = req.getParameter("format");
+        if (format != null) {
+            return switch (format.trim().toLowerCase()) {
+                case "nquads", "nq", "n-quads" -> Lang.NQUADS;
+                case "trig" -> Lang.TRIG;
+                default -> null;
+            };
+        }
+        String accept = req.getHeader("Accept");
+        return accept != null && accept.contains("application/trig") ? Lang.TRIG : Lang.NQUADS;
+    }
+}
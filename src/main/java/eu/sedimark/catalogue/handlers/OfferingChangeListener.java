@@ -0,0 +1,41 @@
+/*
+ * SEDIMARK Catalogue Server
+ *
+ * Copyright (C) 2025 Tarek Elsaleh
+ *
+ * This program is licensed under the European Union Public License (EUPL) v1.2.
+ * You may obtain a copy of the License at:
+ * https://joinup.ec.europa.eu/collection/eupl/eupl-text-eupl-12
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.sedimark.catalogue.handlers;
+
+import java.util.List;
+
+import eu.sedimark.catalogue.handlers.OfferingGSPHandler.NamedSubgraph;
+
+/**
+ * Notified by {@link OfferingGSPHandler} after offering graphs were committed to
+ * or removed from the dataset. Called on the request thread, so implementations
+ * should hand expensive work off to their own executor.
+ */
+public interface OfferingChangeListener {
+
+    /**
+     * Offering graphs were created or replaced
+     *
+     * @param offerings The stored graphs, as they were written
+     */
+    void offeringsStored(List<NamedSubgraph> offerings);
+
+    /**
+     * An offering graph was removed
+     */
+    void offeringDeleted(String graphName);
+}
@@ -24,22 +24,58 @@ import org.apache.jena.query.ReadWrite;
 import org.apache.jena.rdf.model.*;
 import org.apache.jena.riot.Lang;
 import org.apache.jena.riot.RDFDataMgr;
+import org.apache.jena.riot.RDFFormat;
 import org.apache.jena.riot.RDFLanguages;
+import org.apache.jena.riot.RDFParser;
+import org.apache.jena.riot.RiotException;
+import org.apache.jena.riot.system.StreamRDF;
+import org.apache.jena.riot.system.StreamRDFBase;
+import org.apache.jena.riot.system.StreamRDFWriter;
+import org.apache.jena.graph.Graph;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.shared.PrefixMapping;
+import org.apache.jena.sparql.core.DatasetGraph;
+import org.apache.jena.sparql.core.Quad;
+import org.apache.jena.sparql.graph.GraphFactory;
 import org.apache.jena.vocabulary.RDF;
 import org.apache.jena.atlas.web.ContentType;
 import org.apache.jena.riot.web.HttpNames;
 
 import org.apache.jena.fuseki.servlets.ActionProcessor; // Note: Use this import, not ActionService
+import eu.sedimark.catalogue.lifecycle.HotOfferings;
+import eu.sedimark.catalogue.storage.OfferingIndex;
+import eu.sedimark.catalogue.storage.ReferenceGraph;
+import eu.sedimark.catalogue.storage.SharedEntityGraph;
+import eu.sedimark.catalogue.utils.JsonLdContextRegistry;
+import eu.sedimark.catalogue.utils.JsonStrings;
+import eu.sedimark.catalogue.utils.SystemGraphs;
+import eu.sedimark.catalogue.validation.OfferingValidator;
+import eu.sedimark.catalogue.validation.OfferingValidator.OfferingReport;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import jakarta.json.Json;
+import jakarta.json.JsonArray;
+import jakarta.json.JsonException;
+import jakarta.json.JsonObject;
+import jakarta.json.JsonReader;
+import jakarta.json.JsonString;
+import jakarta.json.JsonValue;
+import jakarta.json.stream.JsonGenerator;
 import jakarta.servlet.http.HttpServletResponse;
 
 import java.io.ByteArrayInputStream;
+import java.io.BufferedReader;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * Custom handler for Graph Store Protocol that extracts SEDIMARK Offerings
@@ -48,19 +84,125 @@ import java.util.*;
 public class OfferingGSPHandler implements ActionProcessor { // Implement, don't extend
     private static final Logger logger = LoggerFactory.getLogger(OfferingGSPHandler.class);
     private final Dataset dataset;
+    private OfferingValidator validator;
+    private boolean rejectInvalid;
+    private String readOnlyReason;
+    private SharedEntityGraph sharedEntities;
+    private ReferenceGraph referenceGraph;
+    private OfferingIndex offeringIndex;
+    private HotOfferings hotOfferings;
+    private final List<OfferingChangeListener> changeListeners = new CopyOnWriteArrayList<>();
+    /**
+     * Held from a write transaction to its notification, so listeners see the
+     * changes of an offering in commit order. Striped by graph name: writes of
+     * unrelated offerings (on a sharded store, to different shards) run concurrently.
+     */
+    private final ReentrantLock[] commitOrder = new ReentrantLock[64];
 
     // SEDIMARK ontology constants
     private static final String SEDIMARK_NS = "https://w3id.org/sedimark/ontology#";
     private static final String OFFERING_CLASS = SEDIMARK_NS + "Offering";
 
+    /** Multi-get of offerings, below the handler's path (/catalogue/manager/batch-get) */
+    public static final String BATCH_GET_PATH = "/batch-get";
+
+    /** Offerings read by one batch request */
+    private static final int MAX_BATCH_GET = 1000;
+
+    /** Bulk delete by URI list or by predicate (/catalogue/manager/batch-delete) */
+    public static final String BATCH_DELETE_PATH = "/batch-delete";
+
+    /** Offerings listed in one batch delete request */
+    private static final int MAX_BATCH_DELETE = 100_000;
+
+    /** Offerings deleted per write transaction by a batch delete */
+    public static final int DEFAULT_DELETE_CHUNK = 100;
+    private static final int MAX_DELETE_CHUNK = 10_000;
+
+    /** Offering URIs listed in a dry-run response */
+    private static final int DRY_RUN_LISTED = 1000;
+
+    private static final Node BELONGS_TO = NodeFactory.createURI(SEDIMARK_NS + "belongsTo");
+
     /**
      * Constructor
      */
     public OfferingGSPHandler(Dataset dataset) {
         this.dataset = dataset;
+        for (int i = 0; i < commitOrder.length; i++) {
+            commitOrder[i] = new ReentrantLock();
+        }
         logger.info("SEDIMARK OfferingGSPHandler initialized - CUSTOM HANDLER ACTIVE");
     }
 
+    /**
+     * Validate offerings against the SHACL shapes before they are stored
+     *
+     * @param validator     The validator, or null to disable validation
+     * @param rejectInvalid Reject the whole request if any offering does not
+     *                      conform (otherwise store it and report the results)
+     */
+    public void setValidator(OfferingValidator validator, boolean rejectInvalid) {
+        this.validator = validator;
+        this.rejectInvalid = rejectInvalid;
+    }
+
+    /**
+     * Reject publish and delete requests, e.g. on a read-only replica
+     *
+     * @param reason Message returned to clients, or null to accept writes
+     */
+    public void setReadOnly(String reason) {
+        this.readOnlyReason = reason;
+    }
+
+    /**
+     * Store participants, self-listings and other shared entities once in the
+     * shared entity graph instead of in every offering graph
+     *
+     * @param sharedEntities The shared entity store, or null to store offering
+     *                       graphs whole
+     */
+    public void setSharedEntities(SharedEntityGraph sharedEntities) {
+        this.sharedEntities = sharedEntities;
+    }
+
+    /**
+     * Store statements found in several offerings once, in the reference graph
+     *
+     * @param referenceGraph The deduplicating store, or null to store offering
+     *                       graphs whole
+     */
+    public void setReferenceGraph(ReferenceGraph referenceGraph) {
+        this.referenceGraph = referenceGraph;
+    }
+
+    /**
+     * Maintain the secondary indexes of offerings by participant, asset and
+     * self-listing as offerings are stored and deleted
+     *
+     * @param offeringIndex The index, or null not to index offerings
+     */
+    public void setOfferingIndex(OfferingIndex offeringIndex) {
+        this.offeringIndex = offeringIndex;
+    }
+
+    /**
+     * Count offering reads, to pre-warm the hottest offerings after a restart
+     *
+     * @param hotOfferings The read counts, or null not to count reads
+     */
+    public void setHotOfferings(HotOfferings hotOfferings) {
+        this.hotOfferings = hotOfferings;
+    }
+
+    /**
+     * Register a listener notified after offering graphs are stored or deleted
+     */
+    public void addChangeListener(OfferingChangeListener listener) {
+        changeListeners.add(listener);
+    }
+
     /**
      * Process method from ActionProcessor - this handles all requests
      */
@@ -82,12 +224,25 @@ public class OfferingGSPHandler implements ActionProcessor { // Implement, don't
 
         try {
             // Dispatch based on HTTP method
-            if ("GET".equals(method)) {
+            String requestUri = action.getRequest().getRequestURI();
+            if (requestUri.endsWith(BATCH_GET_PATH)) {
+                // A read, so also served when the handler is read-only
+                handleBatchGetRequest(action);
+            } else if (requestUri.endsWith(BATCH_DELETE_PATH)) {
+                if (readOnlyReason != null) {
+                    rejectReadOnly(action);
+                } else {
+                    handleBatchDeleteRequest(action);
+                }
+            } else if ("GET".equals(method)) {
                 if (action.getRequest().getParameter("graph") != null) {
                     handleGetGraphRequest(action);
                 } else {
                     confirmCustomHandler(action);
                 }
+            } else if (readOnlyReason != null
+                    && ("POST".equals(method) || "PUT".equals(method) || "DELETE".equals(method))) {
+                rejectReadOnly(action);
             } else if ("POST".equals(method) || "PUT".equals(method)) {
                 handlePostPutRequest(action);
             } else if ("DELETE".equals(method)) {
@@ -106,6 +261,15 @@ public class OfferingGSPHandler implements ActionProcessor { // Implement, don't
         }
     }
 
+    private void rejectReadOnly(HttpAction action) throws IOException {
+        action.getResponse().setStatus(HttpServletResponse.SC_METHOD_NOT_ALLOWED);
+        action.getResponse().setHeader("Allow", "GET");
+        action.getResponse().setContentType("application/json");
+        String response = "{ \"status\": \"error\", \"message\": \""
+                + JsonStrings.escape(readOnlyReason) + "\" }";
+        action.getResponseOutputStream().write(response.getBytes());
+    }
+
     /**
      * Confirm that the custom handler is being used
      */
@@ -179,14 +343,18 @@ public class OfferingGSPHandler implements ActionProcessor { // Implement, don't
 
             dataset.begin(ReadWrite.READ);
             try {
-                if (dataset.containsNamedModel(graphParam)) {
-                    // Graph exists, get its content
+                if (!SystemGraphs.isSystemGraph(graphParam) && dataset.containsNamedModel(graphParam)) {
+                    // Graph exists, get its content (with the shared entities it links to)
+                    if (hotOfferings != null) {
+                        hotOfferings.record(graphParam);
+                    }
                     Model model = dataset.getNamedModel(graphParam);
-
-                    // Create a copy for pretty-printing
-                    Model prettyModel = ModelFactory.createDefaultModel();
-                    prettyModel.add(model);
-                    prettyModel.setNsPrefixes(loadOntologyPrefixes());
+                    Graph full = SharedEntityGraph.expand(dataset.asDatasetGraph(), NodeFactory.createURI(graphParam));
+                    if (full != model.getGraph()) {
+                        Map<String, String> prefixes = model.getNsPrefixMap();
+                        model = ModelFactory.createModelForGraph(full);
+                        model.setNsPrefixes(prefixes);
+                    }
 
                     // Log the prefixes available in the model
                     Map<String, String> prefixMap = model.getNsPrefixMap();
@@ -237,10 +405,8 @@ public class OfferingGSPHandler implements ActionProcessor { // Implement, don't
 
                         action.getResponse().setStatus(HttpServletResponse.SC_OK);
 
-                        // model.setNsPrefixes(loadOntologyPrefixes());
-
                         // Write the model in the requested RDF format
-                        RDFDataMgr.write(action.getResponseOutputStream(), prettyModel, outputLang);
+                        writeOfferingGraph(action.getResponseOutputStream(), model, outputLang);
                     }
                 } else {
                     // Graph doesn't exist - return 404 with JSON error response
@@ -261,6 +427,185 @@ public class OfferingGSPHandler implements ActionProcessor { // Implement, don't
         }
     }
 
+    /**
+     * Handle a multi-get: read the requested offerings in one transaction and
+     * stream them as a TriG (or N-Quads) dataset, or as a JSON-LD array with one
+     * document per offering. Offerings that do not exist are left out; the
+     * X-Offerings-Requested and X-Offerings-Found headers give the counts.
+     */
+    private void handleBatchGetRequest(HttpAction action) throws IOException {
+        String method = action.getRequest().getMethod();
+        if (!"GET".equals(method) && !"POST".equals(method)) {
+            action.getResponse().setStatus(HttpServletResponse.SC_METHOD_NOT_ALLOWED);
+            action.getResponse().setHeader("Allow", "GET, POST");
+            action.getResponse().setContentType("application/json");
+            String response = String.format(
+                    "{ \"status\": \"error\", \"message\": \"Method not allowed: %s\" }", method);
+            action.getResponseOutputStream().write(response.getBytes());
+            return;
+        }
+        List<String> graphNames;
+        try {
+            graphNames = batchGraphNames(action, MAX_BATCH_GET);
+            if (graphNames.isEmpty()) {
+                throw new IllegalArgumentException("No graph URIs given (graph= parameters or a JSON or text body)");
+            }
+        } catch (IllegalArgumentException e) {
+            action.getResponse().setStatus(HttpServletResponse.SC_BAD_REQUEST);
+            action.getResponse().setContentType("application/json");
+            String response = "{ \"status\": \"error\", \"message\": \"" + JsonStrings.escape(e.getMessage())
+                    + "\" }";
+            action.getResponseOutputStream().write(response.getBytes());
+            return;
+        }
+
+        Lang outputLang = getOutputLang(action.getRequest().getHeader(HttpNames.hAccept));
+        boolean quads = outputLang == Lang.TRIG || outputLang == Lang.NQUADS;
+        if (!quads && outputLang != Lang.JSONLD) {
+            // Several offerings do not fit a triple format without merging them into one graph
+            action.getResponse().setStatus(HttpServletResponse.SC_NOT_ACCEPTABLE);
+            action.getResponse().setContentType("application/json");
+            String response = "{ \"status\": \"error\", \"message\": \"Batch retrieval returns "
+                    + "application/ld+json, application/trig or application/n-quads, not "
+                    + JsonStrings.escape(outputLang.getContentType().getContentTypeStr()) + "\" }";
+            action.getResponseOutputStream().write(response.getBytes());
+            return;
+        }
+        action.getResponse().setContentType(quads ? outputLang.getContentType().getContentTypeStr()
+                : "application/ld+json");
+
+        dataset.begin(ReadWrite.READ);
+        try {
+            DatasetGraph dsg = dataset.asDatasetGraph();
+            List<Node> found = new ArrayList<>(graphNames.size());
+            for (String graphName : graphNames) {
+                Node graphNode = NodeFactory.createURI(graphName);
+                if (!SystemGraphs.isSystemGraph(graphName) && dsg.containsGraph(graphNode)) {
+                    found.add(graphNode);
+                }
+            }
+            action.getResponse().setHeader("X-Offerings-Requested", String.valueOf(graphNames.size()));
+            action.getResponse().setHeader("X-Offerings-Found", String.valueOf(found.size()));
+            action.getResponse().setStatus(HttpServletResponse.SC_OK);
+
+            OutputStream out = action.getResponseOutputStream();
+            if (quads) {
+                // Streamed graph by graph, without building a dataset
+                StreamRDF stream = StreamRDFWriter.getWriterStream(out,
+                        outputLang == Lang.TRIG ? RDFFormat.TRIG_BLOCKS : RDFFormat.NQUADS);
+                stream.start();
+                if (outputLang == Lang.TRIG) {
+                    loadOntologyPrefixes().forEach(stream::prefix);
+                }
+                for (Node graphNode : found) {
+                    recordRead(graphNode);
+                    SharedEntityGraph.expand(dsg, graphNode).find()
+                            .forEachRemaining(t -> stream.quad(Quad.create(graphNode, t)));
+                }
+                stream.finish();
+            } else {
+                // One compacted document per offering, written as soon as it is ready
+                JsonGenerator generator = Json
+                        .createGeneratorFactory(Map.of(JsonGenerator.PRETTY_PRINTING, true))
+                        .createGenerator(out);
+                generator.writeStartArray();
+                for (Node graphNode : found) {
+                    recordRead(graphNode);
+                    Model model = ModelFactory.createModelForGraph(SharedEntityGraph.expand(dsg, graphNode));
+                    generator.write(JsonLdContextRegistry.getDefault().compact(model));
+                }
+                generator.writeEnd();
+                generator.flush();
+            }
+            logger.debug("Batch get: {} of {} offerings as {}", found.size(), graphNames.size(),
+                    quads ? outputLang.getLabel() : "JSON-LD");
+        } finally {
+            dataset.end();
+        }
+    }
+
+    private void recordRead(Node graphNode) {
+        if (hotOfferings != null) {
+            hotOfferings.record(graphNode.getURI());
+        }
+    }
+
+    /**
+     * The offerings listed in a batch request, in request order without
+     * duplicates: graph= parameters (query string or form), plus a POST body that
+     * is a JSON array of URIs, a JSON object with a "graphs" array, or plain text
+     * with one URI per line
+     */
+    private static List<String> batchGraphNames(HttpAction action, int max) throws IOException {
+        Set<String> graphNames = new LinkedHashSet<>();
+        String[] params = action.getRequest().getParameterValues("graph");
+        if (params != null) {
+            graphNames.addAll(Arrays.asList(params));
+        }
+        String contentType = action.getRequest().getContentType();
+        String method = action.getRequest().getMethod();
+        if (("POST".equals(method) || "DELETE".equals(method)) && contentType != null
+                && !contentType.startsWith("application/x-www-form-urlencoded")) {
+            if (contentType.contains("json")) {
+                try (JsonReader reader = Json.createReader(action.getRequestInputStream())) {
+                    JsonValue body = reader.readValue();
+                    JsonArray uris = null;
+                    if (body instanceof JsonArray array) {
+                        uris = array;
+                    } else if (body instanceof JsonObject object && object.get("graphs") instanceof JsonArray list) {
+                        uris = list;
+                    }
+                    if (uris == null) {
+                        throw new IllegalArgumentException("Expected a JSON array of graph URIs or {\"graphs\": [...]}");
+                    }
+                    for (JsonValue uri : uris) {
+                        if (!(uri instanceof JsonString string)) {
+                            throw new IllegalArgumentException("Graph URIs must be JSON strings");
+                        }
+                        graphNames.add(string.getString());
+                    }
+                } catch (JsonException e) {
+                    throw new IllegalArgumentException("Invalid JSON body: " + e.getMessage());
+                }
+            } else {
+                BufferedReader reader = action.getRequest().getReader();
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    line = line.strip();
+                    if (!line.isEmpty() && !line.startsWith("#")) {
+                        graphNames.add(line);
+                    }
+                }
+            }
+        }
+        graphNames.removeIf(String::isBlank);
+        if (graphNames.size() > max) {
+            throw new IllegalArgumentException("At most " + max + " offerings per request");
+        }
+        return new ArrayList<>(graphNames);
+    }
+
+    /**
+     * Write an offering graph using the ontology prefixes for pretty-printing
+     */
+    public static void writeOfferingGraph(OutputStream out, Model model, Lang lang) {
+        if (isBinaryLang(lang)) {
+            // Binary formats are for machines: no prefixes, no copy
+            RDFDataMgr.write(out, model, lang);
+            return;
+        }
+        if (lang == Lang.JSONLD) {
+            // Compacted against the precomputed ontology-prefix context
+            JsonLdContextRegistry.getDefault().writeCompact(out, model);
+            return;
+        }
+        // Create a copy for pretty-printing
+        Model prettyModel = ModelFactory.createDefaultModel();
+        prettyModel.add(model);
+        prettyModel.setNsPrefixes(loadOntologyPrefixes());
+        RDFDataMgr.write(out, prettyModel, lang);
+    }
+
     /**
      * Handle DELETE requests to remove a graph
      */
@@ -273,11 +618,12 @@ public class OfferingGSPHandler implements ActionProcessor { // Implement, don't
                 return;
             }
 
+            List<ReentrantLock> locks = lockCommitOrder(List.of(graphParam));
             dataset.begin(ReadWrite.WRITE);
             try {
-                if (dataset.containsNamedModel(graphParam)) {
-                    dataset.removeNamedModel(graphParam);
+                if (removeOfferingGraph(graphParam)) {
                     dataset.commit();
+                    fireOfferingDeleted(graphParam);
 
                     // Send success response
                     action.getResponse().setStatus(HttpServletResponse.SC_OK);
@@ -300,12 +646,210 @@ public class OfferingGSPHandler implements ActionProcessor { // Implement, don't
                 throw e;
             } finally {
                 dataset.end();
+                unlockCommitOrder(locks);
             }
         } catch (Exception e) {
             handleError(action, e, "Error processing DELETE request");
         }
     }
 
+    /**
+     * Remove an offering graph, releasing the shared and deduplicated statements
+     * only it used. Must be called in a write transaction.
+     *
+     * @return Whether there was such an offering
+     */
+    private boolean removeOfferingGraph(String graphName) {
+        if (SystemGraphs.isSystemGraph(graphName) || !dataset.containsNamedModel(graphName)) {
+            return false;
+        }
+        Node graphNode = NodeFactory.createURI(graphName);
+        Set<Node> released = sharedEntities != null
+                ? sharedEntities.referencedBy(dataset.asDatasetGraph(), graphNode) : Set.of();
+        if (referenceGraph != null) {
+            referenceGraph.release(dataset.asDatasetGraph(), graphNode);
+        }
+        dataset.removeNamedModel(graphName);
+        if (sharedEntities != null) {
+            sharedEntities.removeUnreferenced(dataset.asDatasetGraph(), released);
+        }
+        if (offeringIndex != null) {
+            offeringIndex.remove(dataset.asDatasetGraph(), graphNode);
+        }
+        return true;
+    }
+
+    /**
+     * Handle a bulk delete: offerings listed like a multi-get, and/or every
+     * offering with a statement ?s predicate object, directly or through a shared
+     * entity it links to (participant=P is short for the self-listing's
+     * sedimark:belongsTo P). The offerings are deleted in chunks, one write
+     * transaction each, so publishers are not blocked for the whole run; progress
+     * is streamed as each chunk commits. With dryRun=true only the matching
+     * offerings are counted and listed.
+     */
+    private void handleBatchDeleteRequest(HttpAction action) throws IOException {
+        String method = action.getRequest().getMethod();
+        HttpServletResponse response = action.getResponse();
+        response.setContentType("application/json");
+        if (!"POST".equals(method) && !"DELETE".equals(method)) {
+            response.setStatus(HttpServletResponse.SC_METHOD_NOT_ALLOWED);
+            response.setHeader("Allow", "POST, DELETE");
+            String message = String.format(
+                    "{ \"status\": \"error\", \"message\": \"Method not allowed: %s\" }", method);
+            action.getResponseOutputStream().write(message.getBytes());
+            return;
+        }
+
+        List<String> listed;
+        Node predicate;
+        Node object;
+        int chunkSize = DEFAULT_DELETE_CHUNK;
+        try {
+            listed = batchGraphNames(action, MAX_BATCH_DELETE);
+            String participant = action.getRequest().getParameter("participant");
+            String predicateParam = action.getRequest().getParameter("predicate");
+            String objectParam = action.getRequest().getParameter("object");
+            if (participant != null) {
+                predicate = BELONGS_TO;
+                object = NodeFactory.createURI(participant);
+            } else if (predicateParam != null && objectParam != null) {
+                predicate = NodeFactory.createURI(predicateParam);
+                object = NodeFactory.createURI(objectParam);
+            } else if (predicateParam != null || objectParam != null) {
+                throw new IllegalArgumentException("predicate and object must be given together");
+            } else {
+                predicate = null;
+                object = null;
+            }
+            if (listed.isEmpty() && predicate == null) {
+                throw new IllegalArgumentException(
+                        "No offerings selected (graph URIs, participant= or predicate= and object=)");
+            }
+            String chunkParam = action.getRequest().getParameter("chunk");
+            if (chunkParam != null) {
+                chunkSize = Integer.parseInt(chunkParam.trim());
+                if (chunkSize < 1 || chunkSize > MAX_DELETE_CHUNK) {
+                    throw new IllegalArgumentException("chunk must be between 1 and " + MAX_DELETE_CHUNK);
+                }
+            }
+        } catch (NumberFormatException e) {
+            response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+            action.getResponseOutputStream()
+                    .write("{ \"status\": \"error\", \"message\": \"chunk must be a number\" }".getBytes());
+            return;
+        } catch (IllegalArgumentException e) {
+            response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+            String message = "{ \"status\": \"error\", \"message\": \"" + JsonStrings.escape(e.getMessage())
+                    + "\" }";
+            action.getResponseOutputStream().write(message.getBytes());
+            return;
+        }
+        boolean dryRun = "true".equalsIgnoreCase(action.getRequest().getParameter("dryRun"));
+
+        // Select in one read transaction; offerings published afterwards are not included
+        List<String> targets = new ArrayList<>();
+        dataset.begin(ReadWrite.READ);
+        try {
+            DatasetGraph dsg = dataset.asDatasetGraph();
+            Set<String> selected = new LinkedHashSet<>();
+            for (String graphName : listed) {
+                if (!SystemGraphs.isSystemGraph(graphName) && dsg.containsGraph(NodeFactory.createURI(graphName))) {
+                    selected.add(graphName);
+                }
+            }
+            if (predicate == BELONGS_TO && offeringIndex != null && OfferingIndex.isBuilt(dsg)) {
+                selected.addAll(OfferingIndex.lookup(dsg, OfferingIndex.Key.PARTICIPANT, object.getURI()));
+            } else if (predicate != null) {
+                selected.addAll(OfferingIndex.scan(dsg, predicate, object));
+            }
+            targets.addAll(selected);
+        } finally {
+            dataset.end();
+        }
+
+        OutputStream out = action.getResponseOutputStream();
+        response.setStatus(HttpServletResponse.SC_OK);
+        if (dryRun) {
+            StringBuilder json = new StringBuilder();
+            json.append("{\n");
+            json.append("  \"status\": \"success\",\n");
+            json.append("  \"dryRun\": true,\n");
+            json.append("  \"matched\": ").append(targets.size()).append(",\n");
+            json.append("  \"offerings\": [");
+            int shown = Math.min(targets.size(), DRY_RUN_LISTED);
+            for (int i = 0; i < shown; i++) {
+                json.append(i == 0 ? "\n    \"" : ",\n    \"").append(JsonStrings.escape(targets.get(i))).append("\"");
+            }
+            json.append(shown == 0 ? "],\n" : "\n  ],\n");
+            json.append("  \"truncated\": ").append(shown < targets.size()).append("\n");
+            json.append("}");
+            out.write(json.toString().getBytes());
+            return;
+        }
+
+        // Streamed: a progress entry is written and flushed as each chunk commits
+        long start = System.nanoTime();
+        out.write(("{\n  \"matched\": " + targets.size() + ",\n  \"chunkSize\": " + chunkSize
+                + ",\n  \"progress\": [").getBytes());
+        out.flush();
+        int deleted = 0;
+        String error = null;
+        for (int from = 0; from < targets.size(); from += chunkSize) {
+            List<String> chunk = targets.subList(from, Math.min(from + chunkSize, targets.size()));
+            try {
+                deleted += deleteOfferingGraphs(chunk).size();
+            } catch (Exception e) {
+                logger.error("Batch delete failed after {} offerings: {}", deleted, e.getMessage(), e);
+                error = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+                break;
+            }
+            out.write(((from == 0 ? "\n" : ",\n") + "    { \"processed\": " + (from + chunk.size())
+                    + ", \"deleted\": " + deleted + ", \"millis\": " + (System.nanoTime() - start) / 1_000_000
+                    + " }").getBytes());
+            out.flush();
+        }
+        StringBuilder json = new StringBuilder(targets.isEmpty() ? "],\n" : "\n  ],\n");
+        json.append("  \"deleted\": ").append(deleted).append(",\n");
+        if (error != null) {
+            json.append("  \"status\": \"error\",\n");
+            json.append("  \"message\": \"").append(JsonStrings.escape(error)).append("\"\n");
+        } else {
+            json.append("  \"status\": \"success\"\n");
+        }
+        json.append("}");
+        out.write(json.toString().getBytes());
+        logger.info("Batch delete: {} of {} offerings deleted in {} ms", deleted, targets.size(),
+                (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * Delete offering graphs in one write transaction and notify the listeners
+     *
+     * @return The graphs that were deleted (those that still existed)
+     */
+    private List<String> deleteOfferingGraphs(List<String> graphNames) {
+        List<String> deleted = new ArrayList<>(graphNames.size());
+        List<ReentrantLock> locks = lockCommitOrder(graphNames);
+        dataset.begin(ReadWrite.WRITE);
+        try {
+            for (String graphName : graphNames) {
+                if (removeOfferingGraph(graphName)) {
+                    deleted.add(graphName);
+                }
+            }
+            dataset.commit();
+            deleted.forEach(this::fireOfferingDeleted);
+            return deleted;
+        } catch (RuntimeException e) {
+            dataset.abort();
+            throw e;
+        } finally {
+            dataset.end();
+            unlockCommitOrder(locks);
+        }
+    }
+
     /**
      * Handle POST/PUT requests to store offerings in named graphs
      */
@@ -316,6 +860,13 @@ public class OfferingGSPHandler implements ActionProcessor { // Implement, don't
             logger.info("STARTING POST/PUT PROCESSING");
             logger.info("Request Content-Type: {}", action.getRequest().getContentType());
 
+            // Quad formats already name each offering graph: stream them straight in
+            Lang requestLang = RDFLanguages.contentTypeToLang(action.getRequest().getContentType());
+            if (isQuadIngestLang(requestLang)) {
+                handleQuadUpload(action, requestLang);
+                return;
+            }
+
             // Read the request body
             byte[] requestBody = readRequestBody(action);
             if (requestBody.length == 0) {
@@ -343,7 +894,9 @@ public class OfferingGSPHandler implements ActionProcessor { // Implement, don't
             // Parse into a model
             Model inputModel = ModelFactory.createDefaultModel();
             try (InputStream is = new ByteArrayInputStream(requestBody)) {
-                RDFDataMgr.read(inputModel, is, lang);
+                // JSON-LD contexts resolve from the local registry, never the network
+                RDFParser.source(is).lang(lang).context(JsonLdContextRegistry.getDefault().parserContext())
+                        .parse(inputModel);
             }
             logger.info("Parsed model with {} statements", inputModel.size());
 
@@ -372,49 +925,226 @@ public class OfferingGSPHandler implements ActionProcessor { // Implement, don't
                                 inputModel.size(), OFFERING_CLASS).getBytes());
                 return;
             }
+            for (NamedSubgraph graph : namedGraphs) {
+                if (SystemGraphs.isSystemGraph(graph.getGraphName())) {
+                    action.getResponse().setStatus(HttpServletResponse.SC_BAD_REQUEST);
+                    action.getResponse().setContentType("application/json");
+                    action.getResponseOutputStream().write(String.format(
+                            "{ \"status\": \"error\", \"message\": \"Offering URIs starting with %s are reserved\" }",
+                            SystemGraphs.PREFIX).getBytes());
+                    return;
+                }
+            }
 
-            // Store each named graph in the dataset
+            // Validate, then store each named graph in the dataset
+            List<OfferingReport> reports = validateOfferings(namedGraphs);
+            if (rejectedByValidation(action, reports)) {
+                return;
+            }
             storeOfferingGraphs(namedGraphs);
+            writeStoredResponse(action, namedGraphs, reports);
 
-            // Prepare success response with details about stored offerings
-            StringBuilder responseBuilder = new StringBuilder();
-            responseBuilder.append("{\n");
-            responseBuilder.append("  \"status\": \"success\",\n");
-            responseBuilder.append("  \"message\": \"Offerings stored successfully\",\n");
-            responseBuilder.append("  \"storedOfferings\": [\n");
-
-            for (int i = 0; i < namedGraphs.size(); i++) {
-                NamedSubgraph graph = namedGraphs.get(i);
-                responseBuilder.append("    {\n");
-                responseBuilder.append("      \"uri\": \"").append(graph.getGraphName()).append("\",\n");
-                responseBuilder.append("      \"statements\": ").append(graph.getModel().size()).append(",\n");
-                responseBuilder.append("      \"prefixes\": ").append(graph.getModel().getNsPrefixMap().size())
-                        .append("\n");
-                responseBuilder.append("    }");
-                if (i < namedGraphs.size() - 1) {
-                    responseBuilder.append(",");
+        } catch (Exception e) {
+            handleError(action, e, "Error processing POST/PUT request");
+        }
+    }
+
+    /**
+     * Fast path for N-Quads, RDF-Thrift and RDF-Protobuf uploads. The quads are
+     * streamed from the request into one graph per graph name, which must be the
+     * URI of an offering typed in that graph, so no extraction pass is needed.
+     */
+    private void handleQuadUpload(HttpAction action, Lang lang) throws IOException {
+        logger.info("Quad upload in {}: skipping offering extraction", lang.getName());
+
+        List<NamedSubgraph> namedGraphs;
+        try (InputStream is = action.getRequest().getInputStream()) {
+            namedGraphs = readQuadOfferingGraphs(is, lang);
+        } catch (IllegalArgumentException | RiotException e) {
+            // Not offerings, or malformed N-Quads, Thrift or Protobuf
+            action.getResponse().setStatus(HttpServletResponse.SC_BAD_REQUEST);
+            action.getResponse().setContentType("application/json");
+            action.getResponseOutputStream().write(("{ \"status\": \"error\", \"message\": \""
+                    + JsonStrings.escape(e.getMessage()) + "\" }").getBytes());
+            return;
+        }
+
+        List<OfferingReport> reports = validateOfferings(namedGraphs);
+        if (rejectedByValidation(action, reports)) {
+            return;
+        }
+        storeOfferingGraphs(namedGraphs);
+        writeStoredResponse(action, namedGraphs, reports);
+    }
+
+    /**
+     * Run the SHACL validation stage, if enabled
+     *
+     * @return The reports, or null if validation is disabled
+     */
+    private List<OfferingReport> validateOfferings(List<NamedSubgraph> namedGraphs) {
+        if (validator == null) {
+            return null;
+        }
+        long start = System.nanoTime();
+        List<OfferingReport> reports = validator.validate(namedGraphs);
+        long invalid = reports.stream().filter(report -> !report.conforms()).count();
+        logger.info("Validated {} offerings in {} ms: {} not conforming", reports.size(),
+                (System.nanoTime() - start) / 1_000_000, invalid);
+        return reports;
+    }
+
+    /**
+     * In fail mode, answer 400 with the validation report if any offering does not
+     * conform
+     */
+    private boolean rejectedByValidation(HttpAction action, List<OfferingReport> reports) throws IOException {
+        if (reports == null || !rejectInvalid || reports.stream().allMatch(OfferingReport::conforms)) {
+            return false;
+        }
+        StringBuilder responseBuilder = new StringBuilder();
+        responseBuilder.append("{\n");
+        responseBuilder.append("  \"status\": \"error\",\n");
+        responseBuilder.append("  \"message\": \"Offerings do not conform to the SEDIMARK shapes; nothing was stored\",\n");
+        responseBuilder.append("  \"validation\": ").append(OfferingValidator.toJson(reports, "fail", "  ")).append("\n");
+        responseBuilder.append("}");
+
+        action.getResponse().setStatus(HttpServletResponse.SC_BAD_REQUEST);
+        action.getResponse().setContentType("application/json");
+        action.getResponseOutputStream().write(responseBuilder.toString().getBytes());
+        return true;
+    }
+
+    /**
+     * Read offering graphs from a quad format (N-Quads, RDF-Thrift, RDF-Protobuf).
+     * Quads in a named graph are kept as they are; triples in the default graph, if
+     * any, go through the usual offering extraction.
+     *
+     * @throws IllegalArgumentException if the payload is empty, a named graph is
+     *                                  not an offering or an offering URI is
+     *                                  reserved
+     */
+    public List<NamedSubgraph> readQuadOfferingGraphs(InputStream in, Lang lang) {
+        Map<Node, Graph> graphs = new LinkedHashMap<>();
+        Graph defaultGraph = GraphFactory.createDefaultGraph();
+        PrefixMapping prefixes = PrefixMapping.Factory.create();
+
+        StreamRDF collector = new StreamRDFBase() {
+            @Override
+            public void triple(Triple triple) {
+                defaultGraph.add(triple);
+            }
+
+            @Override
+            public void quad(Quad quad) {
+                if (quad.isDefaultGraph()) {
+                    defaultGraph.add(quad.asTriple());
+                } else {
+                    graphs.computeIfAbsent(quad.getGraph(), g -> GraphFactory.createDefaultGraph()).add(quad.asTriple());
                 }
-                responseBuilder.append("\n");
             }
 
-            responseBuilder.append("  ],\n");
-            responseBuilder.append("  \"totalOfferings\": ").append(namedGraphs.size()).append("\n");
-            responseBuilder.append("}");
+            @Override
+            public void prefix(String prefix, String iri) {
+                prefixes.setNsPrefix(prefix, iri);
+            }
+        };
+        RDFParser.source(in).lang(lang).parse(collector);
 
-            // Send the success response
-            action.getResponse().setStatus(HttpServletResponse.SC_OK);
-            action.getResponse().setContentType("application/json");
-            action.getResponseOutputStream().write(responseBuilder.toString().getBytes());
+        if (graphs.isEmpty() && defaultGraph.isEmpty()) {
+            throw new IllegalArgumentException("Empty request body");
+        }
 
-        } catch (Exception e) {
-            handleError(action, e, "Error processing POST/PUT request");
+        List<NamedSubgraph> result = new ArrayList<>();
+        Node offeringClass = NodeFactory.createURI(OFFERING_CLASS);
+        for (Map.Entry<Node, Graph> entry : graphs.entrySet()) {
+            Node graphName = entry.getKey();
+            Graph graph = entry.getValue();
+            if (!graphName.isURI() || SystemGraphs.isSystemGraph(graphName.getURI())
+                    || !graph.contains(graphName, RDF.type.asNode(), offeringClass)) {
+                throw new IllegalArgumentException("Graph " + graphName
+                        + " is not an offering: the graph name must be a resource of type " + OFFERING_CLASS
+                        + " in that graph");
+            }
+            Model model = ModelFactory.createModelForGraph(graph);
+            model.setNsPrefixes(prefixes);
+            result.add(new NamedSubgraph(graphName.getURI(), model));
         }
+        logger.info("Read {} offering graphs from {} quads", result.size(), lang.getName());
+
+        if (!defaultGraph.isEmpty()) {
+            Model defaultModel = ModelFactory.createModelForGraph(defaultGraph);
+            result.addAll(extractOfferingGraphs(defaultModel, prefixes.getNsPrefixMap()));
+        }
+        checkNotReserved(result);
+        return result;
+    }
+
+    /**
+     * Refuse offering URIs in the system graph namespace, which would replace the
+     * index, validation, shared entity or replication graphs
+     *
+     * @throws IllegalArgumentException if an offering has a reserved URI
+     */
+    private static void checkNotReserved(List<NamedSubgraph> namedGraphs) {
+        for (NamedSubgraph graph : namedGraphs) {
+            if (SystemGraphs.isSystemGraph(graph.getGraphName())) {
+                throw new IllegalArgumentException(
+                        "Offering URIs starting with " + SystemGraphs.PREFIX + " are reserved: " + graph.getGraphName());
+            }
+        }
+    }
+
+    /**
+     * Whether uploads in this language take the quad fast path
+     */
+    public static boolean isQuadIngestLang(Lang lang) {
+        return lang != null && (lang.equals(Lang.NQUADS) || isBinaryLang(lang));
+    }
+
+    /**
+     * Send the success response listing the stored offerings
+     */
+    private void writeStoredResponse(HttpAction action, List<NamedSubgraph> namedGraphs,
+            List<OfferingReport> reports) throws IOException {
+        // Prepare success response with details about stored offerings
+        StringBuilder responseBuilder = new StringBuilder();
+        responseBuilder.append("{\n");
+        responseBuilder.append("  \"status\": \"success\",\n");
+        responseBuilder.append("  \"message\": \"Offerings stored successfully\",\n");
+        responseBuilder.append("  \"storedOfferings\": [\n");
+
+        for (int i = 0; i < namedGraphs.size(); i++) {
+            NamedSubgraph graph = namedGraphs.get(i);
+            responseBuilder.append("    {\n");
+            responseBuilder.append("      \"uri\": \"").append(graph.getGraphName()).append("\",\n");
+            responseBuilder.append("      \"statements\": ").append(graph.getModel().size()).append(",\n");
+            responseBuilder.append("      \"prefixes\": ").append(graph.getModel().getNsPrefixMap().size())
+                    .append("\n");
+            responseBuilder.append("    }");
+            if (i < namedGraphs.size() - 1) {
+                responseBuilder.append(",");
+            }
+            responseBuilder.append("\n");
+        }
+
+        responseBuilder.append("  ],\n");
+        responseBuilder.append("  \"totalOfferings\": ").append(namedGraphs.size());
+        if (reports != null) {
+            responseBuilder.append(",\n  \"validation\": ").append(OfferingValidator.toJson(reports, "warn", "  "));
+        }
+        responseBuilder.append("\n}");
+
+        // Send the success response
+        action.getResponse().setStatus(HttpServletResponse.SC_OK);
+        action.getResponse().setContentType("application/json");
+        action.getResponseOutputStream().write(responseBuilder.toString().getBytes());
     }
 
     /**
      * Extract named graphs based on SEDIMARK offerings
      */
-    private List<NamedSubgraph> extractOfferingGraphs(Model inputModel, Map<String, String> originalPrefixes) {
+    public List<NamedSubgraph> extractOfferingGraphs(Model inputModel, Map<String, String> originalPrefixes) {
         List<NamedSubgraph> result = new ArrayList<>();
 
         // Find all offering instances in the model
@@ -429,7 +1159,7 @@ public class OfferingGSPHandler implements ActionProcessor { // Implement, don't
             }
 
             String graphName = offering.getURI();
-            Model subgraph = extractOfferingSubgraph(inputModel, offering, originalPrefixes);
+            Model subgraph = extractOfferingSubgraph(inputModel, offering, offerings, originalPrefixes);
 
             logger.info("Created subgraph for {} with {} statements and {} prefixes",
                     graphName, subgraph.size(), subgraph.getNsPrefixMap().size());
@@ -494,7 +1224,8 @@ public class OfferingGSPHandler implements ActionProcessor { // Implement, don't
      * Extract the complete subgraph for an offering with special attention to
      * prefixes
      */
-    private Model extractOfferingSubgraph(Model sourceModel, Resource offering, Map<String, String> originalPrefixes) {
+    private Model extractOfferingSubgraph(Model sourceModel, Resource offering, Set<Resource> offerings,
+            Map<String, String> originalPrefixes) {
         // Create a fresh model for the subgraph
         Model result = ModelFactory.createDefaultModel();
 
@@ -509,8 +1240,11 @@ public class OfferingGSPHandler implements ActionProcessor { // Implement, don't
             originalPrefixes.forEach((prefix, uri) -> logger.debug("  Copying prefix: {} -> {}", prefix, uri));
         }
 
-        // Use a recursive algorithm to extract all related statements
-        Set<Resource> visited = new HashSet<>();
+        // Use a recursive algorithm to extract all related statements. The other
+        // offerings of the input are links, not content: a self-listing naming every
+        // offering of its participant must not pull them all into each graph
+        Set<Resource> visited = new HashSet<>(offerings);
+        visited.remove(offering);
         extractRelatedStatements(sourceModel, result, offering, visited);
 
         // Ensure the offering has the correct type
@@ -552,45 +1286,112 @@ public class OfferingGSPHandler implements ActionProcessor { // Implement, don't
         }
     }
 
+    /**
+     * Take the commit order locks of some offering graphs, in stripe order so
+     * concurrent writers cannot deadlock
+     */
+    private List<ReentrantLock> lockCommitOrder(List<String> graphNames) {
+        TreeSet<Integer> stripes = new TreeSet<>();
+        for (String graphName : graphNames) {
+            stripes.add(Math.floorMod(graphName.hashCode(), commitOrder.length));
+        }
+        List<ReentrantLock> locks = new ArrayList<>(stripes.size());
+        for (int stripe : stripes) {
+            commitOrder[stripe].lock();
+            locks.add(commitOrder[stripe]);
+        }
+        return locks;
+    }
+
+    private static void unlockCommitOrder(List<ReentrantLock> locks) {
+        for (int i = locks.size() - 1; i >= 0; i--) {
+            locks.get(i).unlock();
+        }
+    }
+
     /**
      * Store the extracted offering graphs in the dataset with enhanced prefix
      * handling
+     *
+     * @throws IllegalArgumentException if an offering URI is in the reserved
+     *                                  system graph namespace
      */
-    private void storeOfferingGraphs(List<NamedSubgraph> namedGraphs) throws IOException {
-        dataset.begin(ReadWrite.WRITE);
+    public void storeOfferingGraphs(List<NamedSubgraph> namedGraphs) throws IOException {
+        checkNotReserved(namedGraphs);
+        List<String> stored = new ArrayList<>(namedGraphs.size());
+        for (NamedSubgraph graph : namedGraphs) {
+            stored.add(graph.getGraphName());
+        }
+        List<ReentrantLock> locks = lockCommitOrder(stored);
         try {
-            for (NamedSubgraph graph : namedGraphs) {
-                String graphName = graph.getGraphName();
-                Model modelToStore = graph.getModel();
-
-                // Remove existing graph if present
-                if (dataset.containsNamedModel(graphName)) {
-                    logger.info("Replacing existing named graph: {}", graphName);
-                    dataset.removeNamedModel(graphName);
-                }
+            dataset.begin(ReadWrite.WRITE);
+            try {
+                Set<Node> released = new HashSet<>();
+                for (NamedSubgraph graph : namedGraphs) {
+                    String graphName = graph.getGraphName();
+                    Model modelToStore = graph.getModel();
+                    Node graphNode = NodeFactory.createURI(graphName);
+
+                    // Remove existing graph if present
+                    graph.replaced = dataset.containsNamedModel(graphName);
+                    if (graph.replaced) {
+                        logger.info("Replacing existing named graph: {}", graphName);
+                        if (sharedEntities != null) {
+                            released.addAll(sharedEntities.referencedBy(dataset.asDatasetGraph(), graphNode));
+                        }
+                        if (referenceGraph != null) {
+                            referenceGraph.release(dataset.asDatasetGraph(), graphNode);
+                        }
+                        dataset.removeNamedModel(graphName);
+                    }
 
-                // Store the model (prefixes will not be persisted, but triples will)
-                dataset.addNamedModel(graphName, modelToStore);
+                    // Store the model (prefixes will not be persisted, but triples will)
+                    if (sharedEntities == null && referenceGraph == null) {
+                        dataset.addNamedModel(graphName, modelToStore);
+                    } else {
+                        Graph toStore = modelToStore.getGraph();
+                        if (sharedEntities != null) {
+                            toStore = sharedEntities.store(dataset.asDatasetGraph(), graphNode, toStore);
+                        }
+                        if (referenceGraph != null) {
+                            referenceGraph.store(dataset.asDatasetGraph(), graphNode, toStore);
+                        } else {
+                            dataset.asDatasetGraph().addGraph(graphNode, toStore);
+                        }
+                    }
+                    if (offeringIndex != null) {
+                        offeringIndex.index(dataset.asDatasetGraph(), graphNode, modelToStore.getGraph());
+                    }
 
-                Model storedModel = dataset.getNamedModel(graphName);
-                logger.info("Graph {} stored with {} statements.", graphName, storedModel.size());
+                    Model storedModel = dataset.getNamedModel(graphName);
+                    logger.info("Graph {} stored with {} statements.", graphName, storedModel.size());
+                }
+                if (sharedEntities != null) {
+                    sharedEntities.removeUnreferenced(dataset.asDatasetGraph(), released);
+                }
+                dataset.commit();
+            } catch (Exception e) {
+                dataset.abort();
+                throw new IOException("Error storing named graphs", e);
+            } finally {
+                dataset.end();
             }
-            dataset.commit();
-        } catch (Exception e) {
-            dataset.abort();
-            throw new IOException("Error storing named graphs", e);
+            fireOfferingsStored(namedGraphs);
         } finally {
-            dataset.end();
+            unlockCommitOrder(locks);
         }
 
-        // Post-commit check (optional, for debugging)
+        // Post-commit check (optional, for debugging): lists every graph, so not on bulk loads
+        if (!logger.isDebugEnabled()) {
+            return;
+        }
         dataset.begin(ReadWrite.READ);
         try {
             for (NamedSubgraph graph : namedGraphs) {
                 String graphName = graph.getGraphName();
                 if (dataset.containsNamedModel(graphName)) {
                     Model storedModel = dataset.getNamedModel(graphName);
-                    logger.info("Post-commit check: Graph {} exists with {} statements.", graphName,
+                    logger.debug("Post-commit check: Graph {} exists with {} statements.", graphName,
                             storedModel.size());
                 } else {
                     logger.warn("Post-commit check: Graph {} does NOT exist in dataset!", graphName);
@@ -605,12 +1406,39 @@ public class OfferingGSPHandler implements ActionProcessor { // Implement, don't
         try {
             List<String> graphNames = new ArrayList<>();
             dataset.listNames().forEachRemaining(graphNames::add);
-            logger.info("All graph names after commit: {}", graphNames);
+            logger.debug("All graph names after commit: {}", graphNames);
         } finally {
             dataset.end();
         }
     }
 
+    private void fireOfferingsStored(List<NamedSubgraph> namedGraphs) {
+        for (OfferingChangeListener listener : changeListeners) {
+            try {
+                listener.offeringsStored(namedGraphs);
+            } catch (Exception e) {
+                logger.warn("Change listener {} failed: {}", listener.getClass().getSimpleName(), e.getMessage(), e);
+            }
+        }
+    }
+
+    private void fireOfferingDeleted(String graphName) {
+        for (OfferingChangeListener listener : changeListeners) {
+            try {
+                listener.offeringDeleted(graphName);
+            } catch (Exception e) {
+                logger.warn("Change listener {} failed: {}", listener.getClass().getSimpleName(), e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * Whether the language is one of the compact binary RDF encodings
+     */
+    public static boolean isBinaryLang(Lang lang) {
+        return lang == Lang.RDFTHRIFT || lang == Lang.RDFPROTO;
+    }
+
     /**
      * Determine the output format based on Accept header
      */
@@ -635,6 +1463,10 @@ public class OfferingGSPHandler implements ActionProcessor { // Implement, don't
                 return Lang.N3;
             } else if (ct.getContentTypeStr().contains("application/trig")) {
                 return Lang.TRIG;
+            } else if (ct.getContentTypeStr().contains("application/rdf+thrift")) {
+                return Lang.RDFTHRIFT;
+            } else if (ct.getContentTypeStr().contains("application/rdf+protobuf")) {
+                return Lang.RDFPROTO;
             }
 
             // Let Jena determine the language
@@ -688,9 +1520,10 @@ public class OfferingGSPHandler implements ActionProcessor { // Implement, don't
     /**
      * Class to represent a named graph with its model
      */
-    private static class NamedSubgraph {
+    public static class NamedSubgraph {
         private final String graphName;
         private final Model model;
+        private boolean replaced;
 
         public NamedSubgraph(String graphName, Model model) {
             this.graphName = graphName;
@@ -704,11 +1537,18 @@ public class OfferingGSPHandler implements ActionProcessor { // Implement, don't
         public Model getModel() {
             return model;
         }
+
+        /**
+         * Whether storing this graph replaced an existing offering graph
+         */
+        public boolean isReplaced() {
+            return replaced;
+        }
     }
 
     private static Map<String, String> ontologyPrefixes = null;
 
-    private static Map<String, String> loadOntologyPrefixes() {
+    public static Map<String, String> loadOntologyPrefixes() {
         if (ontologyPrefixes != null)
             return ontologyPrefixes;
         ontologyPrefixes = new HashMap<>();
@@ -0,0 +1,137 @@
+/*
+ * SEDIMARK Catalogue Server
+ *
+ * Copyright (C) 2025 Tarek Elsaleh
+ *
+ * This program is licensed under the European Union Public License (EUPL) v1.2.
+ * You may obtain a copy of the License at:
+ * https://joinup.ec.europa.eu/collection/eupl/eupl-text-eupl-12
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.sedimark.catalogue.handlers;
+
+import org.apache.jena.query.Dataset;
+import org.apache.jena.sparql.core.DatasetGraph;
+import org.apache.jena.system.Txn;
+
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+import eu.sedimark.catalogue.storage.OfferingIndex;
+
+/**
+ * Servlet for offering index lookups at /catalogue/index:
+ * GET ?participant=URI, ?asset=URI or ?selfListing=URI returns the offerings
+ * indexed under that resource, and GET ?offering=URI the participants,
+ * self-listings and assets an offering is indexed under.
+ */
+public class OfferingIndexService extends HttpServlet {
+    private static final long serialVersionUID = 1L;
+    private static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(OfferingIndexService.class);
+
+    private static final DateTimeFormatter ISO_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss'Z'")
+            .withZone(ZoneOffset.UTC);
+
+    private final transient Dataset dataset;
+
+    public OfferingIndexService(Dataset dataset) {
+        this.dataset = dataset;
+    }
+
+    @Override
+    protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
+        resp.setContentType("application/json");
+        DatasetGraph dsg = dataset.asDatasetGraph();
+        String offering = req.getParameter("offering");
+        OfferingIndex.Key key = null;
+        String value = null;
+        for (OfferingIndex.Key candidate : OfferingIndex.Key.values()) {
+            String parameter = req.getParameter(candidate.getParameter());
+            if (parameter != null && !parameter.isBlank()) {
+                key = candidate;
+                value = parameter.trim();
+                break;
+            }
+        }
+        if (key == null && (offering == null || offering.isBlank())) {
+            writeError(resp, HttpServletResponse.SC_BAD_REQUEST,
+                    "One of participant, asset, selfListing or offering is required");
+            return;
+        }
+
+        try {
+            OfferingIndex.Key lookupKey = key;
+            String lookupValue = value;
+            String json = Txn.calculateRead(dsg, () -> {
+                if (!OfferingIndex.isBuilt(dsg)) {
+                    return null;
+                }
+                StringBuilder jsonBuilder = new StringBuilder();
+                jsonBuilder.append("{\n");
+                jsonBuilder.append("  \"status\": \"success\",\n");
+                if (lookupKey != null) {
+                    List<String> offerings = OfferingIndex.lookup(dsg, lookupKey, lookupValue);
+                    jsonBuilder.append("  \"key\": \"").append(lookupKey.getParameter()).append("\",\n");
+                    jsonBuilder.append("  \"value\": \"").append(escapeJson(lookupValue)).append("\",\n");
+                    jsonBuilder.append("  \"count\": ").append(offerings.size()).append(",\n");
+                    appendArray(jsonBuilder, "offerings", offerings);
+                } else {
+                    String graphName = offering.trim();
+                    jsonBuilder.append("  \"offering\": \"").append(escapeJson(graphName)).append("\",\n");
+                    appendArray(jsonBuilder, "participants",
+                            OfferingIndex.keysOf(dsg, OfferingIndex.Key.PARTICIPANT, graphName));
+                    appendArray(jsonBuilder, "selfListings",
+                            OfferingIndex.keysOf(dsg, OfferingIndex.Key.SELF_LISTING, graphName));
+                    appendArray(jsonBuilder, "assets", OfferingIndex.keysOf(dsg, OfferingIndex.Key.ASSET, graphName));
+                }
+                jsonBuilder.append("  \"timestamp\": \"").append(ISO_FORMATTER.format(Instant.now())).append("\"\n");
+                jsonBuilder.append("}");
+                return jsonBuilder.toString();
+            });
+            if (json == null) {
+                // e.g. a replica whose primary does not index offerings
+                writeError(resp, HttpServletResponse.SC_SERVICE_UNAVAILABLE, "The offering index is not built");
+                return;
+            }
+            resp.getWriter().write(json);
+        } catch (Exception e) {
+            logger.error("Error in OfferingIndexService.doGet: {}", e.getMessage(), e);
+            writeError(resp, HttpServletResponse.SC_INTERNAL_SERVER_ERROR, "Internal server error");
+        }
+    }
+
+    private static void appendArray(StringBuilder jsonBuilder, String name, List<String> values) {
+        jsonBuilder.append("  \"").append(name).append("\": [");
+        for (int i = 0; i < values.size(); i++) {
+            jsonBuilder.append(i > 0 ? ", " : "").append('"').append(escapeJson(values.get(i))).append('"');
+        }
+        jsonBuilder.append("],\n");
+    }
+
+    private static void writeError(HttpServletResponse resp, int status, String message) throws IOException {
+        resp.setStatus(status);
+        resp.getWriter().write("{ \"status\": \"error\", \"message\": \"" + escapeJson(message) + "\" }");
+    }
+
+    private static String escapeJson(String input) {
+        if (input == null) {
+            return "";
+        }
+        return input.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n").replace("\r", "\\r")
+                .replace("\t", "\\t");
+    }
+}
@@ -21,13 +21,17 @@ import org.apache.jena.query.QueryExecution;
 import org.apache.jena.query.QueryExecutionFactory;
 import org.apache.jena.query.QuerySolution;
 import org.apache.jena.query.ResultSet;
+import org.apache.jena.graph.NodeFactory;
 import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.ModelFactory;
 import org.apache.jena.rdf.model.RDFNode;
 import org.apache.jena.rdf.model.StmtIterator;
 
 import org.apache.jena.rdf.model.Property;
 import org.apache.jena.rdf.model.Resource;
 import org.apache.jena.rdf.model.ResourceFactory;
+import org.apache.jena.sparql.core.DatasetGraph;
+import org.apache.jena.system.Txn;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServlet;
 import jakarta.servlet.http.HttpServletRequest;
@@ -35,12 +39,19 @@ import jakarta.servlet.http.HttpServletResponse;
 import java.io.IOException;
 import java.io.PrintWriter;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 import java.time.Instant;
 import java.time.ZoneOffset;
 import java.time.format.DateTimeFormatter;
 
+import eu.sedimark.catalogue.storage.OfferingDateIndex;
+import eu.sedimark.catalogue.storage.OfferingIndex;
+import eu.sedimark.catalogue.storage.SharedEntityGraph;
+import eu.sedimark.catalogue.utils.SystemGraphs;
+
 /**
  * Custom servlet that lists all named graphs in the dataset
  * and specifically identifies those containing sedimark:Offering instances
@@ -49,6 +60,12 @@ public class OfferingListingService extends HttpServlet {
     private static final long serialVersionUID = 1L;
     private final Dataset dataset;
     private final String offeringType;
+    private boolean indexed;
+    private transient OfferingDateIndex dateIndex;
+
+    /** Offerings per page of a listing sorted by date */
+    private static final int DEFAULT_PAGE_SIZE = 20;
+    private static final int MAX_PAGE_SIZE = 1000;
     private static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(OfferingListingService.class);
 
     // Add a formatter for ISO 8601 timestamps
@@ -64,9 +81,33 @@ public class OfferingListingService extends HttpServlet {
         this.offeringType = offeringType;
     }
 
+    /**
+     * Read self-listings and assets from the offering index, and filter by
+     * participant through it, instead of reading every offering graph
+     *
+     * @param indexed Whether offerings are indexed (--index)
+     */
+    public void setIndexed(boolean indexed) {
+        this.indexed = indexed;
+    }
+
+    /**
+     * Serve listings sorted by date (?sort=issued or ?sort=modified) a page at
+     * a time from the date index
+     *
+     * @param dateIndex The offering dates, or null if offerings are not indexed
+     */
+    public void setDateIndex(OfferingDateIndex dateIndex) {
+        this.dateIndex = dateIndex;
+    }
+
     @Override
     protected void doGet(HttpServletRequest req, HttpServletResponse resp)
             throws ServletException, IOException {
+        if (req.getParameter("sort") != null) {
+            doGetPage(req, resp);
+            return;
+        }
         try {
             dataset.begin(org.apache.jena.query.ReadWrite.READ);
             try {
@@ -79,7 +120,11 @@ public class OfferingListingService extends HttpServlet {
                 PrintWriter out = resp.getWriter();
 
                 // Get all named graph URIs containing sedimark:Offering instances
-                List<String> offeringGraphs = findOfferingGraphs();
+                boolean useIndex = indexed && OfferingIndex.isBuilt(dataset.asDatasetGraph());
+                String participant = req.getParameter("participant");
+                List<String> offeringGraphs = participant != null
+                        ? findParticipantOfferings(participant, useIndex)
+                        : findOfferingGraphs();
                 logger.info("Found {} offering graphs", offeringGraphs.size());
 
                 // Build detailed JSON response
@@ -93,11 +138,22 @@ public class OfferingListingService extends HttpServlet {
                 for (int i = 0; i < offeringGraphs.size(); i++) {
                     String graphName = offeringGraphs.get(i);
 
-                    // Get self-listing URI from the graph
-                    String selfURI = getSelfListingURI(graphName);
-
-                    // Get count of linked assets instead of statements
-                    int assetCount = countLinkedAssets(graphName);
+                    String selfURI;
+                    int assetCount;
+                    if (useIndex) {
+                        // Lookups in the index instead of reading the offering graph
+                        List<String> selfListings = OfferingIndex.keysOf(dataset.asDatasetGraph(),
+                                OfferingIndex.Key.SELF_LISTING, graphName);
+                        selfURI = selfListings.isEmpty() ? graphName : selfListings.get(0);
+                        assetCount = OfferingIndex.keysOf(dataset.asDatasetGraph(), OfferingIndex.Key.ASSET,
+                                graphName).size();
+                    } else {
+                        // Get self-listing URI from the graph
+                        selfURI = getSelfListingURI(graphName);
+
+                        // Get count of linked assets instead of statements
+                        assetCount = countLinkedAssets(graphName);
+                    }
 
                     jsonBuilder.append("    {\n")
                             .append("      \"uri\": \"").append(escapeJsonString(graphName)).append("\",\n")
@@ -124,6 +180,108 @@ public class OfferingListingService extends HttpServlet {
         }
     }
 
+    /**
+     * A page of offerings, newest first by ?sort=issued or ?sort=modified,
+     * continuing after the ?after cursor of the previous page. The page is a
+     * seek in the date index, so it costs the same however deep it is.
+     */
+    private void doGetPage(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+        resp.setContentType("application/json");
+        OfferingIndex.DateField field = OfferingIndex.DateField.forParameter(req.getParameter("sort"));
+        if (field == null) {
+            writeError(resp, HttpServletResponse.SC_BAD_REQUEST, "sort must be issued or modified");
+            return;
+        }
+        if (dateIndex == null) {
+            writeError(resp, HttpServletResponse.SC_BAD_REQUEST, "Sorting by date requires the offering index (--index)");
+            return;
+        }
+        int limit = DEFAULT_PAGE_SIZE;
+        Instant since = null;
+        Instant until = null;
+        try {
+            if (req.getParameter("limit") != null) {
+                limit = Integer.parseInt(req.getParameter("limit").trim());
+            }
+            if (req.getParameter("since") != null) {
+                since = requireDate(req.getParameter("since"));
+            }
+            if (req.getParameter("until") != null) {
+                until = requireDate(req.getParameter("until"));
+            }
+        } catch (IllegalArgumentException e) {
+            writeError(resp, HttpServletResponse.SC_BAD_REQUEST, "Invalid limit, since or until: " + e.getMessage());
+            return;
+        }
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            writeError(resp, HttpServletResponse.SC_BAD_REQUEST, "limit must be between 1 and " + MAX_PAGE_SIZE);
+            return;
+        }
+
+        try {
+            DatasetGraph dsg = dataset.asDatasetGraph();
+            String participant = req.getParameter("participant");
+            Set<String> ofParticipant = participant == null ? null
+                    : Txn.calculateRead(dsg, () -> new HashSet<>(findParticipantOfferings(participant,
+                            OfferingIndex.isBuilt(dsg))));
+            OfferingDateIndex.Page page = dateIndex.page(field, req.getParameter("after"), limit, since, until,
+                    ofParticipant == null ? null : ofParticipant::contains);
+
+            StringBuilder jsonBuilder = new StringBuilder();
+            Txn.executeRead(dsg, () -> {
+                jsonBuilder.append("{\n");
+                jsonBuilder.append("  \"status\": \"success\",\n");
+                jsonBuilder.append("  \"message\": \"Retrieved offering graphs\",\n");
+                jsonBuilder.append("  \"sort\": \"").append(field.getParameter()).append("\",\n");
+                jsonBuilder.append("  \"count\": ").append(page.entries().size()).append(",\n");
+                jsonBuilder.append("  \"offerings\": [\n");
+                List<OfferingDateIndex.Entry> entries = page.entries();
+                for (int i = 0; i < entries.size(); i++) {
+                    String graphName = entries.get(i).graph();
+                    List<String> selfListings = OfferingIndex.keysOf(dsg, OfferingIndex.Key.SELF_LISTING, graphName);
+                    jsonBuilder.append("    {\n")
+                            .append("      \"uri\": \"").append(escapeJsonString(graphName)).append("\",\n")
+                            .append("      \"").append(field.getParameter()).append("\": \"")
+                            .append(entries.get(i).date()).append("\",\n")
+                            .append("      \"selfListing\": \"")
+                            .append(escapeJsonString(selfListings.isEmpty() ? graphName : selfListings.get(0)))
+                            .append("\",\n")
+                            .append("      \"assets\": ")
+                            .append(OfferingIndex.keysOf(dsg, OfferingIndex.Key.ASSET, graphName).size()).append("\n")
+                            .append("    }");
+                    if (i < entries.size() - 1) {
+                        jsonBuilder.append(",");
+                    }
+                    jsonBuilder.append("\n");
+                }
+                jsonBuilder.append("  ],\n");
+                jsonBuilder.append("  \"next\": ")
+                        .append(page.next() != null ? "\"" + page.next() + "\"" : "null").append(",\n");
+                jsonBuilder.append("  \"timestamp\": \"").append(getIsoTimestamp()).append("\"\n");
+                jsonBuilder.append("}");
+            });
+            resp.getWriter().write(jsonBuilder.toString());
+        } catch (IllegalArgumentException e) {
+            writeError(resp, HttpServletResponse.SC_BAD_REQUEST, e.getMessage());
+        } catch (Exception e) {
+            logger.error("Error in OfferingListingService.doGetPage: {}", e.getMessage(), e);
+            writeError(resp, HttpServletResponse.SC_INTERNAL_SERVER_ERROR, "Internal server error");
+        }
+    }
+
+    private static Instant requireDate(String value) {
+        Instant date = OfferingIndex.parseDate(value);
+        if (date == null) {
+            throw new IllegalArgumentException(value);
+        }
+        return date;
+    }
+
+    private void writeError(HttpServletResponse resp, int status, String message) throws IOException {
+        resp.setStatus(status);
+        resp.getWriter().write("{\"status\":\"error\",\"message\":\"" + escapeJsonString(message) + "\"}");
+    }
+
     /**
      * Count the number of sedimark:Asset instances linked to the offering in a
      * graph
@@ -187,7 +345,9 @@ public class OfferingListingService extends HttpServlet {
      */
     private String getSelfListingURI(String graphName) {
         try {
-            Model model = dataset.getNamedModel(graphName);
+            // The self-listing may be stored once in the shared entity graph
+            Model model = ModelFactory.createModelForGraph(
+                    SharedEntityGraph.expand(dataset.asDatasetGraph(), NodeFactory.createURI(graphName)));
 
             // First, find the offering subject
             Resource subject = null;
@@ -261,8 +421,12 @@ public class OfferingListingService extends HttpServlet {
         List<String> result = new ArrayList<>();
 
         // First approach: use the graph names directly (since we use offering URIs as
-        // graph names)
-        dataset.listNames().forEachRemaining(result::add);
+        // graph names), leaving out the catalogue's own system graphs
+        dataset.listNames().forEachRemaining(name -> {
+            if (!SystemGraphs.isSystemGraph(name)) {
+                result.add(name);
+            }
+        });
 
         // Second approach: query for graphs containing sedimark:Offering instances
         if (result.isEmpty()) {
@@ -284,6 +448,21 @@ public class OfferingListingService extends HttpServlet {
         return result;
     }
 
+    /**
+     * Find the offering graphs of a participant (?participant=), through the
+     * offering index if it is built or else by scanning sedimark:belongsTo
+     */
+    private List<String> findParticipantOfferings(String participant, boolean useIndex) {
+        if (useIndex) {
+            return OfferingIndex.lookup(dataset.asDatasetGraph(), OfferingIndex.Key.PARTICIPANT, participant);
+        }
+        // The self-listing belongs to the participant, in the offering graph or the shared entity graph
+        Set<String> offerings = OfferingIndex.scan(dataset.asDatasetGraph(),
+                NodeFactory.createURI("https://w3id.org/sedimark/ontology#belongsTo"),
+                NodeFactory.createURI(participant));
+        return new ArrayList<>(offerings);
+    }
+
     /**
      * Escape special characters in JSON strings
      */
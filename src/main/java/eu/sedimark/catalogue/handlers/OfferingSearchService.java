@@ -0,0 +1,199 @@
+/*
+ * SEDIMARK Catalogue Server
+ *
+ * Copyright (C) 2025 Tarek Elsaleh
+ *
+ * This program is licensed under the European Union Public License (EUPL) v1.2.
+ * You may obtain a copy of the License at:
+ * https://joinup.ec.europa.eu/collection/eupl/eupl-text-eupl-12
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.sedimark.catalogue.handlers;
+
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.query.Dataset;
+import org.apache.jena.sparql.core.DatasetGraph;
+import org.apache.jena.system.Txn;
+
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NavigableSet;
+
+import eu.sedimark.catalogue.storage.OfferingCoverage;
+import eu.sedimark.catalogue.storage.OfferingCoverageIndex;
+import eu.sedimark.catalogue.storage.OfferingIndex;
+
+/**
+ * Servlet for offering discovery by coverage at /catalogue/search:
+ * GET ?bbox=minLon,minLat,maxLon,maxLat and/or ?from=date&to=date returns the
+ * offerings whose spatial coverage intersects the box and whose temporal
+ * coverage overlaps the window, a page at a time in graph name order
+ * (?limit, and ?after with the previous page's next cursor).
+ */
+public class OfferingSearchService extends HttpServlet {
+    private static final long serialVersionUID = 1L;
+    private static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(OfferingSearchService.class);
+
+    private static final DateTimeFormatter ISO_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss'Z'")
+            .withZone(ZoneOffset.UTC);
+
+    private static final int DEFAULT_PAGE_SIZE = 100;
+    private static final int MAX_PAGE_SIZE = 1000;
+
+    private final transient Dataset dataset;
+    private final transient OfferingCoverageIndex coverageIndex;
+
+    public OfferingSearchService(Dataset dataset, OfferingCoverageIndex coverageIndex) {
+        this.dataset = dataset;
+        this.coverageIndex = coverageIndex;
+    }
+
+    @Override
+    protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
+        resp.setContentType("application/json");
+        double[] bbox = null;
+        Instant from = null;
+        Instant to = null;
+        int limit = DEFAULT_PAGE_SIZE;
+        try {
+            if (req.getParameter("bbox") != null) {
+                bbox = parseBbox(req.getParameter("bbox"));
+            }
+            if (req.getParameter("from") != null) {
+                from = parseDate(req.getParameter("from"), false);
+            }
+            if (req.getParameter("to") != null) {
+                to = parseDate(req.getParameter("to"), true);
+            }
+            if (req.getParameter("limit") != null) {
+                limit = Integer.parseInt(req.getParameter("limit").trim());
+            }
+        } catch (IllegalArgumentException e) {
+            writeError(resp, HttpServletResponse.SC_BAD_REQUEST, e.getMessage());
+            return;
+        }
+        if (bbox == null && from == null && to == null) {
+            writeError(resp, HttpServletResponse.SC_BAD_REQUEST, "bbox, from or to is required");
+            return;
+        }
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            writeError(resp, HttpServletResponse.SC_BAD_REQUEST, "limit must be between 1 and " + MAX_PAGE_SIZE);
+            return;
+        }
+
+        try {
+            long start = System.nanoTime();
+            NavigableSet<String> found = coverageIndex.search(bbox, from, to);
+            String after = req.getParameter("after");
+            NavigableSet<String> remaining = after != null ? found.tailSet(after, false) : found;
+            List<String> page = new ArrayList<>();
+            boolean more = false;
+            for (String graphName : remaining) {
+                if (page.size() == limit) {
+                    more = true;
+                    break;
+                }
+                page.add(graphName);
+            }
+            String next = more ? page.get(page.size() - 1) : null;
+            long millis = (System.nanoTime() - start) / 1_000_000;
+
+            DatasetGraph dsg = dataset.asDatasetGraph();
+            StringBuilder jsonBuilder = new StringBuilder();
+            Txn.executeRead(dsg, () -> {
+                jsonBuilder.append("{\n");
+                jsonBuilder.append("  \"status\": \"success\",\n");
+                jsonBuilder.append("  \"total\": ").append(found.size()).append(",\n");
+                jsonBuilder.append("  \"count\": ").append(page.size()).append(",\n");
+                jsonBuilder.append("  \"offerings\": [\n");
+                for (int i = 0; i < page.size(); i++) {
+                    String graphName = page.get(i);
+                    jsonBuilder.append("    {\n");
+                    jsonBuilder.append("      \"uri\": \"").append(escapeJson(graphName)).append("\",\n");
+                    appendCoverage(jsonBuilder, dsg, graphName);
+                    jsonBuilder.append("    }").append(i < page.size() - 1 ? "," : "").append("\n");
+                }
+                jsonBuilder.append("  ],\n");
+                jsonBuilder.append("  \"next\": ")
+                        .append(next != null ? "\"" + escapeJson(next) + "\"" : "null").append(",\n");
+                jsonBuilder.append("  \"searchMillis\": ").append(millis).append(",\n");
+                jsonBuilder.append("  \"timestamp\": \"").append(ISO_FORMATTER.format(Instant.now())).append("\"\n");
+                jsonBuilder.append("}");
+            });
+            resp.getWriter().write(jsonBuilder.toString());
+        } catch (Exception e) {
+            logger.error("Error in OfferingSearchService.doGet: {}", e.getMessage(), e);
+            writeError(resp, HttpServletResponse.SC_INTERNAL_SERVER_ERROR, "Internal server error");
+        }
+    }
+
+    /**
+     * The indexed bounding boxes and periods of an offering
+     */
+    private static void appendCoverage(StringBuilder jsonBuilder, DatasetGraph dsg, String graphName) {
+        List<String> boxes = new ArrayList<>();
+        OfferingIndex.forEachBox(dsg, NodeFactory.createURI(graphName), (graph, box) -> boxes.add(
+                "[" + box[0] + ", " + box[1] + ", " + box[2] + ", " + box[3] + "]"));
+        List<String> periods = new ArrayList<>();
+        OfferingIndex.forEachPeriod(dsg, NodeFactory.createURI(graphName), (graph, period) -> periods.add(
+                "{ \"start\": " + (period[0] != null ? "\"" + period[0] + "\"" : "null")
+                        + ", \"end\": " + (period[1] != null ? "\"" + period[1] + "\"" : "null") + " }"));
+        jsonBuilder.append("      \"bbox\": [").append(String.join(", ", boxes)).append("],\n");
+        jsonBuilder.append("      \"periods\": [").append(String.join(", ", periods)).append("]\n");
+    }
+
+    private static double[] parseBbox(String value) {
+        String[] parts = value.split(",");
+        if (parts.length != 4) {
+            throw new IllegalArgumentException("bbox must be minLon,minLat,maxLon,maxLat");
+        }
+        double[] bbox = new double[4];
+        for (int i = 0; i < 4; i++) {
+            try {
+                bbox[i] = Double.parseDouble(parts[i].trim());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("bbox must be minLon,minLat,maxLon,maxLat");
+            }
+        }
+        if (bbox[0] < -180 || bbox[2] > 180 || bbox[1] < -90 || bbox[3] > 90 || bbox[1] > bbox[3]) {
+            throw new IllegalArgumentException("bbox is outside longitude -180..180 and latitude -90..90");
+        }
+        return bbox;
+    }
+
+    private static Instant parseDate(String value, boolean end) {
+        Instant date = OfferingCoverage.parseBound(value, end);
+        if (date == null) {
+            throw new IllegalArgumentException("Invalid date: " + value);
+        }
+        return date;
+    }
+
+    private static void writeError(HttpServletResponse resp, int status, String message) throws IOException {
+        resp.setStatus(status);
+        resp.getWriter().write("{ \"status\": \"error\", \"message\": \"" + escapeJson(message) + "\" }");
+    }
+
+    private static String escapeJson(String input) {
+        if (input == null) {
+            return "";
+        }
+        return input.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n").replace("\r", "\\r")
+                .replace("\t", "\\t");
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * SEDIMARK Catalogue Server
+ *
+ * Copyright (C) 2025 Tarek Elsaleh
+ *
+ * This program is licensed under the European Union Public License (EUPL) v1.2.
+ * You may obtain a copy of the License at:
+ * https://joinup.ec.europa.eu/collection/eupl/eupl-text-eupl-12
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.sedimark.catalogue.handlers;
+
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.query.Dataset;
+import org.apache.jena.sparql.core.DatasetGraph;
+import org.apache.jena.system.Txn;
+
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Locale;
+
+import eu.sedimark.catalogue.storage.OfferingSimilarityIndex;
+import eu.sedimark.catalogue.storage.OfferingSimilarityIndex.Match;
+
+/**
+ * Servlet for "offerings like this one" at /catalogue/similar:
+ * GET ?graph=URI returns the offerings whose descriptions are most similar to
+ * that offering's, most similar first (?limit to choose how many).
+ */
+public class OfferingSimilarityService extends HttpServlet {
+    private static final long serialVersionUID = 1L;
+    private static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(OfferingSimilarityService.class);
+
+    private static final DateTimeFormatter ISO_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss'Z'")
+            .withZone(ZoneOffset.UTC);
+
+    private static final int DEFAULT_LIMIT = 10;
+    private static final int MAX_LIMIT = 100;
+
+    private final transient Dataset dataset;
+    private final transient OfferingSimilarityIndex similarityIndex;
+
+    public OfferingSimilarityService(Dataset dataset, OfferingSimilarityIndex similarityIndex) {
+        this.dataset = dataset;
+        this.similarityIndex = similarityIndex;
+    }
+
+    @Override
+    protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
+        resp.setContentType("application/json");
+        String graphName = req.getParameter("graph");
+        if (graphName == null || graphName.isBlank()) {
+            writeError(resp, HttpServletResponse.SC_BAD_REQUEST, "graph is required");
+            return;
+        }
+        graphName = graphName.trim();
+        int limit = DEFAULT_LIMIT;
+        try {
+            if (req.getParameter("limit") != null) {
+                limit = Integer.parseInt(req.getParameter("limit").trim());
+            }
+        } catch (NumberFormatException e) {
+            limit = -1;
+        }
+        if (limit < 1 || limit > MAX_LIMIT) {
+            writeError(resp, HttpServletResponse.SC_BAD_REQUEST, "limit must be between 1 and " + MAX_LIMIT);
+            return;
+        }
+
+        try {
+            long start = System.nanoTime();
+            List<Match> matches = similarityIndex.similar(graphName, limit);
+            long millis = (System.nanoTime() - start) / 1_000_000;
+            if (matches == null) {
+                // Not indexed: either not an offering, or one without any text to compare
+                DatasetGraph dsg = dataset.asDatasetGraph();
+                String offering = graphName;
+                if (!Txn.calculateRead(dsg, () -> dsg.containsGraph(NodeFactory.createURI(offering)))) {
+                    writeError(resp, HttpServletResponse.SC_NOT_FOUND, "Offering not found: " + graphName);
+                    return;
+                }
+                matches = List.of();
+            }
+
+            StringBuilder jsonBuilder = new StringBuilder();
+            jsonBuilder.append("{\n");
+            jsonBuilder.append("  \"status\": \"success\",\n");
+            jsonBuilder.append("  \"graph\": \"").append(escapeJson(graphName)).append("\",\n");
+            jsonBuilder.append("  \"count\": ").append(matches.size()).append(",\n");
+            jsonBuilder.append("  \"offerings\": [\n");
+            for (int i = 0; i < matches.size(); i++) {
+                Match match = matches.get(i);
+                jsonBuilder.append("    { \"uri\": \"").append(escapeJson(match.graph())).append("\", \"score\": ")
+                        .append(String.format(Locale.ROOT, "%.4f", match.score())).append(" }")
+                        .append(i < matches.size() - 1 ? "," : "").append("\n");
+            }
+            jsonBuilder.append("  ],\n");
+            jsonBuilder.append("  \"searchMillis\": ").append(millis).append(",\n");
+            jsonBuilder.append("  \"timestamp\": \"").append(ISO_FORMATTER.format(Instant.now())).append("\"\n");
+            jsonBuilder.append("}");
+            resp.getWriter().write(jsonBuilder.toString());
+        } catch (Exception e) {
+            logger.error("Error in OfferingSimilarityService.doGet: {}", e.getMessage(), e);
+            writeError(resp, HttpServletResponse.SC_INTERNAL_SERVER_ERROR, "Internal server error");
+        }
+    }
+
+    private static void writeError(HttpServletResponse resp, int status, String message) throws IOException {
+        resp.setStatus(status);
+        resp.getWriter().write("{ \"status\": \"error\", \"message\": \"" + escapeJson(message) + "\" }");
+    }
+
+    private static String escapeJson(String input) {
+        if (input == null) {
+            return "";
+        }
+        return input.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n").replace("\r", "\\r")
+                .replace("\t", "\\t");
+    }
+}
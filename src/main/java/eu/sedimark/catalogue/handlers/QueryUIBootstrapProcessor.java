@@ -11,6 +11,8 @@ import org.apache.jena.fuseki.servlets.HttpAction;
 import org.apache.jena.fuseki.servlets.ActionProcessor;
 import jakarta.servlet.http.HttpServletResponse;
 
+import eu.sedimark.catalogue.servlets.StaticAssetCache;
+
 import java.io.IOException;
 import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
@@ -52,7 +54,7 @@ public class QueryUIBootstrapProcessor implements ActionProcessor {
         html.append("<style>");
         html.append(
                 "body { margin:0; font-family:Segoe UI,Arial,sans-serif; min-height:100vh;"
-                        + " background-image: linear-gradient(rgba(255,255,255,0.85), rgba(255,255,255,0.85)), url('/static/img/sedimark_bk_dark-100.jpg');"
+                        + " background-image: linear-gradient(rgba(255,255,255,0.85), rgba(255,255,255,0.85)), url('" + StaticAssetCache.getDefault().url("/static/img/sedimark_bk_dark-100.jpg") + "');"
                         + " background-size: cover; background-repeat: no-repeat; background-position: center; }");
         // match Tailwind's max-w-6xl (72rem) so outer card width is the same as Tailwind UI
         html.append(
@@ -0,0 +1,114 @@
+/*
+ * SEDIMARK Catalogue Server
+ *
+ * Copyright (C) 2025 Tarek Elsaleh
+ *
+ * This program is licensed under the European Union Public License (EUPL) v1.2.
+ * You may obtain a copy of the License at:
+ * https://joinup.ec.europa.eu/collection/eupl/eupl-text-eupl-12
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.sedimark.catalogue.handlers;
+
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import eu.sedimark.catalogue.replication.PatchLog;
+import eu.sedimark.catalogue.replication.ReplicaApplier;
+
+/**
+ * Servlet for replication at /catalogue/replication: GET returns the replication
+ * status and lag of this server (primary or replica). On a primary,
+ * GET ?patch=N returns patch N of the log as RDF Patch text (404 if it has not been
+ * written yet, 410 if it is no longer in the log), and replicas report their
+ * progress with ?replica=name&amp;applied=M.
+ */
+public class ReplicationService extends HttpServlet {
+    private static final long serialVersionUID = 1L;
+    private static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(ReplicationService.class);
+
+    private final transient PatchLog patchLog;
+    private final transient ReplicaApplier replica;
+
+    /**
+     * @param patchLog The primary's patch log, or null on a replica
+     * @param replica  The replica's applier, or null on a primary
+     */
+    public ReplicationService(PatchLog patchLog, ReplicaApplier replica) {
+        this.patchLog = patchLog;
+        this.replica = replica;
+    }
+
+    @Override
+    protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
+        String patch = req.getParameter("patch");
+        if (patch != null && patchLog != null) {
+            writePatch(req, resp, patch);
+            return;
+        }
+        resp.setContentType("application/json");
+        resp.setHeader("Cache-Control", "no-cache");
+        if (patch != null) {
+            resp.setStatus(HttpServletResponse.SC_NOT_FOUND);
+            resp.getWriter().write("{ \"status\": \"error\", \"message\": \"This server is a replica and has no patch log\" }");
+            return;
+        }
+        resp.getWriter().write(patchLog != null ? patchLog.toJson() : replica.toJson());
+    }
+
+    private void writePatch(HttpServletRequest req, HttpServletResponse resp, String patch) throws IOException {
+        long sequence;
+        try {
+            sequence = Long.parseLong(patch.trim());
+            String replicaName = req.getParameter("replica");
+            String applied = req.getParameter("applied");
+            if (replicaName != null && applied != null) {
+                patchLog.replicaProgress(replicaName, Long.parseLong(applied.trim()));
+            }
+        } catch (NumberFormatException e) {
+            resp.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+            resp.setContentType("application/json");
+            resp.getWriter().write("{ \"status\": \"error\", \"message\": \"patch and applied must be sequence numbers\" }");
+            return;
+        }
+
+        resp.setHeader(PatchLog.LAST_SEQUENCE_HEADER, Long.toString(patchLog.getLastSequence()));
+        resp.setHeader("Cache-Control", "no-cache");
+        try (InputStream in = patchLog.open(sequence)) {
+            if (in != null) {
+                resp.setContentType("application/rdf-patch");
+                in.transferTo(resp.getOutputStream());
+                return;
+            }
+        } catch (IOException e) {
+            logger.error("Could not read patch {}: {}", sequence, e.getMessage());
+            resp.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+            resp.setContentType("application/json");
+            resp.getWriter().write("{\"status\":\"error\",\"message\":\"Internal server error\"}");
+            return;
+        }
+
+        resp.setContentType("application/json");
+        if (sequence < patchLog.getFirstSequence()) {
+            resp.setStatus(HttpServletResponse.SC_GONE);
+            resp.getWriter().write("{ \"status\": \"error\", \"message\": \"Patch " + sequence
+                    + " is no longer in the log (it starts at " + patchLog.getFirstSequence()
+                    + "); seed the replica with a copy of the primary's store\" }");
+        } else {
+            resp.setStatus(HttpServletResponse.SC_NOT_FOUND);
+            resp.getWriter().write("{ \"status\": \"error\", \"message\": \"Patch " + sequence
+                    + " has not been written yet\" }");
+        }
+    }
+}
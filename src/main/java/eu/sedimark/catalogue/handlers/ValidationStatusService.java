@@ -0,0 +1,127 @@
+/*
+ * SEDIMARK Catalogue Server
+ *
+ * Copyright (C) 2025 Tarek Elsaleh
+ *
+ * This program is licensed under the European Union Public License (EUPL) v1.2.
+ * You may obtain a copy of the License at:
+ * https://joinup.ec.europa.eu/collection/eupl/eupl-text-eupl-12
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.sedimark.catalogue.handlers;
+
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+
+import eu.sedimark.catalogue.validation.IncrementalValidationEngine;
+import eu.sedimark.catalogue.validation.IncrementalValidationEngine.Audit;
+
+/**
+ * Servlet for the validation status table kept by the
+ * {@link IncrementalValidationEngine}:
+ * GET lists the status of every offering (?graph=uri for one offering with its
+ * results, ?conforms=false for the non-conforming ones), the per-shape statistics
+ * and the progress of the current audit; POST ?audit=stale|full starts a background
+ * audit; DELETE cancels it.
+ */
+public class ValidationStatusService extends HttpServlet {
+    private static final long serialVersionUID = 1L;
+    private static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(ValidationStatusService.class);
+
+    private final transient IncrementalValidationEngine engine;
+
+    public ValidationStatusService(IncrementalValidationEngine engine) {
+        this.engine = engine;
+    }
+
+    @Override
+    protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
+        resp.setContentType("application/json");
+        String graphName = req.getParameter("graph");
+        String conforms = req.getParameter("conforms");
+        try {
+            String json = engine.toJson(graphName, conforms != null ? Boolean.valueOf(conforms) : null);
+            if (json == null) {
+                resp.setStatus(HttpServletResponse.SC_NOT_FOUND);
+                resp.getWriter().write("{ \"status\": \"error\", \"message\": \"No validation status for offering: "
+                        + escapeJsonString(graphName) + "\" }");
+                return;
+            }
+            resp.getWriter().write(json);
+        } catch (Exception e) {
+            logger.error("Error in ValidationStatusService.doGet: {}", e.getMessage(), e);
+            resp.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+            resp.getWriter().write("{\"status\":\"error\",\"message\":\"Internal server error\"}");
+        }
+    }
+
+    @Override
+    protected void doPost(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
+        resp.setContentType("application/json");
+        String scope = req.getParameter("audit");
+        if (scope == null) {
+            scope = "stale";
+        }
+        if (!scope.equals("stale") && !scope.equals("full")) {
+            resp.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+            resp.getWriter().write("{ \"status\": \"error\", \"message\": \"Invalid audit scope: "
+                    + escapeJsonString(scope) + " (use stale or full)\" }");
+            return;
+        }
+
+        Audit audit = engine.startAudit(scope.equals("full"));
+        if (audit == null) {
+            resp.setStatus(HttpServletResponse.SC_CONFLICT);
+            resp.getWriter().write(auditResponse("error", "An audit is already running", engine.getAudit()));
+            return;
+        }
+        resp.setStatus(HttpServletResponse.SC_ACCEPTED);
+        resp.getWriter().write(auditResponse("success", "Audit started", audit));
+    }
+
+    @Override
+    protected void doDelete(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
+        resp.setContentType("application/json");
+        if (!engine.cancelAudit()) {
+            resp.setStatus(HttpServletResponse.SC_NOT_FOUND);
+            resp.getWriter().write("{ \"status\": \"error\", \"message\": \"No audit is running\" }");
+            return;
+        }
+        resp.getWriter().write(auditResponse("success", "Audit cancellation requested", engine.getAudit()));
+    }
+
+    private static String auditResponse(String status, String message, Audit audit) {
+        StringBuilder json = new StringBuilder();
+        json.append("{\n");
+        json.append("  \"status\": \"").append(status).append("\",\n");
+        json.append("  \"message\": \"").append(message).append("\",\n");
+        json.append("  \"audit\": ");
+        audit.appendJson(json, "  ");
+        json.append("\n}");
+        return json.toString();
+    }
+
+    /**
+     * Escape special characters in JSON strings
+     */
+    private static String escapeJsonString(String input) {
+        if (input == null) {
+            return "";
+        }
+        return input.replace("\\", "\\\\")
+                .replace("\"", "\\\"")
+                .replace("\n", "\\n")
+                .replace("\r", "\\r")
+                .replace("\t", "\\t");
+    }
+}
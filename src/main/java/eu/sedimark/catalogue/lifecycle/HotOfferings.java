@@ -0,0 +1,210 @@
+/*
+ * SEDIMARK Catalogue Server
+ *
+ * Copyright (C) 2025 Tarek Elsaleh
+ *
+ * This program is licensed under the European Union Public License (EUPL) v1.2.
+ * You may obtain a copy of the License at:
+ * https://joinup.ec.europa.eu/collection/eupl/eupl-text-eupl-12
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.sedimark.catalogue.lifecycle;
+
+import org.apache.jena.atlas.iterator.Iter;
+import org.apache.jena.graph.Graph;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.query.Dataset;
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.ModelFactory;
+import org.apache.jena.riot.Lang;
+import org.apache.jena.sparql.core.DatasetGraph;
+import org.apache.jena.system.Txn;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import eu.sedimark.catalogue.handlers.OfferingChangeListener;
+import eu.sedimark.catalogue.handlers.OfferingGSPHandler;
+import eu.sedimark.catalogue.handlers.OfferingGSPHandler.NamedSubgraph;
+import eu.sedimark.catalogue.storage.SharedEntityGraph;
+
+/**
+ * The most requested offerings, kept across restarts to pre-warm a new server.
+ *
+ * Offering reads are counted while the server runs and the hottest offerings are
+ * written to a file at shutdown, one URI per line. At the next start they are read
+ * back before requests are accepted: reading each offering brings its TDB2 blocks
+ * into the page cache and its terms into the node table cache, and the hottest are
+ * also rendered as JSON-LD to fill the context caches. The previous list counts
+ * towards the next one, so a server restarted before it saw much traffic keeps it.
+ */
+public class HotOfferings implements OfferingChangeListener {
+    private static final Logger logger = LoggerFactory.getLogger(HotOfferings.class);
+
+    /** Default number of offerings kept in the list and pre-warmed */
+    public static final int DEFAULT_LIMIT = 1000;
+
+    /** Offerings also rendered as JSON-LD when pre-warming */
+    private static final int RENDERED = 16;
+
+    /** Distinct offerings counted; reads of others are ignored once reached */
+    private static final int MAX_TRACKED = 100_000;
+
+    private final Path file;
+    private final int limit;
+    private final Map<String, LongAdder> reads = new ConcurrentHashMap<>();
+
+    /**
+     * @param file  The hot offering list
+     * @param limit Offerings kept in the list (0 for the default)
+     */
+    public HotOfferings(Path file, int limit) {
+        this.file = file.toAbsolutePath();
+        this.limit = limit > 0 ? limit : DEFAULT_LIMIT;
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    /**
+     * Count a read of an offering
+     */
+    public void record(String graphName) {
+        LongAdder count = reads.get(graphName);
+        if (count == null) {
+            if (reads.size() >= MAX_TRACKED) {
+                return;
+            }
+            count = reads.computeIfAbsent(graphName, g -> new LongAdder());
+        }
+        count.increment();
+    }
+
+    @Override
+    public void offeringsStored(List<NamedSubgraph> offerings) {
+        // A replaced offering stays as hot as it was
+    }
+
+    @Override
+    public void offeringDeleted(String graphName) {
+        reads.remove(graphName);
+    }
+
+    /**
+     * The most read offerings, hottest first
+     */
+    public List<String> hottest() {
+        List<Map.Entry<String, Long>> counts = new ArrayList<>();
+        reads.forEach((graphName, count) -> counts.add(Map.entry(graphName, count.sum())));
+        counts.sort(Map.Entry.<String, Long>comparingByValue(Comparator.reverseOrder())
+                .thenComparing(Map.Entry.comparingByKey()));
+        List<String> hottest = new ArrayList<>();
+        for (int i = 0; i < counts.size() && i < limit; i++) {
+            hottest.add(counts.get(i).getKey());
+        }
+        return hottest;
+    }
+
+    /**
+     * Read the list saved by the previous run, if any, and pre-warm the dataset
+     * with it
+     *
+     * @return Number of offerings pre-warmed
+     */
+    public int prewarm(Dataset dataset) {
+        if (!Files.exists(file)) {
+            logger.info("No hot offering list at {}, nothing to pre-warm", file);
+            return 0;
+        }
+        List<String> hot;
+        try {
+            hot = Files.readAllLines(file, StandardCharsets.UTF_8).stream()
+                    .map(String::strip)
+                    .filter(line -> !line.isEmpty() && !line.startsWith("#"))
+                    .limit(limit)
+                    .toList();
+        } catch (IOException e) {
+            logger.warn("Could not read the hot offering list {}: {}", file, e.getMessage());
+            return 0;
+        }
+
+        long start = System.nanoTime();
+        int warmed = 0;
+        long statements = 0;
+        DatasetGraph dsg = dataset.asDatasetGraph();
+        for (int i = 0; i < hot.size(); i++) {
+            String graphName = hot.get(i);
+            // Carried over with a decreasing weight, so the order survives a quiet run
+            reads.computeIfAbsent(graphName, g -> new LongAdder()).add(hot.size() - i);
+            boolean render = i < RENDERED;
+            long read = Txn.calculateRead(dsg, () -> warm(dsg, graphName, render));
+            if (read > 0) {
+                warmed++;
+                statements += read;
+            }
+        }
+        logger.info("Pre-warmed {} of {} hot offerings ({} statements) in {} ms", warmed, hot.size(), statements,
+                (System.nanoTime() - start) / 1_000_000);
+        return warmed;
+    }
+
+    /**
+     * Read an offering as a GET request would
+     *
+     * @return Number of statements read, 0 if the offering no longer exists
+     */
+    private static long warm(DatasetGraph dsg, String graphName, boolean render) {
+        Node name = NodeFactory.createURI(graphName);
+        if (!dsg.containsGraph(name)) {
+            return 0;
+        }
+        Graph full = SharedEntityGraph.expand(dsg, name);
+        long count = Iter.count(full.find());
+        if (render) {
+            Model model = ModelFactory.createModelForGraph(full);
+            OfferingGSPHandler.writeOfferingGraph(OutputStream.nullOutputStream(), model, Lang.JSONLD);
+        }
+        return count;
+    }
+
+    /**
+     * Write the list of the hottest offerings, replacing the previous one
+     */
+    public void save() {
+        List<String> hottest = hottest();
+        StringBuilder content = new StringBuilder("# Most read offerings, hottest first\n");
+        hottest.forEach(graphName -> content.append(graphName).append('\n'));
+        try {
+            Path parent = file.getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+            Files.writeString(temp, content, StandardCharsets.UTF_8);
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            logger.info("Saved {} hot offerings to {}", hottest.size(), file);
+        } catch (IOException e) {
+            logger.error("Could not save the hot offering list {}: {}", file, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ * SEDIMARK Catalogue Server
+ *
+ * Copyright (C) 2025 Tarek Elsaleh
+ *
+ * This program is licensed under the European Union Public License (EUPL) v1.2.
+ * You may obtain a copy of the License at:
+ * https://joinup.ec.europa.eu/collection/eupl/eupl-text-eupl-12
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.sedimark.catalogue.lifecycle;
+
+import org.apache.jena.fuseki.main.FusekiServer;
+import org.apache.jena.query.Dataset;
+import org.apache.jena.sparql.core.DatasetGraph;
+import org.apache.jena.sparql.core.DatasetGraphWrapper;
+import org.apache.jena.tdb2.sys.TDBInternal;
+import org.eclipse.jetty.server.AbstractConnector;
+import org.eclipse.jetty.server.Connector;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.handler.GracefulHandler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Orderly shutdown of the catalogue on SIGTERM (or any other JVM exit).
+ *
+ * Components register what must happen when the server stops as they are set up;
+ * the tasks run one after the other in a single shutdown hook, the last
+ * registered first. As the server is started last, it is stopped first: new
+ * connections are refused and in-flight requests are drained, then background
+ * writers are stopped, state is persisted and the dataset is closed, and only
+ * then is its storage removed.
+ */
+public class LifecycleManager {
+    private static final Logger logger = LoggerFactory.getLogger(LifecycleManager.class);
+
+    /** Default time allowed for in-flight requests to complete at shutdown */
+    public static final int DEFAULT_SHUTDOWN_TIMEOUT_SECONDS = 30;
+
+    private static final LifecycleManager INSTANCE = new LifecycleManager();
+
+    private final Deque<Task> tasks = new ArrayDeque<>();
+    private boolean hookRegistered = false;
+
+    private LifecycleManager() {
+    }
+
+    public static LifecycleManager get() {
+        return INSTANCE;
+    }
+
+    /**
+     * Run a task at shutdown, before every task registered earlier
+     *
+     * @param name What the task does, for the log
+     */
+    public synchronized void onShutdown(String name, Runnable task) {
+        if (!hookRegistered) {
+            Runtime.getRuntime().addShutdownHook(new Thread(this::shutdown, "catalogue-shutdown"));
+            hookRegistered = true;
+        }
+        tasks.push(new Task(name, task));
+    }
+
+    /**
+     * Run the registered tasks, the last registered first. A failing task is
+     * logged and does not stop the others.
+     */
+    public synchronized void shutdown() {
+        if (tasks.isEmpty()) {
+            return;
+        }
+        logger.info("Shutting down the catalogue");
+        long start = System.nanoTime();
+        while (!tasks.isEmpty()) {
+            Task task = tasks.pop();
+            long taskStart = System.nanoTime();
+            try {
+                task.action.run();
+                logger.info("Shutdown: {} ({} ms)", task.name, (System.nanoTime() - taskStart) / 1_000_000);
+            } catch (Exception e) {
+                logger.error("Shutdown: {} failed: {}", task.name, e.getMessage(), e);
+            }
+        }
+        logger.info("Catalogue shut down in {} ms", (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * Make stopping the server graceful: stop accepting connections, answer new
+     * requests on open ones with 503, and wait up to the timeout for the requests
+     * in progress to complete. Must be called before the server is started.
+     */
+    public static void drainOnStop(FusekiServer server, int timeoutSeconds) {
+        long timeoutMillis = (timeoutSeconds > 0 ? timeoutSeconds : DEFAULT_SHUTDOWN_TIMEOUT_SECONDS) * 1000L;
+        Server jetty = server.getJettyServer();
+        GracefulHandler graceful = new GracefulHandler();
+        graceful.setHandler(jetty.getHandler());
+        jetty.setHandler(graceful);
+        jetty.setStopTimeout(timeoutMillis);
+        for (Connector connector : jetty.getConnectors()) {
+            if (connector instanceof AbstractConnector abstractConnector) {
+                // Jetty otherwise cuts requests that are slow to send their body after 1 s
+                abstractConnector.setShutdownIdleTimeout(timeoutMillis);
+            }
+        }
+    }
+
+    /**
+     * Stop the server, draining the requests in progress
+     */
+    public static void stopServer(FusekiServer server) {
+        Server jetty = server.getJettyServer();
+        GracefulHandler graceful = jetty.getDescendant(GracefulHandler.class);
+        long inFlight = graceful != null ? graceful.getCurrentRequestCount() : 0;
+        if (inFlight > 0) {
+            logger.info("Draining {} requests in progress", inFlight);
+        }
+        server.stop();
+    }
+
+    /**
+     * Close the dataset once nothing uses it any more. A TDB2 store is synced, its
+     * files closed and its lock released, so the next start does not need to
+     * recover it.
+     */
+    public static void closeDataset(Dataset dataset) {
+        DatasetGraph dsg = DatasetGraphWrapper.unwrap(dataset.asDatasetGraph());
+        if (TDBInternal.isTDB2(dsg)) {
+            TDBInternal.expel(dsg);
+        } else {
+            dsg.close();
+        }
+    }
+
+    private record Task(String name, Runnable action) {
+    }
+}
@@ -6,10 +6,12 @@ import org.apache.jena.rdf.model.Model;
 import org.apache.jena.rdf.model.ModelFactory;
 import org.apache.jena.rdf.model.Resource;
 import org.apache.jena.riot.Lang;
-import org.apache.jena.riot.RDFDataMgr;
+import org.apache.jena.riot.RDFParser;
 import org.apache.jena.vocabulary.RDF;
 import org.apache.jena.vocabulary.RDFS;
 
+import eu.sedimark.catalogue.utils.JsonLdContextRegistry;
+
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.InputStream;
@@ -46,7 +48,8 @@ public class SampleDatasetLoader {
             // Parse the JSON-LD file into a model
             Model offeringModel = ModelFactory.createDefaultModel();
             try (InputStream is = new FileInputStream(file)) {
-                RDFDataMgr.read(offeringModel, is, Lang.JSONLD);
+                RDFParser.source(is).lang(Lang.JSONLD).context(JsonLdContextRegistry.getDefault().parserContext())
+                        .parse(offeringModel);
             }
 
             System.out.println("Parsed offerings_1.jsonld with " + offeringModel.size() + " statements");
@@ -158,7 +161,8 @@ public class SampleDatasetLoader {
             // Parse the file into a model
             Model fileModel = ModelFactory.createDefaultModel();
             try (InputStream is = new FileInputStream(file)) {
-                RDFDataMgr.read(fileModel, is, format);
+                RDFParser.source(is).lang(format).context(JsonLdContextRegistry.getDefault().parserContext())
+                        .parse(fileModel);
             }
 
             System.out.println("Parsed " + filename + " with " + fileModel.size() + " statements");
@@ -0,0 +1,333 @@
+package eu.sedimark.catalogue.loaders;
+
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.ModelFactory;
+import org.apache.jena.riot.Lang;
+import org.apache.jena.riot.RDFLanguages;
+import org.apache.jena.riot.RDFParser;
+
+import eu.sedimark.catalogue.handlers.OfferingGSPHandler;
+import eu.sedimark.catalogue.handlers.OfferingGSPHandler.NamedSubgraph;
+import eu.sedimark.catalogue.utils.JsonLdContextRegistry;
+import eu.sedimark.catalogue.utils.SystemGraphs;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystemAlreadyExistsException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Seeds the catalogue with offerings from RDF files, e.g. to set up a
+ * development or test node.
+ *
+ * A source is a file, a directory (every RDF file below it), a glob such as
+ * {@code /data/seed/**.jsonld}, or any of these on the classpath with a
+ * {@code classpath:} prefix (e.g. {@code classpath:examples/*.jsonld}, read from
+ * inside the JAR). Files may be gzip-compressed ({@code .jsonld.gz}).
+ *
+ * Files are parsed in parallel and split into offering graphs exactly as
+ * {@link OfferingGSPHandler} does for published data; the offerings are then
+ * stored through the handler in batches, one write transaction per batch, so
+ * shared-entity, deduplication and change listener handling are the same as for
+ * published offerings.
+ */
+public class SeedLoader {
+
+    /** Offerings stored per write transaction */
+    public static final int DEFAULT_BATCH_SIZE = 1000;
+
+    private static final String CLASSPATH_PREFIX = "classpath:";
+    private static final long PROGRESS_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(2);
+
+    private final OfferingGSPHandler handler;
+    private final int threads;
+    private final int batchSize;
+
+    /**
+     * @param handler   The handler that extracts and stores the offerings
+     * @param threads   Parser threads (0 for one per processor)
+     * @param batchSize Offerings per write transaction (0 for the default)
+     */
+    public SeedLoader(OfferingGSPHandler handler, int threads, int batchSize) {
+        this.handler = handler;
+        this.threads = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        this.batchSize = batchSize > 0 ? batchSize : DEFAULT_BATCH_SIZE;
+    }
+
+    /**
+     * Load every RDF file of a source
+     *
+     * @return What was loaded
+     */
+    public Result load(String source) throws IOException {
+        List<SeedFile> files = resolve(source);
+        if (files.isEmpty()) {
+            System.out.println("No RDF files found for seed source " + source);
+            return new Result(0, 0, 0, 0, 0);
+        }
+        System.out.println("Seeding from " + files.size() + " files of " + source + " on " + threads
+                + " parser threads, " + batchSize + " offerings per transaction");
+
+        long start = System.nanoTime();
+        BlockingQueue<Parsed> parsed = new ArrayBlockingQueue<>(threads * 4);
+        ExecutorService parsers = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "catalogue-seed");
+            t.setDaemon(true);
+            return t;
+        });
+        for (SeedFile file : files) {
+            parsers.execute(() -> {
+                Parsed result;
+                try {
+                    result = parse(file);
+                } catch (Throwable e) {
+                    // e.g. a StackOverflowError on deeply nested JSON-LD: still hand over a result,
+                    // or the storing thread would wait for this file forever
+                    result = new Parsed(file, Collections.emptyList(), e.toString());
+                }
+                try {
+                    parsed.put(result);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+        parsers.shutdown();
+
+        // Store on this thread, batching offerings from several files per transaction
+        List<NamedSubgraph> batch = new ArrayList<>(batchSize);
+        long offerings = 0;
+        long triples = 0;
+        int failed = 0;
+        long lastReport = start;
+        try {
+            for (int done = 0; done < files.size(); done++) {
+                Parsed next = parsed.take();
+                if (next.error != null) {
+                    failed++;
+                    System.err.println("Could not load " + next.file.name + ": " + next.error);
+                    continue;
+                }
+                for (NamedSubgraph graph : next.graphs) {
+                    batch.add(graph);
+                    if (batch.size() >= batchSize) {
+                        triples += store(batch);
+                        offerings += batch.size();
+                        batch.clear();
+                    }
+                }
+                long now = System.nanoTime();
+                if (now - lastReport >= PROGRESS_INTERVAL_NANOS) {
+                    printProgress(done + 1, files.size(), offerings, triples, now - start);
+                    lastReport = now;
+                }
+            }
+            if (!batch.isEmpty()) {
+                triples += store(batch);
+                offerings += batch.size();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Seeding from " + source + " was interrupted", e);
+        } finally {
+            parsers.shutdownNow();
+        }
+
+        long elapsed = System.nanoTime() - start;
+        Result result = new Result(files.size() - failed, failed, offerings, triples,
+                TimeUnit.NANOSECONDS.toMillis(elapsed));
+        System.out.println("Seeded " + offerings + " offerings (" + triples + " triples) from " + result.files
+                + " files in " + result.millis + " ms, " + perSecond(triples, elapsed) + " triples/s"
+                + (failed > 0 ? " (" + failed + " files failed)" : ""));
+        return result;
+    }
+
+    private long store(List<NamedSubgraph> batch) throws IOException {
+        handler.storeOfferingGraphs(new ArrayList<>(batch));
+        long triples = 0;
+        for (NamedSubgraph graph : batch) {
+            triples += graph.getModel().size();
+        }
+        return triples;
+    }
+
+    private static void printProgress(int files, int total, long offerings, long triples, long elapsedNanos) {
+        System.out.println("  ... " + files + "/" + total + " files, " + offerings + " offerings, " + triples
+                + " triples, " + perSecond(triples, elapsedNanos) + " triples/s");
+    }
+
+    private static long perSecond(long count, long nanos) {
+        return nanos > 0 ? count * 1_000_000_000L / nanos : count;
+    }
+
+    /**
+     * Parse a file and split it into offering graphs
+     */
+    private Parsed parse(SeedFile file) {
+        try (InputStream in = file.open()) {
+            List<NamedSubgraph> graphs;
+            if (OfferingGSPHandler.isQuadIngestLang(file.lang)) {
+                graphs = handler.readQuadOfferingGraphs(in, file.lang);
+            } else {
+                Model model = ModelFactory.createDefaultModel();
+                RDFParser.source(in).lang(file.lang).context(JsonLdContextRegistry.getDefault().parserContext())
+                        .parse(model);
+                graphs = handler.extractOfferingGraphs(model, model.getNsPrefixMap());
+            }
+            List<NamedSubgraph> offerings = new ArrayList<>(graphs.size());
+            for (NamedSubgraph graph : graphs) {
+                if (SystemGraphs.isSystemGraph(graph.getGraphName())) {
+                    System.err.println("Skipping reserved offering URI " + graph.getGraphName() + " in " + file.name);
+                } else {
+                    offerings.add(graph);
+                }
+            }
+            return new Parsed(file, offerings, null);
+        } catch (Exception e) {
+            return new Parsed(file, Collections.emptyList(), e.getMessage());
+        }
+    }
+
+    /**
+     * The RDF files of a source, in name order
+     */
+    static List<SeedFile> resolve(String source) throws IOException {
+        if (source.startsWith(CLASSPATH_PREFIX)) {
+            return resolveClasspath(source.substring(CLASSPATH_PREFIX.length()));
+        }
+        Path path = Paths.get(source);
+        if (Files.isRegularFile(path)) {
+            return toSeedFiles(List.of(path));
+        }
+        if (Files.isDirectory(path)) {
+            return walk(path, null);
+        }
+        // A glob: walk the directory before the first wildcard
+        int wildcard = firstWildcard(source);
+        if (wildcard < 0) {
+            throw new IOException("Seed source not found: " + source);
+        }
+        String basePart = source.substring(0, source.lastIndexOf('/', wildcard) + 1);
+        Path base = Paths.get(basePart.isEmpty() ? "." : basePart);
+        PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + source.substring(basePart.length()));
+        return walk(base, matcher);
+    }
+
+    private static List<SeedFile> resolveClasspath(String resource) throws IOException {
+        int wildcard = firstWildcard(resource);
+        String basePart = wildcard < 0 ? resource : resource.substring(0, resource.lastIndexOf('/', wildcard) + 1);
+        ClassLoader loader = SeedLoader.class.getClassLoader();
+        URL url = loader.getResource(basePart.isEmpty() ? "." : basePart);
+        if (url == null) {
+            throw new IOException("Seed source not found on the classpath: " + resource);
+        }
+        Path base;
+        try {
+            URI uri = url.toURI();
+            if ("jar".equals(uri.getScheme())) {
+                FileSystem jar;
+                try {
+                    jar = FileSystems.newFileSystem(uri, Map.of());
+                } catch (FileSystemAlreadyExistsException e) {
+                    jar = FileSystems.getFileSystem(uri);
+                }
+                base = jar.provider().getPath(uri);
+            } else {
+                base = Paths.get(uri);
+            }
+        } catch (URISyntaxException e) {
+            throw new IOException("Invalid classpath location " + url, e);
+        }
+        if (wildcard < 0) {
+            return Files.isDirectory(base) ? walk(base, null) : toSeedFiles(List.of(base));
+        }
+        PathMatcher matcher = base.getFileSystem().getPathMatcher("glob:" + resource.substring(basePart.length()));
+        return walk(base, matcher);
+    }
+
+    private static List<SeedFile> walk(Path base, PathMatcher matcher) throws IOException {
+        if (!Files.isDirectory(base)) {
+            return List.of();
+        }
+        try (Stream<Path> paths = Files.walk(base)) {
+            return toSeedFiles(paths.filter(Files::isRegularFile)
+                    .filter(p -> matcher == null || matcher.matches(base.relativize(p)))
+                    .sorted()
+                    .toList());
+        }
+    }
+
+    private static List<SeedFile> toSeedFiles(List<Path> paths) {
+        List<SeedFile> files = new ArrayList<>();
+        for (Path path : paths) {
+            String name = path.getFileName().toString();
+            boolean gzip = name.endsWith(".gz");
+            Lang lang = RDFLanguages.filenameToLang(gzip ? name.substring(0, name.length() - 3) : name);
+            if (lang != null) {
+                files.add(new SeedFile(path, lang, gzip));
+            }
+        }
+        return files;
+    }
+
+    private static int firstWildcard(String pattern) {
+        for (int i = 0; i < pattern.length(); i++) {
+            char c = pattern.charAt(i);
+            if (c == '*' || c == '?' || c == '[' || c == '{') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * An RDF file to load
+     */
+    static class SeedFile {
+        final Path path;
+        final String name;
+        final Lang lang;
+        final boolean gzip;
+
+        SeedFile(Path path, Lang lang, boolean gzip) {
+            this.path = path;
+            this.name = path.toString();
+            this.lang = lang;
+            this.gzip = gzip;
+        }
+
+        InputStream open() throws IOException {
+            InputStream in = new BufferedInputStream(Files.newInputStream(path), 1 << 16);
+            return gzip ? new GZIPInputStream(in, 1 << 16) : in;
+        }
+    }
+
+    private record Parsed(SeedFile file, List<NamedSubgraph> graphs, String error) {
+    }
+
+    /**
+     * What a seed load stored
+     */
+    public record Result(int files, int failedFiles, long offerings, long triples, long millis) {
+    }
+}
@@ -0,0 +1,148 @@
+/*
+ * SEDIMARK Catalogue Server
+ *
+ * Copyright (C) 2025 Tarek Elsaleh
+ *
+ * This program is licensed under the European Union Public License (EUPL) v1.2.
+ * You may obtain a copy of the License at:
+ * https://joinup.ec.europa.eu/collection/eupl/eupl-text-eupl-12
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.sedimark.catalogue.replication;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import eu.sedimark.catalogue.replication.PatchLog.ReplicaProgress;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.Properties;
+import java.util.stream.Stream;
+
+/**
+ * Reads patches straight from the primary's log directory. Progress is reported
+ * by leaving a small properties file in its replicas/ subdirectory.
+ */
+class DirectoryPatchSource implements PatchSource {
+    private static final Logger logger = LoggerFactory.getLogger(DirectoryPatchSource.class);
+
+    static final String REPLICAS_DIRECTORY = "replicas";
+    /** Progress is rewritten at least this often while idle, so the primary sees the replica is alive */
+    private static final long REPORT_INTERVAL_MILLIS = 5_000;
+
+    private final Path directory;
+    private final String name;
+    private volatile long lastSequence = -1;
+    private long reportedSequence = -1;
+    private long reportedAt;
+
+    DirectoryPatchSource(Path directory, String name) {
+        this.directory = directory;
+        this.name = name;
+    }
+
+    @Override
+    public InputStream open(long sequence, long appliedByUs) throws IOException {
+        report(appliedByUs);
+        try {
+            return Files.newInputStream(directory.resolve(PatchLog.fileName(sequence)));
+        } catch (NoSuchFileException e) {
+            scan(sequence);
+            return null;
+        }
+    }
+
+    /**
+     * Find the newest patch of the log, and fail if the wanted one was removed
+     */
+    private void scan(long wanted) throws IOException {
+        long first = Long.MAX_VALUE;
+        long last = 0;
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                String fileName = file.getFileName().toString();
+                if (fileName.startsWith(PatchLog.FILE_PREFIX) && fileName.endsWith(PatchLog.FILE_SUFFIX)) {
+                    long sequence = Long.parseLong(fileName.substring(PatchLog.FILE_PREFIX.length(),
+                            fileName.length() - PatchLog.FILE_SUFFIX.length()));
+                    first = Math.min(first, sequence);
+                    last = Math.max(last, sequence);
+                }
+            }
+        }
+        lastSequence = last;
+        if (first != Long.MAX_VALUE && first > wanted) {
+            throw new IOException("Patch " + wanted + " is no longer in " + directory + " (it starts at " + first
+                    + "); seed the replica with a copy of the primary's store");
+        }
+    }
+
+    private void report(long appliedByUs) {
+        long now = System.currentTimeMillis();
+        if (appliedByUs == reportedSequence && now - reportedAt < REPORT_INTERVAL_MILLIS) {
+            return;
+        }
+        Properties progress = new Properties();
+        progress.setProperty("name", name);
+        progress.setProperty("appliedSequence", Long.toString(appliedByUs));
+        progress.setProperty("lastSeen", Instant.ofEpochMilli(now).toString());
+        try {
+            Path reports = Files.createDirectories(directory.resolve(REPLICAS_DIRECTORY));
+            Path file = reports.resolve(name.replaceAll("[^A-Za-z0-9._-]", "_") + ".properties");
+            Path temp = reports.resolve(file.getFileName() + ".tmp");
+            try (Writer out = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+                progress.store(out, null);
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            // e.g. a read-only mount of the log: the primary just does not see this replica
+            logger.debug("Could not report replica progress to {}: {}", directory, e.getMessage());
+        }
+        reportedSequence = appliedByUs;
+        reportedAt = now;
+    }
+
+    /**
+     * Read a progress file left by a replica
+     *
+     * @return The progress, or null if the file is not a complete report
+     */
+    static ReplicaProgress readProgress(Path file) {
+        if (!file.getFileName().toString().endsWith(".properties")) {
+            return null;
+        }
+        Properties progress = new Properties();
+        try (Reader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            progress.load(in);
+            return new ReplicaProgress(progress.getProperty("name"),
+                    Long.parseLong(progress.getProperty("appliedSequence")),
+                    Instant.parse(progress.getProperty("lastSeen")));
+        } catch (IOException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public long getLastSequence() {
+        return lastSequence;
+    }
+
+    @Override
+    public String describe() {
+        return directory.toString();
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * SEDIMARK Catalogue Server
+ *
+ * Copyright (C) 2025 Tarek Elsaleh
+ *
+ * This program is licensed under the European Union Public License (EUPL) v1.2.
+ * You may obtain a copy of the License at:
+ * https://joinup.ec.europa.eu/collection/eupl/eupl-text-eupl-12
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.sedimark.catalogue.replication;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+/**
+ * Reads patches from a primary's /catalogue/replication endpoint, reporting the
+ * replica's progress with every request
+ */
+class HttpPatchSource implements PatchSource {
+    private static final String ENDPOINT = "/catalogue/replication";
+
+    private final String endpoint;
+    private final String name;
+    private final HttpClient client = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+    private volatile long lastSequence = -1;
+
+    /**
+     * @param url Base URL of the primary (or its replication endpoint)
+     */
+    HttpPatchSource(String url, String name) {
+        String base = url.endsWith("/") ? url.substring(0, url.length() - 1) : url;
+        this.endpoint = base.endsWith(ENDPOINT) ? base : base + ENDPOINT;
+        this.name = name;
+    }
+
+    @Override
+    public InputStream open(long sequence, long appliedByUs) throws IOException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(endpoint + "?patch=" + sequence
+                + "&replica=" + URLEncoder.encode(name, StandardCharsets.UTF_8) + "&applied=" + appliedByUs))
+                .timeout(Duration.ofSeconds(30))
+                .GET()
+                .build();
+        HttpResponse<InputStream> response;
+        try {
+            response = client.send(request, HttpResponse.BodyHandlers.ofInputStream());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while fetching patch " + sequence, e);
+        }
+        response.headers().firstValue(PatchLog.LAST_SEQUENCE_HEADER).ifPresent(last -> {
+            try {
+                lastSequence = Long.parseLong(last);
+            } catch (NumberFormatException e) {
+                // keep the previous value
+            }
+        });
+
+        int status = response.statusCode();
+        if (status == 200) {
+            return response.body();
+        }
+        String body;
+        try (InputStream in = response.body()) {
+            body = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        if (status == 404) {
+            return null;
+        }
+        throw new IOException("Fetching patch " + sequence + " from " + endpoint + " failed with HTTP " + status
+                + ": " + body);
+    }
+
+    @Override
+    public long getLastSequence() {
+        return lastSequence;
+    }
+
+    @Override
+    public String describe() {
+        return endpoint;
+    }
+}
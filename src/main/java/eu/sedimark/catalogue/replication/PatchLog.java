@@ -0,0 +1,546 @@
+/*
+ * SEDIMARK Catalogue Server
+ *
+ * Copyright (C) 2025 Tarek Elsaleh
+ *
+ * This program is licensed under the European Union Public License (EUPL) v1.2.
+ * You may obtain a copy of the License at:
+ * https://joinup.ec.europa.eu/collection/eupl/eupl-text-eupl-12
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.sedimark.catalogue.replication;
+
+import org.apache.jena.datatypes.xsd.XSDDatatype;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.query.Dataset;
+import org.apache.jena.query.DatasetFactory;
+import org.apache.jena.query.ReadWrite;
+import org.apache.jena.rdfpatch.RDFChanges;
+import org.apache.jena.rdfpatch.RDFPatch;
+import org.apache.jena.rdfpatch.RDFPatchConst;
+import org.apache.jena.rdfpatch.RDFPatchOps;
+import org.apache.jena.rdfpatch.changes.RDFChangesApply;
+import org.apache.jena.rdfpatch.changes.RDFChangesCollector;
+import org.apache.jena.rdfpatch.changes.RDFChangesExternalTxn;
+import org.apache.jena.rdfpatch.system.DatasetGraphChanges;
+import org.apache.jena.rdfpatch.text.RDFChangesWriterText;
+import org.apache.jena.sparql.core.DatasetGraph;
+import org.apache.jena.sparql.core.Quad;
+import org.apache.jena.system.Txn;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import eu.sedimark.catalogue.utils.SystemGraphs;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Primary side of replication: records every committed write transaction on the
+ * dataset as an RDF Patch file in a log directory (patch-000000000001.rdfp, ...),
+ * which replicas tail and apply in order.
+ *
+ * Each patch is written and synced before the transaction commits, together with
+ * its sequence number in the {@link SystemGraphs#REPLICATION} graph, and only
+ * published (renamed to its final name) once the commit succeeded. A patch left
+ * unpublished by a crash is published or dropped at startup depending on whether
+ * its transaction made it into the store, so the log and the store never disagree.
+ */
+public class PatchLog {
+    private static final Logger logger = LoggerFactory.getLogger(PatchLog.class);
+
+    static final String FILE_PREFIX = "patch-";
+    static final String FILE_SUFFIX = ".rdfp";
+    private static final String PENDING_SUFFIX = ".pending";
+
+    /** Response header of the replication endpoint with the last patch of the log */
+    public static final String LAST_SEQUENCE_HEADER = "X-Patch-Last-Sequence";
+
+    /** Header with the commit time of a patch, used for the replication lag */
+    static final String HEADER_TIMESTAMP = "timestamp";
+
+    private static final Node STATE = NodeFactory.createURI(SystemGraphs.REPLICATION);
+    private static final Node SEQUENCE = NodeFactory.createURI(SystemGraphs.NS + "patchSequence");
+    private static final Node PATCH_ID = NodeFactory.createURI(SystemGraphs.NS + "patchId");
+
+    private final Path directory;
+    private final DatasetGraph base;
+    private final Dataset dataset;
+    private final ThreadLocal<Transaction> transaction = new ThreadLocal<>();
+    private final AtomicLong lastSequence = new AtomicLong();
+    private final AtomicLong patchesWritten = new AtomicLong();
+    private final AtomicLong bytesWritten = new AtomicLong();
+    private final Map<String, ReplicaProgress> replicas = new ConcurrentHashMap<>();
+    private volatile long firstSequence;
+    private volatile Instant lastCommit;
+
+    /**
+     * Open (or create) the patch log and wrap the dataset so its write
+     * transactions are recorded
+     *
+     * @param directory Log directory
+     * @param store     The catalogue dataset
+     */
+    public PatchLog(Path directory, Dataset store) throws IOException {
+        this.directory = directory;
+        this.base = store.asDatasetGraph();
+        Files.createDirectories(directory);
+        recover();
+        this.dataset = DatasetFactory.wrap(new LoggedDatasetGraph(base, new Recorder()));
+        logger.info("Patch log {} at sequence {}", directory, lastSequence.get());
+    }
+
+    /**
+     * The dataset to serve: writes through it are recorded in the log
+     */
+    public Dataset getDataset() {
+        return dataset;
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Finish (or drop) patches interrupted by a crash and bring the store and the
+     * log to the same sequence number
+     */
+    private void recover() throws IOException {
+        State state = readState(base);
+        for (Path pending : list(PENDING_SUFFIX)) {
+            long sequence = sequenceOf(pending, FILE_SUFFIX + PENDING_SUFFIX);
+            if (sequence <= state.sequence()) {
+                Files.move(pending, file(sequence), StandardCopyOption.ATOMIC_MOVE);
+                logger.info("Published patch {} committed before a restart", sequence);
+            } else {
+                Files.delete(pending);
+                logger.info("Dropped patch {} of a transaction that did not commit", sequence);
+            }
+        }
+
+        List<Path> published = list(FILE_SUFFIX);
+        firstSequence = published.isEmpty() ? 0 : sequenceOf(published.get(0), FILE_SUFFIX);
+        long logged = published.isEmpty() ? 0 : sequenceOf(published.get(published.size() - 1), FILE_SUFFIX);
+        if (logged > state.sequence()) {
+            if (firstSequence > state.sequence() + 1) {
+                throw new IllegalStateException("The patch log " + directory + " starts at patch " + firstSequence
+                        + " but the store is at patch " + state.sequence());
+            }
+            // e.g. an in-memory store after a restart: replay the log into it
+            long replayed = 0;
+            for (long sequence = state.sequence() + 1; sequence <= logged; sequence++) {
+                try (InputStream in = Files.newInputStream(file(sequence))) {
+                    RDFPatch patch = RDFPatchOps.read(in);
+                    long applied = sequence;
+                    Txn.executeWrite(base, () -> apply(base, patch, applied));
+                }
+                replayed++;
+            }
+            logger.info("Replayed {} patches from {} into the store", replayed, directory);
+        } else if (logged < state.sequence() || (logged == 0 && !isEmpty(base))) {
+            logger.warn("The store has changes that are not in the patch log {}: new replicas must be seeded "
+                    + "with a copy of the store", directory);
+        }
+        lastSequence.set(Math.max(logged, state.sequence()));
+    }
+
+    /**
+     * Records the changes of the current write transaction, per thread as commit
+     * and publish happen on the writer's thread. Writers may run concurrently on
+     * a sharded store, but each one records its sequence in the replication
+     * graph while committing, so all of them write-lock the shard holding that
+     * graph and take their sequence numbers one after the other.
+     */
+    private class Recorder implements RDFChanges {
+        @Override
+        public void txnBegin() {
+            Transaction txn = new Transaction();
+            txn.changes.txnBegin();
+            transaction.set(txn);
+        }
+
+        @Override
+        public void add(Node g, Node s, Node p, Node o) {
+            Transaction txn = transaction.get();
+            if (txn != null) {
+                txn.changes.add(g, s, p, o);
+                txn.count++;
+            }
+        }
+
+        @Override
+        public void delete(Node g, Node s, Node p, Node o) {
+            Transaction txn = transaction.get();
+            if (txn != null) {
+                txn.changes.delete(g, s, p, o);
+                txn.count++;
+            }
+        }
+
+        @Override
+        public void addPrefix(Node gn, String prefix, String uriStr) {
+            Transaction txn = transaction.get();
+            if (txn != null) {
+                txn.changes.addPrefix(gn, prefix, uriStr);
+                txn.count++;
+            }
+        }
+
+        @Override
+        public void deletePrefix(Node gn, String prefix) {
+            Transaction txn = transaction.get();
+            if (txn != null) {
+                txn.changes.deletePrefix(gn, prefix);
+                txn.count++;
+            }
+        }
+
+        @Override
+        public void txnCommit() {
+            Transaction txn = transaction.get();
+            if (txn != null && txn.count > 0) {
+                try {
+                    prepare(txn);
+                } catch (IOException e) {
+                    // Thrown out of commit, which then aborts the transaction
+                    transaction.remove();
+                    throw new IllegalStateException("Could not write to the patch log " + directory, e);
+                }
+            }
+        }
+
+        @Override
+        public void txnAbort() {
+            transaction.remove();
+        }
+
+        @Override
+        public void header(String field, Node value) {
+        }
+
+        @Override
+        public void segment() {
+        }
+
+        @Override
+        public void start() {
+        }
+
+        @Override
+        public void finish() {
+        }
+    }
+
+    /**
+     * Write the transaction's patch under a temporary name and record its sequence
+     * in the store, as part of the transaction that is about to commit
+     */
+    private void prepare(Transaction txn) throws IOException {
+        State state = readState(base);
+        txn.sequence = state.sequence() + 1;
+        txn.id = NodeFactory.createURI("uuid:" + UUID.randomUUID());
+        txn.timestamp = Instant.now();
+        txn.pending = directory.resolve(fileName(txn.sequence) + PENDING_SUFFIX);
+        txn.changes.txnCommit();
+
+        try (FileChannel channel = FileChannel.open(txn.pending, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            OutputStream out = Channels.newOutputStream(channel);
+            RDFChangesWriterText writer = RDFPatchOps.textWriter(out);
+            writer.start();
+            writer.header(RDFPatchConst.ID, txn.id);
+            if (state.id() != null) {
+                writer.header(RDFPatch.PREVIOUS, state.id());
+            }
+            writer.header(HEADER_TIMESTAMP,
+                    NodeFactory.createLiteralDT(txn.timestamp.toString(), XSDDatatype.XSDdateTime));
+            txn.changes.getRDFPatch().apply(writer);
+            writer.finish();
+            out.flush();
+            channel.force(true);
+            txn.bytes = channel.size();
+        }
+        recordState(base, txn.sequence, txn.id);
+    }
+
+    /**
+     * Called after the commit: make the prepared patch visible to replicas
+     */
+    private void publish() {
+        Transaction txn = transaction.get();
+        transaction.remove();
+        if (txn == null || txn.pending == null) {
+            return;
+        }
+        try {
+            Files.move(txn.pending, file(txn.sequence), StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            // Published at the next startup; replicas wait for it until then
+            logger.error("Could not publish patch {}: {}", txn.sequence, e.getMessage());
+            return;
+        }
+        lastSequence.accumulateAndGet(txn.sequence, Math::max);
+        if (firstSequence == 0) {
+            firstSequence = txn.sequence;
+        }
+        lastCommit = txn.timestamp;
+        patchesWritten.incrementAndGet();
+        bytesWritten.addAndGet(txn.bytes);
+    }
+
+    /**
+     * Called when the commit failed after the patch was prepared
+     */
+    private void discard() {
+        Transaction txn = transaction.get();
+        transaction.remove();
+        if (txn != null && txn.pending != null) {
+            try {
+                Files.deleteIfExists(txn.pending);
+            } catch (IOException e) {
+                logger.warn("Could not remove patch {} of a failed commit: {}", txn.pending, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * The dataset with change recording, publishing the patch once the
+     * underlying store has committed
+     */
+    private class LoggedDatasetGraph extends DatasetGraphChanges {
+        LoggedDatasetGraph(DatasetGraph dsg, RDFChanges changes) {
+            super(dsg, changes);
+        }
+
+        @Override
+        public void commit() {
+            boolean write = transactionMode() == ReadWrite.WRITE;
+            try {
+                super.commit();
+            } catch (RuntimeException e) {
+                if (write) {
+                    discard();
+                }
+                throw e;
+            }
+            if (write) {
+                publish();
+            }
+        }
+    }
+
+    /**
+     * Open a published patch
+     *
+     * @return The patch, or null if it has not been written yet
+     */
+    public InputStream open(long sequence) throws IOException {
+        Path file = file(sequence);
+        return Files.exists(file) ? Files.newInputStream(file) : null;
+    }
+
+    public long getLastSequence() {
+        return lastSequence.get();
+    }
+
+    /**
+     * Oldest patch still in the log (0 if it is empty)
+     */
+    public long getFirstSequence() {
+        return firstSequence;
+    }
+
+    /**
+     * Record how far a replica has got, as reported when it polls
+     */
+    public void replicaProgress(String name, long appliedSequence) {
+        replicas.put(name, new ReplicaProgress(name, appliedSequence, Instant.now()));
+    }
+
+    /**
+     * Replicas known from their polls or from the progress files they leave in
+     * the log directory
+     */
+    private Map<String, ReplicaProgress> knownReplicas() {
+        Map<String, ReplicaProgress> known = new ConcurrentHashMap<>(replicas);
+        Path reports = directory.resolve(DirectoryPatchSource.REPLICAS_DIRECTORY);
+        if (Files.isDirectory(reports)) {
+            try (Stream<Path> files = Files.list(reports)) {
+                files.forEach(file -> {
+                    ReplicaProgress progress = DirectoryPatchSource.readProgress(file);
+                    if (progress != null) {
+                        known.merge(progress.name(), progress,
+                                (a, b) -> a.lastSeen().isAfter(b.lastSeen()) ? a : b);
+                    }
+                });
+            } catch (IOException e) {
+                logger.debug("Could not read replica progress files: {}", e.getMessage());
+            }
+        }
+        return known;
+    }
+
+    /**
+     * Replication status of the primary, as JSON
+     */
+    public String toJson() {
+        long last = lastSequence.get();
+        Instant commit = lastCommit;
+        StringBuilder json = new StringBuilder();
+        json.append("{\n");
+        json.append("  \"status\": \"success\",\n");
+        json.append("  \"role\": \"primary\",\n");
+        json.append("  \"patchLog\": \"").append(escape(directory.toString())).append("\",\n");
+        json.append("  \"firstSequence\": ").append(firstSequence).append(",\n");
+        json.append("  \"lastSequence\": ").append(last).append(",\n");
+        json.append("  \"lastCommit\": ").append(commit != null ? "\"" + commit + "\"" : "null").append(",\n");
+        json.append("  \"patchesWritten\": ").append(patchesWritten.get()).append(",\n");
+        json.append("  \"bytesWritten\": ").append(bytesWritten.get()).append(",\n");
+        json.append("  \"replicas\": [");
+        boolean first = true;
+        for (ReplicaProgress replica : knownReplicas().values()) {
+            json.append(first ? "\n    " : ",\n    ");
+            json.append("{ \"name\": \"").append(escape(replica.name())).append("\", ");
+            json.append("\"appliedSequence\": ").append(replica.appliedSequence()).append(", ");
+            json.append("\"lagPatches\": ").append(Math.max(0, last - replica.appliedSequence())).append(", ");
+            json.append("\"lastSeen\": \"").append(replica.lastSeen()).append("\" }");
+            first = false;
+        }
+        json.append(first ? "],\n" : "\n  ],\n");
+        json.append("  \"timestamp\": \"").append(Instant.now()).append("\"\n");
+        json.append("}");
+        return json.toString();
+    }
+
+    private Path file(long sequence) {
+        return directory.resolve(fileName(sequence));
+    }
+
+    static String fileName(long sequence) {
+        return String.format("%s%012d%s", FILE_PREFIX, sequence, FILE_SUFFIX);
+    }
+
+    private static long sequenceOf(Path file, String suffix) {
+        String name = file.getFileName().toString();
+        return Long.parseLong(name.substring(FILE_PREFIX.length(), name.length() - suffix.length()));
+    }
+
+    /**
+     * Files of the log with the given suffix, in sequence order
+     */
+    private List<Path> list(String suffix) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> {
+                String name = file.getFileName().toString();
+                return name.startsWith(FILE_PREFIX) && name.endsWith(suffix);
+            }).sorted().toList();
+        }
+    }
+
+    /**
+     * Apply a patch to a dataset inside the caller's write transaction, and record
+     * it as the last applied patch
+     */
+    static void apply(DatasetGraph dsg, RDFPatch patch, long sequence) {
+        patch.apply(new RDFChangesExternalTxn(new RDFChangesApply(dsg)));
+        recordState(dsg, sequence, patch.getId());
+    }
+
+    /**
+     * Sequence number and id of the last patch applied to (or recorded for) a
+     * dataset; a sequence of 0 if there is none
+     */
+    static State readState(DatasetGraph dsg) {
+        boolean started = !dsg.isInTransaction();
+        if (started) {
+            dsg.begin(ReadWrite.READ);
+        }
+        try {
+            long sequence = 0;
+            Node id = null;
+            Iterator<Quad> quads = dsg.find(STATE, STATE, Node.ANY, Node.ANY);
+            while (quads.hasNext()) {
+                Quad quad = quads.next();
+                if (quad.getPredicate().equals(SEQUENCE) && quad.getObject().isLiteral()) {
+                    sequence = Long.parseLong(quad.getObject().getLiteralLexicalForm());
+                } else if (quad.getPredicate().equals(PATCH_ID)) {
+                    id = quad.getObject();
+                }
+            }
+            return new State(sequence, id);
+        } finally {
+            if (started) {
+                dsg.end();
+            }
+        }
+    }
+
+    private static void recordState(DatasetGraph dsg, long sequence, Node id) {
+        dsg.deleteAny(STATE, STATE, Node.ANY, Node.ANY);
+        dsg.add(STATE, STATE, SEQUENCE, NodeFactory.createLiteralDT(Long.toString(sequence), XSDDatatype.XSDlong));
+        if (id != null) {
+            dsg.add(STATE, STATE, PATCH_ID, id);
+        }
+    }
+
+    private static boolean isEmpty(DatasetGraph dsg) {
+        dsg.begin(ReadWrite.READ);
+        try {
+            return !dsg.find().hasNext();
+        } finally {
+            dsg.end();
+        }
+    }
+
+    static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n").replace("\r", "\\r")
+                .replace("\t", "\\t");
+    }
+
+    /**
+     * Position of a dataset in the patch sequence
+     */
+    record State(long sequence, Node id) {
+    }
+
+    /**
+     * Last progress report of a replica
+     */
+    record ReplicaProgress(String name, long appliedSequence, Instant lastSeen) {
+    }
+
+    /**
+     * Changes of one write transaction, and its patch once prepared
+     */
+    private static class Transaction {
+        final RDFChangesCollector changes = new RDFChangesCollector();
+        int count;
+        long sequence;
+        Node id;
+        Instant timestamp;
+        Path pending;
+        long bytes;
+    }
+}
@@ -0,0 +1,62 @@
+/*
+ * SEDIMARK Catalogue Server
+ *
+ * Copyright (C) 2025 Tarek Elsaleh
+ *
+ * This program is licensed under the European Union Public License (EUPL) v1.2.
+ * You may obtain a copy of the License at:
+ * https://joinup.ec.europa.eu/collection/eupl/eupl-text-eupl-12
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.sedimark.catalogue.replication;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Paths;
+
+/**
+ * Where a replica reads the primary's patches from: the primary's log directory
+ * (same machine or shared volume) or its /catalogue/replication endpoint
+ */
+interface PatchSource {
+
+    /**
+     * Open a patch of the primary's log
+     *
+     * @param sequence      The patch to read
+     * @param appliedByUs   Last patch applied by the replica, reported to the primary
+     * @return The patch, or null if the primary has not written it yet
+     * @throws IOException if the patch can not be read, or is no longer in the log
+     */
+    InputStream open(long sequence, long appliedByUs) throws IOException;
+
+    /**
+     * Last patch the primary had written when the source was last read (-1 if
+     * unknown)
+     */
+    long getLastSequence();
+
+    /**
+     * Description for logs and status
+     */
+    String describe();
+
+    /**
+     * Create the source for a --replica-of value
+     *
+     * @param location Log directory or base URL of the primary
+     * @param name     Name the replica reports its progress under
+     */
+    static PatchSource of(String location, String name) {
+        if (location.startsWith("http://") || location.startsWith("https://")) {
+            return new HttpPatchSource(location, name);
+        }
+        return new DirectoryPatchSource(Paths.get(location), name);
+    }
+}
@@ -0,0 +1,290 @@
+/*
+ * SEDIMARK Catalogue Server
+ *
+ * Copyright (C) 2025 Tarek Elsaleh
+ *
+ * This program is licensed under the European Union Public License (EUPL) v1.2.
+ * You may obtain a copy of the License at:
+ * https://joinup.ec.europa.eu/collection/eupl/eupl-text-eupl-12
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.sedimark.catalogue.replication;
+
+import org.apache.jena.graph.Node;
+import org.apache.jena.query.Dataset;
+import org.apache.jena.rdfpatch.RDFPatch;
+import org.apache.jena.rdfpatch.RDFPatchOps;
+import org.apache.jena.rdfpatch.changes.RDFChangesBase;
+import org.apache.jena.sparql.core.DatasetGraph;
+import org.apache.jena.system.Txn;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import eu.sedimark.catalogue.replication.PatchLog.State;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Replica side of replication: tails the primary's patch log and applies each
+ * patch, in order and in its own transaction, to the local store. The sequence of
+ * the last applied patch is stored with the data, so a restarted replica resumes
+ * where it stopped.
+ *
+ * Staleness is the age of the newest primary state the replica is known to have:
+ * the time it last found no further patch, or the commit time of the last patch
+ * it applied while catching up.
+ */
+public class ReplicaApplier {
+    private static final Logger logger = LoggerFactory.getLogger(ReplicaApplier.class);
+
+    /** Default interval between polls of the primary's log */
+    public static final int DEFAULT_POLL_MILLIS = 200;
+
+    /** Default staleness above which the replica stops serving reads */
+    public static final int DEFAULT_MAX_STALENESS_MILLIS = 10_000;
+
+    private final DatasetGraph dsg;
+    private final PatchSource source;
+    private final long pollMillis;
+    private final long maxStalenessMillis;
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "catalogue-replica");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicLong patchesApplied = new AtomicLong();
+    private final List<Hook> appliedHooks = new CopyOnWriteArrayList<>();
+    private volatile long appliedSequence;
+    private volatile Node appliedId;
+    /** Epoch millis up to which the replica is known to have the primary's state (0 = never) */
+    private volatile long currentAt;
+    private volatile long lastDelayMillis = -1;
+    private volatile Instant lastApplied;
+    private volatile String lastError;
+
+    /**
+     * @param dataset            The replica's own store
+     * @param location           The primary's patch log directory or base URL
+     * @param name               Name the replica reports its progress under
+     * @param pollMillis         Interval between polls once caught up
+     * @param maxStalenessMillis Staleness above which reads are refused
+     */
+    public ReplicaApplier(Dataset dataset, String location, String name, int pollMillis, int maxStalenessMillis) {
+        this.dsg = dataset.asDatasetGraph();
+        this.source = PatchSource.of(location, name);
+        this.pollMillis = pollMillis > 0 ? pollMillis : DEFAULT_POLL_MILLIS;
+        this.maxStalenessMillis = maxStalenessMillis > 0 ? maxStalenessMillis : DEFAULT_MAX_STALENESS_MILLIS;
+    }
+
+    /**
+     * Resume from the last applied patch and start tailing the primary
+     */
+    public void start() {
+        State state = PatchLog.readState(dsg);
+        appliedSequence = state.sequence();
+        appliedId = state.id();
+        logger.info("Replica of {} at patch {}", source.describe(), appliedSequence);
+        executor.scheduleWithFixedDelay(this::poll, 0, pollMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public void stop() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Run something on the applier's thread each time the patches it has applied
+     * changed statements of a graph, before it polls again, e.g. to update
+     * in-memory indexes of the data
+     *
+     * @param graph  The graph to watch
+     * @param action Given the subjects of the added and deleted statements
+     */
+    public void onPatchesApplied(Node graph, Consumer<Set<Node>> action) {
+        appliedHooks.add(new Hook(graph, action, new HashSet<>()));
+    }
+
+    /**
+     * An action run after patches changed a graph, with the subjects changed
+     * since it last ran (only touched on the applier's thread)
+     */
+    private record Hook(Node graph, Consumer<Set<Node>> action, Set<Node> changed) {
+    }
+
+    /**
+     * Apply every patch that is available, then wait for the next poll
+     */
+    private void poll() {
+        long from = appliedSequence;
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                long next = appliedSequence + 1;
+                try (InputStream in = source.open(next, appliedSequence)) {
+                    if (in == null) {
+                        currentAt = System.currentTimeMillis();
+                        break;
+                    }
+                    apply(next, RDFPatchOps.read(in));
+                }
+            }
+            if (lastError != null) {
+                logger.info("Replication from {} resumed at patch {}", source.describe(), appliedSequence);
+                lastError = null;
+            }
+        } catch (IOException | RuntimeException e) {
+            String error = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+            if (!error.equals(lastError)) {
+                logger.error("Replication from {} stalled at patch {}: {}", source.describe(), appliedSequence, error);
+            }
+            lastError = error;
+        }
+        if (appliedSequence != from) {
+            runHooks();
+        }
+    }
+
+    private void runHooks() {
+        for (Hook hook : appliedHooks) {
+            if (hook.changed().isEmpty()) {
+                continue;
+            }
+            Set<Node> changed = Set.copyOf(hook.changed());
+            hook.changed().clear();
+            try {
+                hook.action().accept(changed);
+            } catch (RuntimeException e) {
+                logger.error("Could not update after applying patches up to {}: {}", appliedSequence,
+                        e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * Note the subjects a patch changes in the graphs the hooks watch
+     */
+    private void collectChanges(RDFPatch patch) {
+        if (appliedHooks.isEmpty()) {
+            return;
+        }
+        patch.apply(new RDFChangesBase() {
+            @Override
+            public void add(Node g, Node s, Node p, Node o) {
+                changed(g, s);
+            }
+
+            @Override
+            public void delete(Node g, Node s, Node p, Node o) {
+                changed(g, s);
+            }
+
+            private void changed(Node g, Node s) {
+                for (Hook hook : appliedHooks) {
+                    if (hook.graph().equals(g)) {
+                        hook.changed().add(s);
+                    }
+                }
+            }
+        });
+    }
+
+    private void apply(long sequence, RDFPatch patch) {
+        Node previous = patch.getPrevious();
+        if (previous != null && appliedId != null && !previous.equals(appliedId)) {
+            throw new IllegalStateException("Patch " + sequence + " does not follow the last applied patch "
+                    + appliedId + "; the replica has diverged from the primary and must be re-seeded");
+        }
+        Txn.executeWrite(dsg, () -> PatchLog.apply(dsg, patch, sequence));
+        collectChanges(patch);
+
+        long now = System.currentTimeMillis();
+        appliedSequence = sequence;
+        appliedId = patch.getId();
+        lastApplied = Instant.ofEpochMilli(now);
+        patchesApplied.incrementAndGet();
+        Node timestamp = patch.getHeader(PatchLog.HEADER_TIMESTAMP);
+        if (timestamp != null && timestamp.isLiteral()) {
+            try {
+                long committed = Instant.parse(timestamp.getLiteralLexicalForm()).toEpochMilli();
+                lastDelayMillis = Math.max(0, now - committed);
+                // Everything the primary committed before this patch is now here
+                currentAt = Math.max(currentAt, committed);
+            } catch (RuntimeException e) {
+                // patch without a usable commit time
+            }
+        }
+    }
+
+    public long getAppliedSequence() {
+        return appliedSequence;
+    }
+
+    /**
+     * Milliseconds since the replica was last known to be up to date (-1 if it
+     * has not caught up since it started)
+     */
+    public long getStalenessMillis() {
+        long at = currentAt;
+        return at == 0 ? -1 : Math.max(0, System.currentTimeMillis() - at);
+    }
+
+    /**
+     * Whether the replica is too far behind to serve reads
+     */
+    public boolean isStale() {
+        long staleness = getStalenessMillis();
+        return staleness < 0 || staleness > maxStalenessMillis;
+    }
+
+    public long getMaxStalenessMillis() {
+        return maxStalenessMillis;
+    }
+
+    public String getSource() {
+        return source.describe();
+    }
+
+    /**
+     * Replication status of the replica, as JSON
+     */
+    public String toJson() {
+        long applied = appliedSequence;
+        long primaryLast = Math.max(source.getLastSequence(), applied);
+        Instant applyTime = lastApplied;
+        String error = lastError;
+        StringBuilder json = new StringBuilder();
+        json.append("{\n");
+        json.append("  \"status\": \"success\",\n");
+        json.append("  \"role\": \"replica\",\n");
+        json.append("  \"source\": \"").append(PatchLog.escape(source.describe())).append("\",\n");
+        json.append("  \"appliedSequence\": ").append(applied).append(",\n");
+        json.append("  \"primarySequence\": ").append(primaryLast).append(",\n");
+        json.append("  \"lagPatches\": ").append(primaryLast - applied).append(",\n");
+        json.append("  \"stalenessMillis\": ").append(getStalenessMillis()).append(",\n");
+        json.append("  \"maxStalenessMillis\": ").append(maxStalenessMillis).append(",\n");
+        json.append("  \"serving\": ").append(!isStale()).append(",\n");
+        json.append("  \"lastReplicationDelayMillis\": ").append(lastDelayMillis).append(",\n");
+        json.append("  \"patchesApplied\": ").append(patchesApplied.get()).append(",\n");
+        json.append("  \"lastApplied\": ").append(applyTime != null ? "\"" + applyTime + "\"" : "null").append(",\n");
+        json.append("  \"lastError\": ").append(error != null ? "\"" + PatchLog.escape(error) + "\"" : "null")
+                .append(",\n");
+        json.append("  \"timestamp\": \"").append(Instant.now()).append("\"\n");
+        json.append("}");
+        return json.toString();
+    }
+}
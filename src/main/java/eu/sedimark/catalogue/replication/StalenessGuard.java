@@ -0,0 +1,62 @@
+/*
+ * SEDIMARK Catalogue Server
+ *
+ * Copyright (C) 2025 Tarek Elsaleh
+ *
+ * This program is licensed under the European Union Public License (EUPL) v1.2.
+ * You may obtain a copy of the License at:
+ * https://joinup.ec.europa.eu/collection/eupl/eupl-text-eupl-12
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.sedimark.catalogue.replication;
+
+import org.eclipse.jetty.http.HttpHeader;
+import org.eclipse.jetty.server.Handler;
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.Response;
+import org.eclipse.jetty.util.Callback;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Jetty handler that bounds the staleness of a replica: while it is further
+ * behind the primary than the configured maximum, catalogue requests are answered
+ * with 503 so clients and load balancers go elsewhere. The replication and health
+ * endpoints stay available.
+ */
+public class StalenessGuard extends Handler.Wrapper {
+    private final ReplicaApplier replica;
+
+    public StalenessGuard(ReplicaApplier replica) {
+        this.replica = replica;
+    }
+
+    @Override
+    public boolean handle(Request request, Response response, Callback callback) throws Exception {
+        if (!replica.isStale() || !isGuarded(Request.getPathInContext(request))) {
+            return super.handle(request, response, callback);
+        }
+        long staleness = replica.getStalenessMillis();
+        String json = "{ \"status\": \"error\", \"message\": \"Replica is "
+                + (staleness < 0 ? "catching up with the primary" : staleness + " ms behind the primary")
+                + " (maximum " + replica.getMaxStalenessMillis() + " ms)\", \"appliedSequence\": "
+                + replica.getAppliedSequence() + " }";
+        response.setStatus(503);
+        response.getHeaders().put(HttpHeader.CONTENT_TYPE, "application/json");
+        response.getHeaders().put(HttpHeader.RETRY_AFTER, "1");
+        response.write(true, ByteBuffer.wrap(json.getBytes(StandardCharsets.UTF_8)), callback);
+        return true;
+    }
+
+    private static boolean isGuarded(String path) {
+        return path.startsWith("/catalogue") && !path.startsWith("/catalogue/replication")
+                && !path.startsWith("/catalogue/health");
+    }
+}
@@ -5,32 +5,31 @@ import jakarta.servlet.http.HttpServlet;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
 import java.io.OutputStream;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.zip.CRC32;
+
+import eu.sedimark.catalogue.servlets.StaticAssetCache.Asset;
 
 /**
  * Simple servlet that serves resources from the classpath under the /static/* URL.
  * Maps /static/foo/bar.css -> classpath resource /static/foo/bar.css
+ *
+ * Resources come from a {@link StaticAssetCache} built at startup, so a request is
+ * a lookup plus a copy of precomputed bytes. Supports conditional GET (ETag),
+ * gzip/brotli content negotiation, single byte-range requests and immutable
+ * caching of fingerprinted URLs (see {@link StaticAssetCache#url(String)}).
  */
 public class ClasspathResourceServlet extends HttpServlet {
     private static final long serialVersionUID = 1L;
 
-    private static final Map<String,String> CONTENT_TYPES = new HashMap<>();
-    static {
-        CONTENT_TYPES.put(".css", "text/css; charset=UTF-8");
-        CONTENT_TYPES.put(".js", "application/javascript; charset=UTF-8");
-        CONTENT_TYPES.put(".html", "text/html; charset=UTF-8");
-        CONTENT_TYPES.put(".png", "image/png");
-        CONTENT_TYPES.put(".jpg", "image/jpeg");
-        CONTENT_TYPES.put(".jpeg", "image/jpeg");
-        CONTENT_TYPES.put(".svg", "image/svg+xml");
-        CONTENT_TYPES.put(".woff2", "font/woff2");
-        CONTENT_TYPES.put(".woff", "font/woff");
+    private final transient StaticAssetCache cache;
+
+    public ClasspathResourceServlet() {
+        this(StaticAssetCache.getDefault());
+    }
+
+    public ClasspathResourceServlet(StaticAssetCache cache) {
+        this.cache = cache;
     }
 
     @Override
@@ -42,64 +41,177 @@ public class ClasspathResourceServlet extends HttpServlet {
             resp.sendError(HttpServletResponse.SC_NOT_FOUND);
             return;
         }
-        String resourcePath = path.substring(idx); // includes /static/...
-        // Remove leading slash for classloader resource lookup
-        if (resourcePath.startsWith("/")) resourcePath = resourcePath.substring(1);
-
-        // Use class resource lookup (leading slash) which works reliably from within JAR
-        try (InputStream is = ClasspathResourceServlet.class.getResourceAsStream("/" + resourcePath)) {
-            if (is == null) {
-                System.err.println("ClasspathResourceServlet: resource not found: /" + resourcePath);
-                resp.sendError(HttpServletResponse.SC_NOT_FOUND);
-                return;
+        String resourcePath = idx == 0 ? path : path.substring(idx); // includes /static/...
+
+        Asset asset = cache.lookup(resourcePath);
+        if (asset == null) {
+            System.err.println("ClasspathResourceServlet: resource not found: " + resourcePath);
+            resp.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+
+        // Choose the representation: ranges are only served from the identity encoding
+        String rangeHeader = req.getHeader("Range");
+        byte[] body = asset.data;
+        String etag = asset.etag;
+        String encoding = null;
+        if (asset.negotiable && rangeHeader == null) {
+            String acceptEncoding = req.getHeader("Accept-Encoding");
+            if (asset.brotli != null && accepts(acceptEncoding, "br")) {
+                body = asset.brotli;
+                etag = asset.brotliEtag;
+                encoding = "br";
+            } else if (asset.gzip != null && accepts(acceptEncoding, "gzip")) {
+                body = asset.gzip;
+                etag = asset.gzipEtag;
+                encoding = "gzip";
             }
-            // Read resource fully to determine length and compute a light ETag (CRC32).
-            ByteArrayOutputStream baos = new ByteArrayOutputStream();
-            byte[] buf = new byte[8192];
-            int r;
-            while ((r = is.read(buf)) != -1) baos.write(buf, 0, r);
-            byte[] data = baos.toByteArray();
-
-            // Compute a small ETag so clients can do conditional GETs
-            CRC32 crc = new CRC32();
-            crc.update(data);
-            String etag = '"' + Long.toHexString(crc.getValue()) + '-' + data.length + '"';
-
-            // Conditional GET - If-None-Match
-            String ifNone = req.getHeader("If-None-Match");
-            if (ifNone != null && ifNone.equals(etag)) {
-                resp.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
-                resp.setHeader("ETag", etag);
+        }
+
+        resp.setHeader("ETag", etag);
+        resp.setHeader("Cache-Control", asset.cacheControl);
+        resp.setHeader("Accept-Ranges", "bytes");
+        if (asset.negotiable) {
+            resp.setHeader("Vary", "Accept-Encoding");
+        }
+
+        // Conditional GET - If-None-Match
+        String ifNone = req.getHeader("If-None-Match");
+        if (ifNone != null && matchesEtag(ifNone, etag)) {
+            resp.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        if (asset.contentType != null) resp.setContentType(asset.contentType);
+        if (encoding != null) resp.setHeader("Content-Encoding", encoding);
+
+        int offset = 0;
+        int length = body.length;
+        if (rangeHeader != null && ifRangeMatches(req.getHeader("If-Range"), etag)) {
+            long[] range = parseRange(rangeHeader, body.length);
+            if (range == null) {
+                resp.setHeader("Content-Range", "bytes */" + body.length);
+                resp.sendError(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
                 return;
             }
+            if (range.length == 2) {
+                offset = (int) range[0];
+                length = (int) (range[1] - range[0] + 1);
+                resp.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                resp.setHeader("Content-Range", "bytes " + range[0] + "-" + range[1] + "/" + body.length);
+            }
+        }
 
-            // Set headers
-            resp.setHeader("ETag", etag);
-            resp.setHeader("Cache-Control", "public, max-age=3600");
+        // Support HEAD: set headers but don't write body
+        resp.setContentLength(length);
+        if (!"HEAD".equalsIgnoreCase(req.getMethod())) {
+            try (OutputStream os = resp.getOutputStream()) {
+                os.write(body, offset, length);
+            }
+        }
+    }
 
-            // Set content type based on extension
-            String contentType = guessContentType(resourcePath);
-            if (contentType != null) resp.setContentType(contentType);
+    /**
+     * Whether the Accept-Encoding header allows the coding: named with q > 0,
+     * or not named and * has q > 0. A coding named explicitly takes precedence
+     * over *, so "gzip;q=0, *" refuses gzip.
+     */
+    static boolean accepts(String acceptEncoding, String coding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        double wildcard = -1;
+        for (String part : acceptEncoding.split(",")) {
+            String[] params = part.trim().split(";");
+            String name = params[0].trim();
+            if (name.equalsIgnoreCase(coding)) {
+                return quality(params) > 0;
+            }
+            if (name.equals("*")) {
+                wildcard = quality(params);
+            }
+        }
+        return wildcard > 0;
+    }
 
-            // Support HEAD: set headers but don't write body
-            boolean isHead = "HEAD".equalsIgnoreCase(req.getMethod());
-            resp.setContentLength(data.length);
-            if (!isHead) {
-                try (OutputStream os = resp.getOutputStream()) {
-                    os.write(data);
+    /**
+     * The q value of an Accept-Encoding entry, 1 if absent and 0 if malformed
+     */
+    private static double quality(String[] params) {
+        for (int i = 1; i < params.length; i++) {
+            String param = params[i].trim();
+            if (param.startsWith("q=")) {
+                try {
+                    return Double.parseDouble(param.substring(2).trim());
+                } catch (NumberFormatException e) {
+                    return 0;
                 }
             }
-            System.err.println("ClasspathResourceServlet: served resource: /" + resourcePath + " (" + data.length + " bytes)");
         }
+        return 1;
+    }
+
+    private static boolean matchesEtag(String header, String etag) {
+        if (header.trim().equals("*")) {
+            return true;
+        }
+        for (String candidate : header.split(",")) {
+            String value = candidate.trim();
+            if (value.startsWith("W/")) {
+                value = value.substring(2);
+            }
+            if (value.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * If-Range with an ETag: serve the range only if the representation is unchanged
+     */
+    private static boolean ifRangeMatches(String ifRange, String etag) {
+        return ifRange == null || ifRange.trim().equals(etag);
     }
 
-    private String guessContentType(String path) {
-        String p = path.toLowerCase();
-        // Check common extensions in deterministic order (longer extensions first)
-        String[] exts = {".woff2", ".woff", ".jpeg", ".jpg", ".png", ".svg", ".css", ".js", ".html", ".json"};
-        for (String ext : exts) {
-            if (p.endsWith(ext)) return CONTENT_TYPES.get(ext);
+    /**
+     * Parse a single "bytes=" range.
+     *
+     * @return {start, end} (inclusive), an empty array to ignore the header and send the
+     *         full body (unsupported or multiple ranges), or null if unsatisfiable
+     */
+    static long[] parseRange(String header, long size) {
+        if (!header.startsWith("bytes=") || header.indexOf(',') >= 0) {
+            return new long[0];
+        }
+        String spec = header.substring("bytes=".length()).trim();
+        int dash = spec.indexOf('-');
+        if (dash < 0) {
+            return new long[0];
+        }
+        try {
+            String first = spec.substring(0, dash).trim();
+            String last = spec.substring(dash + 1).trim();
+            long start;
+            long end;
+            if (first.isEmpty()) {
+                // Suffix range: last N bytes
+                long suffix = Long.parseLong(last);
+                if (suffix <= 0) {
+                    return null;
+                }
+                start = Math.max(0, size - suffix);
+                end = size - 1;
+            } else {
+                start = Long.parseLong(first);
+                end = last.isEmpty() ? size - 1 : Math.min(Long.parseLong(last), size - 1);
+            }
+            if (start >= size || start > end) {
+                return null;
+            }
+            return new long[] { start, end };
+        } catch (NumberFormatException e) {
+            return new long[0];
         }
-        return null;
     }
 }
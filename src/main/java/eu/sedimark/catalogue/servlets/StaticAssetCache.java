@@ -0,0 +1,267 @@
+package eu.sedimark.catalogue.servlets;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.URL;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * In-memory cache of the classpath static assets served under /static/*.
+ *
+ * Built once at startup: every asset is held as bytes with a precomputed ETag,
+ * a gzip variant for compressible types (or a pre-encoded .gz/.br sibling if the
+ * build ships one) and a fingerprinted URL, e.g.
+ * /static/img/sedimark_bk_dark-100.3f2a9c1b.jpg, that can be cached forever.
+ */
+public class StaticAssetCache {
+
+    private static final String STATIC_ROOT = "static";
+    private static final int FINGERPRINT_LENGTH = 8;
+
+    private static final Map<String, String> CONTENT_TYPES = new HashMap<>();
+    static {
+        CONTENT_TYPES.put(".css", "text/css; charset=UTF-8");
+        CONTENT_TYPES.put(".js", "application/javascript; charset=UTF-8");
+        CONTENT_TYPES.put(".html", "text/html; charset=UTF-8");
+        CONTENT_TYPES.put(".json", "application/json");
+        CONTENT_TYPES.put(".png", "image/png");
+        CONTENT_TYPES.put(".jpg", "image/jpeg");
+        CONTENT_TYPES.put(".jpeg", "image/jpeg");
+        CONTENT_TYPES.put(".svg", "image/svg+xml");
+        CONTENT_TYPES.put(".woff2", "font/woff2");
+        CONTENT_TYPES.put(".woff", "font/woff");
+    }
+
+    // Check common extensions in deterministic order (longer extensions first)
+    private static final String[] EXTENSIONS = { ".woff2", ".woff", ".jpeg", ".jpg", ".png", ".svg", ".css", ".js",
+            ".html", ".json" };
+
+    private static volatile StaticAssetCache defaultCache;
+
+    /** Assets by request path (/static/...), including fingerprinted aliases */
+    private final Map<String, Asset> assets = new ConcurrentHashMap<>();
+    /** Fingerprinted URL by plain request path */
+    private final Map<String, String> fingerprintedUrls = new ConcurrentHashMap<>();
+
+    /**
+     * The cache for the application classpath, built on first use
+     */
+    public static StaticAssetCache getDefault() {
+        StaticAssetCache cache = defaultCache;
+        if (cache == null) {
+            synchronized (StaticAssetCache.class) {
+                cache = defaultCache;
+                if (cache == null) {
+                    cache = new StaticAssetCache();
+                    cache.preload();
+                    defaultCache = cache;
+                }
+            }
+        }
+        return cache;
+    }
+
+    /**
+     * Load every resource below the classpath static/ directory, from the classes
+     * directory or from inside the JAR
+     */
+    void preload() {
+        try {
+            URL root = StaticAssetCache.class.getResource("/" + STATIC_ROOT);
+            if (root == null) {
+                System.err.println("StaticAssetCache: no /" + STATIC_ROOT + " directory on the classpath");
+                return;
+            }
+            URI uri = root.toURI();
+            if ("jar".equals(uri.getScheme())) {
+                try (FileSystem fs = FileSystems.newFileSystem(uri, Collections.emptyMap())) {
+                    loadTree(fs.getPath("/" + STATIC_ROOT));
+                }
+            } else {
+                loadTree(Paths.get(uri));
+            }
+            System.out.println("StaticAssetCache: cached " + fingerprintedUrls.size() + " static assets");
+        } catch (Exception e) {
+            // Assets will be loaded lazily on first request instead
+            System.err.println("StaticAssetCache: could not preload static assets: " + e.getMessage());
+        }
+    }
+
+    private void loadTree(Path root) throws IOException {
+        try (Stream<Path> paths = Files.walk(root)) {
+            paths.filter(Files::isRegularFile).forEach(path -> {
+                String relative = root.relativize(path).toString().replace('\\', '/');
+                if (!relative.endsWith(".gz") && !relative.endsWith(".br")) {
+                    load("/" + STATIC_ROOT + "/" + relative);
+                }
+            });
+        }
+    }
+
+    /**
+     * Look up an asset by request path, loading it from the classpath if it was not
+     * preloaded
+     *
+     * @param requestPath Path starting with /static/
+     * @return The asset, or null if there is no such resource
+     */
+    public Asset lookup(String requestPath) {
+        Asset asset = assets.get(requestPath);
+        if (asset == null && !requestPath.contains("..")) {
+            asset = load(requestPath);
+        }
+        return asset;
+    }
+
+    /**
+     * The fingerprinted URL for a static asset, or the path unchanged if the asset is
+     * unknown. Pages should reference assets through this so they can be cached as
+     * immutable.
+     */
+    public String url(String requestPath) {
+        String fingerprinted = fingerprintedUrls.get(requestPath);
+        if (fingerprinted == null && lookup(requestPath) != null) {
+            fingerprinted = fingerprintedUrls.get(requestPath);
+        }
+        return fingerprinted != null ? fingerprinted : requestPath;
+    }
+
+    private Asset load(String requestPath) {
+        byte[] data = readResource(requestPath);
+        if (data == null) {
+            return null;
+        }
+        String contentType = guessContentType(requestPath);
+        String hash = sha256Hex(data);
+        String etag = '"' + hash.substring(0, 16) + '-' + data.length + '"';
+
+        byte[] gzip = readResource(requestPath + ".gz");
+        if (gzip == null && isCompressible(contentType)) {
+            gzip = gzip(data);
+        }
+        if (gzip != null && gzip.length >= data.length) {
+            gzip = null; // not worth it
+        }
+        byte[] brotli = readResource(requestPath + ".br");
+
+        String fingerprinted = fingerprint(requestPath, hash.substring(0, FINGERPRINT_LENGTH));
+        Asset plain = new Asset(data, gzip, brotli, contentType, etag, false);
+        Asset immutable = new Asset(data, gzip, brotli, contentType, etag, true);
+        assets.put(requestPath, plain);
+        assets.put(fingerprinted, immutable);
+        fingerprintedUrls.put(requestPath, fingerprinted);
+        return plain;
+    }
+
+    private static byte[] readResource(String path) {
+        // Use class resource lookup (leading slash) which works reliably from within JAR
+        try (InputStream is = StaticAssetCache.class.getResourceAsStream(path)) {
+            if (is == null) {
+                return null;
+            }
+            ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            byte[] buf = new byte[8192];
+            int r;
+            while ((r = is.read(buf)) != -1) baos.write(buf, 0, r);
+            return baos.toByteArray();
+        } catch (IOException e) {
+            System.err.println("StaticAssetCache: error reading " + path + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * /static/img/a.jpg -> /static/img/a.0123abcd.jpg
+     */
+    private static String fingerprint(String path, String hash) {
+        int slash = path.lastIndexOf('/');
+        int dot = path.lastIndexOf('.');
+        if (dot <= slash) {
+            return path + "." + hash;
+        }
+        return path.substring(0, dot) + "." + hash + path.substring(dot);
+    }
+
+    private static String guessContentType(String path) {
+        String p = path.toLowerCase();
+        for (String ext : EXTENSIONS) {
+            if (p.endsWith(ext)) return CONTENT_TYPES.get(ext);
+        }
+        return null;
+    }
+
+    private static boolean isCompressible(String contentType) {
+        return contentType != null && (contentType.startsWith("text/") || contentType.startsWith("application/")
+                || contentType.startsWith("image/svg"));
+    }
+
+    private static byte[] gzip(byte[] data) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(data.length / 2 + 64);
+        try (GZIPOutputStream gz = new GZIPOutputStream(out)) {
+            gz.write(data);
+        } catch (IOException e) {
+            return null;
+        }
+        return out.toByteArray();
+    }
+
+    private static String sha256Hex(byte[] data) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(data);
+            StringBuilder hex = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * A cached asset with its encoded variants. All header values are precomputed so
+     * serving it only copies bytes.
+     */
+    public static final class Asset {
+        final byte[] data;
+        final byte[] gzip;
+        final byte[] brotli;
+        final String contentType;
+        final String etag;
+        final String gzipEtag;
+        final String brotliEtag;
+        final String cacheControl;
+        final boolean negotiable;
+
+        Asset(byte[] data, byte[] gzip, byte[] brotli, String contentType, String etag, boolean immutable) {
+            this.data = data;
+            this.gzip = gzip;
+            this.brotli = brotli;
+            this.contentType = contentType;
+            this.etag = etag;
+            String bare = etag.substring(0, etag.length() - 1);
+            this.gzipEtag = bare + "-gzip\"";
+            this.brotliEtag = bare + "-br\"";
+            this.cacheControl = immutable ? "public, max-age=31536000, immutable" : "public, max-age=3600";
+            this.negotiable = gzip != null || brotli != null;
+        }
+
+        public int length() {
+            return data.length;
+        }
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ * SEDIMARK Catalogue Server
+ *
+ * Copyright (C) 2025 Tarek Elsaleh
+ *
+ * This program is licensed under the European Union Public License (EUPL) v1.2.
+ * You may obtain a copy of the License at:
+ * https://joinup.ec.europa.eu/collection/eupl/eupl-text-eupl-12
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.sedimark.catalogue.storage;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Coordinates of GeoNames places, read from a local GeoNames dump, so offerings
+ * whose spatial coverage is a GeoNames URI (as SEDIMARK assets have it, e.g.
+ * {@code http://sws.geonames.org/2673730/}) can be found by location without
+ * calling the GeoNames service.
+ *
+ * The file is a GeoNames export in its tab-separated format (e.g. allCountries.txt,
+ * cities500.txt or a country file, optionally gzip-compressed): the place id is
+ * the first column and the latitude and longitude the fifth and sixth. Places are
+ * kept in sorted primitive arrays, in units of 0.00001 degree (about a metre),
+ * 12 bytes each.
+ */
+public class Gazetteer {
+    private static final Logger logger = LoggerFactory.getLogger(Gazetteer.class);
+
+    private static final Pattern GEONAMES_URI = Pattern.compile("^https?://(?:sws\\.|www\\.)?geonames\\.org/(\\d+)(?:/.*)?$");
+
+    private static final double SCALE = 100_000;
+
+    private final int[] ids;
+    private final int[] latitudes;
+    private final int[] longitudes;
+
+    private Gazetteer(int[] ids, int[] latitudes, int[] longitudes) {
+        this.ids = ids;
+        this.latitudes = latitudes;
+        this.longitudes = longitudes;
+    }
+
+    /**
+     * Load a GeoNames dump
+     */
+    public static Gazetteer load(Path file) throws IOException {
+        long start = System.nanoTime();
+        int[] ids = new int[1 << 16];
+        int[] latitudes = new int[ids.length];
+        int[] longitudes = new int[ids.length];
+        int count = 0;
+        boolean sorted = true;
+        try (InputStream raw = Files.newInputStream(file);
+                InputStream in = file.toString().endsWith(".gz") ? new GZIPInputStream(raw, 1 << 16) : raw;
+                BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), 1 << 16)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] columns = line.split("\t", 7);
+                if (columns.length < 6 || line.startsWith("#")) {
+                    continue;
+                }
+                try {
+                    int id = Integer.parseInt(columns[0]);
+                    int latitude = (int) Math.round(Double.parseDouble(columns[4]) * SCALE);
+                    int longitude = (int) Math.round(Double.parseDouble(columns[5]) * SCALE);
+                    if (count == ids.length) {
+                        ids = Arrays.copyOf(ids, count * 2);
+                        latitudes = Arrays.copyOf(latitudes, count * 2);
+                        longitudes = Arrays.copyOf(longitudes, count * 2);
+                    }
+                    sorted &= count == 0 || ids[count - 1] < id;
+                    ids[count] = id;
+                    latitudes[count] = latitude;
+                    longitudes[count] = longitude;
+                    count++;
+                } catch (NumberFormatException e) {
+                    // Not a place line
+                }
+            }
+        }
+        if (!sorted) {
+            sortById(ids, latitudes, longitudes, count);
+        }
+        logger.info("Loaded {} places from {} in {} ms", count, file, (System.nanoTime() - start) / 1_000_000);
+        return new Gazetteer(Arrays.copyOf(ids, count), Arrays.copyOf(latitudes, count),
+                Arrays.copyOf(longitudes, count));
+    }
+
+    /**
+     * The location of a GeoNames place URI as {longitude, latitude}, or null if
+     * it is not a GeoNames URI or not in the gazetteer
+     */
+    public double[] locate(String uri) {
+        Matcher matcher = GEONAMES_URI.matcher(uri.trim());
+        if (!matcher.matches()) {
+            return null;
+        }
+        int index;
+        try {
+            index = Arrays.binarySearch(ids, Integer.parseInt(matcher.group(1)));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        return index >= 0 ? new double[] { longitudes[index] / SCALE, latitudes[index] / SCALE } : null;
+    }
+
+    /**
+     * Number of places
+     */
+    public int size() {
+        return ids.length;
+    }
+
+    private static void sortById(int[] ids, int[] latitudes, int[] longitudes, int count) {
+        long[] order = new long[count];
+        for (int i = 0; i < count; i++) {
+            order[i] = ((long) ids[i] << 32) | i;
+        }
+        Arrays.sort(order);
+        int[] lat = Arrays.copyOf(latitudes, count);
+        int[] lon = Arrays.copyOf(longitudes, count);
+        for (int i = 0; i < count; i++) {
+            int from = (int) order[i];
+            ids[i] = (int) (order[i] >> 32);
+            latitudes[i] = lat[from];
+            longitudes[i] = lon[from];
+        }
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ * SEDIMARK Catalogue Server
+ *
+ * Copyright (C) 2025 Tarek Elsaleh
+ *
+ * This program is licensed under the European Union Public License (EUPL) v1.2.
+ * You may obtain a copy of the License at:
+ * https://joinup.ec.europa.eu/collection/eupl/eupl-text-eupl-12
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.sedimark.catalogue.storage;
+
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.query.Dataset;
+import org.apache.jena.sparql.core.DatasetGraph;
+import org.apache.jena.system.Txn;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import eu.sedimark.catalogue.handlers.OfferingChangeListener;
+import eu.sedimark.catalogue.handlers.OfferingGSPHandler.NamedSubgraph;
+
+/**
+ * An in-memory structure over entries of {@link OfferingIndex}, for searches the
+ * index graph cannot answer quickly by itself.
+ *
+ * The structure is loaded at startup and then kept up to date: on a primary from
+ * offering changes, as a listener of the handler; on a replica from the index
+ * entries the applied patches changed, on the replica's applier thread (see
+ * {@link #indexChanged}). Searches only read the current structure, which a
+ * reload replaces as a whole.
+ *
+ * @param <T> The structure
+ */
+public abstract class LoadedOfferingIndex<T> implements OfferingChangeListener {
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+
+    protected final Dataset dataset;
+    private volatile T current;
+
+    /**
+     * @param dataset The dataset holding the offering index
+     * @param empty   The structure until it is loaded
+     */
+    protected LoadedOfferingIndex(Dataset dataset, T empty) {
+        this.dataset = dataset;
+        this.current = empty;
+    }
+
+    /**
+     * Load the structure from the offering index
+     */
+    public synchronized void load() {
+        long start = System.nanoTime();
+        T loaded = create();
+        DatasetGraph dsg = dataset.asDatasetGraph();
+        Txn.executeRead(dsg, () -> add(dsg, Node.ANY, loaded));
+        current = loaded;
+        logger.info("Loaded {} in {} ms", describe(loaded), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * The structure searches read
+     */
+    protected T current() {
+        return current;
+    }
+
+    @Override
+    public void offeringsStored(List<NamedSubgraph> offerings) {
+        List<String> graphNames = new ArrayList<>(offerings.size());
+        for (NamedSubgraph offering : offerings) {
+            graphNames.add(offering.getGraphName());
+        }
+        update(graphNames);
+    }
+
+    @Override
+    public void offeringDeleted(String graphName) {
+        remove(current, graphName);
+    }
+
+    /**
+     * Apply changes of the offering index replicated from the primary
+     *
+     * @param subjects The subjects of the index statements added or deleted: the
+     *                 offerings whose entries changed, or the index itself when
+     *                 it was rebuilt or dropped, which reloads the structure
+     */
+    public void indexChanged(Set<Node> subjects) {
+        if (subjects.contains(OfferingIndex.GRAPH)) {
+            load();
+            return;
+        }
+        List<String> graphNames = new ArrayList<>(subjects.size());
+        for (Node subject : subjects) {
+            if (subject.isURI()) {
+                graphNames.add(subject.getURI());
+            }
+        }
+        update(graphNames);
+    }
+
+    /**
+     * Re-read the index entries of some offerings
+     */
+    private void update(List<String> graphNames) {
+        T into = current;
+        DatasetGraph dsg = dataset.asDatasetGraph();
+        Txn.executeRead(dsg, () -> {
+            for (String graphName : graphNames) {
+                remove(into, graphName);
+                add(dsg, NodeFactory.createURI(graphName), into);
+            }
+        });
+    }
+
+    /**
+     * A new, empty structure
+     */
+    protected abstract T create();
+
+    /**
+     * Add the index entries of an offering, or of every offering with
+     * {@link Node#ANY}. Called in a read transaction.
+     */
+    protected abstract void add(DatasetGraph dsg, Node graphName, T into);
+
+    /**
+     * Remove the entries of an offering
+     */
+    protected abstract void remove(T from, String graphName);
+
+    /**
+     * What a loaded structure holds, for the log
+     */
+    protected abstract String describe(T loaded);
+}
@@ -0,0 +1,312 @@
+/*
+ * SEDIMARK Catalogue Server
+ *
+ * Copyright (C) 2025 Tarek Elsaleh
+ *
+ * This program is licensed under the European Union Public License (EUPL) v1.2.
+ * You may obtain a copy of the License at:
+ * https://joinup.ec.europa.eu/collection/eupl/eupl-text-eupl-12
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.sedimark.catalogue.storage;
+
+import org.apache.jena.graph.Graph;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.NodeFactory;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.Year;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The spatial and temporal coverage described in an offering, as indexed by
+ * {@link OfferingIndex} and searched with {@link OfferingCoverageIndex}.
+ *
+ * Spatial coverage is read from {@code dct:spatial}: a location with a
+ * {@code dcat:bbox}, {@code locn:geometry}, GeoSPARQL {@code geo:asWKT} (also
+ * through {@code geo:hasGeometry}) or {@code dcat:centroid} WKT literal, a WKT
+ * literal itself, or a GeoNames URI located with a {@link Gazetteer}. Each is
+ * reduced to a bounding box {minLongitude, minLatitude, maxLongitude, maxLatitude}.
+ *
+ * Temporal coverage is read from {@code dct:temporal} periods with
+ * {@code dcat:startDate}/{@code dcat:endDate}, {@code schema:startDate}/
+ * {@code schema:endDate} or {@code time:hasBeginning}/{@code time:hasEnd}
+ * instants. A period without a start or end is open on that side.
+ */
+public final class OfferingCoverage {
+
+    private static final String DCAT_NS = "http://www.w3.org/ns/dcat#";
+    private static final String GEO_NS = "http://www.opengis.net/ont/geosparql#";
+    private static final String TIME_NS = "http://www.w3.org/2006/time#";
+    private static final Node SPATIAL = NodeFactory.createURI("http://purl.org/dc/terms/spatial");
+    private static final Node TEMPORAL = NodeFactory.createURI("http://purl.org/dc/terms/temporal");
+    private static final Node HAS_GEOMETRY = NodeFactory.createURI(GEO_NS + "hasGeometry");
+    private static final Node[] GEOMETRIES = {
+            NodeFactory.createURI(DCAT_NS + "bbox"),
+            NodeFactory.createURI("http://www.w3.org/ns/locn#geometry"),
+            NodeFactory.createURI(GEO_NS + "asWKT"),
+            NodeFactory.createURI(DCAT_NS + "centroid") };
+    private static final Node[] STARTS = {
+            NodeFactory.createURI(DCAT_NS + "startDate"),
+            NodeFactory.createURI("https://schema.org/startDate"),
+            NodeFactory.createURI("http://schema.org/startDate") };
+    private static final Node[] ENDS = {
+            NodeFactory.createURI(DCAT_NS + "endDate"),
+            NodeFactory.createURI("https://schema.org/endDate"),
+            NodeFactory.createURI("http://schema.org/endDate") };
+    private static final Node HAS_BEGINNING = NodeFactory.createURI(TIME_NS + "hasBeginning");
+    private static final Node HAS_END = NodeFactory.createURI(TIME_NS + "hasEnd");
+    private static final Node[] INSTANTS = {
+            NodeFactory.createURI(TIME_NS + "inXSDDateTimeStamp"),
+            NodeFactory.createURI(TIME_NS + "inXSDDateTime"),
+            NodeFactory.createURI(TIME_NS + "inXSDDate") };
+
+    /** WKT: optional CRS IRI, geometry type, optional Z/M, coordinate text */
+    private static final Pattern WKT = Pattern.compile(
+            "^\\s*(?:<([^>]*)>)?\\s*([A-Za-z]+)\\s*(ZM|Z|M)?\\s*\\((.*)\\)\\s*$", Pattern.DOTALL);
+    private static final Pattern NUMBER = Pattern.compile("[-+]?(?:\\d+\\.?\\d*|\\.\\d+)(?:[eE][-+]?\\d+)?");
+
+    /** Written for an open start or end of a period */
+    private static final String OPEN = "..";
+
+    private OfferingCoverage() {
+    }
+
+    /**
+     * The bounding boxes of the spatial coverage of an offering
+     *
+     * @param gazetteer Locates GeoNames URIs, or null
+     */
+    public static List<double[]> boxes(Graph offering, Gazetteer gazetteer) {
+        List<double[]> boxes = new ArrayList<>();
+        Iterator<Node> locations = offering.find(Node.ANY, SPATIAL, Node.ANY).mapWith(t -> t.getObject());
+        while (locations.hasNext()) {
+            Node location = locations.next();
+            double[] box = location.isLiteral() ? parseWkt(location.getLiteralLexicalForm())
+                    : geometry(offering, location);
+            String uri = location.isURI() ? location.getURI()
+                    : location.isLiteral() ? location.getLiteralLexicalForm() : null;
+            if (box == null && uri != null && gazetteer != null) {
+                double[] point = gazetteer.locate(uri);
+                box = point != null ? new double[] { point[0], point[1], point[0], point[1] } : null;
+            }
+            double[] found = box;
+            if (found != null && boxes.stream().noneMatch(b -> Arrays.equals(b, found))) {
+                boxes.add(found);
+            }
+        }
+        return boxes;
+    }
+
+    /**
+     * The periods of the temporal coverage of an offering, as {start, end}
+     * with null for an open side
+     */
+    public static List<Instant[]> periods(Graph offering) {
+        List<Instant[]> periods = new ArrayList<>();
+        Iterator<Node> temporals = offering.find(Node.ANY, TEMPORAL, Node.ANY).mapWith(t -> t.getObject());
+        while (temporals.hasNext()) {
+            Node period = temporals.next();
+            if (period.isLiteral()) {
+                continue;
+            }
+            Instant start = bound(offering, period, STARTS, HAS_BEGINNING, false);
+            Instant end = bound(offering, period, ENDS, HAS_END, true);
+            if (start != null || end != null) {
+                periods.add(new Instant[] { start, end });
+            }
+        }
+        return periods;
+    }
+
+    /**
+     * The bounding box of a WKT literal (CRS84 longitude/latitude unless an
+     * EPSG:4326 CRS IRI gives latitude first), or null if it is not WKT or not
+     * within longitude and latitude bounds
+     */
+    public static double[] parseWkt(String wkt) {
+        Matcher matcher = WKT.matcher(wkt);
+        if (!matcher.matches()) {
+            return null;
+        }
+        String crs = matcher.group(1);
+        boolean latitudeFirst = crs != null && crs.contains("EPSG/0/4326");
+        String type = matcher.group(2).toUpperCase();
+        String modifier = matcher.group(3);
+        int dimensions = modifier == null ? 2 : modifier.length() + 2;
+        List<Double> numbers = new ArrayList<>();
+        Matcher number = NUMBER.matcher(matcher.group(4));
+        while (number.find()) {
+            numbers.add(Double.parseDouble(number.group()));
+        }
+        double[] box;
+        if ("ENVELOPE".equals(type)) {
+            // ENVELOPE(minX, maxX, maxY, minY)
+            if (numbers.size() != 4) {
+                return null;
+            }
+            box = new double[] { numbers.get(0), numbers.get(3), numbers.get(1), numbers.get(2) };
+        } else {
+            if (numbers.isEmpty() || numbers.size() % dimensions != 0) {
+                return null;
+            }
+            box = new double[] { Double.MAX_VALUE, Double.MAX_VALUE, -Double.MAX_VALUE, -Double.MAX_VALUE };
+            for (int i = 0; i < numbers.size(); i += dimensions) {
+                double x = numbers.get(latitudeFirst ? i + 1 : i);
+                double y = numbers.get(latitudeFirst ? i : i + 1);
+                box[0] = Math.min(box[0], x);
+                box[1] = Math.min(box[1], y);
+                box[2] = Math.max(box[2], x);
+                box[3] = Math.max(box[3], y);
+            }
+        }
+        boolean valid = box[0] >= -180 && box[2] <= 180 && box[1] >= -90 && box[3] <= 90 && box[0] <= box[2]
+                && box[1] <= box[3];
+        return valid ? box : null;
+    }
+
+    /**
+     * A period bound as a date: xsd:dateTime, xsd:date, xsd:gYearMonth or
+     * xsd:gYear. The end of a date, month or year is the last instant in it.
+     */
+    public static Instant parseBound(String lexical, boolean end) {
+        String text = lexical.trim();
+        try {
+            if (text.matches("-?\\d{4}")) {
+                Year year = Year.parse(text);
+                return end ? year.plusYears(1).atDay(1).atStartOfDay(ZoneOffset.UTC).toInstant().minusNanos(1)
+                        : year.atDay(1).atStartOfDay(ZoneOffset.UTC).toInstant();
+            }
+            if (text.matches("\\d{4}-\\d{2}")) {
+                YearMonth month = YearMonth.parse(text);
+                return end ? month.plusMonths(1).atDay(1).atStartOfDay(ZoneOffset.UTC).toInstant().minusNanos(1)
+                        : month.atDay(1).atStartOfDay(ZoneOffset.UTC).toInstant();
+            }
+            if (end && text.matches("\\d{4}-\\d{2}-\\d{2}")) {
+                return LocalDate.parse(text).plusDays(1).atStartOfDay(ZoneOffset.UTC).toInstant().minusNanos(1);
+            }
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+        return OfferingIndex.parseDate(text);
+    }
+
+    /**
+     * A bounding box as stored in the index: "minLon minLat maxLon maxLat"
+     */
+    static String formatBox(double[] box) {
+        return box[0] + " " + box[1] + " " + box[2] + " " + box[3];
+    }
+
+    static double[] parseBox(String text) {
+        String[] parts = text.trim().split("\\s+");
+        if (parts.length != 4) {
+            return null;
+        }
+        try {
+            return new double[] { Double.parseDouble(parts[0]), Double.parseDouble(parts[1]),
+                    Double.parseDouble(parts[2]), Double.parseDouble(parts[3]) };
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * A period as stored in the index: an ISO 8601 interval "start/end", with
+     * ".." for an open side
+     */
+    static String formatPeriod(Instant[] period) {
+        return (period[0] != null ? period[0].toString() : OPEN) + "/" + (period[1] != null ? period[1].toString() : OPEN);
+    }
+
+    static Instant[] parsePeriod(String text) {
+        int slash = text.indexOf('/');
+        if (slash < 0) {
+            return null;
+        }
+        try {
+            String start = text.substring(0, slash);
+            String end = text.substring(slash + 1);
+            return new Instant[] { OPEN.equals(start) ? null : Instant.parse(start),
+                    OPEN.equals(end) ? null : Instant.parse(end) };
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    private static double[] geometry(Graph offering, Node location) {
+        for (Node predicate : GEOMETRIES) {
+            double[] box = firstWkt(offering, location, predicate);
+            if (box != null) {
+                return box;
+            }
+        }
+        Iterator<Node> geometries = offering.find(location, HAS_GEOMETRY, Node.ANY).mapWith(t -> t.getObject());
+        while (geometries.hasNext()) {
+            double[] box = firstWkt(offering, geometries.next(), GEOMETRIES[2]);
+            if (box != null) {
+                return box;
+            }
+        }
+        return null;
+    }
+
+    private static double[] firstWkt(Graph offering, Node subject, Node predicate) {
+        Iterator<Node> values = offering.find(subject, predicate, Node.ANY).mapWith(t -> t.getObject());
+        while (values.hasNext()) {
+            Node value = values.next();
+            double[] box = value.isLiteral() ? parseWkt(value.getLiteralLexicalForm()) : null;
+            if (box != null) {
+                return box;
+            }
+        }
+        return null;
+    }
+
+    private static Instant bound(Graph offering, Node period, Node[] predicates, Node instantPredicate, boolean end) {
+        for (Node predicate : predicates) {
+            Instant bound = firstDate(offering, period, predicate, end);
+            if (bound != null) {
+                return bound;
+            }
+        }
+        Iterator<Node> instants = offering.find(period, instantPredicate, Node.ANY).mapWith(t -> t.getObject());
+        while (instants.hasNext()) {
+            Node instant = instants.next();
+            for (Node predicate : INSTANTS) {
+                Instant bound = firstDate(offering, instant, predicate, end);
+                if (bound != null) {
+                    return bound;
+                }
+            }
+        }
+        return null;
+    }
+
+    private static Instant firstDate(Graph offering, Node subject, Node predicate, boolean end) {
+        Iterator<Node> values = offering.find(subject, predicate, Node.ANY).mapWith(t -> t.getObject());
+        while (values.hasNext()) {
+            Node value = values.next();
+            Instant date = value.isLiteral() ? parseBound(value.getLiteralLexicalForm(), end) : null;
+            if (date != null) {
+                return date;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,146 @@
+/*
+ * SEDIMARK Catalogue Server
+ *
+ * Copyright (C) 2025 Tarek Elsaleh
+ *
+ * This program is licensed under the European Union Public License (EUPL) v1.2.
+ * You may obtain a copy of the License at:
+ * https://joinup.ec.europa.eu/collection/eupl/eupl-text-eupl-12
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.sedimark.catalogue.storage;
+
+import org.apache.jena.graph.Node;
+import org.apache.jena.query.Dataset;
+import org.apache.jena.sparql.core.DatasetGraph;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * The offerings by spatial and temporal coverage, for "offerings within this
+ * bounding box and time window" searches.
+ *
+ * The bounding boxes and periods are those recorded in {@link OfferingIndex},
+ * loaded at startup and then kept up to date from offering changes, in two
+ * {@link RegionTree}s: a quadtree over longitude and latitude and a bintree over
+ * time. A search visits only the tree nodes around the searched box or window,
+ * so it takes milliseconds however many offerings there are, where SPARQL
+ * FILTERs compare the coverage literals of every offering.
+ *
+ * On a replica the trees are updated from the replicated index (see
+ * {@link LoadedOfferingIndex}).
+ */
+public class OfferingCoverageIndex extends LoadedOfferingIndex<OfferingCoverageIndex.Trees> {
+
+    private static final double[] WORLD_MIN = { -180, -90 };
+    private static final double[] WORLD_MAX = { 180, 90 };
+    /** About 40 m at the equator */
+    private static final int SPATIAL_DEPTH = 20;
+
+    private static final double TIME_MIN = Instant.parse("0001-01-01T00:00:00Z").getEpochSecond();
+    private static final double TIME_MAX = Instant.parse("9999-12-31T23:59:59Z").getEpochSecond();
+    /** About a minute */
+    private static final int TEMPORAL_DEPTH = 32;
+
+    /**
+     * @param dataset The dataset holding the offering index
+     */
+    public OfferingCoverageIndex(Dataset dataset) {
+        super(dataset, new Trees());
+    }
+
+    @Override
+    protected Trees create() {
+        return new Trees();
+    }
+
+    @Override
+    protected void add(DatasetGraph dsg, Node graphName, Trees into) {
+        OfferingIndex.forEachBox(dsg, graphName, into::addBox);
+        OfferingIndex.forEachPeriod(dsg, graphName, into::addPeriod);
+    }
+
+    @Override
+    protected void remove(Trees from, String graphName) {
+        from.remove(graphName);
+    }
+
+    @Override
+    protected String describe(Trees loaded) {
+        return "the spatial coverage of " + loaded.spatial.size() + " and the temporal coverage of "
+                + loaded.temporal.size() + " offerings";
+    }
+
+    /**
+     * The offerings whose coverage intersects a bounding box and a time window
+     *
+     * @param bbox {minLongitude, minLatitude, maxLongitude, maxLatitude}, with
+     *             minLongitude greater than maxLongitude for a box across the
+     *             antimeridian; null for any location
+     * @param from Start of the time window, or null
+     * @param to   End of the time window, or null
+     * @return The graph names, sorted
+     */
+    public NavigableSet<String> search(double[] bbox, Instant from, Instant to) {
+        Trees current = current();
+        NavigableSet<String> found = new TreeSet<>();
+        if (bbox != null) {
+            if (bbox[0] <= bbox[2]) {
+                current.spatial.search(new double[] { bbox[0], bbox[1] }, new double[] { bbox[2], bbox[3] },
+                        found::add);
+            } else {
+                current.spatial.search(new double[] { bbox[0], bbox[1] }, new double[] { 180, bbox[3] }, found::add);
+                current.spatial.search(new double[] { -180, bbox[1] }, new double[] { bbox[2], bbox[3] }, found::add);
+            }
+        }
+        if (from != null || to != null) {
+            Set<String> spatial = bbox != null ? found : null;
+            NavigableSet<String> both = new TreeSet<>();
+            current.temporal.search(new double[] { from != null ? seconds(from) : TIME_MIN },
+                    new double[] { to != null ? seconds(to) : TIME_MAX }, graph -> {
+                        if (spatial == null || spatial.contains(graph)) {
+                            both.add(graph);
+                        }
+                    });
+            found = both;
+        }
+        return found;
+    }
+
+    private static double seconds(Instant instant) {
+        return instant.getEpochSecond() + instant.getNano() / 1e9;
+    }
+
+    /**
+     * The trees, replaced as a whole when reloaded
+     */
+    static class Trees {
+        final RegionTree spatial = new RegionTree(WORLD_MIN, WORLD_MAX, SPATIAL_DEPTH);
+        final RegionTree temporal = new RegionTree(new double[] { TIME_MIN }, new double[] { TIME_MAX },
+                TEMPORAL_DEPTH);
+
+        void addBox(String graph, double[] box) {
+            spatial.add(graph, new double[] { box[0], box[1] }, new double[] { box[2], box[3] });
+        }
+
+        void addPeriod(String graph, Instant[] period) {
+            temporal.add(graph, new double[] { period[0] != null ? seconds(period[0]) : TIME_MIN },
+                    new double[] { period[1] != null ? seconds(period[1]) : TIME_MAX });
+        }
+
+        void remove(String graph) {
+            spatial.remove(graph);
+            temporal.remove(graph);
+        }
+    }
+}
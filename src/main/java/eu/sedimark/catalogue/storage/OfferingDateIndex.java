@@ -0,0 +1,201 @@
+/*
+ * SEDIMARK Catalogue Server
+ *
+ * Copyright (C) 2025 Tarek Elsaleh
+ *
+ * This program is licensed under the European Union Public License (EUPL) v1.2.
+ * You may obtain a copy of the License at:
+ * https://joinup.ec.europa.eu/collection/eupl/eupl-text-eupl-12
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.sedimark.catalogue.storage;
+
+import org.apache.jena.graph.Node;
+import org.apache.jena.query.Dataset;
+import org.apache.jena.sparql.core.DatasetGraph;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.function.Predicate;
+
+import eu.sedimark.catalogue.storage.OfferingIndex.DateField;
+
+/**
+ * The offerings sorted newest first by issue and by modification date, for
+ * keyset pagination of "latest offerings" listings.
+ *
+ * The dates are those recorded in {@link OfferingIndex}, loaded at startup and
+ * then kept up to date from offering changes. A page starts after the last
+ * entry of the previous one (the cursor: its date and graph name) with a seek in
+ * a skip list, so every page costs the same however deep it is and however many
+ * offerings there are, unlike ORDER BY with OFFSET, which sorts every matching
+ * offering and skips the earlier pages for each request. Offerings without the
+ * date are not listed by it.
+ *
+ * On a replica the dates are updated from the replicated index (see
+ * {@link LoadedOfferingIndex}).
+ */
+public class OfferingDateIndex extends LoadedOfferingIndex<OfferingDateIndex.Sorted> {
+
+    /** Newest first; offerings with the same date in graph name order */
+    private static final Comparator<Entry> NEWEST_FIRST = Comparator.comparing(Entry::date).reversed()
+            .thenComparing(Entry::graph);
+
+    /**
+     * @param dataset The dataset holding the offering index
+     */
+    public OfferingDateIndex(Dataset dataset) {
+        super(dataset, new Sorted());
+    }
+
+    @Override
+    protected Sorted create() {
+        return new Sorted();
+    }
+
+    @Override
+    protected void add(DatasetGraph dsg, Node graphName, Sorted into) {
+        for (DateField field : DateField.values()) {
+            OfferingIndex.forEachDate(dsg, graphName, field, (graph, date) -> into.put(field, graph, date));
+        }
+    }
+
+    @Override
+    protected void remove(Sorted from, String graphName) {
+        from.remove(graphName);
+    }
+
+    @Override
+    protected String describe(Sorted loaded) {
+        return loaded.current.get(DateField.ISSUED).size() + " issue and "
+                + loaded.current.get(DateField.MODIFIED).size() + " modification dates of offerings";
+    }
+
+    /**
+     * A page of offerings, newest first
+     *
+     * @param field  The date to sort by
+     * @param cursor The cursor of the previous page, or null for the first
+     * @param limit  Offerings on the page
+     * @param since  Only offerings from this date on, or null
+     * @param until  Only offerings up to this date, or null
+     * @param filter Only offerings (graph names) it accepts, or null
+     * @throws IllegalArgumentException If the cursor is not valid
+     */
+    public Page page(DateField field, String cursor, int limit, Instant since, Instant until,
+            Predicate<String> filter) {
+        Sorted sorted = current();
+        NavigableSet<Entry> entries = sorted.byDate.get(field);
+        Entry after = cursor != null ? decodeCursor(cursor) : null;
+        if (after != null) {
+            entries = entries.tailSet(after, false);
+        }
+        if (until != null) {
+            // Sorts before every offering at until, and after every newer one
+            Entry start = new Entry(until, "");
+            if (after == null || NEWEST_FIRST.compare(start, after) > 0) {
+                entries = sorted.byDate.get(field).tailSet(start, true);
+            }
+        }
+        List<Entry> page = new ArrayList<>(limit);
+        boolean more = false;
+        for (Entry entry : entries) {
+            if (since != null && entry.date().isBefore(since)) {
+                break;
+            }
+            if (filter != null && !filter.test(entry.graph())) {
+                continue;
+            }
+            if (page.size() == limit) {
+                more = true;
+                break;
+            }
+            page.add(entry);
+        }
+        String next = more ? encodeCursor(page.get(page.size() - 1)) : null;
+        return new Page(page, next);
+    }
+
+    /**
+     * Number of offerings with a date
+     */
+    public int size(DateField field) {
+        return current().current.get(field).size();
+    }
+
+    private static String encodeCursor(Entry entry) {
+        String key = entry.date() + " " + entry.graph();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(key.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Entry decodeCursor(String cursor) {
+        try {
+            String key = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int space = key.indexOf(' ');
+            return new Entry(Instant.parse(key.substring(0, space)), key.substring(space + 1));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
+    }
+
+    /**
+     * An offering at its date
+     */
+    public record Entry(Instant date, String graph) {
+    }
+
+    /**
+     * A page of offerings, with the cursor of the next page (null on the last)
+     */
+    public record Page(List<Entry> entries, String next) {
+    }
+
+    /**
+     * The sorted dates, replaced as a whole when reloaded
+     */
+    static class Sorted {
+        final Map<DateField, ConcurrentSkipListSet<Entry>> byDate = new EnumMap<>(DateField.class);
+        /** The date each offering is sorted at, to find its entry when it changes */
+        final Map<DateField, Map<String, Instant>> current = new EnumMap<>(DateField.class);
+
+        Sorted() {
+            for (DateField field : DateField.values()) {
+                byDate.put(field, new ConcurrentSkipListSet<>(NEWEST_FIRST));
+                current.put(field, new ConcurrentHashMap<>());
+            }
+        }
+
+        void put(DateField field, String graph, Instant date) {
+            Instant previous = current.get(field).put(graph, date);
+            if (previous != null) {
+                byDate.get(field).remove(new Entry(previous, graph));
+            }
+            byDate.get(field).add(new Entry(date, graph));
+        }
+
+        void remove(String graph) {
+            for (DateField field : DateField.values()) {
+                Instant previous = current.get(field).remove(graph);
+                if (previous != null) {
+                    byDate.get(field).remove(new Entry(previous, graph));
+                }
+            }
+        }
+    }
+}
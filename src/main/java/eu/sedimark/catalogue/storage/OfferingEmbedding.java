@@ -0,0 +1,174 @@
+/*
+ * SEDIMARK Catalogue Server
+ *
+ * Copyright (C) 2025 Tarek Elsaleh
+ *
+ * This program is licensed under the European Union Public License (EUPL) v1.2.
+ * You may obtain a copy of the License at:
+ * https://joinup.ec.europa.eu/collection/eupl/eupl-text-eupl-12
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.sedimark.catalogue.storage;
+
+import org.apache.jena.graph.Graph;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.graph.Triple;
+
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * The description of an offering as a vector, for "offerings like this one"
+ * searches with {@link OfferingSimilarityIndex}.
+ *
+ * The text of the offering and its assets (titles, descriptions, keywords,
+ * labels and theme names) is split into words, and each word and each pair of
+ * consecutive words is hashed to one of {@link #DIMENSIONS} components with a
+ * hashed sign (feature hashing), weighted by the logarithm of its count. The
+ * cosine of two vectors measures how much vocabulary two offerings share; as only
+ * the direction counts, components are quantized to a signed byte each, the
+ * largest to 127. It needs no vocabulary or model and depends on the offering
+ * alone, so it is computed as the offering is stored.
+ */
+public final class OfferingEmbedding {
+
+    /** Components of a vector */
+    public static final int DIMENSIONS = 256;
+
+    private static final String DCT_NS = "http://purl.org/dc/terms/";
+    private static final String DCAT_NS = "http://www.w3.org/ns/dcat#";
+    private static final String RDFS_NS = "http://www.w3.org/2000/01/rdf-schema#";
+    private static final String SKOS_NS = "http://www.w3.org/2004/02/skos/core#";
+    private static final Node[] TEXT = {
+            NodeFactory.createURI(DCT_NS + "title"),
+            NodeFactory.createURI(DCT_NS + "description"),
+            NodeFactory.createURI(DCT_NS + "subject"),
+            NodeFactory.createURI(DCAT_NS + "keyword"),
+            NodeFactory.createURI(DCAT_NS + "theme"),
+            NodeFactory.createURI(RDFS_NS + "label"),
+            NodeFactory.createURI(RDFS_NS + "comment"),
+            NodeFactory.createURI(SKOS_NS + "prefLabel"),
+            NodeFactory.createURI(SKOS_NS + "altLabel"),
+            NodeFactory.createURI("https://schema.org/name"),
+            NodeFactory.createURI("https://schema.org/description"),
+            NodeFactory.createURI("https://schema.org/keywords"),
+            NodeFactory.createURI("http://schema.org/name"),
+            NodeFactory.createURI("http://schema.org/description"),
+            NodeFactory.createURI("http://schema.org/keywords") };
+
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final Pattern CAMEL_CASE = Pattern.compile("(?<=\\p{Ll})(?=\\p{Lu})");
+    private static final Set<String> STOP_WORDS = Set.of("a", "an", "and", "are", "as", "at", "be", "by", "for",
+            "from", "has", "in", "is", "it", "its", "of", "on", "or", "that", "the", "this", "to", "was", "with");
+    private static final float BIGRAM_WEIGHT = 0.5f;
+
+    private OfferingEmbedding() {
+    }
+
+    /**
+     * The vector of an offering, or null if it has no text
+     *
+     * @param offering The full offering graph
+     */
+    public static byte[] embed(Graph offering) {
+        Map<String, Integer> counts = new HashMap<>();
+        for (Node predicate : TEXT) {
+            Iterator<Triple> triples = offering.find(Node.ANY, predicate, Node.ANY);
+            while (triples.hasNext()) {
+                Node object = triples.next().getObject();
+                if (object.isLiteral()) {
+                    count(object.getLiteralLexicalForm(), counts);
+                } else if (object.isURI()) {
+                    // A theme or subject concept, by the words of its local name
+                    count(CAMEL_CASE.matcher(object.getLocalName()).replaceAll(" "), counts);
+                }
+            }
+        }
+        if (counts.isEmpty()) {
+            return null;
+        }
+        float[] vector = new float[DIMENSIONS];
+        counts.forEach((feature, count) -> {
+            int hash = mix(feature.hashCode());
+            float weight = (float) (1 + Math.log(count)) * (feature.indexOf(' ') >= 0 ? BIGRAM_WEIGHT : 1);
+            vector[hash & (DIMENSIONS - 1)] += hash < 0 ? -weight : weight;
+        });
+        return quantize(vector);
+    }
+
+    /**
+     * A vector as the lexical form of its index entry
+     */
+    public static String encode(byte[] vector) {
+        return Base64.getEncoder().encodeToString(vector);
+    }
+
+    /**
+     * A vector from the lexical form of its index entry, or null if it is not one
+     */
+    public static byte[] decode(String lexical) {
+        try {
+            byte[] vector = Base64.getDecoder().decode(lexical.trim());
+            return vector.length == DIMENSIONS ? vector : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static void count(String text, Map<String, Integer> counts) {
+        String previous = null;
+        for (String word : SEPARATORS.split(text.toLowerCase(Locale.ROOT))) {
+            if (word.length() < 2 || STOP_WORDS.contains(word)) {
+                continue;
+            }
+            counts.merge(word, 1, Integer::sum);
+            if (previous != null) {
+                counts.merge(previous + ' ' + word, 1, Integer::sum);
+            }
+            previous = word;
+        }
+    }
+
+    /**
+     * Spreads the bits of a string hash (the MurmurHash3 finalizer), as words
+     * differing in their last characters have close String hash codes
+     */
+    private static int mix(int hash) {
+        hash ^= hash >>> 16;
+        hash *= 0x85ebca6b;
+        hash ^= hash >>> 13;
+        hash *= 0xc2b2ae35;
+        hash ^= hash >>> 16;
+        return hash;
+    }
+
+    /**
+     * Scales the largest component to 127 and rounds
+     */
+    private static byte[] quantize(float[] vector) {
+        float largest = 0;
+        for (float component : vector) {
+            largest = Math.max(largest, Math.abs(component));
+        }
+        if (largest == 0) {
+            return null;
+        }
+        byte[] quantized = new byte[vector.length];
+        for (int i = 0; i < vector.length; i++) {
+            quantized[i] = (byte) Math.round(vector[i] * 127 / largest);
+        }
+        return quantized;
+    }
+}
@@ -0,0 +1,463 @@
+/*
+ * SEDIMARK Catalogue Server
+ *
+ * Copyright (C) 2025 Tarek Elsaleh
+ *
+ * This program is licensed under the European Union Public License (EUPL) v1.2.
+ * You may obtain a copy of the License at:
+ * https://joinup.ec.europa.eu/collection/eupl/eupl-text-eupl-12
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.sedimark.catalogue.storage;
+
+import org.apache.jena.datatypes.xsd.XSDDatatype;
+import org.apache.jena.graph.Graph;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.sparql.core.DatasetGraph;
+import org.apache.jena.sparql.core.Quad;
+import org.apache.jena.vocabulary.RDF;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+import eu.sedimark.catalogue.utils.SystemGraphs;
+
+/**
+ * Secondary indexes of the offerings by participant, asset and self-listing,
+ * kept in the system graph {@link SystemGraphs#INDEX}.
+ *
+ * Each entry is a statement {@code <key> idx:assetOf <offering>} (likewise
+ * participantOf and selfListingOf), written in the same transaction as the
+ * offering, so the index is persisted, snapshotted and replicated with the data.
+ * With the key as subject, "the offerings of participant X" is a range scan of
+ * the store's graph-subject-predicate index instead of a scan of every offering
+ * graph, and with the offering as object the entries of an offering are found
+ * through the graph-object index when it is replaced or deleted.
+ *
+ * The issue and modification dates of each offering are recorded the same way,
+ * as {@code <offering> idx:issued "..."^^xsd:dateTime}; {@link OfferingDateIndex}
+ * keeps them sorted for newest-first listing. So is its spatial and temporal
+ * coverage ({@link OfferingCoverage}), as {@code <offering> idx:bbox "minLon minLat
+ * maxLon maxLat"} and {@code <offering> idx:period "start/end"}, searched with
+ * {@link OfferingCoverageIndex}, and the vector of its description
+ * ({@link OfferingEmbedding}), as {@code <offering> idx:vector "base64"}, searched
+ * with {@link OfferingSimilarityIndex}.
+ */
+public class OfferingIndex {
+    private static final Logger logger = LoggerFactory.getLogger(OfferingIndex.class);
+
+    /** Name of the graph holding the index entries */
+    public static final Node GRAPH = NodeFactory.createURI(SystemGraphs.INDEX);
+
+    private static final String SEDIMARK_NS = "https://w3id.org/sedimark/ontology#";
+    private static final Node HAS_ASSET = NodeFactory.createURI(SEDIMARK_NS + "hasAsset");
+    private static final Node OFFERS = NodeFactory.createURI(SEDIMARK_NS + "offers");
+    private static final Node ASSET = NodeFactory.createURI(SEDIMARK_NS + "Asset");
+    private static final Node IS_LISTED_BY = NodeFactory.createURI(SEDIMARK_NS + "isListedBy");
+    private static final Node HAS_SELF_LISTING = NodeFactory.createURI(SEDIMARK_NS + "hasSelfListing");
+    private static final Node HAS_OFFERING = NodeFactory.createURI(SEDIMARK_NS + "hasOffering");
+    private static final Node SELF_LISTING = NodeFactory.createURI(SEDIMARK_NS + "Self-Listing");
+    private static final Node BELONGS_TO = NodeFactory.createURI(SEDIMARK_NS + "belongsTo");
+
+    private static final Node ISSUED = NodeFactory.createURI("http://purl.org/dc/terms/issued");
+    private static final Node MODIFIED = NodeFactory.createURI("http://purl.org/dc/terms/modified");
+
+    /** Marks an index that covers every offering, with the version of its layout */
+    private static final Node BUILT = NodeFactory.createURI(SystemGraphs.NS + "indexBuilt");
+
+    /** Layout version; an index built with an older layout is rebuilt */
+    private static final Node VERSION = NodeFactory.createLiteralDT("4", XSDDatatype.XSDinteger);
+
+    private static final Node BBOX = NodeFactory.createURI(SystemGraphs.NS + "bbox");
+    private static final Node PERIOD = NodeFactory.createURI(SystemGraphs.NS + "period");
+    private static final Node VECTOR = NodeFactory.createURI(SystemGraphs.NS + "vector");
+
+    private final Gazetteer gazetteer;
+
+    /**
+     * @param gazetteer Locates spatial coverage given as GeoNames URIs, or null
+     */
+    public OfferingIndex(Gazetteer gazetteer) {
+        this.gazetteer = gazetteer;
+    }
+
+    /**
+     * What the offerings are indexed by
+     */
+    public enum Key {
+        PARTICIPANT("participant", "participantOf"),
+        ASSET("asset", "assetOf"),
+        SELF_LISTING("selfListing", "selfListingOf");
+
+        private final String parameter;
+        private final Node predicate;
+
+        Key(String parameter, String predicate) {
+            this.parameter = parameter;
+            this.predicate = NodeFactory.createURI(SystemGraphs.NS + predicate);
+        }
+
+        /** Name of the key in requests and responses */
+        public String getParameter() {
+            return parameter;
+        }
+    }
+
+    /**
+     * The dates an offering is sorted by
+     */
+    public enum DateField {
+        ISSUED("issued", OfferingIndex.ISSUED),
+        MODIFIED("modified", OfferingIndex.MODIFIED);
+
+        private final String parameter;
+        private final Node source;
+        private final Node predicate;
+
+        DateField(String parameter, Node source) {
+            this.parameter = parameter;
+            this.source = source;
+            this.predicate = NodeFactory.createURI(SystemGraphs.NS + parameter);
+        }
+
+        /** Name of the date in requests and responses */
+        public String getParameter() {
+            return parameter;
+        }
+
+        /**
+         * The field with this name, or null
+         */
+        public static DateField forParameter(String parameter) {
+            for (DateField field : values()) {
+                if (field.parameter.equalsIgnoreCase(parameter)) {
+                    return field;
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Index an offering, replacing its previous entries. Must be called in a
+     * write transaction.
+     *
+     * @param offering The full offering graph, before shared entities or
+     *                 deduplicated statements are split off
+     */
+    public void index(DatasetGraph dsg, Node graphName, Graph offering) {
+        remove(dsg, graphName);
+        Set<Node> selfListings = selfListings(offering, graphName);
+
+        Set<Node> participants = new LinkedHashSet<>();
+        objects(offering, graphName, BELONGS_TO, participants);
+        for (Node selfListing : selfListings) {
+            objects(offering, selfListing, BELONGS_TO, participants);
+        }
+
+        Set<Node> assets = new LinkedHashSet<>();
+        objects(offering, graphName, HAS_ASSET, assets);
+        objects(offering, graphName, OFFERS, assets);
+        offering.find(Node.ANY, RDF.Nodes.type, ASSET).forEachRemaining(t -> addUri(assets, t.getSubject()));
+
+        add(dsg, Key.SELF_LISTING, selfListings, graphName);
+        add(dsg, Key.PARTICIPANT, participants, graphName);
+        add(dsg, Key.ASSET, assets, graphName);
+        dates(offering, graphName).forEach((field, date) -> dsg.add(GRAPH, graphName, field.predicate,
+                NodeFactory.createLiteralDT(date.toString(), XSDDatatype.XSDdateTime)));
+        for (double[] box : OfferingCoverage.boxes(offering, gazetteer)) {
+            dsg.add(GRAPH, graphName, BBOX, NodeFactory.createLiteralString(OfferingCoverage.formatBox(box)));
+        }
+        for (Instant[] period : OfferingCoverage.periods(offering)) {
+            dsg.add(GRAPH, graphName, PERIOD, NodeFactory.createLiteralString(OfferingCoverage.formatPeriod(period)));
+        }
+        byte[] vector = OfferingEmbedding.embed(offering);
+        if (vector != null) {
+            dsg.add(GRAPH, graphName, VECTOR, NodeFactory.createLiteralString(OfferingEmbedding.encode(vector)));
+        }
+    }
+
+    /**
+     * The dates of an offering: its own dct:issued and dct:modified, or else
+     * those of its self-listing. The latest is taken if there are several.
+     *
+     * @param offering The full offering graph
+     */
+    public static Map<DateField, Instant> dates(Graph offering, Node graphName) {
+        Map<DateField, Instant> dates = new EnumMap<>(DateField.class);
+        Set<Node> selfListings = null;
+        for (DateField field : DateField.values()) {
+            Instant date = latest(offering, graphName, field.source);
+            if (date == null) {
+                if (selfListings == null) {
+                    selfListings = selfListings(offering, graphName);
+                }
+                for (Node selfListing : selfListings) {
+                    Instant listed = latest(offering, selfListing, field.source);
+                    if (listed != null && (date == null || listed.isAfter(date))) {
+                        date = listed;
+                    }
+                }
+            }
+            if (date != null) {
+                dates.put(field, date);
+            }
+        }
+        return dates;
+    }
+
+    /**
+     * The indexed date of an offering, or of every offering with {@link Node#ANY},
+     * e.g. to load them into {@link OfferingDateIndex}. Must be called in a
+     * transaction.
+     */
+    public static void forEachDate(DatasetGraph dsg, Node graphName, DateField field,
+            BiConsumer<String, Instant> action) {
+        dsg.find(GRAPH, graphName, field.predicate, Node.ANY).forEachRemaining(quad -> {
+            Instant date = parseDate(quad.getObject());
+            if (date != null && quad.getSubject().isURI()) {
+                action.accept(quad.getSubject().getURI(), date);
+            }
+        });
+    }
+
+    /**
+     * The indexed bounding boxes of an offering, or of every offering with
+     * {@link Node#ANY}. Must be called in a transaction.
+     */
+    public static void forEachBox(DatasetGraph dsg, Node graphName, BiConsumer<String, double[]> action) {
+        dsg.find(GRAPH, graphName, BBOX, Node.ANY).forEachRemaining(quad -> {
+            double[] box = quad.getObject().isLiteral()
+                    ? OfferingCoverage.parseBox(quad.getObject().getLiteralLexicalForm()) : null;
+            if (box != null && quad.getSubject().isURI()) {
+                action.accept(quad.getSubject().getURI(), box);
+            }
+        });
+    }
+
+    /**
+     * The indexed periods of an offering, or of every offering with
+     * {@link Node#ANY}. Must be called in a transaction.
+     */
+    public static void forEachPeriod(DatasetGraph dsg, Node graphName, BiConsumer<String, Instant[]> action) {
+        dsg.find(GRAPH, graphName, PERIOD, Node.ANY).forEachRemaining(quad -> {
+            Instant[] period = quad.getObject().isLiteral()
+                    ? OfferingCoverage.parsePeriod(quad.getObject().getLiteralLexicalForm()) : null;
+            if (period != null && quad.getSubject().isURI()) {
+                action.accept(quad.getSubject().getURI(), period);
+            }
+        });
+    }
+
+    /**
+     * The indexed description vector of an offering, or of every offering with
+     * {@link Node#ANY}. Must be called in a transaction.
+     */
+    public static void forEachVector(DatasetGraph dsg, Node graphName, BiConsumer<String, byte[]> action) {
+        dsg.find(GRAPH, graphName, VECTOR, Node.ANY).forEachRemaining(quad -> {
+            byte[] vector = quad.getObject().isLiteral()
+                    ? OfferingEmbedding.decode(quad.getObject().getLiteralLexicalForm()) : null;
+            if (vector != null && quad.getSubject().isURI()) {
+                action.accept(quad.getSubject().getURI(), vector);
+            }
+        });
+    }
+
+    /**
+     * The instant of an xsd:dateTime or xsd:date literal, or of a plain literal
+     * in either form; null if it is not a date
+     */
+    public static Instant parseDate(Node node) {
+        return node.isLiteral() ? parseDate(node.getLiteralLexicalForm()) : null;
+    }
+
+    /**
+     * The instant of an xsd:dateTime or xsd:date lexical form, e.g. a request
+     * parameter; null if it is not a date
+     */
+    public static Instant parseDate(String lexical) {
+        lexical = lexical.trim();
+        try {
+            return OffsetDateTime.parse(lexical).toInstant();
+        } catch (DateTimeParseException e) {
+            // Not a date-time with an offset
+        }
+        try {
+            return LocalDateTime.parse(lexical).toInstant(ZoneOffset.UTC);
+        } catch (DateTimeParseException e) {
+            // Not a local date-time
+        }
+        try {
+            return LocalDate.parse(lexical).atStartOfDay(ZoneOffset.UTC).toInstant();
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Remove the entries of an offering. Must be called in a write transaction.
+     */
+    public void remove(DatasetGraph dsg, Node graphName) {
+        for (Key key : Key.values()) {
+            dsg.deleteAny(GRAPH, Node.ANY, key.predicate, graphName);
+        }
+        for (DateField field : DateField.values()) {
+            dsg.deleteAny(GRAPH, graphName, field.predicate, Node.ANY);
+        }
+        dsg.deleteAny(GRAPH, graphName, BBOX, Node.ANY);
+        dsg.deleteAny(GRAPH, graphName, PERIOD, Node.ANY);
+        dsg.deleteAny(GRAPH, graphName, VECTOR, Node.ANY);
+    }
+
+    /**
+     * Whether the index covers every offering, i.e. it was built or rebuilt with
+     * the current layout and maintained since. Must be called in a transaction.
+     */
+    public static boolean isBuilt(DatasetGraph dsg) {
+        return dsg.contains(GRAPH, GRAPH, BUILT, VERSION);
+    }
+
+    /**
+     * Index every offering graph from scratch. Must be called in a write
+     * transaction.
+     *
+     * @return Number of offerings indexed
+     */
+    public int rebuild(DatasetGraph dsg) {
+        dsg.deleteAny(GRAPH, Node.ANY, Node.ANY, Node.ANY);
+        List<Node> offerings = new ArrayList<>();
+        dsg.listGraphNodes().forEachRemaining(graphName -> {
+            if (graphName.isURI() && !SystemGraphs.isSystemGraph(graphName.getURI())) {
+                offerings.add(graphName);
+            }
+        });
+        for (Node graphName : offerings) {
+            index(dsg, graphName, SharedEntityGraph.expand(dsg, graphName));
+        }
+        dsg.add(GRAPH, GRAPH, BUILT, VERSION);
+        logger.info("Indexed {} offerings by participant, asset and self-listing", offerings.size());
+        return offerings.size();
+    }
+
+    /**
+     * Drop the index, e.g. because offerings are no longer indexed as they are
+     * stored. Must be called in a write transaction.
+     */
+    public static void drop(DatasetGraph dsg) {
+        dsg.deleteAny(GRAPH, Node.ANY, Node.ANY, Node.ANY);
+    }
+
+    /**
+     * The offerings indexed under a key value, e.g. the offerings of a
+     * participant. Must be called in a transaction.
+     */
+    public static List<String> lookup(DatasetGraph dsg, Key key, String value) {
+        List<String> offerings = new ArrayList<>();
+        Iterator<Quad> entries = dsg.find(GRAPH, NodeFactory.createURI(value), key.predicate, Node.ANY);
+        entries.forEachRemaining(quad -> offerings.add(quad.getObject().getURI()));
+        return offerings;
+    }
+
+    /**
+     * The key values an offering is indexed under, e.g. its assets. Must be
+     * called in a transaction.
+     */
+    public static List<String> keysOf(DatasetGraph dsg, Key key, String graphName) {
+        List<String> values = new ArrayList<>();
+        Iterator<Quad> entries = dsg.find(GRAPH, Node.ANY, key.predicate, NodeFactory.createURI(graphName));
+        entries.forEachRemaining(quad -> values.add(quad.getSubject().getURI()));
+        return values;
+    }
+
+    /**
+     * Offering graphs with a statement (?s predicate object), or linking to a
+     * shared or deduplicated entity that has one, found by scanning the
+     * statements with that predicate and object. Must be called in a transaction.
+     */
+    public static Set<String> scan(DatasetGraph dsg, Node predicate, Node object) {
+        Set<String> offerings = new LinkedHashSet<>();
+        Set<Node> sharedSubjects = new HashSet<>();
+        dsg.find(Node.ANY, Node.ANY, predicate, object).forEachRemaining(quad -> {
+            Node graph = quad.getGraph();
+            if (!graph.isURI() || Quad.isDefaultGraph(graph)) {
+                return;
+            }
+            if (SystemGraphs.isSystemGraph(graph.getURI())) {
+                if (!graph.equals(GRAPH)) {
+                    sharedSubjects.add(quad.getSubject());
+                }
+            } else {
+                offerings.add(graph.getURI());
+            }
+        });
+        for (Node subject : sharedSubjects) {
+            dsg.find(Node.ANY, Node.ANY, Node.ANY, subject).forEachRemaining(quad -> {
+                Node graph = quad.getGraph();
+                if (graph.isURI() && !Quad.isDefaultGraph(graph) && !SystemGraphs.isSystemGraph(graph.getURI())) {
+                    offerings.add(graph.getURI());
+                }
+            });
+        }
+        return offerings;
+    }
+
+    private static Set<Node> selfListings(Graph offering, Node graphName) {
+        Set<Node> selfListings = new LinkedHashSet<>();
+        objects(offering, graphName, IS_LISTED_BY, selfListings);
+        objects(offering, graphName, HAS_SELF_LISTING, selfListings);
+        offering.find(Node.ANY, HAS_OFFERING, graphName).forEachRemaining(t -> addUri(selfListings, t.getSubject()));
+        offering.find(Node.ANY, RDF.Nodes.type, SELF_LISTING).forEachRemaining(t -> addUri(selfListings, t.getSubject()));
+        return selfListings;
+    }
+
+    private static Instant latest(Graph graph, Node subject, Node predicate) {
+        Instant latest = null;
+        Iterator<Triple> triples = graph.find(subject, predicate, Node.ANY);
+        while (triples.hasNext()) {
+            Instant date = parseDate(triples.next().getObject());
+            if (date != null && (latest == null || date.isAfter(latest))) {
+                latest = date;
+            }
+        }
+        return latest;
+    }
+
+    private static void objects(Graph graph, Node subject, Node predicate, Set<Node> into) {
+        graph.find(subject, predicate, Node.ANY).forEachRemaining(t -> addUri(into, t.getObject()));
+    }
+
+    private static void addUri(Set<Node> into, Node node) {
+        if (node.isURI()) {
+            into.add(node);
+        }
+    }
+
+    private static void add(DatasetGraph dsg, Key key, Set<Node> values, Node graphName) {
+        for (Node value : values) {
+            dsg.add(GRAPH, value, key.predicate, graphName);
+        }
+    }
+}
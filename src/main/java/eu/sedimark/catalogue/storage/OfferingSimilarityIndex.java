@@ -0,0 +1,104 @@
+/*
+ * SEDIMARK Catalogue Server
+ *
+ * Copyright (C) 2025 Tarek Elsaleh
+ *
+ * This program is licensed under the European Union Public License (EUPL) v1.2.
+ * You may obtain a copy of the License at:
+ * https://joinup.ec.europa.eu/collection/eupl/eupl-text-eupl-12
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.sedimark.catalogue.storage;
+
+import org.apache.jena.graph.Node;
+import org.apache.jena.query.Dataset;
+import org.apache.jena.sparql.core.DatasetGraph;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The offerings by the vectors of their descriptions, for "offerings like this
+ * one" searches.
+ *
+ * The vectors are those recorded in {@link OfferingIndex} (see
+ * {@link OfferingEmbedding}), loaded at startup into an HNSW graph
+ * ({@link VectorGraph}) and then kept up to date from offering changes. Finding
+ * the offerings most similar to one compares its vector with a few hundred
+ * others rather than with every offering, so it takes milliseconds however large
+ * the catalogue.
+ *
+ * On a replica the vectors of the offerings changed by the applied patches are
+ * replaced in the graph, which is only rebuilt if the primary rebuilt its index
+ * (see {@link LoadedOfferingIndex}).
+ */
+public class OfferingSimilarityIndex extends LoadedOfferingIndex<VectorGraph> {
+
+    /** Links of a node; twice as many on the bottom layer */
+    private static final int LINKS = 16;
+    private static final int EF_CONSTRUCTION = 100;
+    private static final int EF_SEARCH = 64;
+
+    /**
+     * An offering found similar and the cosine similarity of their vectors
+     */
+    public record Match(String graph, double score) {
+    }
+
+    /**
+     * @param dataset The dataset holding the offering index
+     */
+    public OfferingSimilarityIndex(Dataset dataset) {
+        super(dataset, newGraph());
+    }
+
+    @Override
+    protected VectorGraph create() {
+        return newGraph();
+    }
+
+    @Override
+    protected void add(DatasetGraph dsg, Node graphName, VectorGraph into) {
+        OfferingIndex.forEachVector(dsg, graphName, into::add);
+    }
+
+    @Override
+    protected void remove(VectorGraph from, String graphName) {
+        from.remove(graphName);
+    }
+
+    @Override
+    protected String describe(VectorGraph loaded) {
+        return "the description vectors of " + loaded.size() + " offerings";
+    }
+
+    /**
+     * The offerings most similar to an offering, most similar first
+     *
+     * @param graphName The offering
+     * @param limit     Offerings to return
+     * @return The matches, or null if the offering has no vector (it is not
+     *         stored or has no text)
+     */
+    public List<Match> similar(String graphName, int limit) {
+        List<VectorGraph.Neighbour> neighbours = current().nearest(graphName, limit, Math.max(EF_SEARCH, limit));
+        if (neighbours == null) {
+            return null;
+        }
+        List<Match> matches = new ArrayList<>(neighbours.size());
+        for (VectorGraph.Neighbour neighbour : neighbours) {
+            matches.add(new Match(neighbour.key(), neighbour.similarity()));
+        }
+        return matches;
+    }
+
+    private static VectorGraph newGraph() {
+        return new VectorGraph(OfferingEmbedding.DIMENSIONS, LINKS, EF_CONSTRUCTION);
+    }
+}
@@ -0,0 +1,297 @@
+/*
+ * SEDIMARK Catalogue Server
+ *
+ * Copyright (C) 2025 Tarek Elsaleh
+ *
+ * This program is licensed under the European Union Public License (EUPL) v1.2.
+ * You may obtain a copy of the License at:
+ * https://joinup.ec.europa.eu/collection/eupl/eupl-text-eupl-12
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.sedimark.catalogue.storage;
+
+import org.apache.jena.datatypes.xsd.XSDDatatype;
+import org.apache.jena.graph.Graph;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.riot.out.NodeFmtLib;
+import org.apache.jena.sparql.core.DatasetGraph;
+import org.apache.jena.sparql.core.Quad;
+import org.apache.jena.sparql.graph.GraphFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import eu.sedimark.catalogue.utils.SystemGraphs;
+
+/**
+ * Deduplicated storage: a statement found in several offering graphs (the same
+ * participant, vocabulary or contact details copied into each offering) is stored
+ * once, in the reference graph {@link SystemGraphs#REFERENCE}, instead of in every
+ * one of them.
+ *
+ * The bookkeeping graph {@link SystemGraphs#REFCOUNTS} holds, for each
+ * deduplicated statement, the number of offerings using it, and for each
+ * offering a single statement listing the (hashed) deduplicated statements it
+ * uses. That list keeps {@link #expand} exact and lets a deletion decrement the
+ * right counts; a statement is removed from the reference graph when its count
+ * drops to zero.
+ *
+ * Only statements reachable from the offering (through URI and blank node
+ * objects) and without blank nodes are deduplicated, and a statement is only
+ * taken out of another offering's graph if it is reachable there too, as
+ * {@link #expand} puts back what it reaches; the offering's own statements (with
+ * the offering as subject) always stay in its graph.
+ *
+ * Looking for a statement in the other offering graphs reads every named graph
+ * inside the write transaction, so on a {@link ShardedDatasetGraph} storing with
+ * deduplication write-locks every shard and such writes run one at a time.
+ */
+public class ReferenceGraph {
+    private static final Logger logger = LoggerFactory.getLogger(ReferenceGraph.class);
+
+    /** Name of the graph holding the deduplicated statements */
+    public static final Node GRAPH = NodeFactory.createURI(SystemGraphs.REFERENCE);
+
+    private static final Node REFCOUNTS = NodeFactory.createURI(SystemGraphs.REFCOUNTS);
+    private static final Node COUNT = NodeFactory.createURI(SystemGraphs.NS + "count");
+    private static final Node REFERENCES = NodeFactory.createURI(SystemGraphs.NS + "references");
+    private static final String REF_PREFIX = SystemGraphs.PREFIX + "ref:";
+
+    /**
+     * Store an offering graph, keeping statements that other offerings also have
+     * in the reference graph only. Must be called in a write transaction, after
+     * any previous version of the offering has been released.
+     *
+     * @return Number of statements deduplicated
+     */
+    public int store(DatasetGraph dsg, Node graphName, Graph offering) {
+        Set<Node> reachable = reachable(offering, graphName);
+        Set<String> used = new LinkedHashSet<>();
+        Map<Node, Set<String>> movedFrom = new HashMap<>();
+        Map<Node, Set<Node>> reachableInOthers = new HashMap<>();
+
+        Iterator<Triple> triples = offering.find();
+        while (triples.hasNext()) {
+            Triple t = triples.next();
+            if (!isCandidate(t, graphName, reachable)) {
+                dsg.add(graphName, t.getSubject(), t.getPredicate(), t.getObject());
+                continue;
+            }
+            String hash = hash(t);
+            long count = count(dsg, hash);
+            if (count > 0) {
+                setCount(dsg, hash, count + 1);
+                used.add(hash);
+                continue;
+            }
+
+            // Not deduplicated yet: is it in other offering graphs?
+            List<Node> others = new ArrayList<>();
+            dsg.findNG(Node.ANY, t.getSubject(), t.getPredicate(), t.getObject()).forEachRemaining(q -> {
+                Node g = q.getGraph();
+                if (g.isURI() && !g.equals(graphName) && !SystemGraphs.isSystemGraph(g.getURI())) {
+                    others.add(g);
+                }
+            });
+            // Computed before anything is moved out of that graph
+            others.removeIf(g -> !reachableInOthers.computeIfAbsent(g, o -> reachable(expand(dsg, o), o))
+                    .contains(t.getSubject()));
+            if (others.isEmpty()) {
+                dsg.add(graphName, t.getSubject(), t.getPredicate(), t.getObject());
+                continue;
+            }
+            for (Node other : others) {
+                dsg.delete(other, t.getSubject(), t.getPredicate(), t.getObject());
+                movedFrom.computeIfAbsent(other, g -> new LinkedHashSet<>()).add(hash);
+            }
+            dsg.add(GRAPH, t.getSubject(), t.getPredicate(), t.getObject());
+            setCount(dsg, hash, others.size() + 1);
+            used.add(hash);
+        }
+
+        for (Map.Entry<Node, Set<String>> entry : movedFrom.entrySet()) {
+            Set<String> references = references(dsg, entry.getKey());
+            references.addAll(entry.getValue());
+            setReferences(dsg, entry.getKey(), references);
+        }
+        setReferences(dsg, graphName, used);
+        if (!used.isEmpty()) {
+            logger.info("Graph {}: {} of {} statements stored once in the reference graph", graphName, used.size(),
+                    offering.size());
+        }
+        return used.size();
+    }
+
+    /**
+     * Release the deduplicated statements of an offering that is about to be
+     * replaced or deleted, removing those no other offering uses. Must be called
+     * in a write transaction, before the offering graph is removed.
+     */
+    public void release(DatasetGraph dsg, Node graphName) {
+        Set<String> references = references(dsg, graphName);
+        if (references.isEmpty()) {
+            return;
+        }
+        int removed = 0;
+        for (Triple t : referenced(dsg, graphName, references)) {
+            String hash = hash(t);
+            long count = count(dsg, hash) - 1;
+            if (count > 0) {
+                setCount(dsg, hash, count);
+            } else {
+                dsg.delete(GRAPH, t.getSubject(), t.getPredicate(), t.getObject());
+                dsg.deleteAny(REFCOUNTS, refNode(hash), Node.ANY, Node.ANY);
+                removed++;
+            }
+        }
+        dsg.deleteAny(REFCOUNTS, graphName, REFERENCES, Node.ANY);
+        logger.debug("Graph {}: released {} deduplicated statements, {} no longer used", graphName,
+                references.size(), removed);
+    }
+
+    /**
+     * The full view of an offering graph, with its deduplicated statements.
+     * Returns the stored graph itself if it has none. Must be called in a
+     * transaction.
+     */
+    public static Graph expand(DatasetGraph dsg, Node graphName) {
+        Graph stored = dsg.getGraph(graphName);
+        if (!dsg.containsGraph(REFCOUNTS)) {
+            return stored;
+        }
+        Set<String> references = references(dsg, graphName);
+        if (references.isEmpty()) {
+            return stored;
+        }
+        Graph view = GraphFactory.createDefaultGraph();
+        stored.find().forEachRemaining(view::add);
+        referenced(dsg, graphName, references).forEach(view::add);
+        return view;
+    }
+
+    /**
+     * The deduplicated statements an offering uses: those in its list that are
+     * reachable from the offering through its own and its deduplicated statements
+     */
+    private static List<Triple> referenced(DatasetGraph dsg, Node graphName, Set<String> references) {
+        List<Triple> found = new ArrayList<>();
+        Set<Node> seen = new HashSet<>();
+        Deque<Node> pending = new ArrayDeque<>();
+        seen.add(graphName);
+        pending.add(graphName);
+        while (!pending.isEmpty() && found.size() < references.size()) {
+            Node node = pending.poll();
+            List<Node> next = new ArrayList<>();
+            dsg.find(graphName, node, Node.ANY, Node.ANY).forEachRemaining(q -> next.add(q.getObject()));
+            Iterator<Quad> candidates = dsg.find(GRAPH, node, Node.ANY, Node.ANY);
+            while (candidates.hasNext()) {
+                Triple t = candidates.next().asTriple();
+                if (references.contains(hash(t))) {
+                    found.add(t);
+                    next.add(t.getObject());
+                }
+            }
+            for (Node o : next) {
+                if ((o.isURI() || o.isBlank()) && seen.add(o)) {
+                    pending.add(o);
+                }
+            }
+        }
+        return found;
+    }
+
+    private static boolean isCandidate(Triple t, Node graphName, Set<Node> reachable) {
+        return !t.getSubject().equals(graphName) && reachable.contains(t.getSubject())
+                && !t.getSubject().isBlank() && !t.getObject().isBlank();
+    }
+
+    /**
+     * Resources reachable from the offering through URI and blank node objects
+     */
+    private static Set<Node> reachable(Graph graph, Node start) {
+        Set<Node> reached = new HashSet<>();
+        Deque<Node> pending = new ArrayDeque<>();
+        reached.add(start);
+        pending.add(start);
+        while (!pending.isEmpty()) {
+            Node node = pending.poll();
+            graph.find(node, Node.ANY, Node.ANY).forEachRemaining(t -> {
+                Node o = t.getObject();
+                if ((o.isURI() || o.isBlank()) && reached.add(o)) {
+                    pending.add(o);
+                }
+            });
+        }
+        return reached;
+    }
+
+    private static long count(DatasetGraph dsg, String hash) {
+        Iterator<Quad> counts = dsg.find(REFCOUNTS, refNode(hash), COUNT, Node.ANY);
+        return counts.hasNext() ? Long.parseLong(counts.next().getObject().getLiteralLexicalForm()) : 0;
+    }
+
+    private static void setCount(DatasetGraph dsg, String hash, long count) {
+        Node ref = refNode(hash);
+        dsg.deleteAny(REFCOUNTS, ref, COUNT, Node.ANY);
+        dsg.add(REFCOUNTS, ref, COUNT, NodeFactory.createLiteralDT(Long.toString(count), XSDDatatype.XSDlong));
+    }
+
+    private static Set<String> references(DatasetGraph dsg, Node graphName) {
+        Set<String> references = new LinkedHashSet<>();
+        Iterator<Quad> lists = dsg.find(REFCOUNTS, graphName, REFERENCES, Node.ANY);
+        if (lists.hasNext()) {
+            for (String hash : lists.next().getObject().getLiteralLexicalForm().split(" ")) {
+                if (!hash.isEmpty()) {
+                    references.add(hash);
+                }
+            }
+        }
+        return references;
+    }
+
+    private static void setReferences(DatasetGraph dsg, Node graphName, Set<String> references) {
+        dsg.deleteAny(REFCOUNTS, graphName, REFERENCES, Node.ANY);
+        if (!references.isEmpty()) {
+            dsg.add(REFCOUNTS, graphName, REFERENCES, NodeFactory.createLiteralString(String.join(" ", references)));
+        }
+    }
+
+    private static Node refNode(String hash) {
+        return NodeFactory.createURI(REF_PREFIX + hash);
+    }
+
+    /**
+     * Short hash of a statement's N-Triples form
+     */
+    static String hash(Triple t) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] bytes = digest.digest(NodeFmtLib.str(t).getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(bytes, 0, 8);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
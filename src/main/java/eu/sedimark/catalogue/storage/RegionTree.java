@@ -0,0 +1,208 @@
+/*
+ * SEDIMARK Catalogue Server
+ *
+ * Copyright (C) 2025 Tarek Elsaleh
+ *
+ * This program is licensed under the European Union Public License (EUPL) v1.2.
+ * You may obtain a copy of the License at:
+ * https://joinup.ec.europa.eu/collection/eupl/eupl-text-eupl-12
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.sedimark.catalogue.storage;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * An in-memory index of boxes (intervals in one dimension, rectangles in two)
+ * under string keys, answering "which keys have a box intersecting this one".
+ *
+ * It is a loose region tree (a bintree in one dimension, a quadtree in two):
+ * each node covers a cell of the domain, halved in every dimension at each level,
+ * and holds the boxes whose centre is in its cell and whose size fits the cell.
+ * Node bounds are the cell extended by half its size on every side, so a box is
+ * never held high up the tree just because it straddles a cell boundary. A search
+ * only visits the nodes whose bounds intersect the searched box, so its cost
+ * grows with the depth of the tree and the number of boxes found, not with the
+ * number of boxes indexed. Boxes are added and removed in place.
+ */
+class RegionTree {
+
+    private final int dimensions;
+    private final int maxDepth;
+    private final Node root;
+    private final Map<String, List<Placed>> placed = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * @param lower    Lower corner of the domain
+     * @param upper    Upper corner of the domain
+     * @param maxDepth Levels below the root
+     */
+    RegionTree(double[] lower, double[] upper, int maxDepth) {
+        this.dimensions = lower.length;
+        this.maxDepth = maxDepth;
+        this.root = new Node(lower.clone(), upper.clone());
+    }
+
+    /**
+     * Add a box under a key; a key may have several boxes
+     */
+    void add(String key, double[] min, double[] max) {
+        double[] lo = clamp(min);
+        double[] hi = clamp(max);
+        lock.writeLock().lock();
+        try {
+            Node node = root;
+            for (int depth = 0; depth < maxDepth; depth++) {
+                int child = 0;
+                boolean fits = true;
+                for (int d = 0; d < dimensions; d++) {
+                    double half = (node.upper[d] - node.lower[d]) / 2;
+                    if (hi[d] - lo[d] > half) {
+                        fits = false;
+                        break;
+                    }
+                    if ((lo[d] + hi[d]) / 2 >= node.lower[d] + half) {
+                        child |= 1 << d;
+                    }
+                }
+                if (!fits) {
+                    break;
+                }
+                node = node.child(child);
+            }
+            Box box = new Box(key, lo, hi);
+            node.boxes.add(box);
+            placed.computeIfAbsent(key, k -> new ArrayList<>(1)).add(new Placed(node, box));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Remove every box of a key
+     */
+    void remove(String key) {
+        lock.writeLock().lock();
+        try {
+            List<Placed> boxes = placed.remove(key);
+            if (boxes != null) {
+                for (Placed box : boxes) {
+                    box.node.boxes.remove(box.box);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Call the action with each key that has a box intersecting the given one
+     * (once per intersecting box)
+     */
+    void search(double[] min, double[] max, Consumer<String> action) {
+        lock.readLock().lock();
+        try {
+            search(root, min, max, action);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Number of keys with boxes
+     */
+    int size() {
+        lock.readLock().lock();
+        try {
+            return placed.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void search(Node node, double[] min, double[] max, Consumer<String> action) {
+        for (int d = 0; d < dimensions; d++) {
+            double slack = (node.upper[d] - node.lower[d]) / 2;
+            if (max[d] < node.lower[d] - slack || min[d] > node.upper[d] + slack) {
+                return;
+            }
+        }
+        for (Box box : node.boxes) {
+            if (box.intersects(min, max)) {
+                action.accept(box.key);
+            }
+        }
+        if (node.children != null) {
+            for (Node child : node.children) {
+                if (child != null) {
+                    search(child, min, max, action);
+                }
+            }
+        }
+    }
+
+    private double[] clamp(double[] point) {
+        double[] clamped = new double[dimensions];
+        for (int d = 0; d < dimensions; d++) {
+            clamped[d] = Math.max(root.lower[d], Math.min(root.upper[d], point[d]));
+        }
+        return clamped;
+    }
+
+    private final class Node {
+        final double[] lower;
+        final double[] upper;
+        final List<Box> boxes = new ArrayList<>(0);
+        Node[] children;
+
+        Node(double[] lower, double[] upper) {
+            this.lower = lower;
+            this.upper = upper;
+        }
+
+        Node child(int index) {
+            if (children == null) {
+                children = new Node[1 << dimensions];
+            }
+            if (children[index] == null) {
+                double[] lo = new double[dimensions];
+                double[] hi = new double[dimensions];
+                for (int d = 0; d < dimensions; d++) {
+                    double middle = (lower[d] + upper[d]) / 2;
+                    boolean upperHalf = (index & (1 << d)) != 0;
+                    lo[d] = upperHalf ? middle : lower[d];
+                    hi[d] = upperHalf ? upper[d] : middle;
+                }
+                children[index] = new Node(lo, hi);
+            }
+            return children[index];
+        }
+    }
+
+    private record Box(String key, double[] min, double[] max) {
+        boolean intersects(double[] lo, double[] hi) {
+            for (int d = 0; d < min.length; d++) {
+                if (max[d] < lo[d] || min[d] > hi[d]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    private record Placed(Node node, Box box) {
+    }
+}
@@ -0,0 +1,199 @@
+/*
+ * SEDIMARK Catalogue Server
+ *
+ * Copyright (C) 2025 Tarek Elsaleh
+ *
+ * This program is licensed under the European Union Public License (EUPL) v1.2.
+ * You may obtain a copy of the License at:
+ * https://joinup.ec.europa.eu/collection/eupl/eupl-text-eupl-12
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.sedimark.catalogue.storage;
+
+import org.apache.jena.atlas.iterator.Iter;
+import org.apache.jena.atlas.iterator.IteratorCloseable;
+import org.apache.jena.query.ReadWrite;
+import org.apache.jena.sparql.JenaTransactionException;
+import org.apache.jena.sparql.core.DatasetGraph;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Iterator over the results of one find on every shard, read in parallel: a
+ * worker per shard runs the find in its own read transaction and hands results
+ * over in batches, at most {@link #QUEUE_BATCHES} waiting at a time, so a slow
+ * consumer holds back the workers instead of buffering whole shards.
+ *
+ * The end of each worker (done, failed, or given up waiting for the consumer)
+ * is always handed over, so the consumer sees every row or an exception, never
+ * a silently shortened result.
+ */
+class ScatterIterator<T> implements IteratorCloseable<T> {
+    private static final int BATCH_SIZE = 256;
+    private static final int QUEUE_BATCHES = 16;
+    // a worker whose results are not taken for this long assumes the consumer is gone
+    private static final long ABANDON_SECONDS = 60;
+
+    private static final Object DONE = new Object();
+
+    // batches take a permit, the end of a worker does not and is never refused
+    private final BlockingQueue<Object> queue = new LinkedBlockingQueue<>();
+    private final Semaphore permits = new Semaphore(QUEUE_BATCHES);
+    private final List<Future<?>> workers = new ArrayList<>();
+    private volatile boolean closed = false;
+    private int running;
+    private Iterator<T> batch = Iter.nullIterator();
+
+    ScatterIterator(DatasetGraph[] shards, Function<DatasetGraph, Iterator<T>> find, ExecutorService executor) {
+        this.running = shards.length;
+        for (int i = 0; i < shards.length; i++) {
+            DatasetGraph shard = shards[i];
+            int index = i;
+            workers.add(executor.submit(() -> scan(index, shard, find)));
+        }
+    }
+
+    /**
+     * Run some work on a shard in a read transaction of the calling thread
+     */
+    static <R> R read(DatasetGraph shard, Function<DatasetGraph, R> work) {
+        shard.begin(ReadWrite.READ);
+        try {
+            return work.apply(shard);
+        } finally {
+            shard.end();
+        }
+    }
+
+    private void scan(int index, DatasetGraph shard, Function<DatasetGraph, Iterator<T>> find) {
+        Object end = DONE;
+        try {
+            read(shard, s -> {
+                Iterator<T> it = find.apply(s);
+                try {
+                    List<T> chunk = new ArrayList<>(BATCH_SIZE);
+                    while (!closed && it.hasNext()) {
+                        chunk.add(it.next());
+                        if (chunk.size() == BATCH_SIZE) {
+                            hand(index, chunk);
+                            chunk = new ArrayList<>(BATCH_SIZE);
+                        }
+                    }
+                    if (!chunk.isEmpty()) {
+                        hand(index, chunk);
+                    }
+                } finally {
+                    Iter.close(it);
+                }
+                return null;
+            });
+        } catch (RuntimeException | Error e) {
+            end = e;
+        }
+        queue.add(end);
+    }
+
+    /**
+     * Hand over a batch once the consumer has room for it, or stop this worker
+     * (only) if it does not make room in time
+     */
+    private void hand(int index, List<T> chunk) {
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(ABANDON_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new JenaTransactionException("Interrupted while reading shard " + index);
+        }
+        if (!acquired) {
+            throw new JenaTransactionException("Gave up reading shard " + index + ": its results were not taken for "
+                    + ABANDON_SECONDS + " s");
+        }
+        if (!closed) {
+            queue.add(chunk);
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public boolean hasNext() {
+        while (!batch.hasNext()) {
+            if (running == 0 || closed) {
+                return false;
+            }
+            Object item;
+            try {
+                item = queue.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                close();
+                throw new JenaTransactionException("Interrupted while reading the shards");
+            }
+            if (item == DONE) {
+                running--;
+            } else if (item instanceof Throwable failure) {
+                throw fail(failure);
+            } else {
+                permits.release();
+                batch = ((List<T>) item).iterator();
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Close, and the failure of a worker to throw, with the failures of the
+     * others that have ended too
+     */
+    private RuntimeException fail(Throwable failure) {
+        for (Object item : queue) {
+            if (item instanceof Throwable other) {
+                failure.addSuppressed(other);
+            }
+        }
+        close();
+        if (failure instanceof Error error) {
+            throw error;
+        }
+        return (RuntimeException) failure;
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return batch.next();
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        batch = Iter.nullIterator();
+        queue.clear();
+        for (Future<?> worker : workers) {
+            worker.cancel(false);
+        }
+        // wake the workers waiting for room, which then see the iterator closed
+        permits.release(workers.size());
+    }
+}
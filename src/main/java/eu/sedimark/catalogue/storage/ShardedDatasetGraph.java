@@ -0,0 +1,856 @@
+/*
+ * SEDIMARK Catalogue Server
+ *
+ * Copyright (C) 2025 Tarek Elsaleh
+ *
+ * This program is licensed under the European Union Public License (EUPL) v1.2.
+ * You may obtain a copy of the License at:
+ * https://joinup.ec.europa.eu/collection/eupl/eupl-text-eupl-12
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.sedimark.catalogue.storage;
+
+import org.apache.jena.atlas.iterator.Iter;
+import org.apache.jena.graph.Graph;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.query.ReadWrite;
+import org.apache.jena.query.TxnType;
+import org.apache.jena.rdfpatch.RDFPatch;
+import org.apache.jena.rdfpatch.RDFPatchConst;
+import org.apache.jena.rdfpatch.RDFPatchOps;
+import org.apache.jena.rdfpatch.changes.RDFChangesApply;
+import org.apache.jena.rdfpatch.changes.RDFChangesCollector;
+import org.apache.jena.rdfpatch.changes.RDFChangesExternalTxn;
+import org.apache.jena.rdfpatch.system.DatasetGraphChanges;
+import org.apache.jena.rdfpatch.text.RDFChangesWriterText;
+import org.apache.jena.riot.system.PrefixMap;
+import org.apache.jena.riot.system.PrefixMapWrapper;
+import org.apache.jena.sparql.JenaTransactionException;
+import org.apache.jena.sparql.core.DatasetGraph;
+import org.apache.jena.sparql.core.DatasetGraphFactory;
+import org.apache.jena.sparql.core.DatasetGraphQuads;
+import org.apache.jena.sparql.core.GraphView;
+import org.apache.jena.sparql.core.Quad;
+import org.apache.jena.tdb2.DatabaseMgr;
+import org.apache.jena.tdb2.sys.TDBInternal;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+import eu.sedimark.catalogue.utils.SystemGraphs;
+
+/**
+ * Dataset that spreads the named graphs over N independent stores (TDB2 or
+ * in-memory), choosing the shard of a graph by hashing its name. The default
+ * graph, the prefixes and the system graphs ({@link SystemGraphs}) live on
+ * shard 0.
+ *
+ * Transactions are per thread and begin lazily on each shard that is touched, so
+ * two writers of offerings on different shards hold different write locks and
+ * commit concurrently. Writers that touch several shards out of index order wait
+ * a bounded time for the lower shard and are aborted rather than deadlocking.
+ * When writers also update system graphs (the offering index, shared entities,
+ * deduplication or the patch log state, see {@link #setWritesSystemGraphs}),
+ * every write transaction takes shard 0 first, so they run one at a time
+ * instead.
+ *
+ * A commit commits the touched shards one after the other, shard 0 first. A
+ * transaction holding shard 0 that writes several shards of a TDB2 store first
+ * writes its changes to a journal and records its id on shard 0: once shard 0
+ * has committed, the other shards are brought up to date from the journal if
+ * their commit fails or the process stops before it, so such a transaction is
+ * atomic across the shards. Other transactions are atomic per shard.
+ *
+ * Access with a known graph goes to its shard only. Patterns across graphs are
+ * scatter-gathered: scans are read from all shards in parallel (in read
+ * transactions), lookups with a bound subject and anything inside a write
+ * transaction are read from the shards in turn on the caller's thread.
+ */
+public class ShardedDatasetGraph extends DatasetGraphQuads {
+    private static final Logger logger = LoggerFactory.getLogger(ShardedDatasetGraph.class);
+
+    /** File describing the shard layout of a sharded TDB2 directory */
+    public static final String MANIFEST = "shards.properties";
+    private static final String HASH = "fnv1a-32";
+    /** Where the system graphs are, in the manifest; stores without it hashed them like offerings */
+    private static final String SYSTEM_SHARD = "0";
+    /** Changes of the transaction being committed across shards, in the store directory */
+    static final String JOURNAL = "commit-journal.rdfp";
+
+    private static final Node COMMITS = NodeFactory.createURI(SystemGraphs.SHARDS);
+    private static final Node LAST_TRANSACTION = NodeFactory.createURI(SystemGraphs.NS + "lastTransaction");
+
+    /** How long a writer waits for a shard below one it already writes */
+    private static final long OUT_OF_ORDER_WAIT_SECONDS = 10;
+
+    private final DatasetGraph[] shards;
+    private final ReentrantLock[] writers;
+    private final ThreadLocal<ShardTransaction> transaction = new ThreadLocal<>();
+    private final ExecutorService scatter = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("catalogue-shard-", 0).factory());
+    private final PrefixMap prefixes;
+    private final Path journal;
+    private volatile boolean writesSystemGraphs = false;
+    // set if a transaction could not be completed on a shard after shard 0 committed
+    private volatile String needsRecovery;
+
+    /**
+     * @param shards  The shards
+     * @param journal Journal of transactions across shards, or null for stores
+     *                that do not survive a restart
+     */
+    ShardedDatasetGraph(DatasetGraph[] shards, Path journal) {
+        this.shards = shards;
+        this.journal = journal;
+        this.writers = new ReentrantLock[shards.length];
+        for (int i = 0; i < shards.length; i++) {
+            writers[i] = new ReentrantLock();
+        }
+        this.prefixes = new PrefixMapWrapper(null) {
+            @Override
+            protected PrefixMap getR() {
+                return shard(0).prefixes();
+            }
+
+            @Override
+            protected PrefixMap getW() {
+                return shard(0).prefixes();
+            }
+        };
+    }
+
+    /**
+     * Open (or create) a sharded TDB2 store: one TDB2 database per shard in
+     * shard-NN subdirectories, and a manifest that fixes the number of shards
+     *
+     * @param directory The store directory
+     * @param count     Number of shards, or 0 to use the existing layout
+     */
+    public static ShardedDatasetGraph connectTDB2(Path directory, int count) throws IOException {
+        Files.createDirectories(directory);
+        Path manifest = directory.resolve(MANIFEST);
+        Properties layout = new Properties();
+        if (Files.exists(manifest)) {
+            try (Reader in = Files.newBufferedReader(manifest, StandardCharsets.UTF_8)) {
+                layout.load(in);
+            }
+            int existing = Integer.parseInt(layout.getProperty("shards"));
+            if (!SYSTEM_SHARD.equals(layout.getProperty("system-graphs"))) {
+                throw new IllegalStateException("The store at " + directory + " spreads the system graphs over "
+                        + "its shards; load its offerings into a new sharded store instead");
+            }
+            if (count > 0 && count != existing) {
+                throw new IllegalStateException("The store at " + directory + " has " + existing
+                        + " shards, not " + count + "; resharding an existing store is not supported");
+            }
+            count = existing;
+        } else {
+            if (Files.exists(directory.resolve("Data-0001")) || Files.exists(directory.resolve("tdb.lock"))) {
+                throw new IllegalStateException("The store at " + directory + " is an unsharded TDB2 database; "
+                        + "load its data into a new sharded store instead");
+            }
+            layout.setProperty("shards", Integer.toString(count));
+            layout.setProperty("hash", HASH);
+            layout.setProperty("system-graphs", SYSTEM_SHARD);
+            try (Writer out = Files.newBufferedWriter(manifest, StandardCharsets.UTF_8)) {
+                layout.store(out, "SEDIMARK catalogue shard layout - do not edit");
+            }
+        }
+
+        DatasetGraph[] shards = new DatasetGraph[count];
+        for (int i = 0; i < count; i++) {
+            shards[i] = DatabaseMgr.connectDatasetGraph(directory.resolve(shardName(i)).toString());
+        }
+        logger.info("Opened {} TDB2 shards at {}", count, directory);
+        ShardedDatasetGraph sharded = new ShardedDatasetGraph(shards, directory.resolve(JOURNAL));
+        sharded.recover();
+        return sharded;
+    }
+
+    /**
+     * Create an in-memory store of transactional shards
+     */
+    public static ShardedDatasetGraph createInMemory(int count) {
+        DatasetGraph[] shards = new DatasetGraph[count];
+        for (int i = 0; i < count; i++) {
+            shards[i] = DatasetGraphFactory.createTxnMem();
+        }
+        return new ShardedDatasetGraph(shards, null);
+    }
+
+    /**
+     * Whether a directory holds a sharded store
+     */
+    public static boolean isSharded(Path directory) {
+        return Files.exists(directory.resolve(MANIFEST));
+    }
+
+    private static String shardName(int index) {
+        return String.format("shard-%02d", index);
+    }
+
+    public int getShardCount() {
+        return shards.length;
+    }
+
+    /**
+     * Take shard 0 first in every write transaction, for writers that update
+     * system graphs as well as offering graphs. Writers then run one at a time,
+     * but never reach back to shard 0 while holding another shard, and their
+     * commits are journaled.
+     */
+    public void setWritesSystemGraphs(boolean writesSystemGraphs) {
+        this.writesSystemGraphs = writesSystemGraphs;
+    }
+
+    /**
+     * Shard holding a named graph
+     */
+    public int shardOf(Node graphName) {
+        if (graphName == null || Quad.isDefaultGraph(graphName)) {
+            return 0;
+        }
+        String label = graphName.isURI() ? graphName.getURI() : graphName.toString();
+        if (SystemGraphs.isSystemGraph(label)) {
+            return 0;
+        }
+        int hash = 0x811c9dc5;
+        for (byte b : label.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= 0x01000193;
+        }
+        return Math.floorMod(hash, shards.length);
+    }
+
+    /**
+     * A shard, joined to the calling thread's transaction
+     */
+    private DatasetGraph shard(int index) {
+        ShardTransaction txn = transaction.get();
+        if (txn != null && !txn.begun[index]) {
+            if (txn.mode == ReadWrite.WRITE) {
+                lockForWrite(txn, index);
+            }
+            try {
+                // a promoted transaction writes to the shards it touches from then on
+                shards[index].begin(txn.mode == ReadWrite.WRITE ? TxnType.WRITE : txn.type);
+            } catch (RuntimeException e) {
+                unlock(txn, index);
+                throw e;
+            }
+            txn.begun[index] = true;
+        }
+        return shards[index];
+    }
+
+    /**
+     * Take the writer lock of a shard. Writers taking shards in index order cannot
+     * deadlock; one that reaches back to a lower shard while holding a higher one
+     * only waits a bounded time, and is aborted if that runs out.
+     */
+    private void lockForWrite(ShardTransaction txn, int index) {
+        if (txn.locked[index]) {
+            return;
+        }
+        boolean inOrder = true;
+        for (int i = index + 1; i < shards.length; i++) {
+            inOrder &= !txn.locked[i];
+        }
+        if (inOrder) {
+            writers[index].lock();
+        } else {
+            boolean acquired;
+            try {
+                acquired = writers[index].tryLock(OUT_OF_ORDER_WAIT_SECONDS, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                acquired = false;
+            }
+            if (!acquired) {
+                throw new JenaTransactionException("Timed out waiting to write shard " + index
+                        + " (possible deadlock with another transaction writing several shards)");
+            }
+        }
+        txn.locked[index] = true;
+    }
+
+    private void unlock(ShardTransaction txn, int index) {
+        if (txn.locked[index]) {
+            txn.locked[index] = false;
+            writers[index].unlock();
+        }
+    }
+
+    private DatasetGraph shardFor(Node graphName) {
+        return shard(shardOf(graphName));
+    }
+
+    /**
+     * A shard to write to: its changes are collected for the journal if the
+     * transaction keeps one
+     */
+    private DatasetGraph writeShard(int index) {
+        DatasetGraph shard = shard(index);
+        ShardTransaction txn = transaction.get();
+        if (txn == null || txn.changes == null) {
+            return shard;
+        }
+        txn.written[index] = true;
+        if (txn.journaled[index] == null) {
+            txn.journaled[index] = new DatasetGraphChanges(shard, txn.changes);
+        }
+        return txn.journaled[index];
+    }
+
+    private DatasetGraph writeShardFor(Node graphName) {
+        return writeShard(shardOf(graphName));
+    }
+
+    private static boolean isConcreteGraph(Node g) {
+        return g != null && g != Node.ANY && g.isConcrete() && !Quad.isUnionGraph(g);
+    }
+
+    // ---- Graphs
+
+    @Override
+    public Graph getDefaultGraph() {
+        return GraphView.createDefaultGraph(this);
+    }
+
+    @Override
+    public Graph getGraph(Node graphNode) {
+        return GraphView.createNamedGraph(this, graphNode);
+    }
+
+    @Override
+    public Graph getUnionGraph() {
+        return GraphView.createUnionGraph(this);
+    }
+
+    @Override
+    public boolean containsGraph(Node graphNode) {
+        if (Quad.isDefaultGraph(graphNode) || Quad.isUnionGraph(graphNode)) {
+            return true;
+        }
+        return shardFor(graphNode).containsGraph(graphNode);
+    }
+
+    @Override
+    public void addGraph(Node graphName, Graph graph) {
+        writeShardFor(graphName).addGraph(graphName, graph);
+    }
+
+    @Override
+    public void removeGraph(Node graphName) {
+        writeShardFor(graphName).removeGraph(graphName);
+    }
+
+    @Override
+    public Iterator<Node> listGraphNodes() {
+        List<Node> names = new ArrayList<>();
+        for (List<Node> shardNames : gather(shard -> Iter.toList(shard.listGraphNodes()))) {
+            names.addAll(shardNames);
+        }
+        return names.iterator();
+    }
+
+    // ---- Quads
+
+    @Override
+    public void add(Quad quad) {
+        writeShardFor(quad.getGraph()).add(quad);
+    }
+
+    @Override
+    public void delete(Quad quad) {
+        writeShardFor(quad.getGraph()).delete(quad);
+    }
+
+    @Override
+    public void deleteAny(Node g, Node s, Node p, Node o) {
+        if (isConcreteGraph(g)) {
+            writeShardFor(g).deleteAny(g, s, p, o);
+            return;
+        }
+        for (int i = 0; i < shards.length; i++) {
+            writeShard(i).deleteAny(g, s, p, o);
+        }
+    }
+
+    @Override
+    public boolean contains(Node g, Node s, Node p, Node o) {
+        if (isConcreteGraph(g)) {
+            return shardFor(g).contains(g, s, p, o);
+        }
+        for (int i = 0; i < shards.length; i++) {
+            if (shard(i).contains(g, s, p, o)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public Iterator<Quad> find(Node g, Node s, Node p, Node o) {
+        if (isConcreteGraph(g)) {
+            return shardFor(g).find(g, s, p, o);
+        }
+        Iterator<Quad> quads = scatter(shard -> shard.find(g, s, p, o), s);
+        // The same triple can be in graphs on different shards
+        return g != null && Quad.isUnionGraph(g) ? Iter.distinct(quads) : quads;
+    }
+
+    @Override
+    public Iterator<Quad> findNG(Node g, Node s, Node p, Node o) {
+        if (isConcreteGraph(g)) {
+            return Quad.isDefaultGraph(g) ? Iter.nullIterator() : shardFor(g).findNG(g, s, p, o);
+        }
+        Iterator<Quad> quads = scatter(shard -> shard.findNG(g, s, p, o), s);
+        return g != null && Quad.isUnionGraph(g) ? Iter.distinct(quads) : quads;
+    }
+
+    /**
+     * Run a find on every shard: in parallel for scans in a read transaction (or
+     * outside one), otherwise one shard after the other on this thread
+     */
+    private Iterator<Quad> scatter(Function<DatasetGraph, Iterator<Quad>> find, Node subject) {
+        ShardTransaction txn = transaction.get();
+        boolean scan = subject == null || subject == Node.ANY || !subject.isConcrete();
+        if (shards.length > 1 && scan && (txn == null || txn.mode == ReadWrite.READ)) {
+            return new ScatterIterator<>(shards, find, scatter);
+        }
+        List<Iterator<Quad>> parts = new ArrayList<>(shards.length);
+        for (int i = 0; i < shards.length; i++) {
+            parts.add(find.apply(shard(i)));
+        }
+        return Iter.flatMap(parts.iterator(), part -> part);
+    }
+
+    /**
+     * Collect a result from every shard in parallel, each in its own read
+     * transaction unless the caller's transaction writes
+     */
+    private <T> List<T> gather(Function<DatasetGraph, T> work) {
+        ShardTransaction txn = transaction.get();
+        List<T> results = new ArrayList<>(shards.length);
+        if (shards.length == 1 || (txn != null && txn.mode != ReadWrite.READ)) {
+            for (int i = 0; i < shards.length; i++) {
+                results.add(work.apply(shard(i)));
+            }
+            return results;
+        }
+        List<Future<T>> futures = new ArrayList<>(shards.length);
+        for (DatasetGraph shard : shards) {
+            futures.add(scatter.submit(() -> ScatterIterator.read(shard, work)));
+        }
+        try {
+            for (Future<T> future : futures) {
+                results.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new JenaTransactionException("Interrupted while reading the shards");
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof RuntimeException runtime ? runtime
+                    : new JenaTransactionException(e.getCause().getMessage(), e.getCause());
+        }
+        return results;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return gather(DatasetGraph::isEmpty).stream().allMatch(Boolean::booleanValue);
+    }
+
+    @Override
+    public void clear() {
+        for (int i = 0; i < shards.length; i++) {
+            writeShard(i).deleteAny(Node.ANY, Node.ANY, Node.ANY, Node.ANY);
+        }
+    }
+
+    @Override
+    public PrefixMap prefixes() {
+        return prefixes;
+    }
+
+    // ---- Transactions
+
+    @Override
+    public boolean supportsTransactions() {
+        return true;
+    }
+
+    @Override
+    public boolean supportsTransactionAbort() {
+        return true;
+    }
+
+    @Override
+    public void begin(TxnType type) {
+        if (transaction.get() != null) {
+            throw new JenaTransactionException("Already in a transaction");
+        }
+        ShardTransaction txn = new ShardTransaction(type, shards.length);
+        if (txn.mode == ReadWrite.WRITE) {
+            startWrite(txn);
+        }
+        transaction.set(txn);
+    }
+
+    /**
+     * Make a transaction a writer: take shard 0 first if writers update system
+     * graphs, and collect its changes if it may need the journal
+     */
+    private void startWrite(ShardTransaction txn) {
+        String recovery = needsRecovery;
+        if (recovery != null) {
+            throw new JenaTransactionException(recovery);
+        }
+        if (writesSystemGraphs) {
+            lockForWrite(txn, 0);
+        }
+        if (journal != null && shards.length > 1) {
+            txn.changes = new RDFChangesCollector();
+        }
+    }
+
+    @Override
+    public void begin(ReadWrite readWrite) {
+        begin(TxnType.convert(readWrite));
+    }
+
+    @Override
+    public boolean promote(Promote mode) {
+        ShardTransaction txn = current();
+        if (txn.mode == ReadWrite.WRITE) {
+            return true;
+        }
+        startWrite(txn);
+        for (int i = 0; i < shards.length; i++) {
+            if (txn.begun[i]) {
+                lockForWrite(txn, i);
+                if (!shards[i].promote(mode)) {
+                    return false;
+                }
+            }
+        }
+        txn.mode = ReadWrite.WRITE;
+        return true;
+    }
+
+    @Override
+    public void commit() {
+        ShardTransaction txn = current();
+        RDFPatch journaled = needsJournal(txn) ? writeJournal(txn) : null;
+        RuntimeException failure = null;
+        boolean committed = false;
+        List<Integer> behind = new ArrayList<>();
+        for (int i = 0; i < shards.length; i++) {
+            if (txn.begun[i]) {
+                try {
+                    if (failure == null) {
+                        shards[i].commit();
+                        committed = true;
+                    } else {
+                        shards[i].abort();
+                    }
+                    txn.finished[i] = true;
+                } catch (RuntimeException e) {
+                    if (journaled != null && committed) {
+                        // Past shard 0, the transaction has committed: the shard is caught up below
+                        logger.error("Commit failed on shard {} after shard 0 committed: {}", i, e.getMessage());
+                        behind.add(i);
+                        continue;
+                    }
+                    if (failure == null && committed && txn.mode == ReadWrite.WRITE) {
+                        logger.error("Commit failed on shard {} after other shards of the transaction committed", i);
+                    }
+                    failure = failure != null ? failure : e;
+                }
+            }
+        }
+        if (journaled != null) {
+            if (!committed || failure != null) {
+                deleteJournal();
+            } else {
+                catchUp(txn, journaled, behind);
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Whether a commit goes through the journal: a writer holding shard 0 that
+     * wrote several shards of a persistent store
+     */
+    private boolean needsJournal(ShardTransaction txn) {
+        if (txn.changes == null || !txn.locked[0]) {
+            return false;
+        }
+        int written = 0;
+        for (boolean w : txn.written) {
+            written += w ? 1 : 0;
+        }
+        return written > 1;
+    }
+
+    /**
+     * Write the changes of a transaction to the journal and record its id on
+     * shard 0, which commits first
+     */
+    private RDFPatch writeJournal(ShardTransaction txn) {
+        Node id = NodeFactory.createURI("uuid:" + UUID.randomUUID());
+        RDFPatch patch = txn.changes.getRDFPatch();
+        try (FileChannel channel = FileChannel.open(journal, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            OutputStream out = Channels.newOutputStream(channel);
+            RDFChangesWriterText writer = RDFPatchOps.textWriter(out);
+            writer.start();
+            writer.header(RDFPatchConst.ID, id);
+            patch.apply(writer);
+            writer.finish();
+            out.flush();
+            channel.force(true);
+        } catch (IOException e) {
+            throw new JenaTransactionException("Could not write the commit journal " + journal, e);
+        }
+        DatasetGraph first = shard(0);
+        first.deleteAny(COMMITS, COMMITS, LAST_TRANSACTION, Node.ANY);
+        first.add(COMMITS, COMMITS, LAST_TRANSACTION, id);
+        return patch;
+    }
+
+    /**
+     * Apply the journal to the shards whose commit failed, while the transaction
+     * still holds their locks. If that fails too, writes are refused until a
+     * restart recovers them from the journal.
+     */
+    private void catchUp(ShardTransaction txn, RDFPatch patch, List<Integer> behind) {
+        for (int index : behind) {
+            try {
+                abortQuietly(shards[index]);
+                shards[index].end();
+                txn.begun[index] = false;
+                replay(patch, index);
+                logger.warn("Caught up shard {} from the commit journal", index);
+            } catch (RuntimeException e) {
+                needsRecovery = "Shard " + index + " could not be brought up to date after a failed commit; "
+                        + "restart the catalogue to recover it from " + journal;
+                logger.error(needsRecovery, e);
+                throw new JenaTransactionException(needsRecovery, e);
+            }
+        }
+        deleteJournal();
+    }
+
+    /**
+     * Apply the changes of a journaled transaction that belong to a shard, in a
+     * write transaction of that shard. Applying them to a shard that did commit
+     * the transaction changes nothing.
+     */
+    private void replay(RDFPatch patch, int index) {
+        DatasetGraph shard = shards[index];
+        shard.begin(ReadWrite.WRITE);
+        try {
+            patch.apply(new RDFChangesExternalTxn(new RDFChangesApply(shard) {
+                @Override
+                public void add(Node g, Node s, Node p, Node o) {
+                    if (shardOf(g) == index) {
+                        super.add(g, s, p, o);
+                    }
+                }
+
+                @Override
+                public void delete(Node g, Node s, Node p, Node o) {
+                    if (shardOf(g) == index) {
+                        super.delete(g, s, p, o);
+                    }
+                }
+            }));
+            shard.commit();
+        } catch (RuntimeException e) {
+            abortQuietly(shard);
+            throw e;
+        } finally {
+            shard.end();
+        }
+    }
+
+    /**
+     * Abort a shard whose commit failed, which may have ended its transaction
+     * already
+     */
+    private static void abortQuietly(DatasetGraph shard) {
+        try {
+            shard.abort();
+        } catch (RuntimeException e) {
+            logger.debug("Abort after a failed commit: {}", e.getMessage());
+        }
+    }
+
+    private void deleteJournal() {
+        try {
+            Files.deleteIfExists(journal);
+        } catch (IOException e) {
+            // Replayed at the next start, so nothing may be written after it until then
+            needsRecovery = "Could not remove the commit journal " + journal + "; restart the catalogue";
+            logger.error("{}: {}", needsRecovery, e.getMessage());
+        }
+    }
+
+    /**
+     * Complete the transaction of a journal left by a stop during a commit:
+     * bring the shards up to date if it committed on shard 0, otherwise drop it
+     */
+    void recover() throws IOException {
+        if (journal == null || !Files.exists(journal)) {
+            return;
+        }
+        RDFPatch patch;
+        try (InputStream in = Files.newInputStream(journal)) {
+            patch = RDFPatchOps.read(in);
+        } catch (RuntimeException e) {
+            // Not completely written: shard 0 had not committed
+            logger.info("Dropped an incomplete commit journal: {}", e.getMessage());
+            Files.delete(journal);
+            return;
+        }
+        Node id = patch.getId();
+        boolean committed = id != null
+                && ScatterIterator.read(shards[0], s -> s.contains(COMMITS, COMMITS, LAST_TRANSACTION, id));
+        if (committed) {
+            for (int i = 1; i < shards.length; i++) {
+                replay(patch, i);
+            }
+            logger.warn("Completed transaction {} on every shard from the commit journal", id);
+        } else {
+            logger.info("Dropped the journal of transaction {}, which did not commit", id);
+        }
+        Files.delete(journal);
+    }
+
+    @Override
+    public void abort() {
+        ShardTransaction txn = current();
+        for (int i = 0; i < shards.length; i++) {
+            // after a failed commit, only the shards that did not commit or abort are left
+            if (txn.begun[i] && !txn.finished[i]) {
+                shards[i].abort();
+            }
+        }
+    }
+
+    @Override
+    public void end() {
+        ShardTransaction txn = transaction.get();
+        if (txn == null) {
+            return;
+        }
+        transaction.remove();
+        for (int i = 0; i < shards.length; i++) {
+            try {
+                if (txn.begun[i]) {
+                    shards[i].end();
+                }
+            } finally {
+                unlock(txn, i);
+            }
+        }
+    }
+
+    @Override
+    public boolean isInTransaction() {
+        return transaction.get() != null;
+    }
+
+    @Override
+    public ReadWrite transactionMode() {
+        ShardTransaction txn = transaction.get();
+        return txn != null ? txn.mode : null;
+    }
+
+    @Override
+    public TxnType transactionType() {
+        ShardTransaction txn = transaction.get();
+        return txn != null ? txn.type : null;
+    }
+
+    private ShardTransaction current() {
+        ShardTransaction txn = transaction.get();
+        if (txn == null) {
+            throw new JenaTransactionException("Not in a transaction");
+        }
+        return txn;
+    }
+
+    @Override
+    public void close() {
+        scatter.shutdownNow();
+        for (DatasetGraph shard : shards) {
+            if (TDBInternal.isTDB2(shard)) {
+                TDBInternal.expel(shard);
+            } else {
+                shard.close();
+            }
+        }
+    }
+
+    /**
+     * The calling thread's transaction: its type, current mode, the shards it
+     * has begun on and, for a writer, the changes it made
+     */
+    private static class ShardTransaction {
+        final TxnType type;
+        final boolean[] begun;
+        final boolean[] locked;
+        final boolean[] finished;
+        final boolean[] written;
+        final DatasetGraph[] journaled;
+        ReadWrite mode;
+        // changes of a writer, for the journal; null if it cannot need one
+        RDFChangesCollector changes;
+
+        ShardTransaction(TxnType type, int shards) {
+            this.type = type;
+            this.mode = TxnType.initial(type);
+            this.begun = new boolean[shards];
+            this.locked = new boolean[shards];
+            this.finished = new boolean[shards];
+            this.written = new boolean[shards];
+            this.journaled = new DatasetGraph[shards];
+        }
+    }
+}
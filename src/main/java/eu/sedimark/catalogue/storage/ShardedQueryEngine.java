@@ -0,0 +1,78 @@
+/*
+ * SEDIMARK Catalogue Server
+ *
+ * Copyright (C) 2025 Tarek Elsaleh
+ *
+ * This program is licensed under the European Union Public License (EUPL) v1.2.
+ * You may obtain a copy of the License at:
+ * https://joinup.ec.europa.eu/collection/eupl/eupl-text-eupl-12
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.sedimark.catalogue.storage;
+
+import org.apache.jena.query.Query;
+import org.apache.jena.sparql.algebra.Op;
+import org.apache.jena.sparql.core.DatasetGraph;
+import org.apache.jena.sparql.core.DatasetGraphWrapper;
+import org.apache.jena.sparql.engine.Plan;
+import org.apache.jena.sparql.engine.QueryEngineFactory;
+import org.apache.jena.sparql.engine.QueryEngineRegistry;
+import org.apache.jena.sparql.engine.binding.Binding;
+import org.apache.jena.sparql.engine.main.QueryEngineMainQuad;
+import org.apache.jena.sparql.util.Context;
+
+/**
+ * Query engine for sharded datasets. The general engine evaluates GRAPH ?g by
+ * listing the graphs and querying them one by one; over shards that is a lookup
+ * per offering. Evaluating in quad form instead turns GRAPH ?g patterns into quad
+ * patterns, which the sharded dataset scatter-gathers across the shards in
+ * parallel.
+ */
+public final class ShardedQueryEngine {
+    private static final QueryEngineFactory FACTORY = new QueryEngineFactory() {
+        @Override
+        public boolean accept(Query query, DatasetGraph dataset, Context context) {
+            return isSharded(dataset);
+        }
+
+        @Override
+        public Plan create(Query query, DatasetGraph dataset, Binding inputBinding, Context context) {
+            return QueryEngineMainQuad.getFactory().create(query, dataset, inputBinding, context);
+        }
+
+        @Override
+        public boolean accept(Op op, DatasetGraph dataset, Context context) {
+            return isSharded(dataset);
+        }
+
+        @Override
+        public Plan create(Op op, DatasetGraph dataset, Binding inputBinding, Context context) {
+            return QueryEngineMainQuad.getFactory().create(op, dataset, inputBinding, context);
+        }
+    };
+
+    private static volatile boolean registered = false;
+
+    private ShardedQueryEngine() {
+    }
+
+    /**
+     * Register the engine (once) ahead of the general one
+     */
+    public static synchronized void register() {
+        if (!registered) {
+            QueryEngineRegistry.addFactory(FACTORY);
+            registered = true;
+        }
+    }
+
+    private static boolean isSharded(DatasetGraph dataset) {
+        return dataset != null && DatasetGraphWrapper.unwrap(dataset) instanceof ShardedDatasetGraph;
+    }
+}
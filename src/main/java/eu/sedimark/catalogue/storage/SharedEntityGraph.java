@@ -0,0 +1,253 @@
+/*
+ * SEDIMARK Catalogue Server
+ *
+ * Copyright (C) 2025 Tarek Elsaleh
+ *
+ * This program is licensed under the European Union Public License (EUPL) v1.2.
+ * You may obtain a copy of the License at:
+ * https://joinup.ec.europa.eu/collection/eupl/eupl-text-eupl-12
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.sedimark.catalogue.storage;
+
+import org.apache.jena.graph.Graph;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.sparql.core.DatasetGraph;
+import org.apache.jena.sparql.core.Quad;
+import org.apache.jena.sparql.graph.GraphFactory;
+import org.apache.jena.vocabulary.RDF;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+import eu.sedimark.catalogue.utils.SystemGraphs;
+
+/**
+ * Shared-entity storage: the descriptions of participants, self-listings and the
+ * resources only they refer to are stored once, in the system graph
+ * {@link SystemGraphs#SHARED}, instead of being copied into every offering graph
+ * that mentions them. An offering graph keeps its own statements, including the
+ * links to the shared entities; {@link #expand} puts the full offering back
+ * together for reading.
+ *
+ * The latest published description of a shared entity replaces the previous one.
+ * Entities no offering refers to any more are removed when offerings are replaced
+ * or deleted.
+ */
+public class SharedEntityGraph {
+    private static final Logger logger = LoggerFactory.getLogger(SharedEntityGraph.class);
+
+    /** Name of the graph holding the shared entities */
+    public static final Node GRAPH = NodeFactory.createURI(SystemGraphs.SHARED);
+
+    private static final String SEDIMARK_NS = "https://w3id.org/sedimark/ontology#";
+
+    /** Types whose instances are shared unless configured otherwise */
+    public static final List<String> DEFAULT_TYPES = List.of(SEDIMARK_NS + "Participant",
+            SEDIMARK_NS + "Self-Listing");
+
+    private final Set<Node> sharedTypes = new HashSet<>();
+
+    public SharedEntityGraph() {
+        this(DEFAULT_TYPES);
+    }
+
+    /**
+     * @param types URIs of the classes whose instances are stored once
+     */
+    public SharedEntityGraph(Collection<String> types) {
+        for (String type : types) {
+            sharedTypes.add(NodeFactory.createURI(type));
+        }
+    }
+
+    /**
+     * Move the descriptions of shared entities in an offering graph to the shared
+     * graph. Must be called in a write transaction, after any previous version of
+     * the offering graph has been removed.
+     *
+     * @return The statements to store in the offering graph
+     */
+    public Graph store(DatasetGraph dsg, Node graphName, Graph offering) {
+        Set<Node> roots = new HashSet<>();
+        for (Node type : sharedTypes) {
+            offering.find(Node.ANY, RDF.type.asNode(), type).forEachRemaining(t -> {
+                if (t.getSubject().isURI() && !t.getSubject().equals(graphName)) {
+                    roots.add(t.getSubject());
+                }
+            });
+        }
+        if (roots.isEmpty()) {
+            return offering;
+        }
+
+        // What the offering reaches without going through a shared entity stays with it
+        Set<Node> own = reachable(offering, Set.of(graphName), roots);
+        Set<Node> shared = reachable(offering, roots, Set.of(graphName));
+        shared.removeAll(own);
+
+        for (Node subject : shared) {
+            dsg.deleteAny(GRAPH, subject, Node.ANY, Node.ANY);
+        }
+        Graph rest = GraphFactory.createDefaultGraph();
+        int count = 0;
+        Iterator<Triple> triples = offering.find();
+        while (triples.hasNext()) {
+            Triple t = triples.next();
+            if (shared.contains(t.getSubject())) {
+                dsg.add(GRAPH, t.getSubject(), t.getPredicate(), t.getObject());
+                count++;
+            } else {
+                rest.add(t);
+            }
+        }
+        logger.debug("Graph {}: {} statements stored in the shared entity graph", graphName, count);
+        return rest;
+    }
+
+    /**
+     * The shared entities an offering graph refers to. Used before replacing or
+     * deleting it, to know which entities may no longer be needed.
+     */
+    public Set<Node> referencedBy(DatasetGraph dsg, Node graphName) {
+        Set<Node> entities = new HashSet<>();
+        if (!dsg.containsGraph(GRAPH)) {
+            return entities;
+        }
+        Set<Node> checked = new HashSet<>();
+        dsg.find(graphName, Node.ANY, Node.ANY, Node.ANY).forEachRemaining(q -> {
+            Node o = q.getObject();
+            if (o.isURI() && checked.add(o) && dsg.contains(GRAPH, o, Node.ANY, Node.ANY)) {
+                entities.add(o);
+            }
+        });
+        return entities;
+    }
+
+    /**
+     * Remove the candidates, and the shared resources only they refer to, that are
+     * no longer referred to by any offering graph. Must be called in a write
+     * transaction.
+     *
+     * @return Number of entities removed
+     */
+    public int removeUnreferenced(DatasetGraph dsg, Set<Node> candidates) {
+        if (candidates.isEmpty()) {
+            return 0;
+        }
+        Set<Node> unused = new HashSet<>();
+        for (Node entity : reachable(dsg.getGraph(GRAPH), candidates, Set.of())) {
+            if (!referencedByOffering(dsg, entity)) {
+                unused.add(entity);
+            }
+        }
+        // Keep whatever a remaining shared entity still refers to
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (Iterator<Node> it = unused.iterator(); it.hasNext();) {
+                Node entity = it.next();
+                Iterator<Quad> refs = dsg.find(GRAPH, Node.ANY, Node.ANY, entity);
+                while (refs.hasNext()) {
+                    if (!unused.contains(refs.next().getSubject())) {
+                        it.remove();
+                        changed = true;
+                        break;
+                    }
+                }
+            }
+        }
+        for (Node entity : unused) {
+            dsg.deleteAny(GRAPH, entity, Node.ANY, Node.ANY);
+        }
+        if (!unused.isEmpty()) {
+            logger.info("Removed {} shared entities no longer referred to by any offering", unused.size());
+        }
+        return unused.size();
+    }
+
+    private static boolean referencedByOffering(DatasetGraph dsg, Node entity) {
+        Iterator<Quad> refs = dsg.find(Node.ANY, Node.ANY, Node.ANY, entity);
+        while (refs.hasNext()) {
+            Node g = refs.next().getGraph();
+            // Deduplicated statements are in use by at least one offering
+            if (g.isURI() && (!SystemGraphs.isSystemGraph(g.getURI()) || g.equals(ReferenceGraph.GRAPH))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * The full view of an offering: its graph, with its deduplicated statements
+     * (see {@link ReferenceGraph}), plus the shared entities (and what they refer
+     * to) it links to. Returns the stored graph itself if nothing is shared. Must
+     * be called in a transaction.
+     */
+    public static Graph expand(DatasetGraph dsg, Node graphName) {
+        Graph stored = ReferenceGraph.expand(dsg, graphName);
+        if (!dsg.containsGraph(GRAPH)) {
+            return stored;
+        }
+        Graph shared = dsg.getGraph(GRAPH);
+        Set<Node> seen = new HashSet<>();
+        Deque<Node> pending = new ArrayDeque<>();
+        stored.find().forEachRemaining(t -> {
+            if (t.getObject().isURI() && seen.add(t.getObject())) {
+                pending.add(t.getObject());
+            }
+        });
+
+        Graph view = null;
+        while (!pending.isEmpty()) {
+            Node entity = pending.poll();
+            Iterator<Triple> triples = shared.find(entity, Node.ANY, Node.ANY);
+            while (triples.hasNext()) {
+                Triple t = triples.next();
+                if (view == null) {
+                    view = GraphFactory.createDefaultGraph();
+                    stored.find().forEachRemaining(view::add);
+                }
+                view.add(t);
+                if (t.getObject().isURI() && seen.add(t.getObject())) {
+                    pending.add(t.getObject());
+                }
+            }
+        }
+        return view != null ? view : stored;
+    }
+
+    /**
+     * Resources reachable from the start nodes through URI objects, not going
+     * through (or including) the stop nodes
+     */
+    private static Set<Node> reachable(Graph graph, Set<Node> start, Set<Node> stop) {
+        Set<Node> reached = new HashSet<>(start);
+        Deque<Node> pending = new ArrayDeque<>(start);
+        while (!pending.isEmpty()) {
+            Node node = pending.poll();
+            graph.find(node, Node.ANY, Node.ANY).forEachRemaining(t -> {
+                Node o = t.getObject();
+                if (o.isURI() && !stop.contains(o) && reached.add(o)) {
+                    pending.add(o);
+                }
+            });
+        }
+        return reached;
+    }
+}
@@ -0,0 +1,280 @@
+/*
+ * SEDIMARK Catalogue Server
+ *
+ * Copyright (C) 2025 Tarek Elsaleh
+ *
+ * This program is licensed under the European Union Public License (EUPL) v1.2.
+ * You may obtain a copy of the License at:
+ * https://joinup.ec.europa.eu/collection/eupl/eupl-text-eupl-12
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.sedimark.catalogue.storage;
+
+import org.apache.jena.graph.Triple;
+import org.apache.jena.query.Dataset;
+import org.apache.jena.query.DatasetFactory;
+import org.apache.jena.query.ReadWrite;
+import org.apache.jena.riot.Lang;
+import org.apache.jena.riot.RDFDataMgr;
+import org.apache.jena.riot.RDFParser;
+import org.apache.jena.riot.system.StreamRDFLib;
+import org.apache.jena.riot.system.StreamRDFWrapper;
+import org.apache.jena.sparql.core.DatasetGraph;
+import org.apache.jena.sparql.core.DatasetGraphWrapper;
+import org.apache.jena.sparql.core.Quad;
+import org.apache.jena.system.Txn;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Snapshots of an in-memory dataset: the whole dataset is written as
+ * gzip-compressed RDF Thrift, periodically and at shutdown, and read back at
+ * startup. A snapshot is written to a temporary file, forced to disk and renamed
+ * over the previous one, so a crash leaves either the old or the new snapshot.
+ * Snapshots are only written when a write transaction has committed since the
+ * last one.
+ */
+public class SnapshotManager {
+    private static final Logger logger = LoggerFactory.getLogger(SnapshotManager.class);
+
+    public static final int DEFAULT_INTERVAL_SECONDS = 300;
+
+    private final Path file;
+    private final int intervalSeconds;
+    private final TrackedDatasetGraph tracked;
+    private final Dataset dataset;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "catalogue-snapshot");
+        t.setDaemon(true);
+        return t;
+    });
+    private long snapshotGeneration = 0;
+    private volatile Instant lastSnapshot;
+
+    /**
+     * @param dataset         The in-memory dataset
+     * @param file            The snapshot file
+     * @param intervalSeconds Seconds between snapshots, or 0 for the default
+     */
+    public SnapshotManager(Dataset dataset, Path file, int intervalSeconds) {
+        this.file = file.toAbsolutePath();
+        this.intervalSeconds = intervalSeconds > 0 ? intervalSeconds : DEFAULT_INTERVAL_SECONDS;
+        this.tracked = new TrackedDatasetGraph(dataset.asDatasetGraph());
+        this.dataset = DatasetFactory.wrap(tracked);
+    }
+
+    /**
+     * The dataset to use from now on: the in-memory dataset, with its write
+     * transactions counted so unchanged data is not written again
+     */
+    public Dataset getDataset() {
+        return dataset;
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    public int getIntervalSeconds() {
+        return intervalSeconds;
+    }
+
+    /**
+     * Load the snapshot, if there is one, into the (empty) dataset
+     *
+     * @return Number of quads restored, or -1 if there was no snapshot
+     */
+    public long restore() throws IOException {
+        if (!Files.exists(file)) {
+            logger.info("No snapshot at {}, starting empty", file);
+            return -1;
+        }
+        long start = System.nanoTime();
+        AtomicLong quads = new AtomicLong();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            DatasetGraph target = tracked.getWrapped();
+            Txn.executeWrite(target, () -> {
+                try (InputStream in = new GZIPInputStream(new ByteBufferInputStream(mapped), 1 << 16)) {
+                    RDFParser.source(in).lang(Lang.RDFTHRIFT).parse(
+                            new StreamRDFWrapper(StreamRDFLib.dataset(target)) {
+                                @Override
+                                public void quad(Quad quad) {
+                                    super.quad(quad);
+                                    quads.incrementAndGet();
+                                }
+
+                                @Override
+                                public void triple(Triple triple) {
+                                    super.triple(triple);
+                                    quads.incrementAndGet();
+                                }
+                            });
+                } catch (IOException e) {
+                    throw new SnapshotException(e);
+                }
+            });
+        } catch (SnapshotException e) {
+            throw new IOException("Could not read the snapshot " + file + ": " + e.getCause().getMessage(), e.getCause());
+        }
+        lastSnapshot = Files.getLastModifiedTime(file).toInstant();
+        logger.info("Restored {} quads from snapshot {} in {} ms", quads.get(), file,
+                (System.nanoTime() - start) / 1_000_000);
+        return quads.get();
+    }
+
+    /**
+     * Take snapshots every interval from now on
+     */
+    public void start() {
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                snapshot();
+            } catch (Exception e) {
+                logger.error("Snapshot to {} failed: {}", file, e.getMessage(), e);
+            }
+        }, intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Stop the periodic snapshots and take a last one
+     */
+    public void close() {
+        scheduler.shutdown();
+        try {
+            scheduler.awaitTermination(30, TimeUnit.SECONDS);
+            snapshot();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            logger.error("Final snapshot to {} failed: {}", file, e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Write a snapshot if the dataset changed since the last one
+     *
+     * @return Whether a snapshot was written
+     */
+    public synchronized boolean snapshot() throws IOException {
+        long generation = tracked.generation.get();
+        if (generation == snapshotGeneration) {
+            return false;
+        }
+        long start = System.nanoTime();
+        Path parent = file.getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        // Generation read before the transaction began: a concurrent commit is written next time
+        DatasetGraph dsg = tracked.getWrapped();
+        dsg.begin(ReadWrite.READ);
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            OutputStream buffered = new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16);
+            GZIPOutputStream out = new GZIPOutputStream(buffered, 1 << 16);
+            RDFDataMgr.write(out, dsg, Lang.RDFTHRIFT);
+            out.finish();
+            buffered.flush();
+            channel.force(true);
+        } finally {
+            dsg.end();
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        snapshotGeneration = generation;
+        lastSnapshot = Instant.now();
+        logger.info("Snapshot written to {} ({} bytes) in {} ms", file, Files.size(file),
+                (System.nanoTime() - start) / 1_000_000);
+        return true;
+    }
+
+    public Instant getLastSnapshot() {
+        return lastSnapshot;
+    }
+
+    /**
+     * Counts the write transactions committed on the dataset
+     */
+    private static class TrackedDatasetGraph extends DatasetGraphWrapper {
+        final AtomicLong generation = new AtomicLong();
+
+        TrackedDatasetGraph(DatasetGraph dsg) {
+            super(dsg);
+        }
+
+        @Override
+        public void commit() {
+            boolean write = transactionMode() == ReadWrite.WRITE;
+            super.commit();
+            if (write) {
+                generation.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Stream over a (memory-mapped) buffer
+     */
+    private static class ByteBufferInputStream extends InputStream {
+        private final ByteBuffer buffer;
+
+        ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xff : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int n = Math.min(len, buffer.remaining());
+            buffer.get(b, off, n);
+            return n;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+
+    private static class SnapshotException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        SnapshotException(IOException cause) {
+            super(cause);
+        }
+    }
+}
@@ -0,0 +1,483 @@
+/*
+ * SEDIMARK Catalogue Server
+ *
+ * Copyright (C) 2025 Tarek Elsaleh
+ *
+ * This program is licensed under the European Union Public License (EUPL) v1.2.
+ * You may obtain a copy of the License at:
+ * https://joinup.ec.europa.eu/collection/eupl/eupl-text-eupl-12
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.sedimark.catalogue.storage;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * An in-memory approximate nearest-neighbour index of byte vectors under string
+ * keys, by cosine similarity: a hierarchical navigable small world graph (HNSW).
+ *
+ * Every vector is a node linked to about {@code m} of its nearest neighbours
+ * (twice as many on the bottom layer), and to fewer and fewer, farther apart
+ * nodes on the layers above. A search walks greedily from the top layer down,
+ * so it compares the query with a few hundred vectors however many there are.
+ *
+ * Vectors are kept in one byte array and links in int arrays, about
+ * {@code dimensions + 8 * m} bytes a node besides its key. A removed node stays in the graph
+ * to route searches but is not returned; once half the nodes are removed the
+ * graph is rebuilt from the others.
+ */
+class VectorGraph {
+
+    /** Layers are rarely above 4 with m = 16; this bounds them whatever the random draws */
+    private static final int MAX_LEVEL = 16;
+    /** Links checked for one to drop when a node has too many */
+    private static final int PRUNE_CHECKS = 4;
+    /** Rebuilding is not worth it below this many removed nodes */
+    private static final int MIN_COMPACTION = 64;
+
+    private final int dimensions;
+    private final int m;
+    private final int efConstruction;
+    private final double levelFactor;
+    private final Random random = new Random(1);
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<String, Integer> nodes = new HashMap<>();
+    private String[] keys = new String[0];
+    private byte[] vectors = new byte[0];
+    private float[] norms = new float[0];
+    /** The links of a node by layer, each array holding its count first */
+    private int[][][] links = new int[0][][];
+    private final BitSet removed = new BitSet();
+    private int count;
+    private int entryPoint = -1;
+    private int topLevel = -1;
+
+    /**
+     * A key found by a search and its cosine similarity to the query
+     */
+    record Neighbour(String key, float similarity) {
+    }
+
+    /**
+     * @param dimensions     Components of a vector
+     * @param m              Links of a node on the layers above the bottom one
+     * @param efConstruction Candidates considered when linking a new node
+     */
+    VectorGraph(int dimensions, int m, int efConstruction) {
+        this.dimensions = dimensions;
+        this.m = m;
+        this.efConstruction = efConstruction;
+        this.levelFactor = 1 / Math.log(m);
+    }
+
+    /**
+     * Add the vector of a key, replacing the one it had
+     */
+    void add(String key, byte[] vector) {
+        lock.writeLock().lock();
+        try {
+            removeNode(key);
+            insert(key, vector);
+            compactIfSparse();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Remove the vector of a key
+     */
+    void remove(String key) {
+        lock.writeLock().lock();
+        try {
+            removeNode(key);
+            compactIfSparse();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * The keys whose vectors are nearest to the vector of a key, most similar
+     * first, or null if the key has no vector
+     *
+     * @param limit Neighbours to return
+     * @param ef    Candidates to keep while searching; more finds the true
+     *              nearest neighbours more often but compares more vectors
+     */
+    List<Neighbour> nearest(String key, int limit, int ef) {
+        lock.readLock().lock();
+        try {
+            Integer node = nodes.get(key);
+            if (node == null) {
+                return null;
+            }
+            long[] found = search(vectors, node * dimensions, norms[node], Math.max(ef, limit + 1));
+            List<Neighbour> neighbours = new ArrayList<>(limit);
+            for (long candidate : found) {
+                int other = node(candidate);
+                if (other != node && !removed.get(other)) {
+                    neighbours.add(new Neighbour(keys[other], 1 - distance(candidate)));
+                    if (neighbours.size() == limit) {
+                        break;
+                    }
+                }
+            }
+            return neighbours;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Number of keys with vectors
+     */
+    int size() {
+        lock.readLock().lock();
+        try {
+            return nodes.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void insert(String key, byte[] vector) {
+        int node = count++;
+        if (node == keys.length) {
+            int capacity = Math.max(64, node * 2);
+            keys = Arrays.copyOf(keys, capacity);
+            vectors = Arrays.copyOf(vectors, capacity * dimensions);
+            norms = Arrays.copyOf(norms, capacity);
+            links = Arrays.copyOf(links, capacity);
+        }
+        keys[node] = key;
+        System.arraycopy(vector, 0, vectors, node * dimensions, dimensions);
+        norms[node] = norm(vector);
+        nodes.put(key, node);
+
+        int level = Math.min(MAX_LEVEL, (int) (-Math.log(1 - random.nextDouble()) * levelFactor));
+        links[node] = new int[level + 1][];
+        for (int layer = 0; layer <= level; layer++) {
+            links[node][layer] = new int[maxLinks(layer) + 1];
+        }
+        if (entryPoint < 0) {
+            entryPoint = node;
+            topLevel = level;
+            return;
+        }
+
+        int offset = node * dimensions;
+        int current = entryPoint;
+        for (int layer = topLevel; layer > level; layer--) {
+            current = greedy(vectors, offset, norms[node], current, layer);
+        }
+        for (int layer = Math.min(level, topLevel); layer >= 0; layer--) {
+            long[] candidates = searchLayer(vectors, offset, norms[node], current, efConstruction, layer);
+            int[] selected = select(candidates, maxLinks(layer));
+            int[] own = links[node][layer];
+            for (int neighbour : selected) {
+                own[++own[0]] = neighbour;
+                link(neighbour, node, layer);
+            }
+            current = node(candidates[0]);
+        }
+        if (level > topLevel) {
+            topLevel = level;
+            entryPoint = node;
+        }
+    }
+
+    private void removeNode(String key) {
+        Integer node = nodes.remove(key);
+        if (node != null) {
+            removed.set(node);
+        }
+    }
+
+    /**
+     * Rebuild the graph from the remaining nodes once half of them are removed
+     */
+    private void compactIfSparse() {
+        int dead = removed.cardinality();
+        if (dead < MIN_COMPACTION || dead < nodes.size()) {
+            return;
+        }
+        String[] oldKeys = keys;
+        byte[] oldVectors = vectors;
+        int oldCount = count;
+        BitSet oldRemoved = (BitSet) removed.clone();
+        nodes.clear();
+        keys = new String[0];
+        vectors = new byte[0];
+        norms = new float[0];
+        links = new int[0][][];
+        removed.clear();
+        count = 0;
+        entryPoint = -1;
+        topLevel = -1;
+        for (int node = 0; node < oldCount; node++) {
+            if (!oldRemoved.get(node)) {
+                insert(oldKeys[node], Arrays.copyOfRange(oldVectors, node * dimensions, (node + 1) * dimensions));
+            }
+        }
+    }
+
+    /**
+     * Add a link from one node to another. If the node has as many links as it
+     * may, one is dropped: among the farthest few, the farthest that is nearer to
+     * another linked node than to this one (it is reached through that node),
+     * else the farthest. Checking only a few keeps linking linear in m.
+     */
+    private void link(int from, int to, int layer) {
+        int[] own = links[from][layer];
+        if (own[0] < own.length - 1) {
+            own[++own[0]] = to;
+            return;
+        }
+        int offset = from * dimensions;
+        long[] candidates = new long[own[0] + 1];
+        for (int i = 1; i <= own[0]; i++) {
+            candidates[i - 1] = pack(distance(vectors, offset, norms[from], own[i]), own[i]);
+        }
+        candidates[own[0]] = pack(distance(vectors, offset, norms[from], to), to);
+        Arrays.sort(candidates);
+        int dropped = candidates.length - 1;
+        search: for (int i = candidates.length - 1; i > Math.max(0, candidates.length - 1 - PRUNE_CHECKS); i--) {
+            int node = node(candidates[i]);
+            float distance = distance(candidates[i]);
+            for (int j = 0; j < i; j++) {
+                if (distance(vectors, node * dimensions, norms[node], node(candidates[j])) < distance) {
+                    dropped = i;
+                    break search;
+                }
+            }
+        }
+        int kept = 0;
+        for (int i = 0; i < candidates.length; i++) {
+            if (i != dropped) {
+                own[++kept] = node(candidates[i]);
+            }
+        }
+        own[0] = kept;
+    }
+
+    /**
+     * Choose the links of a node among candidates sorted nearest first: a
+     * candidate nearer to a chosen one than to the node is skipped, so links
+     * point in different directions, then skipped ones fill the remaining slots
+     */
+    private int[] select(long[] candidates, int max) {
+        int[] selected = new int[Math.min(max, candidates.length)];
+        int chosen = 0;
+        long[] skipped = new long[candidates.length];
+        int skippedCount = 0;
+        for (long candidate : candidates) {
+            if (chosen == selected.length) {
+                break;
+            }
+            int node = node(candidate);
+            float distance = distance(candidate);
+            boolean diverse = true;
+            for (int i = 0; i < chosen && diverse; i++) {
+                diverse = distance(vectors, node * dimensions, norms[node], selected[i]) >= distance;
+            }
+            if (diverse) {
+                selected[chosen++] = node;
+            } else {
+                skipped[skippedCount++] = candidate;
+            }
+        }
+        for (int i = 0; i < skippedCount && chosen < selected.length; i++) {
+            selected[chosen++] = node(skipped[i]);
+        }
+        return selected;
+    }
+
+    /**
+     * The nearest nodes to a query on the bottom layer, nearest first
+     */
+    private long[] search(byte[] query, int offset, float norm, int ef) {
+        int current = entryPoint;
+        for (int layer = topLevel; layer > 0; layer--) {
+            current = greedy(query, offset, norm, current, layer);
+        }
+        return searchLayer(query, offset, norm, current, ef, 0);
+    }
+
+    /**
+     * Walk a layer to the node nearest to the query, from neighbour to nearer
+     * neighbour
+     */
+    private int greedy(byte[] query, int offset, float norm, int start, int layer) {
+        int current = start;
+        float currentDistance = distance(query, offset, norm, current);
+        boolean moved = true;
+        while (moved) {
+            moved = false;
+            int[] neighbours = links[current][layer];
+            for (int i = 1; i <= neighbours[0]; i++) {
+                float distance = distance(query, offset, norm, neighbours[i]);
+                if (distance < currentDistance) {
+                    current = neighbours[i];
+                    currentDistance = distance;
+                    moved = true;
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * The ef nearest nodes to a query found on a layer from a start node,
+     * nearest first, packed as distance and node
+     */
+    private long[] searchLayer(byte[] query, int offset, float norm, int start, int ef, int layer) {
+        BitSet visited = new BitSet(count);
+        LongHeap candidates = new LongHeap(ef * 4);
+        // Negated, so the farthest is on top
+        LongHeap nearest = new LongHeap(ef + 1);
+        long first = pack(distance(query, offset, norm, start), start);
+        visited.set(start);
+        candidates.add(first);
+        nearest.add(-first);
+        while (candidates.size() > 0) {
+            long candidate = candidates.poll();
+            if (nearest.size() >= ef && candidate > -nearest.peek()) {
+                break;
+            }
+            int[] neighbours = links[node(candidate)][layer];
+            for (int i = 1; i <= neighbours[0]; i++) {
+                int neighbour = neighbours[i];
+                if (visited.get(neighbour)) {
+                    continue;
+                }
+                visited.set(neighbour);
+                long next = pack(distance(query, offset, norm, neighbour), neighbour);
+                if (nearest.size() < ef || next < -nearest.peek()) {
+                    candidates.add(next);
+                    nearest.add(-next);
+                    if (nearest.size() > ef) {
+                        nearest.poll();
+                    }
+                }
+            }
+        }
+        long[] found = new long[nearest.size()];
+        for (int i = found.length - 1; i >= 0; i--) {
+            found[i] = -nearest.poll();
+        }
+        return found;
+    }
+
+    private int maxLinks(int layer) {
+        return layer == 0 ? 2 * m : m;
+    }
+
+    /**
+     * One minus the cosine similarity of the query and a node, from 0 (same
+     * direction) to 2
+     */
+    private float distance(byte[] query, int offset, float norm, int node) {
+        int base = node * dimensions;
+        int dot = 0;
+        for (int i = 0; i < dimensions; i++) {
+            dot += query[offset + i] * vectors[base + i];
+        }
+        return Math.max(0, 1 - dot / (norm * norms[node]));
+    }
+
+    private static float norm(byte[] vector) {
+        long sum = 0;
+        for (byte component : vector) {
+            sum += component * component;
+        }
+        return (float) Math.sqrt(Math.max(sum, 1));
+    }
+
+    /**
+     * A distance and a node in a long that sorts by distance: the bits of a
+     * non-negative float sort as the float does
+     */
+    private static long pack(float distance, int node) {
+        return ((long) Float.floatToIntBits(distance) << 32) | node;
+    }
+
+    /**
+     * A binary min-heap of longs, without the boxing of a PriorityQueue
+     */
+    private static final class LongHeap {
+        private long[] heap;
+        private int size;
+
+        LongHeap(int capacity) {
+            heap = new long[Math.max(capacity, 16)];
+        }
+
+        int size() {
+            return size;
+        }
+
+        long peek() {
+            return heap[0];
+        }
+
+        void add(long value) {
+            if (size == heap.length) {
+                heap = Arrays.copyOf(heap, size * 2);
+            }
+            int i = size++;
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (heap[parent] <= value) {
+                    break;
+                }
+                heap[i] = heap[parent];
+                i = parent;
+            }
+            heap[i] = value;
+        }
+
+        long poll() {
+            long top = heap[0];
+            long last = heap[--size];
+            int i = 0;
+            int half = size >>> 1;
+            while (i < half) {
+                int child = 2 * i + 1;
+                if (child + 1 < size && heap[child + 1] < heap[child]) {
+                    child++;
+                }
+                if (last <= heap[child]) {
+                    break;
+                }
+                heap[i] = heap[child];
+                i = child;
+            }
+            heap[i] = last;
+            return top;
+        }
+    }
+
+    private static int node(long packed) {
+        return (int) packed;
+    }
+
+    private static float distance(long packed) {
+        return Float.intBitsToFloat((int) (packed >>> 32));
+    }
+}
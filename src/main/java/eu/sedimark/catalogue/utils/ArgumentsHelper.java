@@ -1,6 +1,11 @@
 package eu.sedimark.catalogue.utils;
 
 import org.apache.jena.fuseki.main.FusekiServer;
+
+import eu.sedimark.catalogue.lifecycle.LifecycleManager;
+import eu.sedimark.catalogue.replication.ReplicaApplier;
+import eu.sedimark.catalogue.storage.SnapshotManager;
+
 import java.io.File;
 import java.nio.file.Paths;
 
@@ -9,6 +14,16 @@ import java.nio.file.Paths;
  */
 public class ArgumentsHelper {
 
+    /**
+     * Default cap on concurrently running virtual threads, matching Jetty's VirtualThreadPool
+     */
+    public static final int DEFAULT_MAX_VIRTUAL_THREADS = 200;
+
+    /**
+     * Default size in bytes below which responses are not compressed
+     */
+    public static final int DEFAULT_COMPRESSION_MIN_SIZE = 1024;
+
     /**
      * Parse command line arguments
      */
@@ -28,6 +43,47 @@ public class ArgumentsHelper {
                     case "--memory":
                         arguments.storageType = StorageType.MEMORY;
                         break;
+                    case "--off-heap":
+                        arguments.storageType = StorageType.OFF_HEAP;
+                        if (i + 1 < args.length && !args[i + 1].startsWith("--")) {
+                            arguments.offHeapLocation = args[++i];
+                        }
+                        break;
+                    case "--snapshot":
+                        arguments.snapshot = true;
+                        if (i + 1 < args.length && !args[i + 1].startsWith("--")) {
+                            arguments.snapshotLocation = args[++i];
+                        }
+                        break;
+                    case "--snapshot-interval":
+                        arguments.snapshotIntervalSeconds = parsePositiveInt(args, ++i, "--snapshot-interval");
+                        break;
+                    case "--prewarm":
+                        arguments.prewarm = true;
+                        if (i + 1 < args.length && !args[i + 1].startsWith("--")) {
+                            arguments.hotListLocation = args[++i];
+                        }
+                        break;
+                    case "--shutdown-timeout":
+                        arguments.shutdownTimeoutSeconds = parsePositiveInt(args, ++i, "--shutdown-timeout");
+                        break;
+                    case "--shards":
+                        arguments.shards = parsePositiveInt(args, ++i, "--shards");
+                        break;
+                    case "--shared-entities":
+                        arguments.sharedEntities = true;
+                        break;
+                    case "--dedup":
+                        arguments.deduplicate = true;
+                        break;
+                    case "--index":
+                        arguments.offeringIndex = true;
+                        break;
+                    case "--gazetteer":
+                        if (i + 1 < args.length) {
+                            arguments.gazetteerLocation = args[++i];
+                        }
+                        break;
                     case "--port":
                         if (i + 1 < args.length) {
                             try {
@@ -37,9 +93,94 @@ public class ArgumentsHelper {
                             }
                         }
                         break;
+                    case "--virtual-threads":
+                        arguments.virtualThreads = true;
+                        break;
+                    case "--max-threads":
+                        arguments.maxThreads = parsePositiveInt(args, ++i, "--max-threads");
+                        break;
+                    case "--max-virtual-threads":
+                        arguments.maxVirtualThreads = parsePositiveInt(args, ++i, "--max-virtual-threads");
+                        break;
+                    case "--max-connections":
+                        arguments.maxConnections = parsePositiveInt(args, ++i, "--max-connections");
+                        break;
+                    case "--no-compression":
+                        arguments.compression = false;
+                        break;
+                    case "--compression-min-size":
+                        arguments.compressionMinSize = parsePositiveInt(args, ++i, "--compression-min-size");
+                        break;
+                    case "--validation":
+                        if (i + 1 < args.length) {
+                            try {
+                                arguments.validationMode = ValidationMode.valueOf(args[++i].toUpperCase());
+                            } catch (IllegalArgumentException e) {
+                                System.err.println("Invalid validation mode: " + args[i] + " (use off, warn or fail)");
+                            }
+                        }
+                        break;
+                    case "--validation-status":
+                        arguments.validationStatus = true;
+                        break;
+                    case "--audit-threads":
+                        arguments.auditThreads = parsePositiveInt(args, ++i, "--audit-threads");
+                        break;
+                    case "--change-log":
+                        if (i + 1 < args.length) {
+                            arguments.changeLog = args[++i];
+                        }
+                        break;
+                    case "--change-retention":
+                        arguments.changeRetention = parsePositiveInt(args, ++i, "--change-retention");
+                        break;
+                    case "--patch-log":
+                        arguments.patchLogging = true;
+                        if (i + 1 < args.length && !args[i + 1].startsWith("--")) {
+                            arguments.patchLogLocation = args[++i];
+                        }
+                        break;
+                    case "--replica-of":
+                        if (i + 1 < args.length) {
+                            arguments.replicaOf = args[++i];
+                        }
+                        break;
+                    case "--replica-poll":
+                        arguments.replicaPollMillis = parsePositiveInt(args, ++i, "--replica-poll");
+                        break;
+                    case "--max-staleness":
+                        arguments.maxStalenessMillis = parsePositiveInt(args, ++i, "--max-staleness");
+                        break;
+                    case "--allow-remote-contexts":
+                        arguments.allowRemoteContexts = true;
+                        break;
                     case "--load-examples":
                         arguments.loadExampleData = true;
                         break;
+                    case "--seed":
+                        if (i + 1 < args.length) {
+                            arguments.seedSource = args[++i];
+                        }
+                        break;
+                    case "--seed-threads":
+                        arguments.seedThreads = parsePositiveInt(args, ++i, "--seed-threads");
+                        break;
+                    case "--seed-batch":
+                        arguments.seedBatchSize = parsePositiveInt(args, ++i, "--seed-batch");
+                        break;
+                    case "--export":
+                        if (i + 1 < args.length) {
+                            arguments.exportTarget = args[++i];
+                        }
+                        break;
+                    case "--export-prefix":
+                        if (i + 1 < args.length) {
+                            arguments.exportPrefix = args[++i];
+                        }
+                        break;
+                    case "--export-raw":
+                        arguments.exportRaw = true;
+                        break;
                     case "--debug":
                         arguments.debug = true;
                         break;
@@ -60,10 +201,56 @@ public class ArgumentsHelper {
             String jarLocation = getJarDirectory();
             arguments.tdbLocation = Paths.get(jarLocation, "sedimark-tdb").toString();
         }
+
+        // Keep the patch log next to the store unless specified
+        if (arguments.patchLogging && arguments.patchLogLocation == null) {
+            arguments.patchLogLocation = arguments.storageType == StorageType.TDB
+                    ? Paths.get(arguments.tdbLocation).toAbsolutePath().normalize() + "-patches"
+                    : Paths.get(getJarDirectory(), "sedimark-patches").toString();
+        }
+        // Snapshots are for in-memory stores; TDB2 is persistent and a replica is seeded by its primary
+        if (arguments.snapshot && (arguments.storageType == StorageType.TDB || arguments.replicaOf != null)) {
+            System.err.println("--snapshot is ignored with --tdb and on a replica (--replica-of)");
+            arguments.snapshot = false;
+        }
+        if (arguments.snapshot && arguments.snapshotLocation == null) {
+            arguments.snapshotLocation = Paths.get(getJarDirectory(), "sedimark-snapshot.trdf.gz").toString();
+        }
+        // Keep the hot offering list next to the store unless specified
+        if (arguments.prewarm && arguments.hotListLocation == null) {
+            arguments.hotListLocation = arguments.storageType == StorageType.TDB
+                    ? Paths.get(arguments.tdbLocation).toAbsolutePath().normalize() + "-hot.txt"
+                    : Paths.get(getJarDirectory(), "sedimark-hot.txt").toString();
+        }
+        if (arguments.patchLogging && arguments.replicaOf != null) {
+            System.err.println("--patch-log is ignored on a replica (--replica-of)");
+            arguments.patchLogging = false;
+        }
         
         return arguments;
     }
 
+    /**
+     * Parse a positive integer option value, returning 0 (use the default) if it is
+     * missing or invalid
+     */
+    private static int parsePositiveInt(String[] args, int index, String option) {
+        if (index >= args.length) {
+            System.err.println("Missing value for " + option);
+            return 0;
+        }
+        try {
+            int value = Integer.parseInt(args[index]);
+            if (value > 0) {
+                return value;
+            }
+        } catch (NumberFormatException e) {
+            // fall through to the error message below
+        }
+        System.err.println("Invalid value for " + option + ": " + args[index]);
+        return 0;
+    }
+
     /**
      * Get the directory where the JAR file is located
      */
@@ -96,8 +283,88 @@ public class ArgumentsHelper {
         System.out.println("--memory         Use in-memory storage (default)");
         System.out.println("--tdb [path]     Use TDB2 persistent storage at the specified path");
         System.out.println("                 Default: ./sedimark-tdb (relative to JAR location)");
+        System.out.println("--off-heap [dir] Use in-memory storage kept outside the Java heap: a memory-mapped TDB2");
+        System.out.println("                 store in a scratch directory, deleted on shutdown");
+        System.out.println("                 Default: /dev/shm (RAM-backed), else the temporary directory");
+        System.out.println("--snapshot [file]");
+        System.out.println("                 Save the in-memory dataset to this file (gzip-compressed RDF Thrift)");
+        System.out.println("                 periodically and on shutdown, and restore it at startup");
+        System.out.println("                 Default: ./sedimark-snapshot.trdf.gz (relative to JAR location)");
+        System.out.println("--snapshot-interval <seconds>");
+        System.out.println("                 Time between snapshots, taken only if the data changed (default: 300)");
+        System.out.println("--prewarm [file]");
+        System.out.println("                 Save the most read offerings to this file at shutdown and read them at");
+        System.out.println("                 startup to warm the caches (default: <tdb path>-hot.txt with --tdb)");
+        System.out.println("--shutdown-timeout <seconds>");
+        System.out.println("                 Time allowed for requests in progress to complete at shutdown (default: 30)");
+        System.out.println("--shards <number>");
+        System.out.println("                 Spread the offerings over this many stores by graph name, with queries");
+        System.out.println("                 run on all of them in parallel (an existing sharded TDB2 store keeps its");
+        System.out.println("                 number of shards)");
+        System.out.println("--shared-entities");
+        System.out.println("                 Store participants and self-listings once in the shared entity graph");
+        System.out.println("                 urn:sedimark:system:shared instead of in every offering graph");
+        System.out.println("--dedup          Store statements found in several offerings once, in the reference graph");
+        System.out.println("                 urn:sedimark:system:reference, with reference counts");
+        System.out.println("--index          Index offerings by participant, asset and self-listing in the graph");
+        System.out.println("                 urn:sedimark:system:index, with lookups at /catalogue/index, search");
+        System.out.println("                 by spatial and temporal coverage at /catalogue/search and similar");
+        System.out.println("                 offerings at /catalogue/similar");
+        System.out.println("--gazetteer <file>");
+        System.out.println("                 GeoNames dump (e.g. cities500.txt, optionally .gz) locating spatial");
+        System.out.println("                 coverage given as GeoNames URIs, for /catalogue/search");
         System.out.println("--port <number>  Specify the server port (default: 3030)");
         System.out.println("--load-examples  Load example offerings (disabled by default)");
+        System.out.println("--seed <path|glob|classpath:...>");
+        System.out.println("                 Load the offerings of RDF files at startup: a file, a directory, a glob such");
+        System.out.println("                 as '/data/seed/*.jsonld' or a classpath location (inside the JAR)");
+        System.out.println("--seed-threads <number>");
+        System.out.println("                 Files parsed in parallel when seeding (default: one per CPU)");
+        System.out.println("--seed-batch <number>");
+        System.out.println("                 Offerings stored per transaction when seeding (default: 1000)");
+        System.out.println("--virtual-threads");
+        System.out.println("                 Handle requests on virtual threads instead of the platform thread pool");
+        System.out.println("--max-threads <number>");
+        System.out.println("                 Maximum size of the Jetty platform thread pool (default: Fuseki default)");
+        System.out.println("--max-virtual-threads <number>");
+        System.out.println("                 Maximum number of concurrent virtual threads (default: 200)");
+        System.out.println("--max-connections <number>");
+        System.out.println("                 Maximum number of open client connections (default: unlimited)");
+        System.out.println("--no-compression Disable gzip compression of responses");
+        System.out.println("--compression-min-size <bytes>");
+        System.out.println("                 Smallest response that is gzip-compressed (default: 1024)");
+        System.out.println("--validation <off|warn|fail>");
+        System.out.println("                 SHACL-validate published offerings: report only (warn) or reject (fail)");
+        System.out.println("                 (default: off)");
+        System.out.println("--validation-status");
+        System.out.println("                 Keep a persisted SHACL status table of all offerings, updated incrementally");
+        System.out.println("                 and served at /catalogue/validation (default: disabled)");
+        System.out.println("--audit-threads <number>");
+        System.out.println("                 Worker threads of background validation audits (default: one per CPU)");
+        System.out.println("--change-log <file>");
+        System.out.println("                 Append-only log of offering changes (default: <tdb path>-changes.jsonl with");
+        System.out.println("                 --tdb, in memory only otherwise)");
+        System.out.println("--change-retention <number>");
+        System.out.println("                 Recent change events kept in memory (default: 10000)");
+        System.out.println("--patch-log [path]");
+        System.out.println("                 Run as a replication primary: record every committed transaction as an");
+        System.out.println("                 RDF Patch in this directory (default: <tdb path>-patches)");
+        System.out.println("--replica-of <path|url>");
+        System.out.println("                 Run as a read-only replica applying the patches of a primary, read from its");
+        System.out.println("                 patch log directory or its base URL");
+        System.out.println("--replica-poll <ms>");
+        System.out.println("                 Interval between polls of the primary's patch log (default: 200)");
+        System.out.println("--max-staleness <ms>");
+        System.out.println("                 Replica staleness above which reads are refused with 503 (default: 10000)");
+        System.out.println("--allow-remote-contexts");
+        System.out.println("                 Fetch (and cache) JSON-LD contexts that are not in the local registry");
+        System.out.println("                 (default: reject)");
+        System.out.println("--export <file|->");
+        System.out.println("                 Write the offerings to this file (or standard output) and exit instead of");
+        System.out.println("                 starting the server: TriG for .trig, otherwise N-Quads, gzipped for .gz");
+        System.out.println("--export-prefix <uri-prefix>");
+        System.out.println("                 Only export the offerings whose graph name starts with this prefix");
+        System.out.println("--export-raw     Export the stored graphs, system graphs included, as they are");
         System.out.println("--debug          Enable debug mode with additional logging");
         System.out.println("--help           Show this help message");
         System.out.println("");
@@ -105,6 +372,12 @@ public class ArgumentsHelper {
         System.out.println("  java -jar sedimark-catalogue.jar --memory");
         System.out.println("  java -jar sedimark-catalogue.jar --tdb /data/sedimark-tdb");
         System.out.println("  java -jar sedimark-catalogue.jar --tdb --load-examples");
+        System.out.println("  java -jar sedimark-catalogue.jar --memory --snapshot /data/catalogue.trdf.gz");
+        System.out.println("  java -jar sedimark-catalogue.jar --memory --seed '/data/seed/**.jsonld'");
+        System.out.println("  java -jar sedimark-catalogue.jar --tdb /data/sedimark-tdb --export /backup/catalogue.nq.gz");
+        System.out.println("  java -jar sedimark-catalogue.jar --tdb /data/sedimark-tdb --shards 4");
+        System.out.println("  java -jar sedimark-catalogue.jar --tdb /data/primary --patch-log /data/patches");
+        System.out.println("  java -jar sedimark-catalogue.jar --tdb /data/replica --port 3031 --replica-of /data/patches");
     }
 
     /**
@@ -114,32 +387,98 @@ public class ArgumentsHelper {
         System.out.println("\n========================================================");
         System.out.println("SEDIMARK Catalogue Server");
         System.out.println("Storage: " + arguments.storageType + 
-                          (arguments.storageType == StorageType.TDB ? " at " + arguments.tdbLocation : ""));
-        System.out.println("Port: " + server.getPort());
+                          (arguments.storageType == StorageType.TDB ? " at " + arguments.tdbLocation : "") +
+                          (arguments.storageType == StorageType.OFF_HEAP ? " in " + arguments.offHeapLocation : "") +
+                          (arguments.shards > 1 ? ", " + arguments.shards + " shards" : "") +
+                          (arguments.sharedEntities ? ", shared entity graph" : "") +
+                          (arguments.deduplicate ? ", deduplicated" : "") +
+                          (arguments.offeringIndex ? ", indexed" : ""));
+        if (arguments.snapshot) {
+            System.out.println("Snapshots: " + arguments.snapshotLocation + " (every "
+                    + (arguments.snapshotIntervalSeconds > 0 ? arguments.snapshotIntervalSeconds
+                            : SnapshotManager.DEFAULT_INTERVAL_SECONDS) + " s and on shutdown)");
+        }
+        System.out.println("Shutdown: graceful (drain up to "
+                + (arguments.shutdownTimeoutSeconds > 0 ? arguments.shutdownTimeoutSeconds
+                        : LifecycleManager.DEFAULT_SHUTDOWN_TIMEOUT_SECONDS) + " s)"
+                + (arguments.prewarm ? ", hot offerings in " + arguments.hotListLocation : ""));
+        System.out.println("Port: " + server.getHttpPort());
+        System.out.println("Threads: " + describeThreading(arguments));
+        System.out.println("Validation: " + arguments.validationMode
+                + (arguments.validationStatus ? ", status table enabled" : ""));
+        System.out.println("Replication: " + describeReplication(arguments));
+        System.out.println("Compression: " + (arguments.compression ? "gzip (min "
+                + (arguments.compressionMinSize > 0 ? arguments.compressionMinSize : DEFAULT_COMPRESSION_MIN_SIZE)
+                + " bytes)" : "disabled"));
         System.out.println("========================================================");
         System.out.println("Server URLs:");
-        System.out.println("  Base URL:          http://localhost:" + server.getPort() + "/");
-        System.out.println("  Dataset:           http://localhost:" + server.getPort() + "/catalogue");
-        System.out.println("  SPARQL endpoint:   http://localhost:" + server.getPort() + "/catalogue/sparql");
-        System.out.println("  Update endpoint:   http://localhost:" + server.getPort() + "/catalogue/update");
-        System.out.println("  GSP endpoint:      http://localhost:" + server.getPort() + "/catalogue/data");
-        System.out.println("  Offering publish:  http://localhost:" + server.getPort() + "/catalogue/manager");
-        System.out.println("  Graph listing:     http://localhost:" + server.getPort() + "/catalogue/graphs");
-        System.out.println("  Health endpoint:   http://localhost:" + server.getPort() + "/catalogue/health");
-        System.out.println("  Query UI (Bootstrap): http://localhost:" + server.getPort() + "/catalogue/query-ui");
+        System.out.println("  Base URL:          http://localhost:" + server.getHttpPort() + "/");
+        System.out.println("  Dataset:           http://localhost:" + server.getHttpPort() + "/catalogue");
+        System.out.println("  SPARQL endpoint:   http://localhost:" + server.getHttpPort() + "/catalogue/sparql");
+        System.out.println("  Update endpoint:   http://localhost:" + server.getHttpPort() + "/catalogue/update");
+        System.out.println("  GSP endpoint:      http://localhost:" + server.getHttpPort() + "/catalogue/data");
+        System.out.println("  Offering publish:  http://localhost:" + server.getHttpPort() + "/catalogue/manager");
+        System.out.println("  Graph listing:     http://localhost:" + server.getHttpPort() + "/catalogue/graphs");
+        if (arguments.replicaOf == null) {
+            System.out.println("  Change feed:       http://localhost:" + server.getHttpPort() + "/catalogue/changes");
+        }
+        if (arguments.patchLogging || arguments.replicaOf != null) {
+            System.out.println("  Replication:       http://localhost:" + server.getHttpPort() + "/catalogue/replication");
+        }
+        System.out.println("  Health endpoint:   http://localhost:" + server.getHttpPort() + "/catalogue/health");
+        if (arguments.validationStatus) {
+            System.out.println("  Validation status: http://localhost:" + server.getHttpPort() + "/catalogue/validation");
+        }
+        System.out.println("  Query UI (Bootstrap): http://localhost:" + server.getHttpPort() + "/catalogue/query-ui");
 
         System.out.println("\nJSON-LD is enabled for Graph Store Protocol operations");
         System.out.println("Each sedimark:Offering will be stored in its own named graph");
         
         System.out.println("\nUsage examples:");
         System.out.println("  Publish offering:  curl -H \"Content-Type: application/ld+json\" -X POST --data @file.jsonld http://localhost:"
-                          + server.getPort() + "/catalogue/manager");
+                          + server.getHttpPort() + "/catalogue/manager");
         System.out.println("  Get offering:      curl -H \"Accept: application/ld+json\" http://localhost:" 
-                          + server.getPort() + "/catalogue/manager?graph=<offering-uri>");
-        System.out.println("  List offerings:    curl http://localhost:" + server.getPort() + "/catalogue/graphs");
+                          + server.getHttpPort() + "/catalogue/manager?graph=<offering-uri>");
+        System.out.println("  List offerings:    curl http://localhost:" + server.getHttpPort() + "/catalogue/graphs");
         System.out.println("========================================================\n");
     }
 
+    /**
+     * Describe the replication role for the startup banner
+     */
+    private static String describeReplication(Arguments arguments) {
+        if (arguments.replicaOf != null) {
+            return "read-only replica of " + arguments.replicaOf + " (max staleness "
+                    + (arguments.maxStalenessMillis > 0 ? arguments.maxStalenessMillis
+                            : ReplicaApplier.DEFAULT_MAX_STALENESS_MILLIS) + " ms)";
+        }
+        if (arguments.patchLogging) {
+            return "primary, patch log at " + arguments.patchLogLocation;
+        }
+        return "disabled";
+    }
+
+    /**
+     * Describe the request threading configuration for the startup banner
+     */
+    private static String describeThreading(Arguments arguments) {
+        StringBuilder description = new StringBuilder();
+        if (arguments.virtualThreads) {
+            description.append("virtual (max ")
+                    .append(arguments.maxVirtualThreads > 0 ? arguments.maxVirtualThreads : DEFAULT_MAX_VIRTUAL_THREADS)
+                    .append(" concurrent)");
+        } else {
+            description.append("platform pool");
+            if (arguments.maxThreads > 0) {
+                description.append(" (max ").append(arguments.maxThreads).append(")");
+            }
+        }
+        if (arguments.maxConnections > 0) {
+            description.append(", max ").append(arguments.maxConnections).append(" connections");
+        }
+        return description.toString();
+    }
+
     /**
      * Ensure that the TDB directory exists
      */
@@ -160,6 +499,7 @@ public class ArgumentsHelper {
      */
     public enum StorageType {
         MEMORY("In-Memory"),
+        OFF_HEAP("Off-Heap In-Memory"),
         TDB("TDB2");
         
         private final String displayName;
@@ -174,14 +514,69 @@ public class ArgumentsHelper {
         }
     }
 
+    /**
+     * Enum for the SHACL validation mode of published offerings
+     */
+    public enum ValidationMode {
+        OFF("disabled"),
+        WARN("warn (store and report)"),
+        FAIL("fail (reject non-conforming offerings)");
+
+        private final String displayName;
+
+        ValidationMode(String displayName) {
+            this.displayName = displayName;
+        }
+
+        @Override
+        public String toString() {
+            return displayName;
+        }
+    }
+
     /**
      * Class to hold command line arguments
      */
     public static class Arguments {
         public StorageType storageType = StorageType.MEMORY;
         public String tdbLocation = null;
+        public String offHeapLocation = null; // null = /dev/shm or the temporary directory
+        public boolean snapshot = false;
+        public String snapshotLocation = null; // null = next to the JAR
+        public int snapshotIntervalSeconds = 0; // 0 = SnapshotManager.DEFAULT_INTERVAL_SECONDS
+        public boolean prewarm = false;
+        public String hotListLocation = null; // null = derived from the TDB location, or next to the JAR
+        public int shutdownTimeoutSeconds = 0; // 0 = LifecycleManager.DEFAULT_SHUTDOWN_TIMEOUT_SECONDS
+        public int shards = 0; // 0 = unsharded, or the existing layout of a sharded TDB2 store
+        public boolean sharedEntities = false;
+        public boolean deduplicate = false;
+        public boolean offeringIndex = false;
+        public String gazetteerLocation = null; // GeoNames dump; null = only WKT coverage is located
         public int port = 3030;
         public boolean loadExampleData = false; // Changed to false by default
+        public String seedSource = null; // file, directory, glob or classpath: location
+        public int seedThreads = 0; // 0 = one per available processor
+        public int seedBatchSize = 0; // 0 = SeedLoader.DEFAULT_BATCH_SIZE
+        public String exportTarget = null; // file or "-" for standard output; null = run the server
+        public String exportPrefix = null;
+        public boolean exportRaw = false;
         public boolean debug = false;
+        public boolean virtualThreads = false;
+        public int maxThreads = 0; // 0 = Fuseki default
+        public int maxVirtualThreads = 0; // 0 = DEFAULT_MAX_VIRTUAL_THREADS
+        public int maxConnections = 0; // 0 = unlimited
+        public boolean compression = true;
+        public int compressionMinSize = 0; // 0 = DEFAULT_COMPRESSION_MIN_SIZE
+        public boolean allowRemoteContexts = false;
+        public ValidationMode validationMode = ValidationMode.OFF;
+        public boolean validationStatus = false;
+        public int auditThreads = 0; // 0 = one per available processor
+        public String changeLog = null; // null = derived from the TDB location, or in memory only
+        public int changeRetention = 0; // 0 = ChangeFeed.DEFAULT_RETAINED
+        public boolean patchLogging = false;
+        public String patchLogLocation = null; // null = derived from the TDB location
+        public String replicaOf = null; // primary's patch log directory or URL
+        public int replicaPollMillis = 0; // 0 = ReplicaApplier.DEFAULT_POLL_MILLIS
+        public int maxStalenessMillis = 0; // 0 = ReplicaApplier.DEFAULT_MAX_STALENESS_MILLIS
     }
 }
\ No newline at end of file
@@ -0,0 +1,270 @@
+package eu.sedimark.catalogue.utils;
+
+import com.apicatalog.jsonld.JsonLd;
+import com.apicatalog.jsonld.JsonLdError;
+import com.apicatalog.jsonld.JsonLdErrorCode;
+import com.apicatalog.jsonld.JsonLdOptions;
+import com.apicatalog.jsonld.context.cache.Cache;
+import com.apicatalog.jsonld.context.cache.LruCache;
+import com.apicatalog.jsonld.document.Document;
+import com.apicatalog.jsonld.document.JsonDocument;
+import com.apicatalog.jsonld.document.RdfDocument;
+import com.apicatalog.jsonld.loader.DocumentLoader;
+import com.apicatalog.jsonld.loader.DocumentLoaderOptions;
+import com.apicatalog.jsonld.loader.SchemeRouter;
+
+import jakarta.json.Json;
+import jakarta.json.JsonArray;
+import jakarta.json.JsonObject;
+import jakarta.json.JsonObjectBuilder;
+import jakarta.json.JsonWriter;
+import jakarta.json.stream.JsonGenerator;
+
+import eu.sedimark.catalogue.handlers.OfferingGSPHandler;
+
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.riot.RIOT;
+import org.apache.jena.riot.lang.LangJSONLD11;
+import org.apache.jena.riot.system.JenaTitanium;
+import org.apache.jena.shared.JenaException;
+import org.apache.jena.sparql.core.DatasetGraphFactory;
+import org.apache.jena.sparql.util.Context;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Registry of JSON-LD contexts, so each remote context is fetched at most once.
+ *
+ * Contexts listed in /jsonld/contexts.properties on the classpath are preloaded
+ * and handed to the JSON-LD processor through a document loader. Any other
+ * context is rejected, unless remote contexts are allowed: it is then fetched from
+ * the network on first use and kept. Loaded contexts are also kept in the processor's context
+ * cache across requests. For output, the context built from the ontology prefixes
+ * is computed once and registered under {@link #OFFERING_CONTEXT_URL}.
+ */
+public class JsonLdContextRegistry {
+
+    /** Context used when writing offering graphs (ontology prefixes) */
+    public static final String OFFERING_CONTEXT_URL = "urn:sedimark:context:offering";
+
+    private static final String INDEX = "/jsonld/contexts.properties";
+    private static final int CACHE_SIZE = 256;
+
+    private static volatile JsonLdContextRegistry defaultRegistry;
+
+    private final Map<String, JsonDocument> contexts = new ConcurrentHashMap<>();
+    private final Cache<String, Document> fetched = new SynchronizedCache<>(CACHE_SIZE);
+    private final boolean allowRemote;
+    private final JsonLdOptions options;
+    private JsonObject offeringContext;
+
+    /**
+     * The registry used by the handlers; contexts not in the registry are rejected
+     * unless {@link #configure(boolean)} allowed remote contexts
+     */
+    public static JsonLdContextRegistry getDefault() {
+        JsonLdContextRegistry registry = defaultRegistry;
+        if (registry == null) {
+            synchronized (JsonLdContextRegistry.class) {
+                registry = defaultRegistry;
+                if (registry == null) {
+                    registry = new JsonLdContextRegistry(false, OfferingGSPHandler.loadOntologyPrefixes());
+                    defaultRegistry = registry;
+                }
+            }
+        }
+        return registry;
+    }
+
+    /**
+     * Replace the default registry, e.g. at startup from the command line arguments
+     *
+     * @param allowRemote Fetch (and then cache) contexts that are not in the registry
+     *                    instead of rejecting them
+     */
+    public static synchronized JsonLdContextRegistry configure(boolean allowRemote) {
+        defaultRegistry = new JsonLdContextRegistry(allowRemote, OfferingGSPHandler.loadOntologyPrefixes());
+        return defaultRegistry;
+    }
+
+    /**
+     * @param outputPrefixes Prefixes for the offering output context ("" becomes
+     *                       @vocab)
+     */
+    public JsonLdContextRegistry(boolean allowRemote, Map<String, String> outputPrefixes) {
+        this.allowRemote = allowRemote;
+        loadIndex();
+        setOutputPrefixes(outputPrefixes);
+
+        options = new JsonLdOptions(new RegistryLoader());
+        options.setContextCache(new SynchronizedCache<>(CACHE_SIZE));
+        options.setDocumentCache(new SynchronizedCache<>(CACHE_SIZE));
+    }
+
+    private void loadIndex() {
+        Properties index = new Properties();
+        try (InputStream in = JsonLdContextRegistry.class.getResourceAsStream(INDEX)) {
+            if (in == null) {
+                System.err.println("JsonLdContextRegistry: " + INDEX + " not found on the classpath");
+                return;
+            }
+            index.load(in);
+        } catch (IOException e) {
+            System.err.println("JsonLdContextRegistry: could not read " + INDEX + ": " + e.getMessage());
+            return;
+        }
+
+        Map<String, Optional<JsonDocument>> byResource = new HashMap<>();
+        for (String url : index.stringPropertyNames()) {
+            String resource = index.getProperty(url).trim();
+            byResource.computeIfAbsent(resource, JsonLdContextRegistry::readContext)
+                    .ifPresent(document -> contexts.put(url, document));
+        }
+    }
+
+    private static Optional<JsonDocument> readContext(String resource) {
+        try (InputStream in = JsonLdContextRegistry.class.getResourceAsStream("/jsonld/" + resource)) {
+            if (in == null) {
+                System.err.println("JsonLdContextRegistry: no copy of " + resource
+                        + " on the classpath, its context URLs are not registered");
+                return Optional.empty();
+            }
+            return Optional.of(JsonDocument.of(in));
+        } catch (IOException | JsonLdError e) {
+            System.err.println("JsonLdContextRegistry: invalid context " + resource + ": " + e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    private void setOutputPrefixes(Map<String, String> prefixes) {
+        JsonObjectBuilder context = Json.createObjectBuilder();
+        prefixes.forEach((prefix, uri) -> context.add(prefix.isEmpty() ? "@vocab" : prefix, uri));
+        offeringContext = context.build();
+        contexts.put(OFFERING_CONTEXT_URL,
+                JsonDocument.of(Json.createObjectBuilder().add("@context", offeringContext).build()));
+    }
+
+    /**
+     * Register (or replace) a context document under a URL
+     */
+    public void register(String url, JsonDocument context) {
+        contexts.put(url, context);
+    }
+
+    /**
+     * Whether a context URL resolves locally
+     */
+    public boolean contains(String url) {
+        return lookup(url) != null;
+    }
+
+    private JsonDocument lookup(String url) {
+        JsonDocument document = contexts.get(url);
+        if (document == null) {
+            // Tolerate a trailing slash difference
+            document = contexts.get(url.endsWith("/") ? url.substring(0, url.length() - 1) : url + "/");
+        }
+        return document;
+    }
+
+    /**
+     * A RIOT context for parsing JSON-LD with this registry. Each parse gets its own
+     * options (the processor sets the base on them) sharing the loader and caches.
+     */
+    public Context parserContext() {
+        Context context = RIOT.getContext().copy();
+        context.set(LangJSONLD11.JSONLD_OPTIONS, new JsonLdOptions(options));
+        return context;
+    }
+
+    /**
+     * Write a model as compacted JSON-LD using the precomputed offering context. The
+     * output has the same shape as Jena's pretty JSON-LD writer with the ontology
+     * prefixes: an inline @context and an @graph of nodes.
+     */
+    public void writeCompact(OutputStream out, Model model) {
+        JsonObject result = compact(model);
+        try (JsonWriter writer = Json.createWriterFactory(Map.of(JsonGenerator.PRETTY_PRINTING, true))
+                .createWriter(out)) {
+            writer.write(result);
+        }
+    }
+
+    /**
+     * A model as a compacted JSON-LD document with the offering context inlined,
+     * as written by {@link #writeCompact}
+     */
+    public JsonObject compact(Model model) {
+        try {
+            Document rdf = RdfDocument.of(JenaTitanium.convert(DatasetGraphFactory.wrap(model.getGraph())));
+            JsonArray expanded = JsonLd.fromRdf(rdf).options(new JsonLdOptions(options)).get();
+            JsonObject compacted = JsonLd.compact(JsonDocument.of(expanded), OFFERING_CONTEXT_URL)
+                    .options(new JsonLdOptions(options)).get();
+
+            // Inline the context so the output does not depend on the registry URL
+            return Json.createObjectBuilder(compacted).add("@context", offeringContext).build();
+        } catch (JsonLdError e) {
+            throw new JenaException("Exception while writing JSON-LD", e);
+        }
+    }
+
+    /**
+     * LRU cache shared by concurrent parses: Titanium's LruCache is an
+     * access-ordered map, which even reads modify
+     */
+    private static class SynchronizedCache<K, V> implements Cache<K, V> {
+        private final LruCache<K, V> cache;
+
+        SynchronizedCache(int capacity) {
+            cache = new LruCache<>(capacity);
+        }
+
+        @Override
+        public synchronized boolean containsKey(K key) {
+            return cache.containsKey(key);
+        }
+
+        @Override
+        public synchronized V get(K key) {
+            return cache.get(key);
+        }
+
+        @Override
+        public synchronized void put(K key, V value) {
+            cache.put(key, value);
+        }
+    }
+
+    /**
+     * Resolves context URLs from the registry, falling back to the network if
+     * remote contexts are allowed (and then keeping the most recent results)
+     */
+    private class RegistryLoader implements DocumentLoader {
+        @Override
+        public Document loadDocument(URI url, DocumentLoaderOptions loaderOptions) throws JsonLdError {
+            String key = url.toString();
+            JsonDocument document = lookup(key);
+            if (document != null) {
+                return document;
+            }
+            if (!allowRemote) {
+                throw new JsonLdError(JsonLdErrorCode.LOADING_REMOTE_CONTEXT_FAILED,
+                        "Context " + key + " is not in the local JSON-LD context registry");
+            }
+            Document remote = fetched.get(key);
+            if (remote == null) {
+                remote = SchemeRouter.defaultInstance().loadDocument(url, loaderOptions);
+                fetched.put(key, remote);
+            }
+            return remote;
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package eu.sedimark.catalogue.utils;
+
+/**
+ * Named graphs the catalogue keeps for its own bookkeeping, next to the offering
+ * graphs in the same dataset (so they are persisted with TDB2). They all share the
+ * {@link #PREFIX} and are never listed, served or replaced as offerings.
+ */
+public final class SystemGraphs {
+
+    /** Prefix of every system graph name */
+    public static final String PREFIX = "urn:sedimark:system:";
+
+    /** Vocabulary of the bookkeeping data stored in system graphs */
+    public static final String NS = PREFIX + "vocab#";
+
+    /** Validation status table maintained by the incremental validation engine */
+    public static final String VALIDATION = PREFIX + "validation";
+
+    /** Sequence number and id of the last RDF Patch applied to the dataset */
+    public static final String REPLICATION = PREFIX + "replication";
+
+    /** Participants, self-listings and other entities shared by offerings, stored once */
+    public static final String SHARED = PREFIX + "shared";
+
+    /** Statements found in several offerings, stored once (deduplicated storage) */
+    public static final String REFERENCE = PREFIX + "reference";
+
+    /** Reference counts of the deduplicated statements and the offerings using them */
+    public static final String REFCOUNTS = PREFIX + "refcounts";
+
+    /** Secondary indexes of offerings by participant, asset and self-listing */
+    public static final String INDEX = PREFIX + "index";
+
+    /** Id of the last transaction committed across several shards of a sharded store */
+    public static final String SHARDS = PREFIX + "shards";
+
+    private SystemGraphs() {
+    }
+
+    /**
+     * Whether a graph name belongs to the catalogue rather than to an offering
+     */
+    public static boolean isSystemGraph(String graphName) {
+        return graphName != null && graphName.startsWith(PREFIX);
+    }
+}
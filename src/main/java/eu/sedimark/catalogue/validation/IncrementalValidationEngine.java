@@ -0,0 +1,1062 @@
+/*
+ * SEDIMARK Catalogue Server
+ *
+ * Copyright (C) 2025 Tarek Elsaleh
+ *
+ * This program is licensed under the European Union Public License (EUPL) v1.2.
+ * You may obtain a copy of the License at:
+ * https://joinup.ec.europa.eu/collection/eupl/eupl-text-eupl-12
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.sedimark.catalogue.validation;
+
+import org.apache.jena.datatypes.xsd.XSDDatatype;
+import org.apache.jena.graph.Graph;
+import org.apache.jena.graph.GraphUtil;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.query.Dataset;
+import org.apache.jena.query.ReadWrite;
+import org.apache.jena.shacl.ValidationReport;
+import org.apache.jena.shacl.parser.Shape;
+import org.apache.jena.shacl.validation.ReportEntry;
+import org.apache.jena.sparql.core.DatasetGraph;
+import org.apache.jena.sparql.graph.GraphFactory;
+import org.apache.jena.vocabulary.RDF;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import eu.sedimark.catalogue.handlers.OfferingChangeListener;
+import eu.sedimark.catalogue.handlers.OfferingGSPHandler.NamedSubgraph;
+import eu.sedimark.catalogue.storage.SharedEntityGraph;
+import eu.sedimark.catalogue.utils.JsonStrings;
+import eu.sedimark.catalogue.utils.SystemGraphs;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Incremental SHACL validation of the stored offerings, with a persisted status
+ * table.
+ *
+ * For each offering graph the engine keeps a focus index: the focus nodes of every
+ * target shape and a digest of each subject's triples. When an offering is
+ * replaced, only the (shape, focus node) pairs the change can affect are
+ * re-validated: focus nodes whose triples changed or that reach a changed node,
+ * new pairs, and every focus node of graph-wide (SPARQL) shapes. The results of the
+ * other pairs are kept. Updates are applied in order on a background thread, so
+ * publishing is not slowed down.
+ *
+ * The status of each offering is written to the system graph
+ * {@link SystemGraphs#VALIDATION} and reloaded at startup. An offering is stale if
+ * it has no status (e.g. it was changed through SPARQL Update) or its status was
+ * computed with other shapes; an audit re-validates the stale offerings, only
+ * against the shapes that changed, or every offering, on a pool of worker threads.
+ */
+public class IncrementalValidationEngine implements OfferingChangeListener {
+    private static final Logger logger = LoggerFactory.getLogger(IncrementalValidationEngine.class);
+
+    /** Statuses written to the dataset per transaction */
+    private static final int PERSIST_BATCH = 64;
+
+    private static final Node STATUS_GRAPH = NodeFactory.createURI(SystemGraphs.VALIDATION);
+    private static final String SHAPES_VERSION_PREFIX = SystemGraphs.VALIDATION + ":shapes:";
+    private static final Node VALIDATION_STATUS = vocab("ValidationStatus");
+    private static final Node SHAPES_VERSION = vocab("ShapesVersion");
+    private static final Node CONFORMS = vocab("conforms");
+    private static final Node VALIDATED_AT = vocab("validatedAt");
+    private static final Node SHAPES_DIGEST = vocab("shapesDigest");
+    private static final Node FOCUS_NODES = vocab("focusNodes");
+    private static final Node CHECKED_PAIRS = vocab("checkedPairs");
+    private static final Node TOTAL_PAIRS = vocab("totalPairs");
+    private static final Node MODE = vocab("mode");
+    private static final Node RESULT = vocab("result");
+    private static final Node SHAPE = vocab("shape");
+    private static final Node FOCUS_NODE = vocab("focusNode");
+    private static final Node SEVERITY = vocab("severity");
+    private static final Node PATH = vocab("path");
+    private static final Node CONSTRAINT = vocab("constraint");
+    private static final Node MESSAGE = vocab("message");
+    private static final Node SHAPE_DIGEST = vocab("shapeDigest");
+    private static final Node DIGEST = vocab("digest");
+
+    private final Dataset dataset;
+    private final OfferingValidator validator;
+    private final int auditThreads;
+    private final String shapesDigest;
+    private final Map<String, String> currentShapeDigests = new LinkedHashMap<>();
+
+    /** Applies store/delete events in order */
+    private final ExecutorService updates = Executors.newSingleThreadExecutor(daemonThreads("catalogue-validation"));
+    private final AtomicInteger pendingUpdates = new AtomicInteger();
+    private final AtomicLong sequence = new AtomicLong();
+
+    private final Object stateLock = new Object();
+    private final Map<String, OfferingStatus> statuses = new ConcurrentHashMap<>();
+    private final Map<String, FocusIndex> indexes = new ConcurrentHashMap<>();
+    /** Sequence of deletions while an audit runs, so it does not bring them back */
+    private final Map<String, Long> deletions = new ConcurrentHashMap<>();
+    /** Shape digests of earlier shapes versions, by shapes digest */
+    private final Map<String, Map<String, String>> shapesVersions = new ConcurrentHashMap<>();
+
+    private final Object persistLock = new Object();
+    private final Set<String> dirty = ConcurrentHashMap.newKeySet();
+
+    private final AtomicLong incrementalUpdates = new AtomicLong();
+    private final AtomicLong pairsChecked = new AtomicLong();
+    private final AtomicLong pairsReused = new AtomicLong();
+
+    private volatile Audit audit;
+
+    /**
+     * @param auditThreads Worker threads for audits (0 for one per processor)
+     */
+    public IncrementalValidationEngine(Dataset dataset, OfferingValidator validator, int auditThreads) {
+        this.dataset = dataset;
+        this.validator = validator;
+        this.auditThreads = auditThreads > 0 ? auditThreads : Runtime.getRuntime().availableProcessors();
+        validator.getShapeDigests().forEach((shape, digest) -> currentShapeDigests.put(label(shape), digest));
+        this.shapesDigest = digest(new TreeMap<>(currentShapeDigests).toString());
+    }
+
+    /**
+     * Load the persisted status table and start an audit of the stale offerings, if
+     * there are any
+     */
+    public void start() {
+        loadStatusTable();
+        shapesVersions.put(shapesDigest, currentShapeDigests);
+
+        List<String> offerings = listOfferingGraphs();
+        Set<String> existing = new HashSet<>(offerings);
+        for (String graphName : new ArrayList<>(statuses.keySet())) {
+            if (!existing.contains(graphName)) {
+                statuses.remove(graphName);
+                dirty.add(graphName);
+            }
+        }
+        long stale = offerings.stream().filter(this::isStale).count();
+        flush(true);
+        logger.info("Validation status table: {} offerings, {} stale (shapes {})", offerings.size(), stale,
+                shapesDigest);
+
+        if (stale > 0) {
+            startAudit(false);
+        }
+    }
+
+    @Override
+    public void offeringsStored(List<NamedSubgraph> offerings) {
+        long seq = sequence.incrementAndGet();
+        pendingUpdates.addAndGet(offerings.size());
+        updates.execute(() -> {
+            for (NamedSubgraph offering : offerings) {
+                try {
+                    update(offering.getGraphName(), offering.getModel().getGraph(), seq);
+                } catch (Exception e) {
+                    logger.error("Incremental validation of {} failed: {}", offering.getGraphName(), e.getMessage(), e);
+                } finally {
+                    pendingUpdates.decrementAndGet();
+                }
+            }
+            flush(true);
+        });
+    }
+
+    @Override
+    public void offeringDeleted(String graphName) {
+        long seq = sequence.incrementAndGet();
+        pendingUpdates.incrementAndGet();
+        updates.execute(() -> {
+            try {
+                synchronized (stateLock) {
+                    statuses.remove(graphName);
+                    indexes.remove(graphName);
+                    if (isAuditRunning()) {
+                        deletions.put(graphName, seq);
+                    }
+                }
+                dirty.add(graphName);
+                flush(true);
+            } finally {
+                pendingUpdates.decrementAndGet();
+            }
+        });
+    }
+
+    /**
+     * Re-validate the part of an offering affected by the change from the previous
+     * version, or all of it if there is no previous version
+     */
+    private void update(String graphName, Graph graph, long seq) {
+        FocusIndex previous;
+        OfferingStatus previousStatus;
+        synchronized (stateLock) {
+            previous = indexes.get(graphName);
+            previousStatus = statuses.get(graphName);
+        }
+
+        FocusIndex index = FocusIndex.build(graph, validator);
+        Map<Shape, Set<Node>> toCheck;
+        List<ResultRow> kept;
+        String mode;
+        if (previous == null || previousStatus == null || !shapesDigest.equals(previousStatus.getShapesDigest())) {
+            toCheck = index.focus;
+            kept = List.of();
+            mode = "full";
+        } else {
+            Set<Node> changed = index.changedSubjects(previous);
+            Set<Node> affected = index.reachingAny(graph, changed);
+            toCheck = new LinkedHashMap<>();
+            for (Map.Entry<Shape, Set<Node>> entry : index.focus.entrySet()) {
+                Shape shape = entry.getKey();
+                Set<Node> focusNodes = new LinkedHashSet<>();
+                boolean graphWide = validator.isGraphWide(shape.getShapeNode()) && !changed.isEmpty();
+                for (Node focusNode : entry.getValue()) {
+                    if (graphWide || affected.contains(focusNode)
+                            || !previous.pairKeys.contains(pairKey(shape.getShapeNode(), focusNode))) {
+                        focusNodes.add(focusNode);
+                    }
+                }
+                toCheck.put(shape, focusNodes);
+            }
+            kept = previousStatus.getResults();
+            mode = "incremental";
+        }
+
+        OfferingStatus status = evaluate(graphName, graph, index, toCheck, kept, mode, seq);
+        incrementalUpdates.incrementAndGet();
+        pairsChecked.addAndGet(status.getCheckedPairs());
+        pairsReused.addAndGet(status.getTotalPairs() - status.getCheckedPairs());
+        apply(graphName, status, index);
+        logger.debug("Validated {} ({}): {} of {} focus node/shape pairs checked", graphName, mode,
+                status.getCheckedPairs(), status.getTotalPairs());
+    }
+
+    /**
+     * Validate the selected pairs and merge the results with the kept results of the
+     * pairs that were not re-checked
+     */
+    private OfferingStatus evaluate(String graphName, Graph graph, FocusIndex index, Map<Shape, Set<Node>> toCheck,
+            List<ResultRow> kept, String mode, long seq) {
+        ValidationReport report = validator.validate(graph, toCheck);
+
+        Set<String> checked = new HashSet<>();
+        toCheck.forEach((shape, focusNodes) -> focusNodes
+                .forEach(focusNode -> checked.add(pairKey(shape.getShapeNode(), focusNode))));
+
+        List<ResultRow> results = new ArrayList<>();
+        for (ResultRow row : kept) {
+            String key = row.shape() + " " + row.focusNode();
+            if (index.pairKeys.contains(key) && !checked.contains(key)) {
+                results.add(row);
+            }
+        }
+        for (ReportEntry entry : report.getEntries()) {
+            results.add(ResultRow.of(entry, validator));
+        }
+        return new OfferingStatus(graphName, results, index.focusNodeCount(), checked.size(), index.pairKeys.size(),
+                Instant.now(), shapesDigest, mode, seq);
+    }
+
+    /**
+     * Record a status unless a newer event already replaced or deleted the offering
+     */
+    private boolean apply(String graphName, OfferingStatus status, FocusIndex index) {
+        synchronized (stateLock) {
+            Long deletedAt = deletions.get(graphName);
+            if (deletedAt != null && deletedAt > status.getSequence()) {
+                return false;
+            }
+            OfferingStatus current = statuses.get(graphName);
+            if (current != null && current.getSequence() > status.getSequence()) {
+                return false;
+            }
+            statuses.put(graphName, status);
+            if (index != null) {
+                indexes.put(graphName, index);
+            }
+        }
+        dirty.add(graphName);
+        return true;
+    }
+
+    private boolean isStale(String graphName) {
+        OfferingStatus status = statuses.get(graphName);
+        return status == null || !shapesDigest.equals(status.getShapesDigest());
+    }
+
+    // ---------------------------------------------------------------- audits
+
+    /**
+     * Start a background audit
+     *
+     * @param full Re-validate every offering against every shape; otherwise only
+     *             stale offerings, against the shapes that changed
+     * @return The audit, or null if one is already running
+     */
+    public synchronized Audit startAudit(boolean full) {
+        if (isAuditRunning()) {
+            return null;
+        }
+        List<String> offerings = listOfferingGraphs();
+        if (!full) {
+            offerings = offerings.stream().filter(this::isStale).toList();
+        }
+        Audit started = new Audit(full, offerings.size(), auditThreads);
+        audit = started;
+        List<String> names = offerings;
+        Thread coordinator = daemonThreads("catalogue-audit").newThread(() -> runAudit(started, names));
+        coordinator.start();
+        logger.info("Started {} validation audit of {} offerings on {} threads", full ? "full" : "stale",
+                names.size(), auditThreads);
+        return started;
+    }
+
+    /**
+     * Ask the running audit to stop; offerings already audited keep their status
+     *
+     * @return Whether an audit was running
+     */
+    public boolean cancelAudit() {
+        Audit running = audit;
+        if (running == null || !running.isRunning()) {
+            return false;
+        }
+        running.cancelled = true;
+        return true;
+    }
+
+    /**
+     * Stop at shutdown: cancel a running audit, apply the pending updates and
+     * persist the status table
+     *
+     * @param timeoutMillis Time allowed for the pending updates and the audit to finish
+     */
+    public void stop(long timeoutMillis) {
+        cancelAudit();
+        updates.shutdown();
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        try {
+            if (!updates.awaitTermination(timeoutMillis, TimeUnit.MILLISECONDS)) {
+                logger.warn("Stopped with {} validation updates pending", pendingUpdates.get());
+            }
+            Audit running = audit;
+            while (running != null && running.isRunning() && System.currentTimeMillis() < deadline) {
+                Thread.sleep(50);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush(true);
+    }
+
+    public Audit getAudit() {
+        return audit;
+    }
+
+    /**
+     * Status of an offering, or null if it has none yet
+     */
+    OfferingStatus getStatus(String graphName) {
+        return statuses.get(graphName);
+    }
+
+    private boolean isAuditRunning() {
+        Audit running = audit;
+        return running != null && running.isRunning();
+    }
+
+    private void runAudit(Audit run, List<String> offerings) {
+        ExecutorService workers = Executors.newFixedThreadPool(auditThreads, daemonThreads("catalogue-audit-worker"));
+        try {
+            List<Callable<Void>> tasks = new ArrayList<>(offerings.size());
+            for (String graphName : offerings) {
+                tasks.add(() -> {
+                    if (run.cancelled) {
+                        return null;
+                    }
+                    try {
+                        auditOffering(run, graphName);
+                    } catch (Exception e) {
+                        run.failed.incrementAndGet();
+                        logger.warn("Audit of {} failed: {}", graphName, e.getMessage(), e);
+                    }
+                    run.processed.incrementAndGet();
+                    flush(false);
+                    return null;
+                });
+            }
+            workers.invokeAll(tasks);
+            flush(true);
+            run.finish(run.cancelled ? "cancelled" : "completed");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            run.finish("cancelled");
+        } catch (Exception e) {
+            logger.error("Validation audit failed: {}", e.getMessage(), e);
+            run.finish("failed");
+        } finally {
+            workers.shutdownNow();
+            deletions.clear();
+        }
+        logger.info("Validation audit {}: {} of {} offerings in {} ms, {} not conforming", run.getState(),
+                run.getProcessed(), run.getTotal(), run.getElapsed().toMillis(), run.getNonConforming());
+    }
+
+    private void auditOffering(Audit run, String graphName) {
+        long seq = sequence.get();
+        Graph graph = readOfferingGraph(graphName);
+        if (graph == null) {
+            run.skipped.incrementAndGet();
+            return;
+        }
+
+        FocusIndex index = FocusIndex.build(graph, validator);
+        Map<Shape, Set<Node>> toCheck = index.focus;
+        List<ResultRow> kept = List.of();
+        OfferingStatus current = statuses.get(graphName);
+        if (!run.isFull() && current != null) {
+            // Stale because the shapes changed: re-check only the changed shapes
+            Set<String> changedShapes = changedShapes(current.getShapesDigest());
+            if (changedShapes != null) {
+                toCheck = new LinkedHashMap<>();
+                for (Map.Entry<Shape, Set<Node>> entry : index.focus.entrySet()) {
+                    toCheck.put(entry.getKey(), changedShapes.contains(label(entry.getKey().getShapeNode()))
+                            ? entry.getValue() : Set.of());
+                }
+                kept = current.getResults();
+            }
+        }
+
+        OfferingStatus status = evaluate(graphName, graph, index, toCheck, kept, run.isFull() ? "audit" : "stale-audit",
+                seq);
+        if (apply(graphName, status, index) && !status.conforms()) {
+            run.nonConforming.incrementAndGet();
+        }
+    }
+
+    /**
+     * Shapes added or changed since the given shapes version (removed shapes drop
+     * out through the pair check), or null if that version is unknown
+     */
+    private Set<String> changedShapes(String fromVersion) {
+        Map<String, String> previous = shapesVersions.get(fromVersion);
+        if (previous == null) {
+            return null;
+        }
+        Set<String> changed = new HashSet<>();
+        currentShapeDigests.forEach((shape, digest) -> {
+            if (!digest.equals(previous.get(shape))) {
+                changed.add(shape);
+            }
+        });
+        return changed;
+    }
+
+    // ---------------------------------------------------------------- storage
+
+    private List<String> listOfferingGraphs() {
+        List<String> names = new ArrayList<>();
+        dataset.begin(ReadWrite.READ);
+        try {
+            dataset.listNames().forEachRemaining(name -> {
+                if (!SystemGraphs.isSystemGraph(name)) {
+                    names.add(name);
+                }
+            });
+        } finally {
+            dataset.end();
+        }
+        return names;
+    }
+
+    /**
+     * Copy an offering graph, with the shared entities it links to, out of the
+     * dataset, so it is validated outside the transaction
+     *
+     * @return The graph, or null if it no longer exists
+     */
+    private Graph readOfferingGraph(String graphName) {
+        dataset.begin(ReadWrite.READ);
+        try {
+            Graph stored = SharedEntityGraph.expand(dataset.asDatasetGraph(), NodeFactory.createURI(graphName));
+            if (stored.isEmpty()) {
+                return null;
+            }
+            Graph copy = GraphFactory.createDefaultGraph();
+            GraphUtil.addInto(copy, stored);
+            return copy;
+        } finally {
+            dataset.end();
+        }
+    }
+
+    /**
+     * Write the statuses of the offerings changed since the last flush
+     *
+     * @param all Write whatever is pending; otherwise only once a batch is full
+     */
+    private void flush(boolean all) {
+        if (dirty.isEmpty() || (!all && dirty.size() < PERSIST_BATCH)) {
+            return;
+        }
+        synchronized (persistLock) {
+            writeDirty();
+        }
+    }
+
+    private void writeDirty() {
+        List<String> keys = new ArrayList<>(dirty);
+        if (keys.isEmpty()) {
+            return;
+        }
+        dirty.removeAll(keys);
+        dataset.begin(ReadWrite.WRITE);
+        try {
+            DatasetGraph dsg = dataset.asDatasetGraph();
+            Graph table = dsg.getGraph(STATUS_GRAPH);
+            writeShapesVersion(table);
+            for (String graphName : keys) {
+                Node subject = NodeFactory.createURI(graphName);
+                removeStatus(table, subject);
+                OfferingStatus status = statuses.get(graphName);
+                if (status != null && dsg.containsGraph(subject)) {
+                    writeStatus(table, subject, status);
+                }
+            }
+            dataset.commit();
+        } catch (Exception e) {
+            dataset.abort();
+            dirty.addAll(keys);
+            logger.error("Could not persist the validation status table: {}", e.getMessage(), e);
+        } finally {
+            dataset.end();
+        }
+    }
+
+    private void writeShapesVersion(Graph table) {
+        Node version = NodeFactory.createURI(SHAPES_VERSION_PREFIX + shapesDigest);
+        if (table.contains(version, RDF.type.asNode(), SHAPES_VERSION)) {
+            return;
+        }
+        table.add(Triple.create(version, RDF.type.asNode(), SHAPES_VERSION));
+        currentShapeDigests.forEach((shape, digest) -> {
+            Node entry = NodeFactory.createBlankNode();
+            table.add(Triple.create(version, SHAPE_DIGEST, entry));
+            table.add(Triple.create(entry, SHAPE, NodeFactory.createLiteralString(shape)));
+            table.add(Triple.create(entry, DIGEST, NodeFactory.createLiteralString(digest)));
+        });
+    }
+
+    private static void removeStatus(Graph table, Node subject) {
+        List<Node> results = new ArrayList<>();
+        table.find(subject, RESULT, Node.ANY).forEach(triple -> results.add(triple.getObject()));
+        for (Node result : results) {
+            table.remove(result, Node.ANY, Node.ANY);
+        }
+        table.remove(subject, Node.ANY, Node.ANY);
+    }
+
+    private static void writeStatus(Graph table, Node subject, OfferingStatus status) {
+        table.add(Triple.create(subject, RDF.type.asNode(), VALIDATION_STATUS));
+        table.add(Triple.create(subject, CONFORMS,
+                NodeFactory.createLiteralDT(Boolean.toString(status.conforms()), XSDDatatype.XSDboolean)));
+        table.add(Triple.create(subject, VALIDATED_AT,
+                NodeFactory.createLiteralDT(status.getValidatedAt().toString(), XSDDatatype.XSDdateTime)));
+        table.add(Triple.create(subject, SHAPES_DIGEST, NodeFactory.createLiteralString(status.getShapesDigest())));
+        table.add(Triple.create(subject, FOCUS_NODES, integer(status.getFocusNodes())));
+        table.add(Triple.create(subject, CHECKED_PAIRS, integer(status.getCheckedPairs())));
+        table.add(Triple.create(subject, TOTAL_PAIRS, integer(status.getTotalPairs())));
+        table.add(Triple.create(subject, MODE, NodeFactory.createLiteralString(status.getMode())));
+        for (ResultRow row : status.getResults()) {
+            Node result = NodeFactory.createBlankNode();
+            table.add(Triple.create(subject, RESULT, result));
+            table.add(Triple.create(result, SHAPE, NodeFactory.createLiteralString(row.shape())));
+            table.add(Triple.create(result, FOCUS_NODE, NodeFactory.createLiteralString(row.focusNode())));
+            table.add(Triple.create(result, SEVERITY, NodeFactory.createLiteralString(row.severity())));
+            table.add(Triple.create(result, PATH, NodeFactory.createLiteralString(row.path())));
+            table.add(Triple.create(result, CONSTRAINT, NodeFactory.createLiteralString(row.constraint())));
+            table.add(Triple.create(result, MESSAGE, NodeFactory.createLiteralString(row.message())));
+        }
+    }
+
+    private void loadStatusTable() {
+        dataset.begin(ReadWrite.READ);
+        try {
+            Graph table = dataset.asDatasetGraph().getGraph(STATUS_GRAPH);
+            table.find(Node.ANY, RDF.type.asNode(), SHAPES_VERSION).forEach(triple -> {
+                Node version = triple.getSubject();
+                Map<String, String> digests = new HashMap<>();
+                table.find(version, SHAPE_DIGEST, Node.ANY).forEach(entry -> digests.put(
+                        text(table, entry.getObject(), SHAPE), text(table, entry.getObject(), DIGEST)));
+                shapesVersions.put(version.getURI().substring(SHAPES_VERSION_PREFIX.length()), digests);
+            });
+            table.find(Node.ANY, RDF.type.asNode(), VALIDATION_STATUS).forEach(triple -> {
+                Node subject = triple.getSubject();
+                List<ResultRow> results = new ArrayList<>();
+                table.find(subject, RESULT, Node.ANY).forEach(result -> {
+                    Node row = result.getObject();
+                    results.add(new ResultRow(text(table, row, SHAPE), text(table, row, FOCUS_NODE),
+                            text(table, row, SEVERITY), text(table, row, PATH), text(table, row, CONSTRAINT),
+                            text(table, row, MESSAGE)));
+                });
+                statuses.put(subject.getURI(), new OfferingStatus(subject.getURI(), results,
+                        Integer.parseInt(text(table, subject, FOCUS_NODES)),
+                        Integer.parseInt(text(table, subject, CHECKED_PAIRS)),
+                        Integer.parseInt(text(table, subject, TOTAL_PAIRS)),
+                        Instant.parse(text(table, subject, VALIDATED_AT)), text(table, subject, SHAPES_DIGEST),
+                        text(table, subject, MODE), 0));
+            });
+        } catch (RuntimeException e) {
+            logger.warn("Could not read the validation status table, offerings will be re-validated: {}",
+                    e.getMessage());
+            statuses.clear();
+        } finally {
+            dataset.end();
+        }
+        logger.info("Loaded {} validation statuses and {} shapes versions", statuses.size(), shapesVersions.size());
+    }
+
+    private static String text(Graph graph, Node subject, Node predicate) {
+        var found = graph.find(subject, predicate, Node.ANY);
+        try {
+            return found.hasNext() ? found.next().getObject().getLiteralLexicalForm() : "";
+        } finally {
+            found.close();
+        }
+    }
+
+    // ---------------------------------------------------------------- reporting
+
+    /**
+     * Render the status table as the /catalogue/validation response
+     *
+     * @param graphName Only this offering, with its results (null for all)
+     * @param conforms  Only offerings that do (true) or do not (false) conform, or
+     *                  null for all
+     * @return The JSON document, or null if the requested offering has no status
+     */
+    public String toJson(String graphName, Boolean conforms) {
+        Map<String, OfferingStatus> selected = new TreeMap<>();
+        if (graphName != null) {
+            OfferingStatus status = statuses.get(graphName);
+            if (status == null) {
+                return null;
+            }
+            selected.put(graphName, status);
+        } else {
+            statuses.forEach((name, status) -> {
+                if (conforms == null || status.conforms() == conforms) {
+                    selected.put(name, status);
+                }
+            });
+        }
+
+        List<String> offerings = listOfferingGraphs();
+        long conforming = statuses.values().stream().filter(OfferingStatus::conforms).count();
+        long stale = offerings.stream().filter(this::isStale).count();
+
+        StringBuilder json = new StringBuilder();
+        json.append("{\n");
+        json.append("  \"status\": \"success\",\n");
+        json.append("  \"shapesDigest\": \"").append(shapesDigest).append("\",\n");
+        json.append("  \"summary\": {\n");
+        json.append("    \"offerings\": ").append(offerings.size()).append(",\n");
+        json.append("    \"conforming\": ").append(conforming).append(",\n");
+        json.append("    \"nonConforming\": ").append(statuses.size() - conforming).append(",\n");
+        json.append("    \"stale\": ").append(stale).append(",\n");
+        json.append("    \"pendingUpdates\": ").append(pendingUpdates.get()).append("\n");
+        json.append("  },\n");
+        json.append("  \"incremental\": {\n");
+        json.append("    \"updates\": ").append(incrementalUpdates.get()).append(",\n");
+        json.append("    \"pairsChecked\": ").append(pairsChecked.get()).append(",\n");
+        json.append("    \"pairsReused\": ").append(pairsReused.get()).append("\n");
+        json.append("  },\n");
+        json.append("  \"audit\": ");
+        Audit current = audit;
+        if (current == null) {
+            json.append("null");
+        } else {
+            current.appendJson(json, "  ");
+        }
+        json.append(",\n");
+        appendShapes(json);
+        json.append("  \"offerings\": [");
+        int i = 0;
+        for (OfferingStatus status : selected.values()) {
+            json.append(i++ == 0 ? "\n" : ",\n");
+            status.appendJson(json, "    ", graphName != null, !shapesDigest.equals(status.getShapesDigest()));
+        }
+        json.append(selected.isEmpty() ? "]\n" : "\n  ]\n");
+        json.append("}");
+        return json.toString();
+    }
+
+    private void appendShapes(StringBuilder json) {
+        json.append("  \"shapes\": [");
+        int i = 0;
+        for (Map.Entry<Node, OfferingValidator.ShapeStatistics> entry : validator.getStatistics().entrySet()) {
+            OfferingValidator.ShapeStatistics statistics = entry.getValue();
+            json.append(i++ == 0 ? "\n" : ",\n");
+            json.append("    { \"shape\": \"").append(JsonStrings.escape(label(entry.getKey()))).append("\", ");
+            json.append("\"graphWide\": ").append(validator.isGraphWide(entry.getKey())).append(", ");
+            json.append("\"validations\": ").append(statistics.getCount()).append(", ");
+            json.append("\"totalMs\": ").append(String.format(Locale.ROOT, "%.3f", statistics.getTotalNanos() / 1_000_000.0))
+                    .append(", ");
+            json.append("\"maxMs\": ").append(String.format(Locale.ROOT, "%.3f", statistics.getMaxNanos() / 1_000_000.0))
+                    .append(" }");
+        }
+        json.append(i == 0 ? "],\n" : "\n  ],\n");
+    }
+
+    // ---------------------------------------------------------------- helpers
+
+    private static Node vocab(String localName) {
+        return NodeFactory.createURI(SystemGraphs.NS + localName);
+    }
+
+    private static Node integer(int value) {
+        return NodeFactory.createLiteralDT(Integer.toString(value), XSDDatatype.XSDinteger);
+    }
+
+    static String label(Node node) {
+        if (node == null) {
+            return "";
+        }
+        return node.isURI() ? node.getURI() : node.toString();
+    }
+
+    private static String pairKey(Node shape, Node focusNode) {
+        return label(shape) + " " + label(focusNode);
+    }
+
+    private static String digest(String value) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash, 0, 8);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static ThreadFactory daemonThreads(String name) {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * Focus nodes per target shape and a digest of each subject's triples in one
+     * version of an offering graph
+     */
+    private static class FocusIndex {
+        final Map<Node, Long> digests = new HashMap<>();
+        final Map<Shape, Set<Node>> focus = new LinkedHashMap<>();
+        final Set<String> pairKeys = new HashSet<>();
+
+        static FocusIndex build(Graph graph, OfferingValidator validator) {
+            FocusIndex index = new FocusIndex();
+            graph.find().forEach(triple -> index.digests.merge(triple.getSubject(), hash(triple), Long::sum));
+            for (Shape shape : validator.getShapes().getTargetShapes()) {
+                Collection<Node> focusNodes = validator.focusNodes(graph, shape);
+                index.focus.put(shape, new LinkedHashSet<>(focusNodes));
+                focusNodes.forEach(focusNode -> index.pairKeys.add(pairKey(shape.getShapeNode(), focusNode)));
+            }
+            return index;
+        }
+
+        int focusNodeCount() {
+            Set<Node> all = new HashSet<>();
+            focus.values().forEach(all::addAll);
+            return all.size();
+        }
+
+        /**
+         * Subjects whose triples differ from the previous version (including
+         * subjects that appeared or disappeared)
+         */
+        Set<Node> changedSubjects(FocusIndex previous) {
+            Set<Node> changed = new HashSet<>();
+            digests.forEach((subject, digest) -> {
+                if (!digest.equals(previous.digests.get(subject))) {
+                    changed.add(subject);
+                }
+            });
+            previous.digests.keySet().forEach(subject -> {
+                if (!digests.containsKey(subject)) {
+                    changed.add(subject);
+                }
+            });
+            return changed;
+        }
+
+        /**
+         * The changed nodes and every node that reaches one of them through the
+         * graph, i.e. whose shape paths may pass through a change
+         */
+        Set<Node> reachingAny(Graph graph, Set<Node> changed) {
+            Set<Node> reached = new HashSet<>(changed);
+            Deque<Node> queue = new ArrayDeque<>(changed);
+            while (!queue.isEmpty()) {
+                Node node = queue.poll();
+                graph.find(Node.ANY, Node.ANY, node).forEach(triple -> {
+                    if (reached.add(triple.getSubject())) {
+                        queue.add(triple.getSubject());
+                    }
+                });
+            }
+            return reached;
+        }
+
+        private static long hash(Triple triple) {
+            long h = ((long) triple.getPredicate().hashCode() << 32) ^ (triple.getObject().hashCode() & 0xffffffffL);
+            // murmur3 finalizer, so summing the hashes of a subject's triples mixes well
+            h ^= h >>> 33;
+            h *= 0xff51afd7ed558ccdL;
+            h ^= h >>> 33;
+            h *= 0xc4ceb9fe1a85ec53L;
+            h ^= h >>> 33;
+            return h;
+        }
+    }
+
+    /**
+     * One validation result, with nodes as labels so it can be stored and compared
+     * across versions of the graph
+     */
+    record ResultRow(String shape, String focusNode, String severity, String path, String constraint,
+            String message) {
+
+        static ResultRow of(ReportEntry entry, OfferingValidator validator) {
+            return new ResultRow(label(validator.targetShape(entry.source())), label(entry.focusNode()),
+                    entry.severity().level().getLocalName(),
+                    entry.resultPath() != null ? entry.resultPath().toString() : "",
+                    entry.sourceConstraintComponent() != null ? entry.sourceConstraintComponent().getLocalName() : "",
+                    entry.message() != null ? entry.message() : "");
+        }
+
+        void appendJson(StringBuilder json) {
+            json.append("{ \"severity\": \"").append(severity).append("\", ");
+            json.append("\"focusNode\": \"").append(JsonStrings.escape(focusNode)).append("\", ");
+            json.append("\"path\": \"").append(JsonStrings.escape(path)).append("\", ");
+            json.append("\"shape\": \"").append(JsonStrings.escape(shape)).append("\", ");
+            json.append("\"constraint\": \"").append(JsonStrings.escape(constraint)).append("\", ");
+            json.append("\"message\": \"").append(JsonStrings.escape(message)).append("\" }");
+        }
+    }
+
+    /**
+     * Validation status of one offering, a row of the status table
+     */
+    public static class OfferingStatus {
+        private final String graphName;
+        private final List<ResultRow> results;
+        private final int focusNodes;
+        private final int checkedPairs;
+        private final int totalPairs;
+        private final Instant validatedAt;
+        private final String shapesDigest;
+        private final String mode;
+        private final long sequence;
+
+        OfferingStatus(String graphName, List<ResultRow> results, int focusNodes, int checkedPairs, int totalPairs,
+                Instant validatedAt, String shapesDigest, String mode, long sequence) {
+            this.graphName = graphName;
+            this.results = List.copyOf(results);
+            this.focusNodes = focusNodes;
+            this.checkedPairs = checkedPairs;
+            this.totalPairs = totalPairs;
+            this.validatedAt = validatedAt;
+            this.shapesDigest = shapesDigest;
+            this.mode = mode;
+            this.sequence = sequence;
+        }
+
+        public String getGraphName() {
+            return graphName;
+        }
+
+        public boolean conforms() {
+            return results.isEmpty();
+        }
+
+        List<ResultRow> getResults() {
+            return results;
+        }
+
+        public long count(String severity) {
+            return results.stream().filter(row -> row.severity().equals(severity)).count();
+        }
+
+        public int getFocusNodes() {
+            return focusNodes;
+        }
+
+        /** Focus node/shape pairs validated in the last update */
+        public int getCheckedPairs() {
+            return checkedPairs;
+        }
+
+        public int getTotalPairs() {
+            return totalPairs;
+        }
+
+        public Instant getValidatedAt() {
+            return validatedAt;
+        }
+
+        public String getShapesDigest() {
+            return shapesDigest;
+        }
+
+        /** How the last update was computed: full, incremental, audit or stale-audit */
+        public String getMode() {
+            return mode;
+        }
+
+        long getSequence() {
+            return sequence;
+        }
+
+        void appendJson(StringBuilder json, String indent, boolean withResults, boolean stale) {
+            json.append(indent).append("{\n");
+            json.append(indent).append("  \"uri\": \"").append(JsonStrings.escape(graphName)).append("\",\n");
+            json.append(indent).append("  \"conforms\": ").append(conforms()).append(",\n");
+            json.append(indent).append("  \"violations\": ").append(count("Violation")).append(",\n");
+            json.append(indent).append("  \"warnings\": ").append(count("Warning")).append(",\n");
+            json.append(indent).append("  \"focusNodes\": ").append(focusNodes).append(",\n");
+            json.append(indent).append("  \"checkedPairs\": ").append(checkedPairs).append(",\n");
+            json.append(indent).append("  \"totalPairs\": ").append(totalPairs).append(",\n");
+            json.append(indent).append("  \"mode\": \"").append(mode).append("\",\n");
+            json.append(indent).append("  \"stale\": ").append(stale).append(",\n");
+            json.append(indent).append("  \"validatedAt\": \"").append(validatedAt).append("\"");
+            if (withResults) {
+                json.append(",\n").append(indent).append("  \"results\": [");
+                for (int i = 0; i < results.size(); i++) {
+                    json.append(i == 0 ? "\n" : ",\n").append(indent).append("    ");
+                    results.get(i).appendJson(json);
+                }
+                json.append(results.isEmpty() ? "]" : "\n" + indent + "  ]");
+            }
+            json.append("\n").append(indent).append("}");
+        }
+    }
+
+    /**
+     * Progress of a background audit
+     */
+    public static class Audit {
+        private final boolean full;
+        private final int total;
+        private final int threads;
+        private final Instant startedAt = Instant.now();
+        private final AtomicInteger processed = new AtomicInteger();
+        private final AtomicInteger skipped = new AtomicInteger();
+        private final AtomicInteger failed = new AtomicInteger();
+        private final AtomicInteger nonConforming = new AtomicInteger();
+        private volatile Instant finishedAt;
+        private volatile String state = "running";
+        private volatile boolean cancelled;
+
+        Audit(boolean full, int total, int threads) {
+            this.full = full;
+            this.total = total;
+            this.threads = threads;
+        }
+
+        void finish(String finalState) {
+            finishedAt = Instant.now();
+            state = finalState;
+        }
+
+        public boolean isFull() {
+            return full;
+        }
+
+        public boolean isRunning() {
+            return "running".equals(state);
+        }
+
+        public String getState() {
+            return state;
+        }
+
+        public int getTotal() {
+            return total;
+        }
+
+        public int getProcessed() {
+            return processed.get();
+        }
+
+        public int getNonConforming() {
+            return nonConforming.get();
+        }
+
+        public Duration getElapsed() {
+            return Duration.between(startedAt, finishedAt != null ? finishedAt : Instant.now());
+        }
+
+        public void appendJson(StringBuilder json, String indent) {
+            int done = processed.get();
+            double seconds = getElapsed().toMillis() / 1000.0;
+            double rate = seconds > 0 ? done / seconds : 0;
+            json.append("{\n");
+            json.append(indent).append("  \"scope\": \"").append(full ? "full" : "stale").append("\",\n");
+            json.append(indent).append("  \"state\": \"").append(state).append("\",\n");
+            json.append(indent).append("  \"threads\": ").append(threads).append(",\n");
+            json.append(indent).append("  \"total\": ").append(total).append(",\n");
+            json.append(indent).append("  \"processed\": ").append(done).append(",\n");
+            json.append(indent).append("  \"skipped\": ").append(skipped.get()).append(",\n");
+            json.append(indent).append("  \"failed\": ").append(failed.get()).append(",\n");
+            json.append(indent).append("  \"nonConforming\": ").append(nonConforming.get()).append(",\n");
+            json.append(indent).append("  \"progress\": ")
+                    .append(String.format(Locale.ROOT, "%.1f", total > 0 ? 100.0 * done / total : 100.0)).append(",\n");
+            json.append(indent).append("  \"offeringsPerSecond\": ").append(String.format(Locale.ROOT, "%.1f", rate)).append(",\n");
+            if (isRunning() && rate > 0) {
+                json.append(indent).append("  \"etaSeconds\": ")
+                        .append(String.format(Locale.ROOT, "%.0f", (total - done) / rate)).append(",\n");
+            }
+            json.append(indent).append("  \"startedAt\": \"").append(startedAt).append("\",\n");
+            json.append(indent).append("  \"finishedAt\": ")
+                    .append(finishedAt != null ? "\"" + finishedAt + "\"" : "null").append("\n");
+            json.append(indent).append("}");
+        }
+    }
+}
@@ -0,0 +1,394 @@
+/*
+ * SEDIMARK Catalogue Server
+ *
+ * Copyright (C) 2025 Tarek Elsaleh
+ *
+ * This program is licensed under the European Union Public License (EUPL) v1.2.
+ * You may obtain a copy of the License at:
+ * https://joinup.ec.europa.eu/collection/eupl/eupl-text-eupl-12
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.sedimark.catalogue.validation;
+
+import org.apache.jena.graph.Graph;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.riot.Lang;
+import org.apache.jena.riot.RDFParser;
+import org.apache.jena.shacl.Shapes;
+import org.apache.jena.shacl.ValidationReport;
+import org.apache.jena.shacl.engine.Target;
+import org.apache.jena.shacl.engine.TargetType;
+import org.apache.jena.shacl.engine.ValidationContext;
+import org.apache.jena.shacl.engine.constraint.SparqlComponent;
+import org.apache.jena.shacl.engine.constraint.SparqlConstraint;
+import org.apache.jena.shacl.parser.Constraint;
+import org.apache.jena.shacl.parser.Shape;
+import org.apache.jena.shacl.validation.ReportEntry;
+import org.apache.jena.shacl.validation.VLib;
+import org.apache.jena.sparql.graph.GraphFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import eu.sedimark.catalogue.handlers.OfferingGSPHandler.NamedSubgraph;
+import eu.sedimark.catalogue.utils.JsonStrings;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * SHACL validation of offering graphs against the SEDIMARK shapes.
+ *
+ * The shapes are parsed and compiled once; each offering subgraph is then
+ * validated on its own (several offerings in parallel), shape by shape, so the
+ * time spent in every shape is recorded.
+ */
+public class OfferingValidator {
+    private static final Logger logger = LoggerFactory.getLogger(OfferingValidator.class);
+
+    /** Shapes shipped with the catalogue */
+    public static final String DEFAULT_SHAPES = "/shacl/shapes.ttl";
+
+    private final Shapes shapes;
+    private final Map<Node, ShapeStatistics> statistics = new ConcurrentHashMap<>();
+    /** Target shape owning each property shape, to name the shape in reports */
+    private final Map<Node, Node> owningShapes = new ConcurrentHashMap<>();
+    /** Digest of each target shape's definition, to notice changed shapes */
+    private final Map<Node, String> shapeDigests = new LinkedHashMap<>();
+    /** Target shapes whose results may depend on any triple of the graph */
+    private final Set<Node> graphWideShapes = new HashSet<>();
+
+    public OfferingValidator(Shapes shapes) {
+        this.shapes = shapes;
+        for (Shape shape : shapes.getTargetShapes()) {
+            statistics.put(shape.getShapeNode(), new ShapeStatistics());
+            shape.getPropertyShapes().forEach(
+                    propertyShape -> owningShapes.put(propertyShape.getShapeNode(), shape.getShapeNode()));
+            shapeDigests.put(shape.getShapeNode(), digest(shapes.getGraph(), shape.getShapeNode()));
+            if (isGraphWide(shape)) {
+                graphWideShapes.add(shape.getShapeNode());
+            }
+        }
+        logger.info("SHACL validator ready with {} target shapes", shapes.getTargetShapes().size());
+    }
+
+    /**
+     * Compile the shapes shipped with the catalogue
+     */
+    public static OfferingValidator fromClasspath() throws IOException {
+        return fromClasspath(DEFAULT_SHAPES);
+    }
+
+    /**
+     * Compile Turtle shapes from a classpath resource
+     */
+    public static OfferingValidator fromClasspath(String resource) throws IOException {
+        try (InputStream in = OfferingValidator.class.getResourceAsStream(resource)) {
+            if (in == null) {
+                throw new IOException("SHACL shapes not found on the classpath: " + resource);
+            }
+            Graph shapesGraph = GraphFactory.createDefaultGraph();
+            RDFParser.source(in).lang(Lang.TURTLE).parse(shapesGraph);
+            return new OfferingValidator(Shapes.parse(shapesGraph));
+        }
+    }
+
+    public Shapes getShapes() {
+        return shapes;
+    }
+
+    /**
+     * Validate each offering graph in isolation
+     *
+     * @return One report per offering, in the order of the input
+     */
+    public List<OfferingReport> validate(List<NamedSubgraph> offerings) {
+        if (offerings.size() == 1) {
+            return List.of(validate(offerings.get(0)));
+        }
+        return offerings.parallelStream().map(this::validate).toList();
+    }
+
+    /**
+     * Validate a single offering graph against every target shape
+     */
+    public OfferingReport validate(NamedSubgraph offering) {
+        return validate(offering.getGraphName(), offering.getModel().getGraph(), shapes.getTargetShapes());
+    }
+
+    /**
+     * Validate a graph against the given shapes only (all target shapes if null)
+     */
+    public OfferingReport validate(String graphName, Graph data, Collection<Shape> targetShapes) {
+        long start = System.nanoTime();
+        ValidationContext context = ValidationContext.create(shapes, data);
+        Map<Node, Long> shapeNanos = new ConcurrentHashMap<>();
+
+        for (Shape shape : targetShapes != null ? targetShapes : shapes.getTargetShapes()) {
+            long shapeStart = System.nanoTime();
+            for (Node focusNode : VLib.focusNodes(data, shape)) {
+                VLib.validateShape(context, data, shape, focusNode);
+            }
+            long elapsed = System.nanoTime() - shapeStart;
+            shapeNanos.put(shape.getShapeNode(), elapsed);
+            statistics.computeIfAbsent(shape.getShapeNode(), n -> new ShapeStatistics()).record(elapsed);
+        }
+
+        ValidationReport report = context.generateReport();
+        return new OfferingReport(graphName, report, owningShapes, shapeNanos, System.nanoTime() - start);
+    }
+
+    /**
+     * Validate only the given focus nodes of each shape. Used to re-check the part of
+     * an offering graph affected by a change.
+     */
+    public ValidationReport validate(Graph data, Map<Shape, ? extends Collection<Node>> focusNodes) {
+        ValidationContext context = ValidationContext.create(shapes, data);
+        for (Map.Entry<Shape, ? extends Collection<Node>> entry : focusNodes.entrySet()) {
+            if (entry.getValue().isEmpty()) {
+                continue;
+            }
+            long shapeStart = System.nanoTime();
+            for (Node focusNode : entry.getValue()) {
+                VLib.validateShape(context, data, entry.getKey(), focusNode);
+            }
+            statistics.computeIfAbsent(entry.getKey().getShapeNode(), n -> new ShapeStatistics())
+                    .record(System.nanoTime() - shapeStart);
+        }
+        return context.generateReport();
+    }
+
+    /**
+     * The focus nodes of a shape in a graph
+     */
+    public Collection<Node> focusNodes(Graph data, Shape shape) {
+        return VLib.focusNodes(data, shape);
+    }
+
+    /**
+     * The target shape a report entry belongs to (its source may be a property shape)
+     */
+    public Node targetShape(Node source) {
+        return owningShapes.getOrDefault(source, source);
+    }
+
+    /**
+     * Whether a shape has SPARQL constraints or targets, so its results for a focus
+     * node may depend on triples that are not reachable from that node
+     */
+    public boolean isGraphWide(Node shapeNode) {
+        return graphWideShapes.contains(shapeNode);
+    }
+
+    /**
+     * Digest of every target shape's definition in the shapes graph. Blank nodes are
+     * digested by content, so the value is stable across parses of the same shapes.
+     */
+    public Map<Node, String> getShapeDigests() {
+        return Collections.unmodifiableMap(shapeDigests);
+    }
+
+    private static boolean isGraphWide(Shape shape) {
+        for (Target target : shape.getTargets()) {
+            if (target.getTargetType() == TargetType.targetExtension) {
+                return true;
+            }
+        }
+        List<Constraint> constraints = new ArrayList<>(shape.getConstraints());
+        shape.getPropertyShapes().forEach(propertyShape -> constraints.addAll(propertyShape.getConstraints()));
+        return constraints.stream()
+                .anyMatch(constraint -> constraint instanceof SparqlConstraint || constraint instanceof SparqlComponent);
+    }
+
+    private static String digest(Graph shapesGraph, Node shapeNode) {
+        try {
+            MessageDigest sha = MessageDigest.getInstance("SHA-256");
+            sha.update(describe(shapesGraph, shapeNode, new HashSet<>()).getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(sha.digest(), 0, 8);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * Canonical text of a node's description: sorted predicate/object pairs, with
+     * objects described in the shapes graph (nested or referenced shapes, lists,
+     * paths) described inline
+     */
+    private static String describe(Graph graph, Node node, Set<Node> visited) {
+        if (!visited.add(node)) {
+            return "[cycle]";
+        }
+        List<String> lines = new ArrayList<>();
+        graph.find(node, Node.ANY, Node.ANY).forEach((Triple triple) -> {
+            Node object = triple.getObject();
+            String value = object.isBlank() ? "" : object.toString();
+            if (object.isBlank() || graph.contains(object, Node.ANY, Node.ANY)) {
+                value += "[" + describe(graph, object, visited) + "]";
+            }
+            lines.add(triple.getPredicate() + " " + value);
+        });
+        visited.remove(node);
+        Collections.sort(lines);
+        return String.join(" ; ", lines);
+    }
+
+    /**
+     * Cumulative timings per shape since startup
+     */
+    public Map<Node, ShapeStatistics> getStatistics() {
+        return statistics;
+    }
+
+    /**
+     * Render reports as the "validation" JSON object of a response
+     */
+    public static String toJson(List<OfferingReport> reports, String mode, String indent) {
+        boolean conforms = reports.stream().allMatch(OfferingReport::conforms);
+        StringBuilder json = new StringBuilder();
+        json.append("{\n");
+        json.append(indent).append("  \"mode\": \"").append(mode).append("\",\n");
+        json.append(indent).append("  \"conforms\": ").append(conforms).append(",\n");
+        json.append(indent).append("  \"offerings\": [\n");
+        for (int i = 0; i < reports.size(); i++) {
+            reports.get(i).appendJson(json, indent + "    ");
+            if (i < reports.size() - 1) {
+                json.append(",");
+            }
+            json.append("\n");
+        }
+        json.append(indent).append("  ]\n");
+        json.append(indent).append("}");
+        return json.toString();
+    }
+
+    private static String nodeLabel(Node node) {
+        if (node == null) {
+            return "";
+        }
+        return node.isURI() ? node.getURI() : node.toString();
+    }
+
+    /**
+     * Validation outcome for one offering graph
+     */
+    public static class OfferingReport {
+        private final String graphName;
+        private final ValidationReport report;
+        private final Map<Node, Node> owningShapes;
+        private final Map<Node, Long> shapeNanos;
+        private final long durationNanos;
+
+        OfferingReport(String graphName, ValidationReport report, Map<Node, Node> owningShapes,
+                Map<Node, Long> shapeNanos, long durationNanos) {
+            this.graphName = graphName;
+            this.report = report;
+            this.owningShapes = owningShapes;
+            this.shapeNanos = shapeNanos;
+            this.durationNanos = durationNanos;
+        }
+
+        public String getGraphName() {
+            return graphName;
+        }
+
+        public boolean conforms() {
+            return report.conforms();
+        }
+
+        public ValidationReport getReport() {
+            return report;
+        }
+
+        public long getDurationNanos() {
+            return durationNanos;
+        }
+
+        void appendJson(StringBuilder json, String indent) {
+            Collection<ReportEntry> entries = report.getEntries();
+            json.append(indent).append("{\n");
+            json.append(indent).append("  \"uri\": \"").append(JsonStrings.escape(graphName)).append("\",\n");
+            json.append(indent).append("  \"conforms\": ").append(report.conforms()).append(",\n");
+            json.append(indent).append("  \"durationMs\": ")
+                    .append(String.format(Locale.ROOT, "%.3f", durationNanos / 1_000_000.0)).append(",\n");
+            json.append(indent).append("  \"results\": [");
+            List<ReportEntry> list = new ArrayList<>(entries);
+            for (int i = 0; i < list.size(); i++) {
+                ReportEntry entry = list.get(i);
+                json.append(i == 0 ? "\n" : ",\n");
+                json.append(indent).append("    { ");
+                json.append("\"severity\": \"").append(entry.severity().level().getLocalName()).append("\", ");
+                json.append("\"focusNode\": \"").append(JsonStrings.escape(nodeLabel(entry.focusNode()))).append("\", ");
+                json.append("\"path\": \"")
+                        .append(JsonStrings.escape(entry.resultPath() != null ? entry.resultPath().toString() : "")).append("\", ");
+                json.append("\"shape\": \"")
+                        .append(JsonStrings.escape(nodeLabel(owningShapes.getOrDefault(entry.source(), entry.source()))))
+                        .append("\", ");
+                json.append("\"constraint\": \"").append(JsonStrings.escape(
+                        entry.sourceConstraintComponent() != null ? entry.sourceConstraintComponent().getLocalName() : ""))
+                        .append("\", ");
+                json.append("\"message\": \"").append(JsonStrings.escape(entry.message() != null ? entry.message() : ""))
+                        .append("\" }");
+            }
+            json.append(list.isEmpty() ? "],\n" : "\n" + indent + "  ],\n");
+            json.append(indent).append("  \"shapeTimingsMs\": {");
+            List<Map.Entry<Node, Long>> timings = new ArrayList<>(shapeNanos.entrySet());
+            for (int i = 0; i < timings.size(); i++) {
+                json.append(i == 0 ? " " : ", ");
+                json.append("\"").append(JsonStrings.escape(nodeLabel(timings.get(i).getKey()))).append("\": ")
+                        .append(String.format(Locale.ROOT, "%.3f", timings.get(i).getValue() / 1_000_000.0));
+            }
+            json.append(timings.isEmpty() ? "}\n" : " }\n");
+            json.append(indent).append("}");
+        }
+    }
+
+    /**
+     * Cumulative validation time of one shape
+     */
+    public static class ShapeStatistics {
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final AtomicLong maxNanos = new AtomicLong();
+
+        void record(long nanos) {
+            count.increment();
+            totalNanos.add(nanos);
+            maxNanos.accumulateAndGet(nanos, Math::max);
+        }
+
+        public long getCount() {
+            return count.sum();
+        }
+
+        public long getTotalNanos() {
+            return totalNanos.sum();
+        }
+
+        public long getMaxNanos() {
+            return maxNanos.get();
+        }
+    }
+}
@@ -0,0 +1,146 @@
+/*
+ * SEDIMARK Catalogue Server
+ *
+ * Copyright (C) 2025 Tarek Elsaleh
+ *
+ * This program is licensed under the European Union Public License (EUPL) v1.2.
+ * You may obtain a copy of the License at:
+ * https://joinup.ec.europa.eu/collection/eupl/eupl-text-eupl-12
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package eu.sedimark.catalogue.changes;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import eu.sedimark.catalogue.changes.ChangeFeed.ChangeEvent;
+import eu.sedimark.catalogue.changes.ChangeFeed.ChangeType;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+class ChangeFeedTest {
+    private static final String EX = "http://example.org/";
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void readReturnsTheEventsAfterASequence() throws IOException {
+        ChangeFeed feed = new ChangeFeed(null, 10);
+        appendOfferings(feed, 5);
+
+        assertEquals(List.of(3L, 4L, 5L), sequences(feed.read(2, 10)));
+        assertEquals(List.of(3L, 4L), sequences(feed.read(2, 2)));
+        assertEquals(List.of(), feed.read(5, 10));
+        assertNull(feed.read(6, 10), "a sequence ahead of the feed must resync");
+        assertEquals(feed.getId() + "-5", feed.cursor(5));
+    }
+
+    @Test
+    void eventsNoLongerInMemoryMustResync() throws IOException {
+        ChangeFeed feed = new ChangeFeed(null, 2);
+        appendOfferings(feed, 5);
+
+        assertEquals(4, feed.getFirstSequence());
+        assertNull(feed.read(1, 10));
+        assertEquals(List.of(4L, 5L), sequences(feed.read(3, 10)));
+    }
+
+    @Test
+    void eventsNoLongerInMemoryAreReadFromTheLog() throws IOException {
+        ChangeFeed feed = new ChangeFeed(directory.resolve("changes.log"), 2);
+        appendOfferings(feed, 5);
+
+        List<ChangeEvent> events = feed.read(0, 10);
+        assertEquals(List.of(1L, 2L, 3L, 4L, 5L), sequences(events));
+        assertEquals(EX + "offering1", events.get(0).getGraphName());
+        assertEquals(ChangeType.STORE, events.get(0).getType());
+        feed.close();
+    }
+
+    @Test
+    void cleanRestartContinuesTheEpoch() throws IOException {
+        Path log = directory.resolve("changes.log");
+        ChangeFeed feed = new ChangeFeed(log, 10);
+        appendOfferings(feed, 3);
+        feed.append(ChangeType.DELETE, EX + "offering1", 0);
+        feed.close();
+
+        ChangeFeed restarted = new ChangeFeed(log, 10);
+        assertEquals(feed.getId(), restarted.getId());
+        assertEquals(4, restarted.getLastSequence());
+        List<ChangeEvent> events = restarted.read(2, 10);
+        assertEquals(List.of(3L, 4L), sequences(events));
+        assertEquals(ChangeType.DELETE, events.get(1).getType());
+
+        assertEquals(5, restarted.append(ChangeType.STORE, EX + "offering4", 1).getSequence());
+        restarted.close();
+    }
+
+    @Test
+    void restartAfterACrashStartsANewEpoch() throws Exception {
+        Path log = directory.resolve("changes.log");
+        ChangeFeed feed = new ChangeFeed(log, 10);
+        appendOfferings(feed, 3);
+        // Not closed: events committed after the last one logged may have been lost.
+        // Epoch ids are timestamps, so let the clock move on as a real restart does
+        Thread.sleep(5);
+
+        ChangeFeed restarted = new ChangeFeed(log, 10);
+        assertNotEquals(feed.getId(), restarted.getId());
+        assertEquals(3, restarted.getLastSequence());
+        assertEquals(4, restarted.getFirstSequence());
+        assertNull(restarted.read(1, 10), "events of the earlier epoch must resync");
+        assertEquals(List.of(), restarted.read(3, 10));
+
+        restarted.append(ChangeType.STORE, EX + "offering4", 1);
+        restarted.close();
+        ChangeFeed again = new ChangeFeed(log, 10);
+        assertEquals(restarted.getId(), again.getId());
+        assertEquals(List.of(4L), sequences(again.read(3, 10)));
+        again.close();
+        feed.close();
+    }
+
+    @Test
+    void awaitReturnsOnceAnEventIsAppended() throws Exception {
+        ChangeFeed feed = new ChangeFeed(null, 10);
+        Thread appender = new Thread(() -> {
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                return;
+            }
+            feed.append(ChangeType.STORE, EX + "offering1", 1);
+        });
+        appender.start();
+
+        assertTrue(feed.await(0, 10, TimeUnit.SECONDS));
+        appender.join();
+    }
+
+    private static void appendOfferings(ChangeFeed feed, int count) {
+        for (int i = 1; i <= count; i++) {
+            feed.append(ChangeType.STORE, EX + "offering" + i, 10);
+        }
+    }
+
+    private static List<Long> sequences(List<ChangeEvent> events) {
+        return events.stream().map(ChangeEvent::getSequence).toList();
+    }
+}
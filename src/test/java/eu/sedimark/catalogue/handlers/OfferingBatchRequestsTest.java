@@ -0,0 +1,253 @@
+/*
+ * SEDIMARK Catalogue Server
+ *
+ * Copyright (C) 2025 Tarek Elsaleh
+ *
+ * This program is licensed under the European Union Public License (EUPL) v1.2.
+ * You may obtain a copy of the License at:
+ * https://joinup.ec.europa.eu/collection/eupl/eupl-text-eupl-12
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package eu.sedimark.catalogue.handlers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.apache.jena.fuseki.main.FusekiServer;
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.query.Dataset;
+import org.apache.jena.query.DatasetFactory;
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.ModelFactory;
+import org.apache.jena.riot.Lang;
+import org.apache.jena.riot.RDFParser;
+import org.apache.jena.sparql.core.DatasetGraph;
+import org.apache.jena.sparql.core.DatasetGraphFactory;
+import org.apache.jena.system.Txn;
+import org.apache.jena.vocabulary.RDF;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import jakarta.json.Json;
+import jakarta.json.JsonArray;
+import jakarta.json.JsonObject;
+import jakarta.json.JsonReader;
+
+import java.io.StringReader;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import eu.sedimark.catalogue.handlers.OfferingGSPHandler.NamedSubgraph;
+import eu.sedimark.catalogue.utils.SystemGraphs;
+
+class OfferingBatchRequestsTest {
+    private static final String SEDIMARK = "https://w3id.org/sedimark/ontology#";
+    private static final String EX = "http://example.org/";
+
+    private final HttpClient client = HttpClient.newHttpClient();
+    private Dataset dataset;
+    private FusekiServer server;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        dataset = DatasetFactory.createTxnMem();
+        OfferingGSPHandler handler = new OfferingGSPHandler(dataset);
+        List<NamedSubgraph> offerings = new ArrayList<>();
+        for (int i = 1; i <= 5; i++) {
+            offerings.add(new NamedSubgraph(EX + "offering" + i, offering(i, i <= 3 ? "p1" : "p2")));
+        }
+        handler.storeOfferingGraphs(offerings);
+
+        server = FusekiServer.create().port(0).add("/catalogue", dataset)
+                .addProcessor("/catalogue/manager", handler)
+                .addProcessor("/catalogue/manager" + OfferingGSPHandler.BATCH_GET_PATH, handler)
+                .addProcessor("/catalogue/manager" + OfferingGSPHandler.BATCH_DELETE_PATH, handler)
+                .build().start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop();
+    }
+
+    @Test
+    void batchGetStreamsTheListedOfferingsAsTrig() throws Exception {
+        HttpResponse<String> response = send(HttpRequest.newBuilder(uri(OfferingGSPHandler.BATCH_GET_PATH
+                + "?graph=" + EX + "offering1&graph=" + EX + "offering3&graph=" + EX + "missing"))
+                .header("Accept", "application/trig").GET());
+
+        assertEquals(200, response.statusCode());
+        assertEquals("3", response.headers().firstValue("X-Offerings-Requested").orElse(null));
+        assertEquals("2", response.headers().firstValue("X-Offerings-Found").orElse(null));
+        DatasetGraph result = DatasetGraphFactory.createTxnMem();
+        RDFParser.fromString(response.body(), Lang.TRIG).parse(result);
+        assertEquals(List.of(EX + "offering1", EX + "offering3"), graphNames(result));
+        assertEquals(3, result.getGraph(NodeFactory.createURI(EX + "offering1")).size());
+    }
+
+    @Test
+    void batchGetReadsAJsonBodyAndReturnsOneJsonLdDocumentPerOffering() throws Exception {
+        String body = "{ \"graphs\": [\"" + EX + "offering2\", \"" + EX + "offering4\", \"" + EX + "offering2\", \""
+                + SystemGraphs.INDEX + "\"] }";
+        HttpResponse<String> response = send(HttpRequest.newBuilder(uri(OfferingGSPHandler.BATCH_GET_PATH))
+                .header("Content-Type", "application/json").header("Accept", "application/ld+json")
+                .POST(HttpRequest.BodyPublishers.ofString(body)));
+
+        assertEquals(200, response.statusCode());
+        assertEquals("3", response.headers().firstValue("X-Offerings-Requested").orElse(null));
+        try (JsonReader reader = Json.createReader(new StringReader(response.body()))) {
+            JsonArray documents = reader.readArray();
+            assertEquals(2, documents.size());
+            assertTrue(documents.getJsonObject(0).containsKey("@context"));
+            assertTrue(documents.getJsonObject(0).toString().contains("offering2"));
+            assertTrue(documents.getJsonObject(1).toString().contains("offering4"));
+        }
+    }
+
+    @Test
+    void batchGetReadsATextBody() throws Exception {
+        HttpResponse<String> response = send(HttpRequest.newBuilder(uri(OfferingGSPHandler.BATCH_GET_PATH))
+                .header("Content-Type", "text/plain").header("Accept", "application/n-quads")
+                .POST(HttpRequest.BodyPublishers.ofString("# offerings\n" + EX + "offering5\n\n" + EX + "offering1\n")));
+
+        assertEquals(200, response.statusCode());
+        DatasetGraph result = DatasetGraphFactory.createTxnMem();
+        RDFParser.fromString(response.body(), Lang.NQUADS).parse(result);
+        assertEquals(List.of(EX + "offering1", EX + "offering5"), graphNames(result));
+    }
+
+    @Test
+    void batchGetRejectsEmptyRequestsAndTripleFormats() throws Exception {
+        HttpResponse<String> empty = send(HttpRequest.newBuilder(uri(OfferingGSPHandler.BATCH_GET_PATH))
+                .header("Accept", "application/trig").GET());
+        assertEquals(400, empty.statusCode());
+
+        HttpResponse<String> turtle = send(HttpRequest.newBuilder(uri(OfferingGSPHandler.BATCH_GET_PATH
+                + "?graph=" + EX + "offering1")).header("Accept", "text/turtle").GET());
+        assertEquals(406, turtle.statusCode());
+    }
+
+    @Test
+    void batchDeleteRemovesAParticipantsOfferingsInChunks() throws Exception {
+        HttpResponse<String> response = send(HttpRequest.newBuilder(uri(OfferingGSPHandler.BATCH_DELETE_PATH
+                + "?participant=" + EX + "p1&chunk=2")).POST(HttpRequest.BodyPublishers.noBody()));
+
+        assertEquals(200, response.statusCode());
+        JsonObject result = json(response.body());
+        assertEquals("success", result.getString("status"));
+        assertEquals(3, result.getInt("matched"));
+        assertEquals(3, result.getInt("deleted"));
+        JsonArray progress = result.getJsonArray("progress");
+        assertEquals(2, progress.size());
+        assertEquals(2, progress.getJsonObject(0).getInt("deleted"));
+        assertEquals(3, progress.getJsonObject(1).getInt("processed"));
+        assertEquals(List.of(EX + "offering4", EX + "offering5"), storedOfferings());
+    }
+
+    @Test
+    void batchDeleteCombinesListedOfferingsAndAStatement() throws Exception {
+        HttpResponse<String> response = send(HttpRequest.newBuilder(uri(OfferingGSPHandler.BATCH_DELETE_PATH
+                + "?predicate=" + encode(SEDIMARK + "belongsTo") + "&object=" + EX + "p2"))
+                .header("Content-Type", "application/json")
+                .method("DELETE", HttpRequest.BodyPublishers.ofString("[\"" + EX + "offering1\", \"" + EX
+                        + "missing\"]")));
+
+        assertEquals(200, response.statusCode());
+        assertEquals(3, json(response.body()).getInt("deleted"));
+        assertEquals(List.of(EX + "offering2", EX + "offering3"), storedOfferings());
+    }
+
+    @Test
+    void batchDeleteDryRunOnlyListsTheMatches() throws Exception {
+        HttpResponse<String> response = send(HttpRequest.newBuilder(uri(OfferingGSPHandler.BATCH_DELETE_PATH
+                + "?participant=" + EX + "p2&dryRun=true")).POST(HttpRequest.BodyPublishers.noBody()));
+
+        assertEquals(200, response.statusCode());
+        JsonObject result = json(response.body());
+        assertTrue(result.getBoolean("dryRun"));
+        assertEquals(2, result.getInt("matched"));
+        assertFalse(result.getBoolean("truncated"));
+        assertEquals(5, storedOfferings().size());
+    }
+
+    @Test
+    void batchDeleteRejectsInvalidSelectionsWithAJsonError() throws Exception {
+        HttpResponse<String> response = send(HttpRequest.newBuilder(uri(OfferingGSPHandler.BATCH_DELETE_PATH
+                + "?predicate=" + encode(SEDIMARK + "belongsTo"))).POST(HttpRequest.BodyPublishers.noBody()));
+        assertEquals(400, response.statusCode());
+        assertEquals("error", json(response.body()).getString("status"));
+
+        // The error message has quotes in it, which must not break the JSON response
+        HttpResponse<String> invalid = send(HttpRequest.newBuilder(uri(OfferingGSPHandler.BATCH_DELETE_PATH))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString("{\"graphs\": \"not a list\"}")));
+        assertEquals(400, invalid.statusCode());
+        assertTrue(json(invalid.body()).getString("message").contains("graphs"));
+
+        HttpResponse<String> get = send(HttpRequest.newBuilder(uri(OfferingGSPHandler.BATCH_DELETE_PATH
+                + "?graph=" + EX + "offering1")).GET());
+        assertEquals(405, get.statusCode());
+        assertEquals(5, storedOfferings().size());
+    }
+
+    private List<String> storedOfferings() {
+        return Txn.calculateRead(dataset, () -> {
+            List<String> names = new ArrayList<>();
+            dataset.listNames().forEachRemaining(name -> {
+                if (!SystemGraphs.isSystemGraph(name)) {
+                    names.add(name);
+                }
+            });
+            names.sort(null);
+            return names;
+        });
+    }
+
+    private static JsonObject json(String body) {
+        try (JsonReader reader = Json.createReader(new StringReader(body))) {
+            return reader.readObject();
+        }
+    }
+
+    private HttpResponse<String> send(HttpRequest.Builder request) throws Exception {
+        return client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + server.getHttpPort() + "/catalogue/manager" + path);
+    }
+
+    private static List<String> graphNames(DatasetGraph dsg) {
+        List<String> names = new ArrayList<>();
+        dsg.listGraphNodes().forEachRemaining(node -> names.add(node.getURI()));
+        names.sort(null);
+        return names;
+    }
+
+    private static Model offering(int i, String participant) {
+        Model model = ModelFactory.createDefaultModel();
+        model.createResource(EX + "offering" + i).addProperty(RDF.type, model.createResource(SEDIMARK + "Offering"))
+                .addProperty(model.createProperty(SEDIMARK + "belongsTo"), model.createResource(EX + participant))
+                .addProperty(model.createProperty(EX + "title"), "Offering " + i);
+        return model;
+    }
+}
@@ -0,0 +1,209 @@
+/*
+ * SEDIMARK Catalogue Server
+ *
+ * Copyright (C) 2025 Tarek Elsaleh
+ *
+ * This program is licensed under the European Union Public License (EUPL) v1.2.
+ * You may obtain a copy of the License at:
+ * https://joinup.ec.europa.eu/collection/eupl/eupl-text-eupl-12
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.sedimark.catalogue.handlers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.query.Dataset;
+import org.apache.jena.query.DatasetFactory;
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.ModelFactory;
+import org.apache.jena.rdf.model.Property;
+import org.apache.jena.rdf.model.Resource;
+import org.apache.jena.riot.Lang;
+import org.apache.jena.system.Txn;
+import org.apache.jena.vocabulary.RDF;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import eu.sedimark.catalogue.handlers.OfferingGSPHandler.NamedSubgraph;
+import eu.sedimark.catalogue.storage.OfferingIndex;
+import eu.sedimark.catalogue.storage.ShardedDatasetGraph;
+import eu.sedimark.catalogue.utils.SystemGraphs;
+
+class OfferingGSPHandlerTest {
+    private static final String SEDIMARK = "https://w3id.org/sedimark/ontology#";
+    private static final String EX = "http://example.org/";
+
+    private Dataset dataset;
+    private OfferingGSPHandler handler;
+    private Model input;
+    private Resource offeringClass;
+    private Property title;
+    private Property publisher;
+    private Property name;
+    private Property related;
+
+    @BeforeEach
+    void setUp() {
+        dataset = DatasetFactory.createTxnMem();
+        handler = new OfferingGSPHandler(dataset);
+        input = ModelFactory.createDefaultModel();
+        offeringClass = input.createResource(SEDIMARK + "Offering");
+        title = input.createProperty(EX + "title");
+        publisher = input.createProperty(EX + "publisher");
+        name = input.createProperty(EX + "name");
+        related = input.createProperty(EX + "related");
+    }
+
+    @Test
+    void eachOfferingGetsTheResourcesItLinksTo() {
+        Resource provider = input.createResource(EX + "provider").addProperty(name, "Provider");
+        offering("a").addProperty(publisher, provider);
+        offering("b").addProperty(publisher, provider);
+
+        Map<String, Model> graphs = extract();
+
+        assertEquals(2, graphs.size());
+        for (String offering : List.of("a", "b")) {
+            Model graph = graphs.get(EX + offering);
+            assertTrue(graph.contains(input.createResource(EX + offering), RDF.type, offeringClass));
+            assertTrue(graph.contains(provider, name, "Provider"));
+        }
+    }
+
+    @Test
+    void otherOfferingsOfTheInputAreLinkedButNotCopied() {
+        // a self-listing style input: a links to b and c, each published in the same payload
+        Resource a = offering("a");
+        Resource b = offering("b");
+        Resource c = offering("c");
+        a.addProperty(related, b).addProperty(related, c);
+        b.addProperty(related, c);
+
+        Map<String, Model> graphs = extract();
+
+        Model graphA = graphs.get(EX + "a");
+        assertTrue(graphA.contains(a, related, b));
+        assertTrue(graphA.contains(a, related, c));
+        assertFalse(graphA.contains(b, title));
+        assertFalse(graphA.contains(c, title));
+        assertEquals(4, graphA.size());
+
+        Model graphB = graphs.get(EX + "b");
+        assertTrue(graphB.contains(b, related, c));
+        assertFalse(graphB.contains(c, title));
+        assertFalse(graphB.contains(a, related));
+        assertEquals(3, graphB.size());
+    }
+
+    @Test
+    void quadUploadRefusesReservedOfferingsInTheDefaultGraph() {
+        String nquads = "<" + SystemGraphs.INDEX + "> <" + RDF.type.getURI() + "> <" + SEDIMARK + "Offering> .\n";
+
+        assertThrows(IllegalArgumentException.class, () -> handler.readQuadOfferingGraphs(
+                new ByteArrayInputStream(nquads.getBytes(StandardCharsets.UTF_8)), Lang.NQUADS));
+    }
+
+    @Test
+    void storingRefusesReservedOfferings() {
+        Resource index = input.createResource(SystemGraphs.INDEX).addProperty(RDF.type, offeringClass);
+        offering("a");
+        List<NamedSubgraph> graphs = handler.extractOfferingGraphs(input, input.getNsPrefixMap());
+        assertEquals(2, graphs.size());
+
+        assertThrows(IllegalArgumentException.class, () -> handler.storeOfferingGraphs(graphs));
+        // nothing of the request is stored
+        Txn.executeRead(dataset, () -> {
+            assertFalse(dataset.containsNamedModel(index.getURI()));
+            assertFalse(dataset.containsNamedModel(EX + "a"));
+        });
+    }
+
+    @Test
+    void concurrentIndexedPublishesOnDifferentShardsCommit() throws Exception {
+        ShardedDatasetGraph sharded = ShardedDatasetGraph.createInMemory(4);
+        sharded.setWritesSystemGraphs(true);
+        Dataset store = DatasetFactory.wrap(sharded);
+        OfferingGSPHandler indexed = new OfferingGSPHandler(store);
+        indexed.setOfferingIndex(new OfferingIndex(null));
+        int batches = 20;
+
+        // each batch writes two offering shards above shard 0, then the index on shard 0
+        int[][] shardsOf = { { 3, 1 }, { 2, 1 } };
+        ExecutorService executor = Executors.newFixedThreadPool(shardsOf.length);
+        try {
+            List<Future<?>> publishers = new ArrayList<>();
+            for (int t = 0; t < shardsOf.length; t++) {
+                int publisher = t;
+                publishers.add(executor.submit(() -> {
+                    for (int i = 0; i < batches; i++) {
+                        List<NamedSubgraph> batch = new ArrayList<>();
+                        for (int shard : shardsOf[publisher]) {
+                            String name = nameOn(sharded, shard, "p" + publisher + "_" + i + "_");
+                            batch.add(new NamedSubgraph(name, offeringModel(name)));
+                        }
+                        indexed.storeOfferingGraphs(batch);
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> publishing : publishers) {
+                publishing.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        Txn.executeRead(sharded, () -> assertEquals(shardsOf.length * batches * 2,
+                OfferingIndex.lookup(sharded, OfferingIndex.Key.PARTICIPANT, EX + "participant").size()));
+    }
+
+    private Model offeringModel(String graphName) {
+        Model model = ModelFactory.createDefaultModel();
+        model.createResource(graphName).addProperty(RDF.type, model.createResource(SEDIMARK + "Offering"))
+                .addProperty(model.createProperty(SEDIMARK + "belongsTo"), model.createResource(EX + "participant"));
+        return model;
+    }
+
+    private static String nameOn(ShardedDatasetGraph sharded, int shard, String prefix) {
+        for (int i = 0;; i++) {
+            String name = EX + "offering_" + prefix + i;
+            if (sharded.shardOf(NodeFactory.createURI(name)) == shard) {
+                return name;
+            }
+        }
+    }
+
+    private Resource offering(String localName) {
+        return input.createResource(EX + localName).addProperty(RDF.type, offeringClass).addProperty(title,
+                localName);
+    }
+
+    private Map<String, Model> extract() {
+        Map<String, Model> graphs = new HashMap<>();
+        for (NamedSubgraph graph : handler.extractOfferingGraphs(input, input.getNsPrefixMap())) {
+            graphs.put(graph.getGraphName(), graph.getModel());
+        }
+        return graphs;
+    }
+}
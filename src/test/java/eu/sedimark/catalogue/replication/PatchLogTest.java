@@ -0,0 +1,116 @@
+/*
+ * SEDIMARK Catalogue Server
+ *
+ * Copyright (C) 2025 Tarek Elsaleh
+ *
+ * This program is licensed under the European Union Public License (EUPL) v1.2.
+ * You may obtain a copy of the License at:
+ * https://joinup.ec.europa.eu/collection/eupl/eupl-text-eupl-12
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.sedimark.catalogue.replication;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.query.Dataset;
+import org.apache.jena.query.DatasetFactory;
+import org.apache.jena.sparql.core.DatasetGraph;
+import org.apache.jena.system.Txn;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+class PatchLogTest {
+    private static final Node G = NodeFactory.createURI("http://example.org/offering");
+    private static final Node P = NodeFactory.createURI("http://example.org/title");
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void writesArePublishedInSequence() throws IOException {
+        Dataset store = DatasetFactory.createTxnMem();
+        PatchLog log = new PatchLog(directory, store);
+        write(log, "first");
+        write(log, "second");
+
+        assertEquals(2, log.getLastSequence());
+        assertEquals(1, log.getFirstSequence());
+        assertEquals(2, PatchLog.readState(store.asDatasetGraph()).sequence());
+        try (InputStream in = log.open(2)) {
+            assertNotNull(in);
+        }
+    }
+
+    @Test
+    void pendingPatchOfACommittedTransactionIsPublished() throws IOException {
+        Dataset store = DatasetFactory.createTxnMem();
+        write(new PatchLog(directory, store), "first");
+        // a crash between the commit and publishing the patch
+        Path published = directory.resolve(PatchLog.fileName(1));
+        Files.move(published, directory.resolve(PatchLog.fileName(1) + ".pending"));
+
+        PatchLog log = new PatchLog(directory, store);
+
+        assertTrue(Files.exists(published));
+        assertFalse(Files.exists(directory.resolve(PatchLog.fileName(1) + ".pending")));
+        assertEquals(1, log.getLastSequence());
+        write(log, "second");
+        assertEquals(2, log.getLastSequence());
+    }
+
+    @Test
+    void pendingPatchOfATransactionThatDidNotCommitIsDropped() throws IOException {
+        Dataset store = DatasetFactory.createTxnMem();
+        write(new PatchLog(directory, store), "first");
+        // prepared, but the store never committed it
+        Path pending = directory.resolve(PatchLog.fileName(2) + ".pending");
+        Files.writeString(pending, "TX .\nTC .\n");
+
+        PatchLog log = new PatchLog(directory, store);
+
+        assertFalse(Files.exists(pending));
+        assertFalse(Files.exists(directory.resolve(PatchLog.fileName(2))));
+        assertEquals(1, log.getLastSequence());
+        write(log, "second");
+        assertTrue(Files.exists(directory.resolve(PatchLog.fileName(2))));
+    }
+
+    @Test
+    void logIsReplayedIntoAnEmptyStore() throws IOException {
+        PatchLog first = new PatchLog(directory, DatasetFactory.createTxnMem());
+        write(first, "first");
+        write(first, "second");
+
+        Dataset store = DatasetFactory.createTxnMem();
+        PatchLog log = new PatchLog(directory, store);
+
+        DatasetGraph dsg = store.asDatasetGraph();
+        assertEquals(2, log.getLastSequence());
+        assertEquals(2, PatchLog.readState(dsg).sequence());
+        Txn.executeRead(dsg, () -> {
+            assertTrue(dsg.contains(G, G, P, NodeFactory.createLiteralString("first")));
+            assertTrue(dsg.contains(G, G, P, NodeFactory.createLiteralString("second")));
+        });
+    }
+
+    private static void write(PatchLog log, String title) {
+        DatasetGraph dsg = log.getDataset().asDatasetGraph();
+        Txn.executeWrite(dsg, () -> dsg.add(G, G, P, NodeFactory.createLiteralString(title)));
+    }
+}
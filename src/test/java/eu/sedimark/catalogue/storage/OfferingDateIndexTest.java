@@ -0,0 +1,134 @@
+/*
+ * SEDIMARK Catalogue Server
+ *
+ * Copyright (C) 2025 Tarek Elsaleh
+ *
+ * This program is licensed under the European Union Public License (EUPL) v1.2.
+ * You may obtain a copy of the License at:
+ * https://joinup.ec.europa.eu/collection/eupl/eupl-text-eupl-12
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package eu.sedimark.catalogue.storage;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.apache.jena.datatypes.xsd.XSDDatatype;
+import org.apache.jena.graph.Graph;
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.query.Dataset;
+import org.apache.jena.query.DatasetFactory;
+import org.apache.jena.rdf.model.ModelFactory;
+import org.apache.jena.sparql.graph.GraphFactory;
+import org.apache.jena.system.Txn;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import eu.sedimark.catalogue.handlers.OfferingGSPHandler.NamedSubgraph;
+import eu.sedimark.catalogue.storage.OfferingDateIndex.Entry;
+import eu.sedimark.catalogue.storage.OfferingDateIndex.Page;
+import eu.sedimark.catalogue.storage.OfferingIndex.DateField;
+
+class OfferingDateIndexTest {
+    private static final String EX = "http://example.org/";
+    private static final String ISSUED = "http://purl.org/dc/terms/issued";
+
+    private final Dataset dataset = DatasetFactory.createTxnMem();
+    private final OfferingIndex index = new OfferingIndex(null);
+    private final OfferingDateIndex dates = new OfferingDateIndex(dataset);
+
+    @BeforeEach
+    void setUp() {
+        // offering2 and offering3 share a date, so the graph name breaks the tie
+        store("offering1", "2024-01-01T00:00:00Z");
+        store("offering2", "2024-01-03T00:00:00Z");
+        store("offering3", "2024-01-03T00:00:00Z");
+        store("offering4", "2024-01-02T00:00:00Z");
+        store("offering5", "2024-01-05T00:00:00Z");
+        store("offering6", "2024-01-04T00:00:00Z");
+        store("offering7", "2023-12-31T00:00:00Z");
+        dates.load();
+    }
+
+    @Test
+    void pagesFollowTheCursorNewestFirst() {
+        List<String> listed = new ArrayList<>();
+        List<Integer> sizes = new ArrayList<>();
+        String cursor = null;
+        do {
+            Page page = dates.page(DateField.ISSUED, cursor, 3, null, null, null);
+            page.entries().forEach(entry -> listed.add(local(entry)));
+            sizes.add(page.entries().size());
+            cursor = page.next();
+        } while (cursor != null);
+
+        assertEquals(List.of("offering5", "offering6", "offering2", "offering3", "offering4", "offering1",
+                "offering7"), listed);
+        assertEquals(List.of(3, 3, 1), sizes);
+        assertEquals(7, dates.size(DateField.ISSUED));
+        assertEquals(0, dates.size(DateField.MODIFIED));
+    }
+
+    @Test
+    void nextPageIsNotShiftedByNewerOfferings() {
+        Page first = dates.page(DateField.ISSUED, null, 2, null, null, null);
+        store("offering8", "2025-01-01T00:00:00Z");
+        dates.offeringsStored(List.of(new NamedSubgraph(EX + "offering8", ModelFactory.createDefaultModel())));
+
+        Page second = dates.page(DateField.ISSUED, first.next(), 2, null, null, null);
+        assertEquals(List.of("offering2", "offering3"), second.entries().stream().map(OfferingDateIndexTest::local)
+                .toList());
+        assertEquals("offering8", local(dates.page(DateField.ISSUED, null, 1, null, null, null).entries().get(0)));
+    }
+
+    @Test
+    void pagesAreLimitedToARangeAndAFilter() {
+        Instant since = Instant.parse("2024-01-02T00:00:00Z");
+        Instant until = Instant.parse("2024-01-04T00:00:00Z");
+        Page page = dates.page(DateField.ISSUED, null, 10, since, until, null);
+        assertEquals(List.of("offering6", "offering2", "offering3", "offering4"),
+                page.entries().stream().map(OfferingDateIndexTest::local).toList());
+        assertNull(page.next());
+
+        Page first = dates.page(DateField.ISSUED, null, 1, since, until, graph -> !graph.endsWith("6"));
+        Page second = dates.page(DateField.ISSUED, first.next(), 5, since, until, graph -> !graph.endsWith("6"));
+        assertEquals("offering2", local(first.entries().get(0)));
+        assertEquals(List.of("offering3", "offering4"), second.entries().stream().map(OfferingDateIndexTest::local)
+                .toList());
+    }
+
+    @Test
+    void deletedOfferingsAreNotListedAndInvalidCursorsAreRejected() {
+        Txn.executeWrite(dataset,
+                () -> index.remove(dataset.asDatasetGraph(), NodeFactory.createURI(EX + "offering5")));
+        dates.offeringDeleted(EX + "offering5");
+        assertEquals("offering6", local(dates.page(DateField.ISSUED, null, 1, null, null, null).entries().get(0)));
+
+        assertThrows(IllegalArgumentException.class,
+                () -> dates.page(DateField.ISSUED, "not a cursor", 1, null, null, null));
+    }
+
+    private void store(String localName, String issued) {
+        Graph offering = GraphFactory.createDefaultGraph();
+        offering.add(NodeFactory.createURI(EX + localName), NodeFactory.createURI(ISSUED),
+                NodeFactory.createLiteralDT(issued, XSDDatatype.XSDdateTime));
+        Txn.executeWrite(dataset,
+                () -> index.index(dataset.asDatasetGraph(), NodeFactory.createURI(EX + localName), offering));
+    }
+
+    private static String local(Entry entry) {
+        return entry.graph().substring(EX.length());
+    }
+}
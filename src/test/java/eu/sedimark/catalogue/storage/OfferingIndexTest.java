@@ -0,0 +1,128 @@
+/*
+ * SEDIMARK Catalogue Server
+ *
+ * Copyright (C) 2025 Tarek Elsaleh
+ *
+ * This program is licensed under the European Union Public License (EUPL) v1.2.
+ * You may obtain a copy of the License at:
+ * https://joinup.ec.europa.eu/collection/eupl/eupl-text-eupl-12
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package eu.sedimark.catalogue.storage;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.apache.jena.graph.Graph;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.riot.Lang;
+import org.apache.jena.riot.RDFParser;
+import org.apache.jena.sparql.core.DatasetGraph;
+import org.apache.jena.sparql.core.DatasetGraphFactory;
+import org.apache.jena.system.Txn;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import eu.sedimark.catalogue.storage.OfferingIndex.DateField;
+import eu.sedimark.catalogue.storage.OfferingIndex.Key;
+
+class OfferingIndexTest {
+    private static final String EX = "http://example.org/";
+    private static final String PREFIXES = """
+            @prefix sedimark: <https://w3id.org/sedimark/ontology#> .
+            @prefix dct: <http://purl.org/dc/terms/> .
+            @prefix xsd: <http://www.w3.org/2001/XMLSchema#> .
+            @prefix ex: <http://example.org/> .
+            """;
+
+    private final DatasetGraph dsg = DatasetGraphFactory.createTxnMem();
+    private final OfferingIndex index = new OfferingIndex(null);
+
+    @Test
+    void offeringsAreFoundByParticipantAssetAndSelfListing() {
+        store("offering1", """
+                ex:offering1 sedimark:hasAsset ex:asset1 ; sedimark:isListedBy ex:listing .
+                ex:listing sedimark:belongsTo ex:participant .
+                """);
+        store("offering2", """
+                ex:offering2 sedimark:belongsTo ex:participant ; sedimark:offers ex:asset2 .
+                ex:asset3 a sedimark:Asset .
+                """);
+
+        Txn.executeRead(dsg, () -> {
+            assertEquals(List.of(EX + "offering1", EX + "offering2"),
+                    OfferingIndex.lookup(dsg, Key.PARTICIPANT, EX + "participant").stream().sorted().toList());
+            assertEquals(List.of(EX + "offering1"), OfferingIndex.lookup(dsg, Key.SELF_LISTING, EX + "listing"));
+            assertEquals(List.of(EX + "asset2", EX + "asset3"),
+                    OfferingIndex.keysOf(dsg, Key.ASSET, EX + "offering2").stream().sorted().toList());
+        });
+    }
+
+    @Test
+    void reindexingReplacesTheEntriesAndRemovingDropsThem() {
+        store("offering1", """
+                ex:offering1 sedimark:belongsTo ex:first ; dct:issued "2024-01-01T00:00:00Z"^^xsd:dateTime .
+                """);
+        store("offering1", "ex:offering1 sedimark:belongsTo ex:second .");
+
+        Txn.executeRead(dsg, () -> {
+            assertEquals(List.of(), OfferingIndex.lookup(dsg, Key.PARTICIPANT, EX + "first"));
+            assertEquals(List.of(EX + "offering1"), OfferingIndex.lookup(dsg, Key.PARTICIPANT, EX + "second"));
+            OfferingIndex.forEachDate(dsg, Node.ANY, DateField.ISSUED, (graph, date) -> {
+                throw new AssertionError("stale date of " + graph);
+            });
+        });
+
+        Txn.executeWrite(dsg, () -> index.remove(dsg, NodeFactory.createURI(EX + "offering1")));
+        Txn.executeRead(dsg, () -> assertTrue(OfferingIndex.lookup(dsg, Key.PARTICIPANT, EX + "second").isEmpty()));
+    }
+
+    @Test
+    void datesFallBackToTheSelfListing() {
+        Graph offering = parse("""
+                ex:offering1 dct:modified "2024-03-01T10:00:00Z"^^xsd:dateTime ; sedimark:isListedBy ex:listing .
+                ex:listing dct:issued "2024-01-01T00:00:00Z"^^xsd:dateTime , "2024-02-01T00:00:00Z"^^xsd:dateTime ;
+                    dct:modified "2025-01-01T00:00:00Z"^^xsd:dateTime .
+                """);
+
+        Map<DateField, Instant> dates = OfferingIndex.dates(offering, NodeFactory.createURI(EX + "offering1"));
+        assertEquals(Instant.parse("2024-02-01T00:00:00Z"), dates.get(DateField.ISSUED));
+        assertEquals(Instant.parse("2024-03-01T10:00:00Z"), dates.get(DateField.MODIFIED));
+    }
+
+    @Test
+    void rebuildIndexesEveryOfferingAndMarksTheIndexBuilt() {
+        Txn.executeWrite(dsg, () -> {
+            parse("ex:offering1 sedimark:belongsTo ex:participant .").find()
+                    .forEachRemaining(t -> dsg.add(NodeFactory.createURI(EX + "offering1"), t.getSubject(),
+                            t.getPredicate(), t.getObject()));
+            assertFalse(OfferingIndex.isBuilt(dsg));
+            assertEquals(1, index.rebuild(dsg));
+        });
+
+        Txn.executeRead(dsg, () -> {
+            assertTrue(OfferingIndex.isBuilt(dsg));
+            assertEquals(List.of(EX + "offering1"), OfferingIndex.lookup(dsg, Key.PARTICIPANT, EX + "participant"));
+        });
+    }
+
+    private void store(String localName, String turtle) {
+        Txn.executeWrite(dsg, () -> index.index(dsg, NodeFactory.createURI(EX + localName), parse(turtle)));
+    }
+
+    private static Graph parse(String turtle) {
+        return RDFParser.fromString(PREFIXES + turtle, Lang.TURTLE).toGraph();
+    }
+}
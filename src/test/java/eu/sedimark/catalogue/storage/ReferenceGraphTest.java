@@ -0,0 +1,148 @@
+/*
+ * SEDIMARK Catalogue Server
+ *
+ * Copyright (C) 2025 Tarek Elsaleh
+ *
+ * This program is licensed under the European Union Public License (EUPL) v1.2.
+ * You may obtain a copy of the License at:
+ * https://joinup.ec.europa.eu/collection/eupl/eupl-text-eupl-12
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.sedimark.catalogue.storage;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.apache.jena.graph.Graph;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.sparql.core.DatasetGraph;
+import org.apache.jena.sparql.core.DatasetGraphFactory;
+import org.apache.jena.sparql.graph.GraphFactory;
+import org.apache.jena.system.Txn;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class ReferenceGraphTest {
+    private static final String EX = "http://example.org/";
+    private static final Node A = uri("offering_a");
+    private static final Node B = uri("offering_b");
+    private static final Node PROVIDER = uri("provider");
+    private static final Node TITLE = uri("title");
+    private static final Node NAME = uri("name");
+    private static final Node PUBLISHER = uri("publisher");
+    private static final Node AGENT = uri("agent");
+
+    private DatasetGraph dsg;
+    private ReferenceGraph referenceGraph;
+
+    @BeforeEach
+    void setUp() {
+        dsg = DatasetGraphFactory.createTxnMem();
+        referenceGraph = new ReferenceGraph();
+    }
+
+    @Test
+    void sharedStatementIsStoredOnceAndExpandedBack() {
+        Graph a = offering(A, "A");
+        Graph b = offering(B, "B");
+        store(A, a);
+        int deduplicated = Txn.calculateWrite(dsg, () -> referenceGraph.store(dsg, B, b));
+
+        assertEquals(1, deduplicated);
+        Txn.executeRead(dsg, () -> {
+            assertTrue(dsg.contains(ReferenceGraph.GRAPH, PROVIDER, NAME, literal("Provider")));
+            assertFalse(dsg.contains(A, PROVIDER, NAME, literal("Provider")));
+            assertFalse(dsg.contains(B, PROVIDER, NAME, literal("Provider")));
+            assertTrue(ReferenceGraph.expand(dsg, A).isIsomorphicWith(a));
+            assertTrue(ReferenceGraph.expand(dsg, B).isIsomorphicWith(b));
+        });
+    }
+
+    @Test
+    void releasedOfferingLeavesTheOthersWhole() {
+        Graph a = offering(A, "A");
+        store(A, a);
+        store(B, offering(B, "B"));
+
+        Txn.executeWrite(dsg, () -> {
+            referenceGraph.release(dsg, B);
+            dsg.removeGraph(B);
+        });
+        Txn.executeRead(dsg, () -> {
+            // still used by A
+            assertTrue(dsg.contains(ReferenceGraph.GRAPH, PROVIDER, NAME, literal("Provider")));
+            assertTrue(ReferenceGraph.expand(dsg, A).isIsomorphicWith(a));
+        });
+
+        Txn.executeWrite(dsg, () -> {
+            referenceGraph.release(dsg, A);
+            dsg.removeGraph(A);
+        });
+        Txn.executeRead(dsg, () -> assertTrue(dsg.getGraph(ReferenceGraph.GRAPH).isEmpty()));
+    }
+
+    @Test
+    void statementReachedThroughABlankNodeIsExpandedBack() {
+        // A reaches the provider through a blank node, B directly
+        Graph a = GraphFactory.createDefaultGraph();
+        Node publisher = NodeFactory.createBlankNode();
+        a.add(A, TITLE, literal("A"));
+        a.add(A, PUBLISHER, publisher);
+        a.add(publisher, AGENT, PROVIDER);
+        a.add(PROVIDER, NAME, literal("Provider"));
+        Graph b = offering(B, "B");
+        store(A, a);
+        store(B, b);
+
+        Txn.executeRead(dsg, () -> {
+            assertFalse(dsg.contains(A, PROVIDER, NAME, literal("Provider")));
+            assertTrue(ReferenceGraph.expand(dsg, A).isIsomorphicWith(a));
+            assertTrue(ReferenceGraph.expand(dsg, B).isIsomorphicWith(b));
+        });
+    }
+
+    @Test
+    void statementNotReachableInTheOtherGraphStaysThere() {
+        Graph a = GraphFactory.createDefaultGraph();
+        a.add(A, TITLE, literal("A"));
+        // not linked from A
+        a.add(PROVIDER, NAME, literal("Provider"));
+        Graph b = offering(B, "B");
+        store(A, a);
+        store(B, b);
+
+        Txn.executeRead(dsg, () -> {
+            assertTrue(dsg.contains(A, PROVIDER, NAME, literal("Provider")));
+            assertTrue(ReferenceGraph.expand(dsg, A).isIsomorphicWith(a));
+            assertTrue(ReferenceGraph.expand(dsg, B).isIsomorphicWith(b));
+        });
+    }
+
+    private void store(Node graphName, Graph offering) {
+        Txn.executeWrite(dsg, () -> referenceGraph.store(dsg, graphName, offering));
+    }
+
+    private static Graph offering(Node graphName, String title) {
+        Graph graph = GraphFactory.createDefaultGraph();
+        graph.add(graphName, TITLE, literal(title));
+        graph.add(graphName, PUBLISHER, PROVIDER);
+        graph.add(PROVIDER, NAME, literal("Provider"));
+        return graph;
+    }
+
+    private static Node uri(String localName) {
+        return NodeFactory.createURI(EX + localName);
+    }
+
+    private static Node literal(String value) {
+        return NodeFactory.createLiteralString(value);
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * SEDIMARK Catalogue Server
+ *
+ * Copyright (C) 2025 Tarek Elsaleh
+ *
+ * This program is licensed under the European Union Public License (EUPL) v1.2.
+ * You may obtain a copy of the License at:
+ * https://joinup.ec.europa.eu/collection/eupl/eupl-text-eupl-12
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package eu.sedimark.catalogue.storage;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+
+class RegionTreeTest {
+    private static final double[] WORLD_MIN = { -180, -90 };
+    private static final double[] WORLD_MAX = { 180, 90 };
+
+    @Test
+    void searchFindsTheSameBoxesAsAScan() {
+        RegionTree tree = new RegionTree(WORLD_MIN, WORLD_MAX, 12);
+        Map<String, double[][]> boxes = new HashMap<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 2000; i++) {
+            // Mostly small boxes, some points and some large ones that stay high up the tree
+            double size = i % 10 == 0 ? 0 : i % 50 == 1 ? 120 : random.nextDouble() * 5;
+            double[][] box = randomBox(random, size);
+            boxes.put("box" + i, box);
+            tree.add("box" + i, box[0], box[1]);
+        }
+        for (int i = 0; i < 500; i += 3) {
+            tree.remove("box" + i);
+            boxes.remove("box" + i);
+        }
+        assertEquals(boxes.size(), tree.size());
+
+        for (int q = 0; q < 300; q++) {
+            double[][] query = randomBox(random, q % 3 == 0 ? 0 : random.nextDouble() * 30);
+            assertEquals(scan(boxes, query), search(tree, query), "query " + q);
+        }
+    }
+
+    @Test
+    void boxesOnCellBoundariesAreFound() {
+        RegionTree tree = new RegionTree(WORLD_MIN, WORLD_MAX, 8);
+        tree.add("meridian", new double[] { -1, -1 }, new double[] { 1, 1 });
+        tree.add("corner", new double[] { 89.9, 44.9 }, new double[] { 90.1, 45.1 });
+        tree.add("point", new double[] { 90, 45 }, new double[] { 90, 45 });
+
+        assertEquals(Set.of("meridian"), search(tree, new double[][] { { 0.5, 0.5 }, { 0.5, 0.5 } }));
+        assertEquals(Set.of("corner", "point"), search(tree, new double[][] { { 90, 45 }, { 91, 46 } }));
+        assertEquals(Set.of(), search(tree, new double[][] { { 90.2, 45.2 }, { 91, 46 } }));
+    }
+
+    @Test
+    void boxesOutsideTheDomainAreClampedAndKeysHaveSeveralBoxes() {
+        RegionTree tree = new RegionTree(new double[] { 0 }, new double[] { 100 }, 10);
+        tree.add("late", new double[] { 90 }, new double[] { 250 });
+        tree.add("twice", new double[] { 10 }, new double[] { 11 });
+        tree.add("twice", new double[] { 60 }, new double[] { 61 });
+
+        assertEquals(Set.of("late"), search(tree, new double[][] { { 100 }, { 100 } }));
+        assertEquals(Set.of("twice"), search(tree, new double[][] { { 55 }, { 65 } }));
+        assertEquals(2, tree.size());
+
+        tree.remove("twice");
+        assertEquals(Set.of("late"), search(tree, new double[][] { { 0 }, { 100 } }));
+        assertEquals(1, tree.size());
+    }
+
+    private static double[][] randomBox(Random random, double size) {
+        double[] min = new double[2];
+        double[] max = new double[2];
+        for (int d = 0; d < 2; d++) {
+            double extent = Math.min(size, WORLD_MAX[d] - WORLD_MIN[d]);
+            min[d] = WORLD_MIN[d] + random.nextDouble() * (WORLD_MAX[d] - WORLD_MIN[d] - extent);
+            max[d] = min[d] + extent;
+        }
+        return new double[][] { min, max };
+    }
+
+    private static Set<String> search(RegionTree tree, double[][] query) {
+        Set<String> found = new TreeSet<>();
+        tree.search(query[0], query[1], found::add);
+        return found;
+    }
+
+    private static Set<String> scan(Map<String, double[][]> boxes, double[][] query) {
+        List<String> found = new ArrayList<>();
+        boxes.forEach((key, box) -> {
+            for (int d = 0; d < query[0].length; d++) {
+                if (box[1][d] < query[0][d] || box[0][d] > query[1][d]) {
+                    return;
+                }
+            }
+            found.add(key);
+        });
+        return new TreeSet<>(found);
+    }
+}
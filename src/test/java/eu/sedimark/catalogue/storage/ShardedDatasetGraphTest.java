@@ -0,0 +1,366 @@
+/*
+ * SEDIMARK Catalogue Server
+ *
+ * Copyright (C) 2025 Tarek Elsaleh
+ *
+ * This program is licensed under the European Union Public License (EUPL) v1.2.
+ * You may obtain a copy of the License at:
+ * https://joinup.ec.europa.eu/collection/eupl/eupl-text-eupl-12
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.sedimark.catalogue.storage;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.apache.jena.atlas.iterator.Iter;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.query.ReadWrite;
+import org.apache.jena.sparql.JenaTransactionException;
+import org.apache.jena.sparql.core.DatasetGraph;
+import org.apache.jena.sparql.core.DatasetGraphFactory;
+import org.apache.jena.sparql.core.DatasetGraphWrapper;
+import org.apache.jena.sparql.core.Quad;
+import org.apache.jena.system.Txn;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import eu.sedimark.catalogue.utils.SystemGraphs;
+
+class ShardedDatasetGraphTest {
+    private static final Node P = NodeFactory.createURI("http://example.org/p");
+
+    private static final Node INDEX = NodeFactory.createURI(SystemGraphs.INDEX);
+
+    @TempDir
+    Path directory;
+
+    private ShardedDatasetGraph dsg;
+
+    @BeforeEach
+    void setUp() {
+        dsg = ShardedDatasetGraph.createInMemory(4);
+    }
+
+    @AfterEach
+    void tearDown() {
+        dsg.close();
+    }
+
+    @Test
+    void writeCommitsEveryTouchedShard() {
+        Node a = graph(0);
+        Node b = graph(1);
+        Txn.executeWrite(dsg, () -> {
+            dsg.add(a, a, P, literal(1));
+            dsg.add(b, b, P, literal(2));
+            // the transaction reads its own writes
+            assertTrue(dsg.contains(a, a, P, literal(1)));
+        });
+
+        Txn.executeRead(dsg, () -> {
+            assertTrue(dsg.contains(a, a, P, literal(1)));
+            assertTrue(dsg.contains(b, b, P, literal(2)));
+            assertEquals(2, Iter.count(dsg.listGraphNodes()));
+        });
+    }
+
+    @Test
+    void abortDiscardsEveryTouchedShard() {
+        Node a = graph(0);
+        Node b = graph(1);
+        dsg.begin(ReadWrite.WRITE);
+        dsg.add(a, a, P, literal(1));
+        dsg.add(b, b, P, literal(2));
+        dsg.abort();
+        dsg.end();
+
+        Txn.executeRead(dsg, () -> assertTrue(dsg.isEmpty()));
+    }
+
+    @Test
+    void writersOfDifferentShardsRunConcurrently() throws Exception {
+        Node a = graph(0);
+        Node b = graph(1);
+        CountDownLatch holding = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<?> first = executor.submit(() -> Txn.executeWrite(dsg, () -> {
+                dsg.add(a, a, P, literal(1));
+                holding.countDown();
+                await(release);
+            }));
+            assertTrue(holding.await(10, TimeUnit.SECONDS));
+
+            // commits while the other writer still holds its shard
+            Txn.executeWrite(dsg, () -> dsg.add(b, b, P, literal(2)));
+            Txn.executeRead(dsg, () -> {
+                assertTrue(dsg.contains(b, b, P, literal(2)));
+                assertFalse(dsg.contains(a, a, P, literal(1)));
+            });
+
+            release.countDown();
+            first.get(10, TimeUnit.SECONDS);
+            Txn.executeRead(dsg, () -> assertTrue(dsg.contains(a, a, P, literal(1))));
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void scanAcrossShardsReturnsEveryQuad() {
+        int count = 2000;
+        Txn.executeWrite(dsg, () -> {
+            for (int i = 0; i < count; i++) {
+                Node g = NodeFactory.createURI("http://example.org/graph_" + i);
+                dsg.add(g, g, P, literal(i));
+            }
+        });
+
+        Txn.executeRead(dsg, () -> {
+            assertEquals(count, Iter.count(dsg.find(Node.ANY, Node.ANY, P, Node.ANY)));
+            assertEquals(count, Iter.count(dsg.listGraphNodes()));
+        });
+        // outside a transaction each shard is read in its own
+        assertEquals(count, Iter.count(dsg.findNG(Node.ANY, Node.ANY, P, Node.ANY)));
+    }
+
+    @Test
+    void scatterThrowsTheFailureOfAShard() {
+        DatasetGraph[] shards = { DatasetGraphFactory.createTxnMem(), DatasetGraphFactory.createTxnMem() };
+        Node g = NodeFactory.createURI("http://example.org/graph");
+        Txn.executeWrite(shards[0], () -> {
+            for (int i = 0; i < 1000; i++) {
+                shards[0].add(g, g, P, literal(i));
+            }
+        });
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+        ScatterIterator<Quad> quads = new ScatterIterator<>(shards, shard -> {
+            if (shard == shards[1]) {
+                throw new IllegalStateException("shard failed");
+            }
+            return shard.find();
+        }, executor);
+        try {
+            IllegalStateException e = assertThrows(IllegalStateException.class, () -> {
+                while (quads.hasNext()) {
+                    quads.next();
+                }
+            });
+            assertEquals("shard failed", e.getMessage());
+        } finally {
+            quads.close();
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void closingTheScatterEarlyStopsTheWorkers() throws Exception {
+        Txn.executeWrite(dsg, () -> {
+            for (int i = 0; i < 10_000; i++) {
+                Node g = NodeFactory.createURI("http://example.org/graph_" + i);
+                dsg.add(g, g, P, literal(i));
+            }
+        });
+        dsg.begin(ReadWrite.READ);
+        try {
+            Iterator<Quad> quads = dsg.find();
+            List<Quad> first = new ArrayList<>();
+            for (int i = 0; i < 10 && quads.hasNext(); i++) {
+                first.add(quads.next());
+            }
+            assertEquals(10, first.size());
+            Iter.close(quads);
+            assertFalse(quads.hasNext());
+        } finally {
+            dsg.end();
+        }
+        // the shards are not left in a transaction: a writer gets them all
+        Txn.executeWrite(dsg, () -> dsg.deleteAny(Node.ANY, Node.ANY, Node.ANY, Node.ANY));
+        Txn.executeRead(dsg, () -> assertTrue(dsg.isEmpty()));
+    }
+
+    @Test
+    void systemGraphsAreOnShardZero() {
+        for (String graph : List.of(SystemGraphs.INDEX, SystemGraphs.REPLICATION, SystemGraphs.SHARED,
+                SystemGraphs.REFERENCE, SystemGraphs.REFCOUNTS, SystemGraphs.VALIDATION)) {
+            assertEquals(0, dsg.shardOf(NodeFactory.createURI(graph)), graph);
+        }
+    }
+
+    @Test
+    void writersOfSystemGraphsDoNotTimeOut() throws Exception {
+        dsg.setWritesSystemGraphs(true);
+        // each writer takes its offering's shard, then the index on shard 0
+        Node[] offerings = { graph(3), graph(2), graph(1) };
+        ExecutorService executor = Executors.newFixedThreadPool(offerings.length);
+        try {
+            List<Future<?>> writers = new ArrayList<>();
+            for (Node offering : offerings) {
+                writers.add(executor.submit(() -> {
+                    for (int i = 0; i < 50; i++) {
+                        int n = i;
+                        Txn.executeWrite(dsg, () -> {
+                            dsg.add(offering, offering, P, literal(n));
+                            dsg.add(INDEX, offering, P, literal(n));
+                        });
+                    }
+                }));
+            }
+            for (Future<?> writer : writers) {
+                writer.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        Txn.executeRead(dsg, () -> assertEquals(150, Iter.count(dsg.find(INDEX, Node.ANY, P, Node.ANY))));
+    }
+
+    @Test
+    void shardFailingToCommitIsCaughtUpFromTheJournal() {
+        DatasetGraph[] stores = { DatasetGraphFactory.createTxnMem(), DatasetGraphFactory.createTxnMem() };
+        FailingCommit failing = new FailingCommit(stores[1], 1);
+        ShardedDatasetGraph sharded = new ShardedDatasetGraph(new DatasetGraph[] { stores[0], failing },
+                directory.resolve(ShardedDatasetGraph.JOURNAL));
+        sharded.setWritesSystemGraphs(true);
+        Node offering = graph(sharded, 1);
+
+        Txn.executeWrite(sharded, () -> {
+            sharded.add(offering, offering, P, literal(1));
+            sharded.add(INDEX, offering, P, literal(1));
+        });
+
+        assertEquals(0, failing.failures);
+        Txn.executeRead(sharded, () -> {
+            assertTrue(sharded.contains(offering, offering, P, literal(1)));
+            assertTrue(sharded.contains(INDEX, offering, P, literal(1)));
+        });
+        assertFalse(Files.exists(directory.resolve(ShardedDatasetGraph.JOURNAL)));
+    }
+
+    @Test
+    void transactionCommittedOnShardZeroIsCompletedAfterARestart() throws Exception {
+        DatasetGraph[] stores = { DatasetGraphFactory.createTxnMem(), DatasetGraphFactory.createTxnMem() };
+        Path journal = directory.resolve(ShardedDatasetGraph.JOURNAL);
+        // shard 1 cannot commit, nor be caught up: as if the process stopped after shard 0 committed
+        ShardedDatasetGraph sharded = new ShardedDatasetGraph(
+                new DatasetGraph[] { stores[0], new FailingCommit(stores[1], Integer.MAX_VALUE) }, journal);
+        sharded.setWritesSystemGraphs(true);
+        Node offering = graph(sharded, 1);
+
+        assertThrows(JenaTransactionException.class, () -> Txn.executeWrite(sharded, () -> {
+            sharded.add(offering, offering, P, literal(1));
+            sharded.add(INDEX, offering, P, literal(1));
+        }));
+        // writes are refused until the restart
+        assertThrows(JenaTransactionException.class, () -> sharded.begin(ReadWrite.WRITE));
+        assertTrue(Files.exists(journal));
+
+        ShardedDatasetGraph restarted = new ShardedDatasetGraph(stores, journal);
+        restarted.recover();
+
+        Txn.executeRead(restarted, () -> {
+            assertTrue(restarted.contains(offering, offering, P, literal(1)));
+            assertTrue(restarted.contains(INDEX, offering, P, literal(1)));
+        });
+        assertFalse(Files.exists(journal));
+    }
+
+    @Test
+    void journalOfATransactionThatDidNotCommitIsDropped() throws Exception {
+        DatasetGraph[] stores = { DatasetGraphFactory.createTxnMem(), DatasetGraphFactory.createTxnMem() };
+        Path journal = directory.resolve(ShardedDatasetGraph.JOURNAL);
+        Node offering = NodeFactory.createURI("http://example.org/offering");
+        Files.writeString(journal, "H id <uuid:not-committed> .\nA <" + offering.getURI() + "> <" + P.getURI()
+                + "> \"1\" <" + offering.getURI() + "> .\n");
+
+        ShardedDatasetGraph restarted = new ShardedDatasetGraph(stores, journal);
+        restarted.recover();
+
+        Txn.executeRead(restarted, () -> assertTrue(restarted.isEmpty()));
+        assertFalse(Files.exists(journal));
+    }
+
+    @Test
+    void tdb2StoreKeepsItsLayout() throws Exception {
+        Path location = directory.resolve("store");
+        ShardedDatasetGraph.connectTDB2(location, 3).close();
+        Files.writeString(location.resolve(ShardedDatasetGraph.MANIFEST), "shards=3\nhash=fnv1a-32\n");
+
+        // a store of the earlier layout hashed the system graphs like offerings
+        assertThrows(IllegalStateException.class, () -> ShardedDatasetGraph.connectTDB2(location, 0));
+    }
+
+    /**
+     * A graph name stored on the given shard
+     */
+    private Node graph(int shard) {
+        return graph(dsg, shard);
+    }
+
+    private static Node graph(ShardedDatasetGraph store, int shard) {
+        for (int i = 0;; i++) {
+            Node g = NodeFactory.createURI("http://example.org/offering_" + i);
+            if (store.shardOf(g) == shard) {
+                return g;
+            }
+        }
+    }
+
+    private static Node literal(int value) {
+        return NodeFactory.createLiteralString(Integer.toString(value));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * A shard whose commits fail a number of times
+     */
+    private static class FailingCommit extends DatasetGraphWrapper {
+        int failures;
+
+        FailingCommit(DatasetGraph shard, int failures) {
+            super(shard);
+            this.failures = failures;
+        }
+
+        @Override
+        public void commit() {
+            if (failures > 0) {
+                failures--;
+                throw new JenaTransactionException("Disk full");
+            }
+            super.commit();
+        }
+    }
+}
@@ -0,0 +1,167 @@
+/*
+ * SEDIMARK Catalogue Server
+ *
+ * Copyright (C) 2025 Tarek Elsaleh
+ *
+ * This program is licensed under the European Union Public License (EUPL) v1.2.
+ * You may obtain a copy of the License at:
+ * https://joinup.ec.europa.eu/collection/eupl/eupl-text-eupl-12
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package eu.sedimark.catalogue.storage;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import eu.sedimark.catalogue.storage.VectorGraph.Neighbour;
+
+class VectorGraphTest {
+    private static final int DIMENSIONS = OfferingEmbedding.DIMENSIONS;
+    private static final int NEIGHBOURS = 10;
+
+    private final Random random = new Random(7);
+
+    @Test
+    void nearestFindsMostOfTheExactNeighbours() {
+        VectorGraph graph = new VectorGraph(DIMENSIONS, 16, 100);
+        Map<String, byte[]> vectors = clusteredVectors(2000, 250);
+        vectors.forEach(graph::add);
+
+        double recall = recall(graph, vectors, 200);
+        assertTrue(recall >= 0.9, "recall " + recall);
+    }
+
+    @Test
+    void neighboursAreSortedWithTheirExactSimilarity() {
+        VectorGraph graph = new VectorGraph(DIMENSIONS, 16, 100);
+        Map<String, byte[]> vectors = clusteredVectors(500, 20);
+        vectors.forEach(graph::add);
+
+        List<Neighbour> neighbours = graph.nearest("v0", NEIGHBOURS, 50);
+        assertEquals(NEIGHBOURS, neighbours.size());
+        for (int i = 0; i < neighbours.size(); i++) {
+            Neighbour neighbour = neighbours.get(i);
+            assertFalse(neighbour.key().equals("v0"), "a key is not its own neighbour");
+            assertEquals(cosine(vectors.get("v0"), vectors.get(neighbour.key())), neighbour.similarity(), 1e-4);
+            if (i > 0) {
+                assertTrue(neighbours.get(i - 1).similarity() >= neighbour.similarity());
+            }
+        }
+        assertNull(graph.nearest("unknown", NEIGHBOURS, 50));
+    }
+
+    @Test
+    void removedKeysAreNotFoundAndRecallSurvivesCompaction() {
+        VectorGraph graph = new VectorGraph(DIMENSIONS, 16, 100);
+        Map<String, byte[]> vectors = clusteredVectors(2000, 250);
+        vectors.forEach(graph::add);
+
+        // Removing more than half rebuilds the graph from the remaining nodes
+        Set<String> removed = new HashSet<>();
+        for (int i = 0; i < 1200; i++) {
+            graph.remove("v" + i);
+            removed.add("v" + i);
+            vectors.remove("v" + i);
+        }
+        assertEquals(800, graph.size());
+        for (String key : vectors.keySet()) {
+            for (Neighbour neighbour : graph.nearest(key, NEIGHBOURS, 50)) {
+                assertFalse(removed.contains(neighbour.key()), neighbour.key() + " was removed");
+            }
+        }
+        double recall = recall(graph, vectors, 100);
+        assertTrue(recall >= 0.9, "recall " + recall);
+
+        // Adding a key again replaces its vector
+        graph.add("v1999", vectors.get("v1998"));
+        assertEquals("v1998", graph.nearest("v1999", 1, 50).get(0).key());
+    }
+
+    /**
+     * Fraction of the exact nearest neighbours of sample keys that the graph finds
+     */
+    private static double recall(VectorGraph graph, Map<String, byte[]> vectors, int samples) {
+        List<String> keys = new ArrayList<>(vectors.keySet());
+        int found = 0;
+        for (int s = 0; s < samples; s++) {
+            String key = keys.get(s * keys.size() / samples);
+            Set<String> exact = new HashSet<>(exactNearest(vectors, key));
+            for (Neighbour neighbour : graph.nearest(key, NEIGHBOURS, 64)) {
+                if (exact.contains(neighbour.key())) {
+                    found++;
+                }
+            }
+        }
+        return (double) found / (samples * NEIGHBOURS);
+    }
+
+    private static List<String> exactNearest(Map<String, byte[]> vectors, String key) {
+        byte[] query = vectors.get(key);
+        Map<String, Double> similarities = new HashMap<>();
+        vectors.forEach((other, vector) -> {
+            if (!other.equals(key)) {
+                similarities.put(other, cosine(query, vector));
+            }
+        });
+        return similarities.entrySet().stream()
+                .sorted(Map.Entry.<String, Double>comparingByValue(Comparator.reverseOrder()))
+                .limit(NEIGHBOURS).map(Map.Entry::getKey).toList();
+    }
+
+    /**
+     * Vectors scattered around a number of centres, as descriptions of related
+     * offerings share most of their words
+     */
+    private Map<String, byte[]> clusteredVectors(int count, int clusters) {
+        float[][] centres = new float[clusters][DIMENSIONS];
+        for (float[] centre : centres) {
+            for (int d = 0; d < DIMENSIONS; d++) {
+                centre[d] = (float) random.nextGaussian();
+            }
+        }
+        Map<String, byte[]> vectors = new LinkedHashMap<>();
+        for (int i = 0; i < count; i++) {
+            float[] centre = centres[random.nextInt(clusters)];
+            byte[] vector = new byte[DIMENSIONS];
+            for (int d = 0; d < DIMENSIONS; d++) {
+                double value = 40 * (centre[d] + random.nextGaussian());
+                vector[d] = (byte) Math.max(-127, Math.min(127, Math.round(value)));
+            }
+            vectors.put("v" + i, vector);
+        }
+        return vectors;
+    }
+
+    private static double cosine(byte[] a, byte[] b) {
+        long dot = 0;
+        long normA = 0;
+        long normB = 0;
+        for (int i = 0; i < a.length; i++) {
+            dot += a[i] * b[i];
+            normA += a[i] * a[i];
+            normB += b[i] * b[i];
+        }
+        return dot / Math.sqrt((double) normA * normB);
+    }
+}
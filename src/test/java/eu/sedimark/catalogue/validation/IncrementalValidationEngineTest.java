@@ -0,0 +1,118 @@
+/*
+ * SEDIMARK Catalogue Server
+ *
+ * Copyright (C) 2025 Tarek Elsaleh
+ *
+ * This program is licensed under the European Union Public License (EUPL) v1.2.
+ * You may obtain a copy of the License at:
+ * https://joinup.ec.europa.eu/collection/eupl/eupl-text-eupl-12
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package eu.sedimark.catalogue.validation;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.apache.jena.query.DatasetFactory;
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.ModelFactory;
+import org.apache.jena.rdf.model.Resource;
+import org.apache.jena.riot.Lang;
+import org.apache.jena.riot.RDFParser;
+import org.apache.jena.shacl.Shapes;
+import org.apache.jena.vocabulary.RDF;
+import org.junit.jupiter.api.Test;
+
+import eu.sedimark.catalogue.handlers.OfferingGSPHandler.NamedSubgraph;
+import eu.sedimark.catalogue.validation.IncrementalValidationEngine.OfferingStatus;
+import eu.sedimark.catalogue.validation.IncrementalValidationEngine.ResultRow;
+
+import java.util.List;
+
+class IncrementalValidationEngineTest {
+    private static final String EX = "http://example.org/";
+    private static final String OFFERING = EX + "offering";
+
+    private static final String SHAPES = """
+            @prefix sh: <http://www.w3.org/ns/shacl#> .
+            @prefix ex: <http://example.org/> .
+
+            ex:NamedShape a sh:NodeShape ;
+                sh:targetClass ex:Thing ;
+                sh:property [ sh:path ex:name ; sh:minCount 1 ] .
+
+            ex:UniqueCodeShape a sh:NodeShape ;
+                sh:targetClass ex:Thing ;
+                sh:sparql [
+                    sh:message "Code used by another thing" ;
+                    sh:select \"""
+                        SELECT $this WHERE {
+                            $this <http://example.org/code> ?code .
+                            ?other <http://example.org/code> ?code .
+                            FILTER (?other != $this)
+                        }\"""
+                ] .
+            """;
+
+    private final IncrementalValidationEngine engine = new IncrementalValidationEngine(DatasetFactory.createTxnMem(),
+            new OfferingValidator(Shapes.parse(RDFParser.fromString(SHAPES, Lang.TURTLE).toGraph())), 1);
+
+    @Test
+    void unchangedFocusNodesKeepTheirResults() {
+        engine.start();
+        engine.offeringsStored(List.of(offering(thing("a", null, "1"), thing("b", null, "2"))));
+        // Only a changes: it gets a name, b keeps its violation without being checked again
+        engine.offeringsStored(List.of(offering(thing("a", "A", "1"), thing("b", null, "2"))));
+        engine.stop(10_000);
+
+        OfferingStatus status = engine.getStatus(OFFERING);
+        assertEquals("incremental", status.getMode());
+        assertEquals(4, status.getTotalPairs());
+        assertTrue(status.getCheckedPairs() < status.getTotalPairs(), "pairs of b were checked again");
+        assertEquals(List.of(EX + "b"), focusNodes(status));
+    }
+
+    @Test
+    void graphWideShapesAreCheckedForEveryFocusNode() {
+        engine.start();
+        engine.offeringsStored(List.of(offering(thing("a", "A", "1"), thing("b", "B", "2"))));
+        // Only b changes, yet its new code makes a fail the SPARQL shape too
+        engine.offeringsStored(List.of(offering(thing("a", "A", "1"), thing("b", "B", "1"))));
+        engine.stop(10_000);
+
+        OfferingStatus status = engine.getStatus(OFFERING);
+        assertEquals("incremental", status.getMode());
+        assertFalse(status.conforms());
+        assertEquals(List.of(EX + "a", EX + "b"), focusNodes(status));
+    }
+
+    private static List<String> focusNodes(OfferingStatus status) {
+        return status.getResults().stream().map(ResultRow::focusNode).sorted().toList();
+    }
+
+    private static NamedSubgraph offering(Model... things) {
+        Model model = ModelFactory.createDefaultModel();
+        for (Model thing : things) {
+            model.add(thing);
+        }
+        return new NamedSubgraph(OFFERING, model);
+    }
+
+    private static Model thing(String localName, String name, String code) {
+        Model model = ModelFactory.createDefaultModel();
+        Resource thing = model.createResource(EX + localName).addProperty(RDF.type, model.createResource(EX + "Thing"))
+                .addProperty(model.createProperty(EX + "code"), code);
+        if (name != null) {
+            thing.addProperty(model.createProperty(EX + "name"), name);
+        }
+        return model;
+    }
+}